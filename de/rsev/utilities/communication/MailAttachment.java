@@ -0,0 +1,61 @@
+package de.rsev.utilities.communication;
+
+import java.nio.file.Path;
+
+/**
+ * <summary>
+ * Beschreibt einen Dateianhang einer E-Mail.
+ *
+ * Der Inhalt wird nicht im Speicher gehalten, sondern erst beim
+ * Versand blockweise aus der Datei gelesen und kodiert.
+ * </summary>
+ */
+public class MailAttachment {
+
+    /** <summary>Pfad der anzuhängenden Datei.</summary> */
+    private String path;
+
+    /** <summary>Dateiname im Anhang, Standard ist der Name der Datei.</summary> */
+    private String fileName;
+
+    /** <summary>MIME-Typ des Anhangs.</summary> */
+    private String contentType = "application/octet-stream";
+
+    public MailAttachment() {}
+
+    public MailAttachment(String path) {
+        this.path = path;
+    }
+
+    public MailAttachment(String path, String contentType) {
+        this.path = path;
+        this.contentType = contentType;
+    }
+
+    /**
+     * <summary>
+     * Gibt den Dateinamen im Anhang zurück; ohne explizite Angabe
+     * der Name der Datei aus dem Pfad.
+     * </summary>
+     */
+    public String getEffectiveFileName() {
+        if (fileName != null && !fileName.isBlank()) return fileName;
+        if (path == null) return "attachment";
+
+        Path name = Path.of(path).getFileName();
+        return name != null ? name.toString() : "attachment";
+    }
+
+    /* -----------------------------
+       Getter / Setter
+       ----------------------------- */
+
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+}
@@ -1,5 +1,9 @@
 package de.rsev.utilities.communication;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 /**
  * <summary>
  * Enthält alle Parameter für den Versand von E-Mails,
@@ -38,15 +42,30 @@ public class MailOptions {
     /** <summary>Der Authentifizierungstyp (z. B. Login, Plain, OAuth).</summary> */
     private String authType = "Login";
 
-    /** <summary>Aktiviert SSL-Verschlüsselung.</summary> */
+    /** <summary>Implizites TLS ab Verbindungsaufbau (SMTPS, meist Port 465); STARTTLS entfällt.</summary> */
     private boolean useSsl = false;
 
     /** <summary>Aktiviert TLS-Verschlüsselung.</summary> */
     private boolean useTls = true;
 
+    /** <summary>Timeout für den Verbindungsaufbau in Millisekunden, 0 = unbegrenzt.</summary> */
+    private int connectTimeoutMillis = 30_000;
+
+    /** <summary>Timeout für jede Serverantwort in Millisekunden (SO_TIMEOUT), 0 = unbegrenzt.</summary> */
+    private int readTimeoutMillis = 60_000;
+
     /** <summary>Versandmethode: SMTP oder SendMail.</summary> */
     private String mailingMethod = "SMTP";
 
+    /** <summary>Dateianhänge, werden beim Versand aus den Dateien gestreamt.</summary> */
+    private List<MailAttachment> attachments = new ArrayList<>();
+
+    /** <summary>Optionales Template für Betreff und Inhalt, ersetzt subject bzw. mailBody.</summary> */
+    private MailTemplate template;
+
+    /** <summary>Werte für die Platzhalter des Templates.</summary> */
+    private Map<String, ?> templateValues;
+
     /* -----------------------------
        Getter / Setter
        ----------------------------- */
@@ -60,10 +79,16 @@ public class MailOptions {
     public String getMailTo() { return mailTo; }
     public void setMailTo(String mailTo) { this.mailTo = mailTo; }
 
-    public String getSubject() { return subject; }
+    /** <summary>Betreff; mit Template wird er bei jedem Aufruf gerendert.</summary> */
+    public String getSubject() {
+        return template != null && template.hasSubject() ? template.renderSubject(templateValues) : subject;
+    }
     public void setSubject(String subject) { this.subject = subject; }
 
-    public String getMailBody() { return mailBody; }
+    /** <summary>Inhalt; mit Template wird er bei jedem Aufruf gerendert.</summary> */
+    public String getMailBody() {
+        return template != null && template.hasBody() ? template.renderBodyText(templateValues) : mailBody;
+    }
     public void setMailBody(String mailBody) { this.mailBody = mailBody; }
 
     public String getSmtpHost() { return smtpHost; }
@@ -84,9 +109,33 @@ public class MailOptions {
     public boolean isUseSsl() { return useSsl; }
     public void setUseSsl(boolean useSsl) { this.useSsl = useSsl; }
 
+    public int getConnectTimeoutMillis() { return connectTimeoutMillis; }
+    public void setConnectTimeoutMillis(int connectTimeoutMillis) { this.connectTimeoutMillis = connectTimeoutMillis; }
+
+    public int getReadTimeoutMillis() { return readTimeoutMillis; }
+    public void setReadTimeoutMillis(int readTimeoutMillis) { this.readTimeoutMillis = readTimeoutMillis; }
+
     public boolean isUseTls() { return useTls; }
     public void setUseTls(boolean useTls) { this.useTls = useTls; }
 
     public String getMailingMethod() { return mailingMethod; }
     public void setMailingMethod(String mailingMethod) { this.mailingMethod = mailingMethod; }
+
+    public List<MailAttachment> getAttachments() { return attachments; }
+    public void setAttachments(List<MailAttachment> attachments) { this.attachments = attachments; }
+
+    public void addAttachment(MailAttachment attachment) { this.attachments.add(attachment); }
+
+    public MailTemplate getTemplate() { return template; }
+    public Map<String, ?> getTemplateValues() { return templateValues; }
+
+    /**
+     * <summary>
+     * Setzt Template und Werte, siehe MailTemplate.apply(); null entfernt das Template.
+     * </summary>
+     */
+    public void setTemplate(MailTemplate template, Map<String, ?> values) {
+        this.template = template;
+        this.templateValues = values;
+    }
 }
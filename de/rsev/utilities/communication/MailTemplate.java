@@ -0,0 +1,370 @@
+package de.rsev.utilities.communication;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <summary>
+ * Vorkompiliertes Template für Betreff und Inhalt einer Mail mit
+ * Platzhaltern der Form ${name}; "$${" ergibt ein literales "${".
+ *
+ * Die Templates werden einmal in eine Liste aus Text- und
+ * Platzhalter-Segmenten zerlegt. Textsegmente des Inhalts liegen
+ * bereits als UTF-8 mit CRLF vor, sodass beim Rendern nur die Werte
+ * kodiert werden, in einen je Thread wiederverwendeten Puffer; pro
+ * Mail entsteht nur das Ergebnis-Array. Werte im Betreff werden auf
+ * eine Zeile gebracht (CR/LF werden zu Leerzeichen), die
+ * Header-Kodierung übernimmt MimeMessage.
+ *
+ * Verwendung:
+ * MailTemplate template = MailTemplate.compile("Störung auf ${host}", body);
+ * template.apply(options, Map.of("host", host, "code", code));
+ *
+ * Instanzen sind unveränderlich und threadsicher.
+ * </summary>
+ */
+public final class MailTemplate {
+
+    /** <summary>Größere Puffer werden nach dem Rendern nicht im Thread behalten.</summary> */
+    private static final int MAX_RETAINED_BUFFER = 256 * 1024;
+
+    private static final ThreadLocal<RenderBuffer> BYTES = ThreadLocal.withInitial(RenderBuffer::new);
+    private static final ThreadLocal<StringBuilder> CHARS = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String[] variables;
+    private final Segments subject;
+    private final Segments body;
+
+    private MailTemplate(String subject, String body) {
+        List<String> names = new ArrayList<>();
+        this.subject = subject != null ? Segments.parse(subject, names) : null;
+        this.body = body != null ? Segments.parse(body, names) : null;
+        this.variables = names.toArray(new String[0]);
+    }
+
+    /**
+     * <summary>
+     * Kompiliert Betreff und Inhalt; null übernimmt den jeweiligen
+     * Wert aus den MailOptions.
+     * </summary>
+     */
+    public static MailTemplate compile(String subject, String body) {
+        return new MailTemplate(subject, body);
+    }
+
+    /* -----------------------------
+       Rendering
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Setzt das Template mit den Werten in den MailOptions; Betreff und
+     * Inhalt werden erst beim Versand gerendert.
+     * </summary>
+     */
+    public MailOptions apply(MailOptions opt, Map<String, ?> values) {
+        opt.setTemplate(this, values);
+        return opt;
+    }
+
+    /**
+     * <summary>
+     * Rendert den Betreff als einzeiligen Text, null ohne Betreff-Template.
+     * </summary>
+     */
+    public String renderSubject(Map<String, ?> values) {
+        return subject != null ? renderText(subject, values, true) : null;
+    }
+
+    /**
+     * <summary>
+     * Rendert den Inhalt als Text, z. B. für Spool oder Digest;
+     * null ohne Inhalts-Template.
+     * </summary>
+     */
+    public String renderBodyText(Map<String, ?> values) {
+        return body != null ? renderText(body, values, false) : null;
+    }
+
+    /**
+     * <summary>
+     * Rendert den Inhalt als UTF-8 mit CRLF als Zeilenende, wie ihn
+     * MimeMessage sendet; null ohne Inhalts-Template.
+     * </summary>
+     */
+    public byte[] renderBody(Map<String, ?> values) {
+        if (body == null) return null;
+
+        RenderBuffer buffer = BYTES.get();
+        buffer.length = 0;
+
+        for (int i = 0; i < body.slots.length; i++) {
+            int slot = body.slots[i];
+
+            if (slot < 0) buffer.write(body.bytes[i]);
+            else buffer.value(value(values, slot));
+        }
+
+        byte[] result = Arrays.copyOf(buffer.data, buffer.length);
+
+        if (buffer.data.length > MAX_RETAINED_BUFFER)
+            BYTES.remove();
+
+        return result;
+    }
+
+    /* -----------------------------
+       Accessor Methods
+       ----------------------------- */
+
+    /** <summary>Namen aller Platzhalter in der Reihenfolge ihres ersten Auftretens.</summary> */
+    public List<String> getVariables() {
+        return Collections.unmodifiableList(Arrays.asList(variables));
+    }
+
+    public boolean hasSubject() {
+        return subject != null;
+    }
+
+    public boolean hasBody() {
+        return body != null;
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private String renderText(Segments segments, Map<String, ?> values, boolean singleLine) {
+        StringBuilder sb = CHARS.get();
+        sb.setLength(0);
+
+        for (int i = 0; i < segments.slots.length; i++) {
+            int slot = segments.slots[i];
+
+            if (slot >= 0) {
+                appendValue(sb, value(values, slot), singleLine);
+            } else if (singleLine) {
+                appendSingleLine(sb, segments.text[i]);
+            } else {
+                sb.append(segments.text[i]);
+            }
+        }
+
+        String result = sb.toString();
+
+        if (sb.capacity() > MAX_RETAINED_BUFFER)
+            CHARS.remove();
+
+        return result;
+    }
+
+    private Object value(Map<String, ?> values, int slot) {
+        String name = variables[slot];
+        Object value = values != null ? values.get(name) : null;
+
+        if (value == null && (values == null || !values.containsKey(name)))
+            throw new IllegalArgumentException("Kein Wert für Platzhalter: ${" + name + "}");
+
+        return value;
+    }
+
+    private static void appendValue(StringBuilder sb, Object value, boolean singleLine) {
+        if (value == null) return;
+
+        if (!singleLine) {
+            if (value instanceof CharSequence text) sb.append(text);
+            else sb.append(value);
+            return;
+        }
+
+        appendSingleLine(sb, value instanceof CharSequence text ? text : String.valueOf(value));
+    }
+
+    private static void appendSingleLine(StringBuilder sb, CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n')
+                continue;
+
+            sb.append(c == '\r' || c == '\n' ? ' ' : c);
+        }
+    }
+
+    /**
+     * <summary>
+     * Kompilierte Segmente: slots[i] ist der Index des Platzhalters oder
+     * -1 für Text; text[i] enthält den Text, bytes[i] ihn als UTF-8 mit CRLF.
+     * </summary>
+     */
+    private static final class Segments {
+
+        final int[] slots;
+        final String[] text;
+        final byte[][] bytes;
+
+        private Segments(int[] slots, String[] text, byte[][] bytes) {
+            this.slots = slots;
+            this.text = text;
+            this.bytes = bytes;
+        }
+
+        static Segments parse(String source, List<String> names) {
+            List<Integer> slots = new ArrayList<>();
+            List<String> text = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            int i = 0;
+
+            while (i < source.length()) {
+                char c = source.charAt(i);
+
+                if (c == '$' && source.startsWith("$${", i)) {
+                    literal.append("${");
+                    i += 3;
+                    continue;
+                }
+
+                if (c != '$' || !source.startsWith("${", i)) {
+                    literal.append(c);
+                    i++;
+                    continue;
+                }
+
+                int end = source.indexOf('}', i + 2);
+                if (end < 0)
+                    throw new IllegalArgumentException("Platzhalter ohne '}' an Position " + i);
+
+                String name = source.substring(i + 2, end);
+                if (!name.matches("[A-Za-z0-9_.-]+"))
+                    throw new IllegalArgumentException("Ungültiger Platzhalter: ${" + name + "}");
+
+                if (literal.length() > 0) {
+                    slots.add(-1);
+                    text.add(literal.toString());
+                    literal.setLength(0);
+                }
+
+                int slot = names.indexOf(name);
+                if (slot < 0) {
+                    slot = names.size();
+                    names.add(name);
+                }
+
+                slots.add(slot);
+                text.add(null);
+                i = end + 1;
+            }
+
+            if (literal.length() > 0) {
+                slots.add(-1);
+                text.add(literal.toString());
+            }
+
+            int count = slots.size();
+            int[] slotArray = new int[count];
+            byte[][] bytes = new byte[count][];
+
+            for (int s = 0; s < count; s++) {
+                slotArray[s] = slots.get(s);
+                if (slotArray[s] < 0)
+                    bytes[s] = text.get(s).replaceAll("\r\n|\r|\n", "\r\n").getBytes(StandardCharsets.UTF_8);
+            }
+
+            return new Segments(slotArray, text.toArray(new String[0]), bytes);
+        }
+    }
+
+    /**
+     * <summary>
+     * Wachsender Byte-Puffer, der Werte ohne Zwischen-Strings als UTF-8
+     * mit CRLF kodiert.
+     * </summary>
+     */
+    private static final class RenderBuffer {
+
+        byte[] data = new byte[4096];
+        int length;
+
+        void write(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, data, length, bytes.length);
+            length += bytes.length;
+        }
+
+        void value(Object value) {
+            if (value == null) return;
+
+            if ((value instanceof Integer || value instanceof Long) && ((Number) value).longValue() != Long.MIN_VALUE) {
+                number(((Number) value).longValue());
+                return;
+            }
+
+            text(value instanceof CharSequence text ? text : String.valueOf(value));
+        }
+
+        private void number(long value) {
+            ensure(20);
+
+            if (value < 0) {
+                data[length++] = '-';
+                value = -value;
+            }
+
+            int start = length;
+            do {
+                data[length++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+
+            for (int a = start, b = length - 1; a < b; a++, b--) {
+                byte t = data[a];
+                data[a] = data[b];
+                data[b] = t;
+            }
+        }
+
+        private void text(CharSequence text) {
+            // höchstens 3 Bytes je char (CRLF und Surrogatpaare kommen mit weniger aus)
+            int n = text.length();
+            ensure(n * 3);
+
+            for (int i = 0; i < n; i++) {
+                char c = text.charAt(i);
+
+                if (c < 0x80) {
+                    if (c == '\n' || c == '\r') {
+                        if (c == '\r' && i + 1 < n && text.charAt(i + 1) == '\n') i++;
+                        data[length++] = '\r';
+                        data[length++] = '\n';
+                    } else {
+                        data[length++] = (byte) c;
+                    }
+                } else if (c < 0x800) {
+                    data[length++] = (byte) (0xC0 | c >> 6);
+                    data[length++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, text.charAt(++i));
+                    data[length++] = (byte) (0xF0 | cp >> 18);
+                    data[length++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                    data[length++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                    data[length++] = (byte) (0x80 | cp & 0x3F);
+                } else if (Character.isSurrogate(c)) {
+                    data[length++] = '?';
+                } else {
+                    data[length++] = (byte) (0xE0 | c >> 12);
+                    data[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    data[length++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > data.length)
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package de.rsev.utilities.communication;
+
+import de.rsev.utilities.communication.mime.MimeMessage;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <summary>
+ * Vergleicht das Rendern von Betreff und Inhalt per MailTemplate mit
+ * String-Verkettung, jeweils nur den Text und inklusive Aufbau der
+ * MimeMessage. Ausgegeben werden Nanosekunden und allokierte Bytes je
+ * Mail (sofern die JVM die Allokation pro Thread misst).
+ *
+ * Aufruf:
+ * java de.rsev.utilities.communication.MailTemplateBenchmark [--iterations 200000] [--lines 20]
+ * </summary>
+ */
+public final class MailTemplateBenchmark {
+
+    private static final String SUBJECT = "[${level}] Störung auf ${host}";
+
+    /** <summary>Verhindert, dass der JIT die Ergebnisse verwirft.</summary> */
+    private static long sink;
+
+    private MailTemplateBenchmark() {}
+
+    public static void main(String[] args) {
+        int iterations = 200_000;
+        int lines = 20;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--iterations" -> iterations = Integer.parseInt(args[i + 1]);
+                case "--lines" -> lines = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unbekanntes Argument: " + args[i]);
+            }
+        }
+
+        String[] text = new String[lines];
+        StringBuilder source = new StringBuilder();
+
+        for (int l = 0; l < lines; l++) {
+            text[l] = "Zeile " + l + ": Der Dienst meldet einen Fehler bei der Verarbeitung.\n";
+            source.append(text[l]);
+            if (l % 5 == 0) source.append("Host ${host}, Code ${code}, Zeit ${time}\n");
+        }
+
+        MailTemplate template = MailTemplate.compile(SUBJECT, source.toString());
+        MailOptions base = new MailOptions();
+        base.setMailFrom("monitor@example.org");
+        base.setMailTo("ops@example.org");
+
+        System.out.printf(Locale.ROOT, "MailTemplate-Benchmark: iterations=%d lines=%d%n", iterations, lines);
+
+        Map<String, Object> values = new HashMap<>();
+
+        Runnable concatText = () -> {
+            String subject = "[" + values.get("level") + "] Störung auf " + values.get("host");
+            StringBuilder body = new StringBuilder();
+            for (int l = 0; l < text.length; l++) {
+                body.append(text[l]);
+                if (l % 5 == 0)
+                    body.append("Host ").append(values.get("host")).append(", Code ").append(values.get("code"))
+                            .append(", Zeit ").append(values.get("time")).append('\n');
+            }
+            byte[] bytes = body.toString().replaceAll("\r\n|\r|\n", "\r\n").getBytes(StandardCharsets.UTF_8);
+            sink += subject.length() + bytes.length;
+        };
+
+        Runnable templateText = () -> {
+            String subject = template.renderSubject(values);
+            byte[] bytes = template.renderBody(values);
+            sink += subject.length() + bytes.length;
+        };
+
+        Runnable concatMessage = () -> {
+            MailOptions opt = copy(base);
+            opt.setSubject("[" + values.get("level") + "] Störung auf " + values.get("host"));
+            StringBuilder body = new StringBuilder();
+            for (int l = 0; l < text.length; l++) {
+                body.append(text[l]);
+                if (l % 5 == 0)
+                    body.append("Host ").append(values.get("host")).append(", Code ").append(values.get("code"))
+                            .append(", Zeit ").append(values.get("time")).append('\n');
+            }
+            opt.setMailBody(body.toString());
+            sink += MimeMessage.from(opt, opt.getMailTo()).getSize();
+        };
+
+        Runnable templateMessage = () -> {
+            MailOptions opt = template.apply(copy(base), values);
+            sink += MimeMessage.from(opt, opt.getMailTo()).getSize();
+        };
+
+        run("Verkettung (Text)", concatText, values, iterations);
+        run("Template (Text)", templateText, values, iterations);
+        run("Verkettung (MimeMessage)", concatMessage, values, iterations);
+        run("Template (MimeMessage)", templateMessage, values, iterations);
+
+        if (sink == 42) System.out.println();
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Führt eine Aufwärmrunde und eine gemessene Runde aus.
+     * </summary>
+     */
+    private static void run(String name, Runnable task, Map<String, Object> values, int iterations) {
+        loop(task, values, Math.max(1_000, iterations / 4));
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long allocatedBefore = allocated(threads);
+        long start = System.nanoTime();
+
+        loop(task, values, iterations);
+
+        long nanos = System.nanoTime() - start;
+        long allocated = allocated(threads) - allocatedBefore;
+
+        System.out.printf(Locale.ROOT, "%-26s %8.0f ns/Mail  %s%n", name,
+                (double) nanos / iterations,
+                allocatedBefore >= 0 ? String.format(Locale.ROOT, "%7d Bytes/Mail", allocated / iterations)
+                        : "Allokation nicht messbar");
+    }
+
+    private static void loop(Runnable task, Map<String, Object> values, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            values.put("level", i % 10 == 0 ? "CRITICAL" : "WARNING");
+            values.put("host", "app-" + (i % 32) + ".example.org");
+            values.put("code", i);
+            values.put("time", "12:00:" + (i % 60));
+            task.run();
+        }
+    }
+
+    private static long allocated(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean hotspot
+                && hotspot.isThreadAllocatedMemorySupported()) {
+            return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static MailOptions copy(MailOptions base) {
+        MailOptions opt = new MailOptions();
+        opt.setMailFrom(base.getMailFrom());
+        opt.setMailTo(base.getMailTo());
+        return opt;
+    }
+}
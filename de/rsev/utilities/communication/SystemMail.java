@@ -1,8 +1,15 @@
 package de.rsev.utilities.communication;
 
+import de.rsev.utilities.communication.digest.MailDigest;
 import de.rsev.utilities.communication.smtp.BaseSmtpClient;
 import de.rsev.utilities.communication.smtp.RawSmtpClient;
+import de.rsev.utilities.communication.smtp.SmtpMetrics;
+import de.rsev.utilities.communication.smtp.SmtpRecipientResult;
+import de.rsev.utilities.communication.smtp.SmtpRelayScheduler;
+import de.rsev.utilities.communication.spool.MailSpool;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -36,6 +43,20 @@ public class SystemMail {
      */
     protected BaseSmtpClient smtpClient;
 
+    /**
+     * <summary>
+     * Optionaler persistenter Spool für sendAsync(), null = direkter Versand.
+     * </summary>
+     */
+    protected MailSpool spool;
+
+    /**
+     * <summary>
+     * Optionaler Digest für sendAsync(), null = jede Mail einzeln.
+     * </summary>
+     */
+    protected MailDigest digest;
+
     /* -----------------------------
        Konstruktoren
        ----------------------------- */
@@ -76,6 +97,46 @@ public class SystemMail {
         this.smtpClient = smtpClient;
     }
 
+    /**
+     * <summary>
+     * Setzt den Digest, der gleichartige Mails aus sendAsync()
+     * innerhalb eines Zeitfensters zusammenfasst. Der Digest sendet
+     * über den eigenen Client bzw. Spool und hat Vorrang vor setSpool().
+     * </summary>
+     */
+    public void setDigest(MailDigest digest) {
+        this.digest = digest;
+    }
+
+    /**
+     * <summary>
+     * Begrenzt gleichzeitige Sitzungen und Mails pro Sekunde je Relay
+     * für den aktuellen SMTP-Client; null hebt die Begrenzung auf.
+     * </summary>
+     */
+    public void setScheduler(SmtpRelayScheduler scheduler) {
+        smtpClient.setScheduler(scheduler);
+    }
+
+    /**
+     * <summary>
+     * Erfasst Phasenlatenzen und Zähler des aktuellen SMTP-Clients
+     * in metrics; null schaltet die Messung ab.
+     * </summary>
+     */
+    public void setMetrics(SmtpMetrics metrics) {
+        smtpClient.setMetrics(metrics);
+    }
+
+    /**
+     * <summary>
+     * Setzt den Spool, in den sendAsync() Mails einreiht.
+     * </summary>
+     */
+    public void setSpool(MailSpool spool) {
+        this.spool = spool;
+    }
+
     /* -----------------------------
        Send (Sync)
        ----------------------------- */
@@ -92,6 +153,16 @@ public class SystemMail {
         smtpClient.send(options);
     }
 
+    /**
+     * <summary>
+     * Sendet mehrere E-Mails gebündelt und liefert das Ergebnis je Empfänger.
+     * Die gesetzten MailOptions werden dabei nicht verwendet.
+     * </summary>
+     */
+    public List<SmtpRecipientResult> sendBatch(Collection<MailOptions> batch) {
+        return smtpClient.sendBatch(batch);
+    }
+
     /* -----------------------------
        Send (Async)
        ----------------------------- */
@@ -99,12 +170,37 @@ public class SystemMail {
     /**
      * <summary>
      * Sendet eine E-Mail asynchron basierend auf den gesetzten MailOptions.
+     *
+     * Ist ein Spool gesetzt, wird die Mail nur lokal eingereiht; das
+     * Future ist dann abgeschlossen, sobald die Mail im Journal steht,
+     * nicht erst nach der Zustellung. Mit Digest ist es abgeschlossen,
+     * sobald der Digest die Mail übernommen hat.
      * </summary>
      */
     public CompletableFuture<Void> sendAsync() {
         if (options == null)
             return CompletableFuture.completedFuture(null);
 
+        MailDigest collector = digest;
+        if (collector != null) {
+            try {
+                collector.submit(options);
+                return CompletableFuture.completedFuture(null);
+            } catch (RuntimeException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+
+        MailSpool target = spool;
+        if (target != null) {
+            try {
+                target.enqueue(options);
+                return CompletableFuture.completedFuture(null);
+            } catch (RuntimeException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+
         return smtpClient.sendAsync(options);
     }
 }
@@ -0,0 +1,500 @@
+package de.rsev.utilities.communication.digest;
+
+import de.rsev.utilities.communication.MailAttachment;
+import de.rsev.utilities.communication.MailOptions;
+import de.rsev.utilities.communication.MailTemplate;
+import de.rsev.utilities.communication.smtp.ISmtpClient;
+import de.rsev.utilities.communication.spool.MailSpool;
+import de.rsev.utilities.logging.BaseLogger;
+import de.rsev.utilities.runtime.UnexpectedExitHandler;
+
+import java.io.Closeable;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * <summary>
+ * Fasst gleichartige Mails zu einem Digest zusammen, z. B. wiederholte
+ * Betriebsmeldungen während einer Störung.
+ *
+ * Mails mit gleichem Relay, Absender, Empfängern und Betreff-Schlüssel
+ * werden innerhalb eines Zeitfensters gesammelt. Mit sendFirstImmediately
+ * geht die erste Mail eines Fensters sofort hinaus; alle weiteren werden
+ * bei Ablauf des Fensters als eine Mail mit Anzahl sowie erstem und
+ * letztem Auftreten gesendet. Identische Mails erscheinen darin nur
+ * einmal mit ihrer Anzahl. Gab es im Fenster nur eine Mail, wird sie
+ * wie die sofort gesendete erste Mail unverändert samt Dateianhängen
+ * gesendet; nur zusammengefasste Digests enthalten keine Dateianhänge.
+ *
+ * Beim Schließen (und mit flushOnShutdown beim Beenden der JVM) werden
+ * alle gesammelten Mails sofort gesendet.
+ * </summary>
+ */
+public class MailDigest implements Closeable {
+
+    private static final BaseLogger LOGGER = BaseLogger.getLogger("mail-digest");
+
+    /**
+     * <summary>
+     * Betreff-Schlüssel, der Ziffernfolgen ignoriert, z. B. für
+     * "Queue voll (1234 Einträge)" und "Queue voll (1250 Einträge)".
+     * </summary>
+     */
+    public static final Function<String, String> IGNORE_NUMBERS =
+            subject -> subject.replaceAll("\\d+", "#");
+
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.ROOT).withZone(ZoneId.systemDefault());
+
+    private final MailDigestOptions options;
+    private final ISmtpClient client;
+    private final MailSpool spool;
+
+    private final Map<String, Bucket> buckets = new HashMap<>();
+    private final ScheduledExecutorService timer;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong digests = new AtomicLong();
+
+    private volatile boolean closed;
+
+    /**
+     * <summary>
+     * Sendet Digests direkt über den SMTP-Client.
+     * </summary>
+     */
+    public MailDigest(MailDigestOptions options, ISmtpClient client) {
+        this(options, client, null);
+    }
+
+    /**
+     * <summary>
+     * Reiht Digests in den persistenten Spool ein.
+     * </summary>
+     */
+    public MailDigest(MailDigestOptions options, MailSpool spool) {
+        this(options, null, spool);
+    }
+
+    private MailDigest(MailDigestOptions options, ISmtpClient client, MailSpool spool) {
+        if (client == null && spool == null)
+            throw new IllegalArgumentException("SMTP-Client oder Spool erforderlich");
+
+        this.options = options;
+        this.client = client;
+        this.spool = spool;
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rsev-mail-digest");
+            t.setDaemon(true);
+            return t;
+        });
+
+        if (options.isFlushOnShutdown())
+            UnexpectedExitHandler.register(this::close);
+    }
+
+    /* -----------------------------
+       Submit
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Nimmt eine Mail entgegen. Sie wird sofort gesendet, wenn sie ein
+     * neues Fenster eröffnet und sendFirstImmediately gesetzt ist,
+     * sonst bis zum Ablauf des Fensters gesammelt.
+     * </summary>
+     */
+    public void submit(MailOptions opt) {
+        if (opt == null)
+            throw new IllegalArgumentException("MailOptions dürfen nicht null sein");
+
+        long now = System.currentTimeMillis();
+        String subject = opt.getSubject(); // ein Template wird hier einmal gerendert
+        String key = keyOf(opt, subject);
+        boolean immediate = false;
+
+        synchronized (buckets) {
+            // unter der Sperre, damit close() keine Mail übersieht
+            if (closed)
+                throw new IllegalStateException("Mail-Digest ist geschlossen");
+
+            received.incrementAndGet();
+            Bucket bucket = buckets.get(key);
+
+            if (bucket == null) {
+                bucket = new Bucket(key, subject, envelopeOf(opt));
+                buckets.put(key, bucket);
+                schedule(bucket);
+                immediate = options.isSendFirstImmediately();
+            }
+
+            if (!immediate)
+                bucket.add(opt, subject, now);
+        }
+
+        if (immediate)
+            deliver(copyOf(opt), false);
+    }
+
+    /**
+     * <summary>
+     * Sendet alle gesammelten Mails sofort, ohne das Fenster abzuwarten.
+     * </summary>
+     */
+    public void flush() {
+        flushAll(false);
+    }
+
+    /* -----------------------------
+       Accessor Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Anzahl der aktuell gesammelten, noch nicht gesendeten Mails.
+     * </summary>
+     */
+    public int getBufferedCount() {
+        synchronized (buckets) {
+            int count = 0;
+            for (Bucket bucket : buckets.values())
+                count += bucket.count;
+            return count;
+        }
+    }
+
+    /** <summary>Anzahl aller übergebenen Mails.</summary> */
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    /** <summary>Anzahl der tatsächlich gesendeten Mails (einzeln oder als Digest).</summary> */
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    /** <summary>Anzahl der gesendeten Digests mit mehr als einer Mail.</summary> */
+    public long getDigestCount() {
+        return digests.get();
+    }
+
+    /**
+     * <summary>
+     * Beendet den Timer und sendet alle gesammelten Mails synchron.
+     * </summary>
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+
+        timer.shutdownNow();
+        flushAll(true);
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private void schedule(Bucket bucket) {
+        try {
+            timer.schedule(() -> expire(bucket), Math.max(1, options.getWindowMillis()), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            // geschlossen: close() sendet den Inhalt
+        }
+    }
+
+    /**
+     * <summary>
+     * Sendet den Inhalt eines abgelaufenen Fensters. Enthielt es Mails,
+     * beginnt sofort ein neues Fenster, damit eine anhaltende Störung
+     * einen Digest pro Fenster erzeugt statt abwechselnd Einzelmails.
+     * </summary>
+     */
+    private void expire(Bucket bucket) {
+        MailOptions digest;
+
+        synchronized (buckets) {
+            if (buckets.get(bucket.key) != bucket) return;
+
+            if (bucket.count == 0) {
+                buckets.remove(bucket.key);
+                return;
+            }
+
+            digest = bucket.drain();
+            schedule(bucket);
+        }
+
+        deliver(digest, false);
+    }
+
+    private void flushAll(boolean wait) {
+        List<MailOptions> pending = new ArrayList<>();
+
+        synchronized (buckets) {
+            for (Bucket bucket : buckets.values()) {
+                if (bucket.count > 0)
+                    pending.add(bucket.drain());
+            }
+            if (wait) buckets.clear();
+        }
+
+        for (MailOptions opt : pending)
+            deliver(opt, wait);
+    }
+
+    private void deliver(MailOptions opt, boolean wait) {
+        sent.incrementAndGet();
+
+        try {
+            if (spool != null) {
+                spool.enqueue(opt);
+            } else if (wait) {
+                client.send(opt);
+            } else {
+                client.sendAsync(opt).whenComplete((v, ex) -> {
+                    if (ex != null) failed(opt, ex);
+                });
+            }
+        } catch (RuntimeException ex) {
+            failed(opt, ex);
+        }
+    }
+
+    private static void failed(MailOptions opt, Throwable ex) {
+        LOGGER.error("Mail-Digest: Versand an " + opt.getMailTo() + " fehlgeschlagen", ex);
+    }
+
+    private String keyOf(MailOptions opt, String subject) {
+        TreeSet<String> recipients = new TreeSet<>();
+        if (opt.getMailTo() != null) {
+            for (String to : opt.getMailTo().split(","))
+                if (!to.isBlank()) recipients.add(to.trim().toLowerCase(Locale.ROOT));
+        }
+
+        return opt.getSmtpHost() + ":" + opt.getSmtpPort() + ":" + opt.getSmtpUser()
+                + '\0' + opt.getMailFrom() + '\0' + recipients + '\0' + subjectKey(subject);
+    }
+
+    private String subjectKey(String subject) {
+        String key = subject != null ? subject.replaceAll("\\s+", " ").trim() : "";
+
+        Function<String, String> mapping = options.getSubjectKey();
+        return mapping != null ? mapping.apply(key) : key;
+    }
+
+    /**
+     * <summary>
+     * Kopiert Versandparameter, Betreff, Inhalt und Dateianhänge.
+     * Ein Template wird mit einer Kopie der Werte übernommen und erst
+     * beim Versand gerendert.
+     * </summary>
+     */
+    private static MailOptions copyOf(MailOptions opt) {
+        MailOptions copy = envelopeOf(opt);
+        MailTemplate template = opt.getTemplate();
+
+        if (template == null || !template.hasSubject())
+            copy.setSubject(opt.getSubject());
+        if (template == null || !template.hasBody())
+            copy.setMailBody(opt.getMailBody());
+
+        if (template != null) {
+            Map<String, ?> values = opt.getTemplateValues();
+            copy.setTemplate(template, values != null ? new HashMap<>(values) : null);
+        }
+
+        if (opt.getAttachments() != null) {
+            for (MailAttachment attachment : opt.getAttachments()) {
+                MailAttachment part = new MailAttachment(attachment.getPath(), attachment.getContentType());
+                part.setFileName(attachment.getFileName());
+                copy.addAttachment(part);
+            }
+        }
+
+        return copy;
+    }
+
+    /**
+     * <summary>
+     * Kopiert nur die Versandparameter (Relay, Absender, Empfänger),
+     * z. B. als Grundlage eines Digests.
+     * </summary>
+     */
+    private static MailOptions envelopeOf(MailOptions opt) {
+        MailOptions copy = new MailOptions();
+        copy.setMailFrom(opt.getMailFrom());
+        copy.setFromName(opt.getFromName());
+        copy.setMailTo(opt.getMailTo());
+        copy.setSmtpHost(opt.getSmtpHost());
+        copy.setSmtpPort(opt.getSmtpPort());
+        copy.setSmtpUser(opt.getSmtpUser());
+        copy.setSmtpPassword(opt.getSmtpPassword());
+        copy.setAuthType(opt.getAuthType());
+        copy.setUseSsl(opt.isUseSsl());
+        copy.setUseTls(opt.isUseTls());
+        copy.setConnectTimeoutMillis(opt.getConnectTimeoutMillis());
+        copy.setReadTimeoutMillis(opt.getReadTimeoutMillis());
+        copy.setMailingMethod(opt.getMailingMethod());
+        return copy;
+    }
+
+    private static String format(long millis) {
+        return TIME_FORMAT.format(Instant.ofEpochMilli(millis));
+    }
+
+    /**
+     * <summary>
+     * Gesammelte Mails eines Schlüssels im aktuellen Fenster.
+     * </summary>
+     */
+    private final class Bucket {
+
+        final String key;
+        final String subject;
+        final MailOptions envelope;
+        final Map<String, Entry> entries = new LinkedHashMap<>();
+
+        MailOptions single;
+        String singleSubject;
+        int count;
+        int omitted;
+        long first;
+        long last;
+
+        Bucket(String key, String subject, MailOptions envelope) {
+            this.key = key;
+            this.subject = subject != null ? subject : "";
+            this.envelope = envelope;
+        }
+
+        /**
+         * <summary>
+         * Nimmt eine Mail auf. Die erste Mail eines Fensters wird nur
+         * kopiert; ihr Inhalt wird erst gerendert, wenn eine zweite
+         * Mail einen Digest erforderlich macht.
+         * </summary>
+         */
+        void add(MailOptions opt, String subject, long now) {
+            if (count == 0) {
+                first = now;
+                single = copyOf(opt);
+                singleSubject = subject;
+            } else {
+                if (count == 1)
+                    addEntry(singleSubject, single.getMailBody(), first);
+                addEntry(subject, opt.getMailBody(), now);
+            }
+
+            count++;
+            last = now;
+        }
+
+        private void addEntry(String subject, String body, long now) {
+            if (subject == null) subject = "";
+            if (body == null) body = "";
+
+            String entryKey = subject + '\0' + body;
+
+            Entry entry = entries.get(entryKey);
+            if (entry == null) {
+                if (entries.size() >= Math.max(1, options.getMaxEntries())) {
+                    omitted++;
+                    return;
+                }
+                entry = new Entry(subject, body, now);
+                entries.put(entryKey, entry);
+            }
+
+            entry.count++;
+            entry.last = now;
+        }
+
+        /**
+         * <summary>
+         * Erstellt die zu sendende Mail und leert das Fenster.
+         * </summary>
+         */
+        MailOptions drain() {
+            MailOptions result = count == 1 ? single : digest();
+
+            if (count > 1) digests.incrementAndGet();
+
+            entries.clear();
+            single = null;
+            singleSubject = null;
+            count = 0;
+            omitted = 0;
+            return result;
+        }
+
+        private MailOptions digest() {
+            StringBuilder body = new StringBuilder()
+                    .append(count).append(" Mails mit dem Betreff \"").append(subject)
+                    .append("\" zusammengefasst.\n")
+                    .append("Erstes Auftreten: ").append(format(first)).append('\n')
+                    .append("Letztes Auftreten: ").append(format(last)).append('\n');
+
+            for (Entry entry : entries.values()) {
+                body.append("\n=== ").append(entry.count).append("x, ")
+                        .append(format(entry.first));
+                if (entry.count > 1)
+                    body.append(" bis ").append(format(entry.last));
+                body.append(" ===\n");
+
+                if (!entry.subject.equals(subject))
+                    body.append("Betreff: ").append(entry.subject).append('\n');
+
+                body.append(entry.body);
+                if (!entry.body.endsWith("\n")) body.append('\n');
+            }
+
+            if (omitted > 0)
+                body.append('\n').append(omitted).append(" weitere Mails nicht einzeln aufgeführt.\n");
+
+            MailOptions digest = envelopeOf(envelope);
+            digest.setSubject((options.getSubjectPrefix() != null ? options.getSubjectPrefix() : "")
+                    + subject + " (" + count + "x)");
+            digest.setMailBody(body.toString());
+            return digest;
+        }
+    }
+
+    /**
+     * <summary>
+     * Unterschiedliche Mail innerhalb eines Digests mit ihrer Anzahl.
+     * </summary>
+     */
+    private static final class Entry {
+
+        final String subject;
+        final String body;
+        final long first;
+
+        int count;
+        long last;
+
+        Entry(String subject, String body, long first) {
+            this.subject = subject;
+            this.body = body;
+            this.first = first;
+        }
+    }
+}
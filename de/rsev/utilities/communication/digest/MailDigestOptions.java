@@ -0,0 +1,51 @@
+package de.rsev.utilities.communication.digest;
+
+import java.util.function.Function;
+
+/**
+ * <summary>
+ * Enthält alle Parameter für den Digest-Modus (MailDigest).
+ * </summary>
+ */
+public class MailDigestOptions {
+
+    /** <summary>Zeitfenster, in dem Mails mit gleichem Empfänger und Betreff-Schlüssel gesammelt werden.</summary> */
+    private long windowMillis = 60_000;
+
+    /** <summary>Sendet die erste Mail eines Fensters sofort, erst Folgemails werden gesammelt.</summary> */
+    private boolean sendFirstImmediately = true;
+
+    /** <summary>Maximale Anzahl unterschiedlicher Mails, die im Digest einzeln aufgeführt werden.</summary> */
+    private int maxEntries = 20;
+
+    /** <summary>Präfix des Digest-Betreffs.</summary> */
+    private String subjectPrefix = "[Digest] ";
+
+    /** <summary>Bildet den Betreff auf den Gruppierungsschlüssel ab (z. B. MailDigest.IGNORE_NUMBERS), null = Betreff selbst.</summary> */
+    private Function<String, String> subjectKey;
+
+    /** <summary>Sendet gesammelte Mails beim Beenden der JVM.</summary> */
+    private boolean flushOnShutdown = true;
+
+    /* -----------------------------
+       Getter / Setter
+       ----------------------------- */
+
+    public long getWindowMillis() { return windowMillis; }
+    public void setWindowMillis(long windowMillis) { this.windowMillis = windowMillis; }
+
+    public boolean isSendFirstImmediately() { return sendFirstImmediately; }
+    public void setSendFirstImmediately(boolean sendFirstImmediately) { this.sendFirstImmediately = sendFirstImmediately; }
+
+    public int getMaxEntries() { return maxEntries; }
+    public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+
+    public String getSubjectPrefix() { return subjectPrefix; }
+    public void setSubjectPrefix(String subjectPrefix) { this.subjectPrefix = subjectPrefix; }
+
+    public Function<String, String> getSubjectKey() { return subjectKey; }
+    public void setSubjectKey(Function<String, String> subjectKey) { this.subjectKey = subjectKey; }
+
+    public boolean isFlushOnShutdown() { return flushOnShutdown; }
+    public void setFlushOnShutdown(boolean flushOnShutdown) { this.flushOnShutdown = flushOnShutdown; }
+}
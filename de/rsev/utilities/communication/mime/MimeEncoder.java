@@ -0,0 +1,232 @@
+package de.rsev.utilities.communication.mime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * <summary>
+ * Kodierungen für MIME-Header (RFC 2047) und Base64-Inhalte
+ * (RFC 2045 6.8).
+ * </summary>
+ */
+final class MimeEncoder {
+
+    /** <summary>Bytes je Base64-Zeile (ergeben 76 Zeichen).</summary> */
+    static final int BASE64_LINE_BYTES = 57;
+
+    /** <summary>Zeichen je Base64-Zeile.</summary> */
+    static final int BASE64_LINE_CHARS = 76;
+
+    /** <summary>Base64-Zeilen je Lesevorgang aus der Datei.</summary> */
+    private static final int BASE64_CHUNK_LINES = 1024;
+
+    /** <summary>UTF-8-Bytes je Encoded-Word (52 Base64-Zeichen, Zeile unter 76 Zeichen).</summary> */
+    private static final int WORD_BYTES = 39;
+
+    private static final byte[] CRLF = { '\r', '\n' };
+
+    private MimeEncoder() {}
+
+    /* -----------------------------
+       Header Encoding
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Gibt einen Header-Wert zurück; Zeilenumbrüche werden entfernt,
+     * damit kein weiterer Header eingeschleust werden kann. Nicht-ASCII
+     * oder überlange Werte werden als Encoded-Words kodiert, mit utf8
+     * (SMTPUTF8, RFC 6532) wird Nicht-ASCII unverändert übernommen.
+     * </summary>
+     */
+    static String header(String value, boolean utf8) {
+        String clean = singleLine(value);
+        return isPlain(clean, 900, utf8) ? clean : encodedWords(clean);
+    }
+
+    /**
+     * <summary>
+     * Gibt eine Adressliste ohne Zeilenumbrüche zurück; lange Listen
+     * werden nach jedem Komma gefaltet. Adressen werden nie kodiert.
+     * </summary>
+     */
+    static String addresses(String value) {
+        String clean = singleLine(value);
+        if (clean.length() <= 900) return clean;
+
+        StringBuilder sb = new StringBuilder(clean.length() + 64);
+        for (String address : clean.split(",")) {
+            if (address.isBlank()) continue;
+            if (sb.length() > 0) sb.append(",\r\n ");
+            sb.append(address.trim());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * <summary>
+     * Gibt einen Anzeigenamen als Quoted-String oder, bei Nicht-ASCII
+     * ohne utf8, als Encoded-Words zurück.
+     * </summary>
+     */
+    static String phrase(String value, boolean utf8) {
+        String clean = singleLine(value);
+        return isPlain(clean, 200, utf8) ? quote(clean) : encodedWords(clean);
+    }
+
+    /**
+     * <summary>
+     * Gibt einen Parameterwert (z. B. filename) als Quoted-String zurück;
+     * Nicht-ASCII ohne utf8 wird als Encoded-Word kodiert, was gängige
+     * Mail-Programme auch in Parametern auswerten.
+     * </summary>
+     */
+    static String parameter(String value, boolean utf8) {
+        String clean = singleLine(value);
+        return isPlain(clean, 200, utf8) ? quote(clean) : '"' + encodedWords(clean) + '"';
+    }
+
+    /**
+     * <summary>
+     * Gibt an, ob der Text nur ASCII-Zeichen enthält.
+     * </summary>
+     */
+    static boolean isAscii(String value) {
+        if (value == null) return true;
+
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * <summary>
+     * Kodiert einen Text als "=?UTF-8?B?...?="-Wörter, getrennt durch
+     * Header-Folding. Zeichen werden nie auf zwei Wörter verteilt.
+     * </summary>
+     */
+    static String encodedWords(String value) {
+        Base64.Encoder encoder = Base64.getEncoder();
+        StringBuilder sb = new StringBuilder();
+        byte[] word = new byte[WORD_BYTES];
+        int length = 0;
+
+        for (int i = 0; i < value.length(); ) {
+            int cp = value.codePointAt(i);
+            byte[] utf8 = new String(Character.toChars(cp)).getBytes(StandardCharsets.UTF_8);
+            i += Character.charCount(cp);
+
+            if (length + utf8.length > WORD_BYTES) {
+                appendWord(sb, encoder, word, length);
+                length = 0;
+            }
+
+            System.arraycopy(utf8, 0, word, length, utf8.length);
+            length += utf8.length;
+        }
+
+        if (length > 0 || sb.length() == 0)
+            appendWord(sb, encoder, word, length);
+
+        return sb.toString();
+    }
+
+    /* -----------------------------
+       Base64
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Liest die Datei blockweise über einen FileChannel und schreibt
+     * sie Base64-kodiert in Zeilen zu 76 Zeichen. Lese- und
+     * Kodierpuffer werden wiederverwendet; der Speicherbedarf ist
+     * unabhängig von der Dateigröße.
+     * </summary>
+     */
+    static void writeBase64(Path file, OutputStream out) throws IOException {
+        Base64.Encoder encoder = Base64.getEncoder();
+
+        byte[] raw = new byte[BASE64_LINE_BYTES * BASE64_CHUNK_LINES];
+        byte[] encoded = new byte[BASE64_LINE_CHARS * BASE64_CHUNK_LINES];
+        ByteBuffer buffer = ByteBuffer.wrap(raw);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (;;) {
+                // Puffer vollständig füllen, damit nur der letzte Block Padding erhält
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) break;
+                }
+
+                int n = buffer.position();
+                if (n == 0) return;
+
+                int length = n == raw.length
+                        ? encoder.encode(raw, encoded)
+                        : encoder.encode(Arrays.copyOf(raw, n), encoded);
+
+                for (int off = 0; off < length; off += BASE64_LINE_CHARS) {
+                    out.write(encoded, off, Math.min(BASE64_LINE_CHARS, length - off));
+                    out.write(CRLF);
+                }
+
+                if (n < raw.length) return;
+            }
+        }
+    }
+
+    /**
+     * <summary>
+     * Berechnet die Länge der Ausgabe von writeBase64() für
+     * eine Datei der angegebenen Größe, inklusive Zeilenumbrüchen.
+     * </summary>
+     */
+    static long base64Length(long bytes) {
+        long chars = (bytes + 2) / 3 * 4;
+        long lines = (chars + BASE64_LINE_CHARS - 1) / BASE64_LINE_CHARS;
+        return chars + lines * CRLF.length;
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private static void appendWord(StringBuilder sb, Base64.Encoder encoder, byte[] word, int length) {
+        if (sb.length() > 0)
+            sb.append("\r\n ");
+
+        sb.append("=?UTF-8?B?")
+                .append(encoder.encodeToString(Arrays.copyOf(word, length)))
+                .append("?=");
+    }
+
+    private static String singleLine(String value) {
+        if (value == null) return "";
+        return value.replace("\r\n", " ").replace('\r', ' ').replace('\n', ' ');
+    }
+
+    private static boolean isPlain(String value, int maxLength, boolean utf8) {
+        if (value.length() > maxLength) return false;
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 && c != '\t' || c == 0x7F) return false;
+            if (c >= 0x80 && (!utf8 || c < 0xA0)) return false;
+        }
+
+        return true;
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
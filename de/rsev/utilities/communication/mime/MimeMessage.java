@@ -0,0 +1,396 @@
+package de.rsev.utilities.communication.mime;
+
+import de.rsev.utilities.communication.MailAttachment;
+import de.rsev.utilities.communication.MailOptions;
+import de.rsev.utilities.communication.MailTemplate;
+import de.rsev.utilities.communication.smtp.ISmtpMessage;
+import de.rsev.utilities.communication.smtp.SmtpCapabilities;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <summary>
+ * MIME-Nachricht (RFC 2045/2046) aus den MailOptions, die beim Versand
+ * direkt in die Verbindung geschrieben wird.
+ *
+ * Ohne Anhänge entsteht eine einfache text/plain-Nachricht, mit
+ * Anhängen eine multipart/mixed-Nachricht aus Textteil und je einem
+ * Base64-Teil pro Datei. Der Text wird als 7bit gesendet, wenn er nur
+ * aus ASCII mit kurzen Zeilen besteht, sonst als Quoted-Printable.
+ *
+ * forServer() liefert eine an den Server angepasste Variante: mit
+ * 8BITMIME wird UTF-8-Text unkodiert als 8bit gesendet (ohne den
+ * Größenzuschlag von Quoted-Printable), mit SMTPUTF8 werden Betreff,
+ * Anzeigename und Dateinamen als UTF-8 statt als Encoded-Words
+ * geschrieben.
+ *
+ * Anhänge werden erst in writeTo() blockweise aus der Datei gelesen
+ * und kodiert; die Nachricht hält nur Header und Text im Speicher.
+ * Date und Message-ID werden beim Erstellen festgelegt, damit ein
+ * erneuter Versuch dieselbe Nachricht sendet.
+ * </summary>
+ */
+public class MimeMessage implements ISmtpMessage {
+
+    private static final byte[] CRLF = { '\r', '\n' };
+
+    /** <summary>Maximale Zeilenlänge ohne CRLF (RFC 5322 2.1.1).</summary> */
+    private static final int MAX_LINE = 998;
+
+    private final String date;
+    private final String messageId;
+    private final String from;
+    private final String fromName;
+    private final String toHeader;
+    private final String subject;
+
+    /** <summary>UTF-8-Text mit CRLF als Zeilenende.</summary> */
+    private final byte[] text;
+    private final List<Part> attachments;
+    private final String boundary;
+
+    /** <summary>Text unkodiert als 8bit senden (8BITMIME).</summary> */
+    private final boolean eightBit;
+
+    /** <summary>Header als UTF-8 statt Encoded-Words (SMTPUTF8).</summary> */
+    private final boolean utf8;
+
+    private final String headers;
+    private long size = -1;
+
+    private MimeMessage(MailOptions opt, String toHeader) {
+        this.from = MimeEncoder.addresses(opt.getMailFrom());
+        this.fromName = opt.getFromName();
+        this.toHeader = MimeEncoder.addresses(toHeader);
+        this.subject = opt.getSubject();
+        this.date = ZonedDateTime.now().format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        this.messageId = "<" + UUID.randomUUID() + "@" + domainOf(from) + ">";
+
+        List<Part> parts = new ArrayList<>();
+        if (opt.getAttachments() != null) {
+            for (MailAttachment attachment : opt.getAttachments())
+                parts.add(Part.of(attachment));
+        }
+
+        this.text = text(opt);
+        this.attachments = parts;
+        this.boundary = parts.isEmpty() ? null
+                : "=_rsev_" + Long.toHexString(ThreadLocalRandom.current().nextLong())
+                        + Long.toHexString(System.nanoTime());
+
+        this.eightBit = false;
+        this.utf8 = false;
+        this.headers = renderHeaders();
+    }
+
+    private MimeMessage(MimeMessage source, boolean eightBit, boolean utf8) {
+        this.from = source.from;
+        this.fromName = source.fromName;
+        this.toHeader = source.toHeader;
+        this.subject = source.subject;
+        this.date = source.date;
+        this.messageId = source.messageId;
+        this.text = source.text;
+        this.attachments = source.attachments;
+        this.boundary = source.boundary;
+
+        this.eightBit = eightBit;
+        this.utf8 = utf8;
+        this.headers = renderHeaders();
+    }
+
+    /**
+     * <summary>
+     * Erstellt die Nachricht aus den MailOptions mit dem angegebenen
+     * To-Header. Anhänge müssen als lesbare Dateien existieren.
+     * </summary>
+     */
+    public static MimeMessage from(MailOptions opt, String toHeader) {
+        return new MimeMessage(opt, toHeader);
+    }
+
+    /* -----------------------------
+       ISmtpMessage
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Gibt die Größe der kodierten Nachricht zurück. Der Text wird
+     * dafür einmal ohne Ausgabe kodiert, Anhänge werden nur anhand
+     * ihrer Dateigröße berechnet.
+     * </summary>
+     */
+    @Override
+    public synchronized long getSize() {
+        if (size < 0) {
+            CountingOutputStream counter = new CountingOutputStream();
+
+            try {
+                write(counter, true);
+            } catch (IOException ex) {
+                // CountingOutputStream wirft keine IOException
+                return -1;
+            }
+
+            size = counter.count;
+        }
+
+        return size;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        write(out, false);
+    }
+
+    @Override
+    public ISmtpMessage forServer(SmtpCapabilities capabilities) {
+        boolean useEightBit = capabilities.isEightBitMime() && !isAscii(text) && fitsLines(text);
+        boolean useUtf8 = capabilities.isSmtpUtf8() && !asciiHeaders();
+
+        if (useEightBit == eightBit && useUtf8 == utf8)
+            return this;
+
+        return new MimeMessage(this, useEightBit, useUtf8);
+    }
+
+    @Override
+    public String getBodyType() {
+        return eightBit || utf8 ? "8BITMIME" : null;
+    }
+
+    @Override
+    public boolean isSmtpUtf8() {
+        return utf8 || !MimeEncoder.isAscii(from) || !MimeEncoder.isAscii(toHeader);
+    }
+
+    /* -----------------------------
+       Writing
+       ----------------------------- */
+
+    private String renderHeaders() {
+        StringBuilder sb = new StringBuilder(256);
+        header(sb, "Date", date);
+
+        if (fromName != null && !fromName.isBlank())
+            header(sb, "From", MimeEncoder.phrase(fromName, utf8) + " <" + from + ">");
+        else
+            header(sb, "From", from);
+
+        header(sb, "To", toHeader);
+        header(sb, "Subject", MimeEncoder.header(subject, utf8));
+        header(sb, "Message-ID", messageId);
+        header(sb, "MIME-Version", "1.0");
+        return sb.toString();
+    }
+
+    private void write(OutputStream out, boolean measure) throws IOException {
+        // Header sind ASCII bis auf internationalisierte Adressen (RFC 6532)
+        out.write(headers.getBytes(StandardCharsets.UTF_8));
+
+        if (boundary == null) {
+            textHeaders(out);
+            out.write(CRLF);
+            writeText(out);
+            return;
+        }
+
+        ascii(out, "Content-Type: multipart/mixed; boundary=\"" + boundary + "\"\r\n");
+        out.write(CRLF);
+        ascii(out, "This is a multi-part message in MIME format.\r\n");
+
+        ascii(out, "\r\n--" + boundary + "\r\n");
+        textHeaders(out);
+        out.write(CRLF);
+        writeText(out);
+
+        for (Part part : attachments) {
+            ascii(out, "\r\n--" + boundary + "\r\n");
+            out.write(part.headers(utf8).getBytes(StandardCharsets.UTF_8));
+            out.write(CRLF);
+
+            if (measure) {
+                ((CountingOutputStream) out).count += MimeEncoder.base64Length(part.length);
+            } else {
+                MimeEncoder.writeBase64(part.path, out);
+            }
+        }
+
+        ascii(out, "\r\n--" + boundary + "--\r\n");
+    }
+
+    private void textHeaders(OutputStream out) throws IOException {
+        ascii(out, "Content-Type: text/plain; charset=UTF-8\r\n");
+        ascii(out, "Content-Transfer-Encoding: " + textEncoding() + "\r\n");
+    }
+
+    private String textEncoding() {
+        if (isAscii(text) && fitsLines(text)) return "7bit";
+        return eightBit ? "8bit" : "quoted-printable";
+    }
+
+    private void writeText(OutputStream out) throws IOException {
+        if (!"quoted-printable".equals(textEncoding())) {
+            out.write(text);
+            return;
+        }
+
+        QuotedPrintableOutputStream qp = new QuotedPrintableOutputStream(out);
+        qp.write(text, 0, text.length);
+        qp.finish();
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Gibt den Text als UTF-8 mit CRLF zurück; ein MailTemplate rendert
+     * ihn direkt in Bytes, ohne Zwischen-String.
+     * </summary>
+     */
+    private static byte[] text(MailOptions opt) {
+        MailTemplate template = opt.getTemplate();
+        if (template != null && template.hasBody())
+            return template.renderBody(opt.getTemplateValues());
+
+        String body = opt.getMailBody() != null ? opt.getMailBody() : "";
+        return body.replaceAll("\r\n|\r|\n", "\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void header(StringBuilder sb, String name, String value) {
+        sb.append(name).append(": ").append(value).append("\r\n");
+    }
+
+    private static void ascii(OutputStream out, String value) throws IOException {
+        out.write(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String domainOf(String address) {
+        int at = address.lastIndexOf('@');
+        String domain = at >= 0 ? address.substring(at + 1).trim() : "";
+        return domain.isEmpty() || !domain.matches("[A-Za-z0-9.-]+") ? "localhost" : domain;
+    }
+
+    private boolean asciiHeaders() {
+        if (!MimeEncoder.isAscii(fromName) || !MimeEncoder.isAscii(subject)) return false;
+
+        for (Part part : attachments) {
+            if (!MimeEncoder.isAscii(part.fileName)) return false;
+        }
+
+        return true;
+    }
+
+    private static boolean isAscii(byte[] text) {
+        for (byte b : text) {
+            if (b < 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * <summary>
+     * Prüft, ob der Text ohne Transferkodierung gesendet werden kann:
+     * kein NUL und keine Zeile länger als 998 Bytes (RFC 5322 2.1.1).
+     * </summary>
+     */
+    private static boolean fitsLines(byte[] text) {
+        int line = 0;
+
+        for (byte b : text) {
+            if (b == 0) return false;
+
+            if (b == '\r' || b == '\n') {
+                line = 0;
+            } else if (++line > MAX_LINE) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * <summary>
+     * Anhang mit geprüftem Pfad, MIME-Typ und der beim Erstellen
+     * ermittelten Dateigröße.
+     * </summary>
+     */
+    private static final class Part {
+
+        final Path path;
+        final long length;
+        final String contentType;
+        final String fileName;
+
+        private Part(Path path, long length, String contentType, String fileName) {
+            this.path = path;
+            this.length = length;
+            this.contentType = contentType;
+            this.fileName = fileName;
+        }
+
+        static Part of(MailAttachment attachment) {
+            if (attachment == null || attachment.getPath() == null)
+                throw new IllegalArgumentException("Anhang ohne Dateipfad");
+
+            Path path = Path.of(attachment.getPath());
+            if (!Files.isRegularFile(path) || !Files.isReadable(path))
+                throw new IllegalArgumentException("Anhang nicht lesbar: " + path);
+
+            long length;
+            try {
+                length = Files.size(path);
+            } catch (IOException ex) {
+                throw new IllegalArgumentException("Anhang nicht lesbar: " + path, ex);
+            }
+
+            String type = attachment.getContentType() != null && attachment.getContentType()
+                    .matches("[A-Za-z0-9!#$&^_.+-]+/[A-Za-z0-9!#$&^_.+-]+")
+                    ? attachment.getContentType()
+                    : "application/octet-stream";
+
+            return new Part(path, length, type, attachment.getEffectiveFileName());
+        }
+
+        String headers(boolean utf8) {
+            String name = MimeEncoder.parameter(fileName, utf8);
+
+            return "Content-Type: " + contentType + "; name=" + name + "\r\n"
+                    + "Content-Disposition: attachment; filename=" + name + "\r\n"
+                    + "Content-Transfer-Encoding: base64\r\n";
+        }
+    }
+
+    /**
+     * <summary>
+     * Zählt geschriebene Bytes, ohne sie zu speichern.
+     * </summary>
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package de.rsev.utilities.communication.mime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <summary>
+ * Kodiert Text beim Schreiben als Quoted-Printable (RFC 2045 6.7).
+ *
+ * Zeilenumbrüche der Eingabe (CRLF, LF oder CR) werden als harte
+ * Umbrüche übernommen, längere Zeilen mit "=" CRLF weich umbrochen,
+ * sodass keine Ausgabezeile mehr als 76 Zeichen hat. Leerzeichen und
+ * Tabulatoren am Zeilenende werden kodiert. Es wird nur ein Zeichen
+ * vorausgeschaut; der Speicherbedarf ist konstant.
+ *
+ * finish() schließt die Kodierung ab, ohne den darunterliegenden
+ * Stream zu schließen.
+ * </summary>
+ */
+final class QuotedPrintableOutputStream extends OutputStream {
+
+    private static final byte[] HEX = {
+            '0', '1', '2', '3', '4', '5', '6', '7',
+            '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+    };
+
+    /** <summary>Zeichen je Zeile ohne das "=" des weichen Umbruchs.</summary> */
+    private static final int MAX_COLUMN = 75;
+
+    private final OutputStream out;
+
+    private int column;
+    private int pendingBlank = -1;
+    private boolean pendingCr;
+
+    QuotedPrintableOutputStream(OutputStream out) {
+        this.out = out;
+    }
+
+    /* -----------------------------
+       IO Methods
+       ----------------------------- */
+
+    @Override
+    public void write(int b) throws IOException {
+        b &= 0xFF;
+
+        if (pendingCr) {
+            pendingCr = false;
+            lineBreak();
+            if (b == '\n') return;
+        }
+
+        if (b == '\r') {
+            pendingCr = true;
+            return;
+        }
+
+        if (b == '\n') {
+            lineBreak();
+            return;
+        }
+
+        if (pendingBlank >= 0) {
+            literal(pendingBlank);
+            pendingBlank = -1;
+        }
+
+        if (b == ' ' || b == '\t') {
+            // erst beim nächsten Zeichen entscheidbar, ob es am Zeilenende steht
+            pendingBlank = b;
+        } else if (b >= 33 && b <= 126 && b != '=') {
+            literal(b);
+        } else {
+            encoded(b);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        for (int i = off, end = off + len; i < end; i++)
+            write(b[i]);
+    }
+
+    /**
+     * <summary>
+     * Schreibt zurückgehaltene Zeichen; ein Leerzeichen am Ende
+     * des Textes wird kodiert.
+     * </summary>
+     */
+    void finish() throws IOException {
+        if (pendingCr) {
+            pendingCr = false;
+            lineBreak();
+        }
+
+        if (pendingBlank >= 0) {
+            encoded(pendingBlank);
+            pendingBlank = -1;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private void lineBreak() throws IOException {
+        if (pendingBlank >= 0) {
+            encoded(pendingBlank);
+            pendingBlank = -1;
+        }
+
+        out.write('\r');
+        out.write('\n');
+        column = 0;
+    }
+
+    private void literal(int b) throws IOException {
+        if (column + 1 > MAX_COLUMN)
+            softBreak();
+
+        out.write(b);
+        column++;
+    }
+
+    private void encoded(int b) throws IOException {
+        if (column + 3 > MAX_COLUMN)
+            softBreak();
+
+        out.write('=');
+        out.write(HEX[b >> 4]);
+        out.write(HEX[b & 0x0F]);
+        column += 3;
+    }
+
+    private void softBreak() throws IOException {
+        out.write('=');
+        out.write('\r');
+        out.write('\n');
+        column = 0;
+    }
+}
@@ -0,0 +1,215 @@
+package de.rsev.utilities.communication.sink;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * <summary>
+ * Erzeugt ein selbstsigniertes Testzertifikat (EC P-256, SHA256withECDSA)
+ * für localhost und 127.0.0.1 ohne keytool oder interne JDK-Klassen.
+ *
+ * Das Zertifikat wird direkt in DER kodiert und mit der JCA signiert;
+ * es ist nur für lokale Tests und Benchmarks gedacht.
+ * </summary>
+ */
+final class SelfSignedCertificate {
+
+    private static final String ALIAS = "sink";
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    /** <summary>OID 1.2.840.10045.4.3.2 (ecdsa-with-SHA256).</summary> */
+    private static final byte[] ECDSA_SHA256 = { 0x2A, (byte) 0x86, 0x48, (byte) 0xCE, 0x3D, 0x04, 0x03, 0x02 };
+
+    /** <summary>OID 2.5.4.3 (commonName).</summary> */
+    private static final byte[] COMMON_NAME = { 0x55, 0x04, 0x03 };
+
+    /** <summary>OID 2.5.29.17 (subjectAltName).</summary> */
+    private static final byte[] SUBJECT_ALT_NAME = { 0x55, 0x1D, 0x11 };
+
+    private static final DateTimeFormatter UTC_TIME = DateTimeFormatter.ofPattern("yyMMddHHmmss'Z'");
+
+    private final KeyPair keyPair;
+    private final X509Certificate certificate;
+
+    private SelfSignedCertificate(KeyPair keyPair, X509Certificate certificate) {
+        this.keyPair = keyPair;
+        this.certificate = certificate;
+    }
+
+    /* -----------------------------
+       Factory
+       ----------------------------- */
+
+    static SelfSignedCertificate create(String commonName) throws IOException {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair keyPair = generator.generateKeyPair();
+
+            ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+            byte[] algorithm = sequence(oid(ECDSA_SHA256));
+            byte[] name = name(commonName);
+
+            byte[] tbs = sequence(
+                    tagged(0xA0, integer(BigInteger.valueOf(2))),
+                    integer(new BigInteger(63, new SecureRandom())),
+                    algorithm,
+                    name,
+                    sequence(utcTime(now.minusDays(1)), utcTime(now.plusYears(1))),
+                    name,
+                    keyPair.getPublic().getEncoded(),
+                    tagged(0xA3, sequence(sequence(
+                            oid(SUBJECT_ALT_NAME),
+                            tagged(0x04, sequence(
+                                    tagged(0x82, "localhost".getBytes(StandardCharsets.US_ASCII)),
+                                    tagged(0x87, new byte[] { 127, 0, 0, 1 })))))));
+
+            Signature signer = Signature.getInstance("SHA256withECDSA");
+            signer.initSign(keyPair.getPrivate());
+            signer.update(tbs);
+            byte[] signature = signer.sign();
+
+            byte[] der = sequence(tbs, algorithm, bitString(signature));
+
+            X509Certificate certificate = (X509Certificate) CertificateFactory.getInstance("X.509")
+                    .generateCertificate(new ByteArrayInputStream(der));
+
+            return new SelfSignedCertificate(keyPair, certificate);
+
+        } catch (GeneralSecurityException ex) {
+            throw new IOException("Testzertifikat konnte nicht erzeugt werden: " + ex.getMessage(), ex);
+        }
+    }
+
+    /* -----------------------------
+       Accessor Methods
+       ----------------------------- */
+
+    X509Certificate getCertificate() {
+        return certificate;
+    }
+
+    /**
+     * <summary>
+     * Erzeugt einen Server-SSLContext mit Schlüssel und Zertifikat.
+     * </summary>
+     */
+    SSLContext createServerContext() throws IOException {
+        try {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(null, null);
+            keyStore.setKeyEntry(ALIAS, keyPair.getPrivate(), PASSWORD, new Certificate[] { certificate });
+
+            KeyManagerFactory factory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            factory.init(keyStore, PASSWORD);
+
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(factory.getKeyManagers(), null, null);
+            return context;
+
+        } catch (GeneralSecurityException ex) {
+            throw new IOException("TLS nicht verfügbar: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * <summary>
+     * Schreibt einen PKCS12-Truststore mit dem Zertifikat, z. B. für
+     * SmtpTlsOptions.setTrustStorePath().
+     * </summary>
+     */
+    void writeTrustStore(Path file, String password) throws IOException {
+        try {
+            KeyStore trustStore = KeyStore.getInstance("PKCS12");
+            trustStore.load(null, null);
+            trustStore.setCertificateEntry(ALIAS, certificate);
+
+            try (OutputStream out = Files.newOutputStream(file)) {
+                trustStore.store(out, password != null ? password.toCharArray() : new char[0]);
+            }
+        } catch (GeneralSecurityException ex) {
+            throw new IOException("Truststore konnte nicht geschrieben werden: " + ex.getMessage(), ex);
+        }
+    }
+
+    /* -----------------------------
+       DER Encoding
+       ----------------------------- */
+
+    private static byte[] name(String commonName) {
+        return sequence(set(sequence(oid(COMMON_NAME),
+                tagged(0x0C, commonName.getBytes(StandardCharsets.UTF_8)))));
+    }
+
+    private static byte[] utcTime(ZonedDateTime time) {
+        return tagged(0x17, UTC_TIME.format(time).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] integer(BigInteger value) {
+        return tagged(0x02, value.toByteArray());
+    }
+
+    private static byte[] oid(byte[] encoded) {
+        return tagged(0x06, encoded);
+    }
+
+    private static byte[] bitString(byte[] bits) {
+        byte[] content = new byte[bits.length + 1];
+        System.arraycopy(bits, 0, content, 1, bits.length); // 0 ungenutzte Bits
+        return tagged(0x03, content);
+    }
+
+    private static byte[] sequence(byte[]... parts) {
+        return tagged(0x30, concat(parts));
+    }
+
+    private static byte[] set(byte[]... parts) {
+        return tagged(0x31, concat(parts));
+    }
+
+    private static byte[] tagged(int tag, byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length + 6);
+        out.write(tag);
+
+        int length = content.length;
+        if (length < 0x80) {
+            out.write(length);
+        } else {
+            int bytes = length > 0xFFFF ? 3 : length > 0xFF ? 2 : 1;
+            out.write(0x80 | bytes);
+            for (int i = bytes - 1; i >= 0; i--)
+                out.write(length >>> (8 * i));
+        }
+
+        out.writeBytes(content);
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts)
+            out.writeBytes(part);
+        return out.toByteArray();
+    }
+}
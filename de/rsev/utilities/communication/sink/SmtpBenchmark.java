@@ -0,0 +1,311 @@
+package de.rsev.utilities.communication.sink;
+
+import de.rsev.utilities.communication.MailOptions;
+import de.rsev.utilities.communication.smtp.BaseSmtpClient;
+import de.rsev.utilities.communication.smtp.NioSmtpClient;
+import de.rsev.utilities.communication.smtp.RawSmtpClient;
+import de.rsev.utilities.communication.smtp.SmtpConnectionPool;
+import de.rsev.utilities.communication.smtp.SmtpMetrics;
+import de.rsev.utilities.communication.smtp.SmtpTlsContexts;
+import de.rsev.utilities.communication.smtp.SmtpTlsOptions;
+import de.rsev.utilities.runtime.ExitCode;
+
+import java.io.Closeable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <summary>
+ * Kommandozeilen-Benchmark für den SMTP-Stack.
+ *
+ * Startet ohne --host einen eingebetteten SmtpSinkServer und sendet
+ * eine feste Anzahl Mails mit der gewählten Parallelität; ausgegeben
+ * werden Durchsatz, Latenz-Perzentile, Fehler sowie die Zähler des
+ * Sinks und der TLS-Handshakes. Vor der Messung läuft eine
+ * Aufwärmphase, deren Ergebnisse verworfen werden. Mit --metrics
+ * werden zusätzlich die SmtpMetrics des Clients (Latenz je Phase,
+ * Fehler nach Antwortcode, Pool-Treffer) ausgegeben.
+ *
+ * Aufruf:
+ * java de.rsev.utilities.communication.sink.SmtpBenchmark [--messages 10000]
+ *     [--concurrency 16] [--size 2048] [--warmup 500] [--client raw|nio]
+ *     [--pool] [--tls] [--no-pipelining] [--no-chunking] [--latency ms]
+ *     [--failure-rate 0.0] [--metrics] [--host h --port p]
+ * </summary>
+ */
+public final class SmtpBenchmark {
+
+    private static final String TRUST_STORE_PASSWORD = "changeit";
+
+    private SmtpBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> arguments = parse(args);
+
+        if (arguments.containsKey("help")) {
+            usage();
+            return;
+        }
+
+        int messages = Integer.parseInt(arguments.getOrDefault("messages", "10000"));
+        int concurrency = Integer.parseInt(arguments.getOrDefault("concurrency", "16"));
+        int size = Integer.parseInt(arguments.getOrDefault("size", "2048"));
+        int warmup = Integer.parseInt(arguments.getOrDefault("warmup", "500"));
+        String clientType = arguments.getOrDefault("client", "raw");
+        boolean pool = arguments.containsKey("pool");
+        boolean tls = arguments.containsKey("tls");
+
+        SmtpSinkServer sink = null;
+        MailOptions template;
+
+        if (arguments.containsKey("host")) {
+            template = new MailOptions();
+            template.setSmtpHost(arguments.get("host"));
+            template.setSmtpPort(Integer.parseInt(arguments.getOrDefault("port", "25")));
+            template.setUseTls(tls);
+        } else {
+            SmtpSinkOptions sinkOptions = new SmtpSinkOptions();
+            sinkOptions.setStartTls(tls);
+            sinkOptions.setPipelining(!arguments.containsKey("no-pipelining"));
+            sinkOptions.setChunking(!arguments.containsKey("no-chunking"));
+            sinkOptions.setMessageLatencyMillis(Long.parseLong(arguments.getOrDefault("latency", "0")));
+            sinkOptions.setMessageFailureRate(Double.parseDouble(arguments.getOrDefault("failure-rate", "0")));
+
+            sink = new SmtpSinkServer(sinkOptions).start();
+            template = sink.createMailOptions();
+
+            if (tls) {
+                Path trustStore = Files.createTempFile("rsev-smtp-sink", ".p12");
+                trustStore.toFile().deleteOnExit();
+                sink.writeTrustStore(trustStore, TRUST_STORE_PASSWORD);
+
+                SmtpTlsOptions tlsOptions = new SmtpTlsOptions();
+                tlsOptions.setTrustStorePath(trustStore.toString());
+                tlsOptions.setTrustStorePassword(TRUST_STORE_PASSWORD);
+                tlsOptions.setTrustStoreType("PKCS12");
+                SmtpTlsContexts.setOptions(template.getSmtpHost(), template.getSmtpPort(), tlsOptions);
+            }
+        }
+
+        template.setMailFrom("benchmark@localhost");
+        template.setMailTo("sink@localhost");
+        template.setSubject("SMTP-Benchmark");
+        template.setMailBody(body(size));
+
+        BaseSmtpClient client = clientType.equalsIgnoreCase("nio")
+                ? new NioSmtpClient()
+                : new RawSmtpClient(pool ? new SmtpConnectionPool() : null);
+
+        SmtpMetrics metrics = arguments.containsKey("metrics") ? new SmtpMetrics() : null;
+        client.setMetrics(metrics);
+
+        System.out.printf(Locale.ROOT,
+                "SMTP-Benchmark: client=%s pool=%b tls=%b messages=%d concurrency=%d size=%d%s%n",
+                clientType, pool, tls, messages, concurrency, size,
+                sink != null ? " sink=" + sink.getHost() + ":" + sink.getPort() : "");
+
+        ExitCode exitCode;
+
+        try {
+            if (warmup > 0)
+                run(client, template, warmup, concurrency);
+
+            if (sink != null) sink.getStats().reset();
+            if (metrics != null) metrics.reset();
+
+            Result result = run(client, template, messages, concurrency);
+            result.print(size);
+
+            if (sink != null)
+                System.out.println("Sink: " + sink.getStats());
+            if (tls)
+                System.out.println("TLS: " + SmtpTlsContexts.getMetrics());
+            if (metrics != null)
+                System.out.println("Client: " + metrics);
+
+            if (result.failed > 0)
+                System.out.println("Erster Fehler: " + result.firstFailure);
+
+            exitCode = result.failed > 0 ? ExitCode.WARNING : ExitCode.SUCCESS;
+
+        } finally {
+            if (client instanceof Closeable closeable) closeable.close();
+            if (client instanceof RawSmtpClient raw && raw.getConnectionPool() != null)
+                raw.getConnectionPool().close();
+            if (sink != null) sink.close();
+        }
+
+        System.exit(exitCode.getCode());
+    }
+
+    /* -----------------------------
+       Run
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Sendet count Mails mit höchstens concurrency gleichzeitigen Sendungen
+     * und misst die Latenz jeder Mail.
+     * </summary>
+     */
+    private static Result run(BaseSmtpClient client, MailOptions template,
+                              int count, int concurrency) throws InterruptedException {
+        long[] latencies = new long[count];
+        AtomicInteger failed = new AtomicInteger();
+        AtomicReference<String> firstFailure = new AtomicReference<>();
+
+        Semaphore permits = new Semaphore(Math.max(1, concurrency));
+        CountDownLatch done = new CountDownLatch(count);
+        AtomicInteger next = new AtomicInteger();
+
+        long start = System.nanoTime();
+
+        if (client instanceof NioSmtpClient) {
+            for (int i = 0; i < count; i++) {
+                permits.acquire();
+                int index = i;
+                long sent = System.nanoTime();
+
+                client.sendAsync(template).whenComplete((v, ex) -> {
+                    latencies[index] = System.nanoTime() - sent;
+                    if (ex != null) failure(failed, firstFailure, ex);
+                    permits.release();
+                    done.countDown();
+                });
+            }
+        } else {
+            for (int t = 0; t < Math.max(1, concurrency); t++) {
+                Thread worker = new Thread(() -> {
+                    int index;
+                    while ((index = next.getAndIncrement()) < count) {
+                        long sent = System.nanoTime();
+                        try {
+                            client.send(template);
+                        } catch (RuntimeException ex) {
+                            failure(failed, firstFailure, ex);
+                        }
+                        latencies[index] = System.nanoTime() - sent;
+                        done.countDown();
+                    }
+                }, "rsev-smtp-benchmark-" + t);
+                worker.setDaemon(true);
+                worker.start();
+            }
+        }
+
+        done.await();
+        return new Result(count, failed.get(), System.nanoTime() - start, latencies, firstFailure.get());
+    }
+
+    private static void failure(AtomicInteger failed, AtomicReference<String> first, Throwable ex) {
+        failed.incrementAndGet();
+
+        if (ex instanceof CompletionException && ex.getCause() != null)
+            ex = ex.getCause();
+
+        String message = ex.getMessage();
+        if (ex.getCause() != null)
+            message += ": " + ex.getCause().getMessage();
+
+        first.compareAndSet(null, message);
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Erzeugt einen ASCII-Text mit Zeilen zu 76 Zeichen.
+     * </summary>
+     */
+    private static String body(int size) {
+        StringBuilder body = new StringBuilder(size + 80);
+        int column = 0;
+
+        while (body.length() < size) {
+            if (column == 76) {
+                body.append('\n');
+                column = 0;
+            } else {
+                body.append((char) ('a' + body.length() % 26));
+                column++;
+            }
+        }
+
+        return body.toString();
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> arguments = new HashMap<>();
+
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--"))
+                throw new IllegalArgumentException("Unbekanntes Argument: " + args[i]);
+
+            String key = args[i].substring(2);
+            boolean hasValue = i + 1 < args.length && !args[i + 1].startsWith("--");
+            arguments.put(key, hasValue ? args[++i] : "true");
+        }
+
+        return arguments;
+    }
+
+    private static void usage() {
+        System.out.println("SmtpBenchmark [--messages n] [--concurrency n] [--size bytes] [--warmup n]");
+        System.out.println("              [--client raw|nio] [--pool] [--tls] [--no-pipelining] [--no-chunking]");
+        System.out.println("              [--latency ms] [--failure-rate 0..1] [--metrics] [--host h --port p]");
+    }
+
+    /**
+     * <summary>
+     * Ergebnis eines Laufs.
+     * </summary>
+     */
+    private static final class Result {
+
+        final int count;
+        final int failed;
+        final long nanos;
+        final long[] latencies;
+        final String firstFailure;
+
+        Result(int count, int failed, long nanos, long[] latencies, String firstFailure) {
+            this.count = count;
+            this.failed = failed;
+            this.nanos = nanos;
+            this.latencies = latencies;
+            this.firstFailure = firstFailure;
+        }
+
+        void print(int size) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+
+            double seconds = nanos / 1e9;
+            double rate = count / seconds;
+
+            System.out.printf(Locale.ROOT, "Dauer: %.2f s, %.0f Mails/s, %.1f MB/s%n",
+                    seconds, rate, rate * size / (1024.0 * 1024.0));
+            System.out.printf(Locale.ROOT, "Latenz: p50=%.2f ms, p95=%.2f ms, p99=%.2f ms, max=%.2f ms%n",
+                    percentile(sorted, 0.50), percentile(sorted, 0.95),
+                    percentile(sorted, 0.99), sorted.length > 0 ? sorted[sorted.length - 1] / 1e6 : 0);
+            System.out.println("Fehler: " + failed + " von " + count);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+        }
+    }
+}
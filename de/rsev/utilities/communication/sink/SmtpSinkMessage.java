@@ -0,0 +1,52 @@
+package de.rsev.utilities.communication.sink;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <summary>
+ * Vom SMTP-Sink-Server angenommene Nachricht mit Umschlag und Inhalt
+ * (ohne Dot-Stuffing und ohne Abschlusspunkt).
+ * </summary>
+ */
+public final class SmtpSinkMessage {
+
+    private final String from;
+    private final List<String> recipients;
+    private final byte[] data;
+    private final long receivedAt;
+
+    SmtpSinkMessage(String from, List<String> recipients, byte[] data) {
+        this.from = from;
+        this.recipients = Collections.unmodifiableList(recipients);
+        this.data = data;
+        this.receivedAt = System.currentTimeMillis();
+    }
+
+    /** <summary>Vollständiges MAIL FROM-Argument inkl. Parametern.</summary> */
+    public String getFrom() {
+        return from;
+    }
+
+    public List<String> getRecipients() {
+        return recipients;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public String getContent() {
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
+    @Override
+    public String toString() {
+        return from + " -> " + recipients + " (" + data.length + " Bytes)";
+    }
+}
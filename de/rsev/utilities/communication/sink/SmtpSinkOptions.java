@@ -0,0 +1,117 @@
+package de.rsev.utilities.communication.sink;
+
+/**
+ * <summary>
+ * Enthält alle Parameter für den eingebetteten SMTP-Sink-Server.
+ * Fehlerraten sind Wahrscheinlichkeiten von 0 bis 1; ein Wert von 0
+ * deaktiviert das jeweilige Kriterium.
+ * </summary>
+ */
+public class SmtpSinkOptions {
+
+    /** <summary>Adresse, an die der Server gebunden wird.</summary> */
+    private String bindAddress = "127.0.0.1";
+
+    /** <summary>Port des Servers, 0 = freier Port (siehe SmtpSinkServer.getPort()).</summary> */
+    private int port = 0;
+
+    /** <summary>Hostname in Begrüßung und EHLO-Antwort.</summary> */
+    private String hostname = "localhost";
+
+    /** <summary>Bietet STARTTLS mit einem selbstsignierten Testzertifikat an.</summary> */
+    private boolean startTls = true;
+
+    /** <summary>Bietet PIPELINING (RFC 2920) an.</summary> */
+    private boolean pipelining = true;
+
+    /** <summary>Bietet CHUNKING / BDAT (RFC 3030) an.</summary> */
+    private boolean chunking = true;
+
+    /** <summary>Bietet 8BITMIME und SMTPUTF8 an.</summary> */
+    private boolean eightBitMime = true;
+
+    /** <summary>Maximale Nachrichtengröße in Bytes, wird als SIZE angeboten.</summary> */
+    private long maxMessageSize = 0;
+
+    /** <summary>Maximale Anzahl gleichzeitiger Verbindungen, weitere erhalten 421.</summary> */
+    private int maxConnections = 0;
+
+    /** <summary>Künstliche Verzögerung vor jeder Antwort.</summary> */
+    private long commandLatencyMillis = 0;
+
+    /** <summary>Künstliche Verzögerung vor der Antwort auf das Nachrichtenende.</summary> */
+    private long messageLatencyMillis = 0;
+
+    /** <summary>Anteil der Verbindungen, die mit 421 abgewiesen werden.</summary> */
+    private double connectionFailureRate = 0;
+
+    /** <summary>Anteil der Empfänger, die mit recipientFailureCode abgelehnt werden.</summary> */
+    private double recipientFailureRate = 0;
+
+    /** <summary>SMTP-Code für abgelehnte Empfänger.</summary> */
+    private int recipientFailureCode = 450;
+
+    /** <summary>Anteil der Nachrichten, die nach der Übertragung mit messageFailureCode abgelehnt werden.</summary> */
+    private double messageFailureRate = 0;
+
+    /** <summary>SMTP-Code für abgelehnte Nachrichten.</summary> */
+    private int messageFailureCode = 451;
+
+    /** <summary>Anzahl der zuletzt angenommenen Nachrichten, die im Speicher bleiben; 0 = alle verwerfen.</summary> */
+    private int retainMessages = 0;
+
+    /* -----------------------------
+       Getter / Setter
+       ----------------------------- */
+
+    public String getBindAddress() { return bindAddress; }
+    public void setBindAddress(String bindAddress) { this.bindAddress = bindAddress; }
+
+    public int getPort() { return port; }
+    public void setPort(int port) { this.port = port; }
+
+    public String getHostname() { return hostname; }
+    public void setHostname(String hostname) { this.hostname = hostname; }
+
+    public boolean isStartTls() { return startTls; }
+    public void setStartTls(boolean startTls) { this.startTls = startTls; }
+
+    public boolean isPipelining() { return pipelining; }
+    public void setPipelining(boolean pipelining) { this.pipelining = pipelining; }
+
+    public boolean isChunking() { return chunking; }
+    public void setChunking(boolean chunking) { this.chunking = chunking; }
+
+    public boolean isEightBitMime() { return eightBitMime; }
+    public void setEightBitMime(boolean eightBitMime) { this.eightBitMime = eightBitMime; }
+
+    public long getMaxMessageSize() { return maxMessageSize; }
+    public void setMaxMessageSize(long maxMessageSize) { this.maxMessageSize = maxMessageSize; }
+
+    public int getMaxConnections() { return maxConnections; }
+    public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+
+    public long getCommandLatencyMillis() { return commandLatencyMillis; }
+    public void setCommandLatencyMillis(long commandLatencyMillis) { this.commandLatencyMillis = commandLatencyMillis; }
+
+    public long getMessageLatencyMillis() { return messageLatencyMillis; }
+    public void setMessageLatencyMillis(long messageLatencyMillis) { this.messageLatencyMillis = messageLatencyMillis; }
+
+    public double getConnectionFailureRate() { return connectionFailureRate; }
+    public void setConnectionFailureRate(double connectionFailureRate) { this.connectionFailureRate = connectionFailureRate; }
+
+    public double getRecipientFailureRate() { return recipientFailureRate; }
+    public void setRecipientFailureRate(double recipientFailureRate) { this.recipientFailureRate = recipientFailureRate; }
+
+    public int getRecipientFailureCode() { return recipientFailureCode; }
+    public void setRecipientFailureCode(int recipientFailureCode) { this.recipientFailureCode = recipientFailureCode; }
+
+    public double getMessageFailureRate() { return messageFailureRate; }
+    public void setMessageFailureRate(double messageFailureRate) { this.messageFailureRate = messageFailureRate; }
+
+    public int getMessageFailureCode() { return messageFailureCode; }
+    public void setMessageFailureCode(int messageFailureCode) { this.messageFailureCode = messageFailureCode; }
+
+    public int getRetainMessages() { return retainMessages; }
+    public void setRetainMessages(int retainMessages) { this.retainMessages = retainMessages; }
+}
@@ -0,0 +1,258 @@
+package de.rsev.utilities.communication.sink;
+
+import de.rsev.utilities.communication.MailOptions;
+
+import javax.net.ssl.SSLContext;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.security.cert.X509Certificate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <summary>
+ * Eingebetteter SMTP-Server ohne externe Dependencies für Last- und
+ * Regressionstests des SMTP-Stacks, z. B. auf Rechnern ohne Mailserver.
+ *
+ * Der Server nimmt Nachrichten per DATA oder BDAT an, zählt sie in
+ * SmtpSinkStats und verwirft sie (oder behält die letzten
+ * retainMessages im Speicher). Er bietet wahlweise STARTTLS mit einem
+ * beim Start erzeugten, selbstsignierten Zertifikat, PIPELINING,
+ * CHUNKING, 8BITMIME/SMTPUTF8 und SIZE an; AUTH PLAIN/LOGIN wird mit
+ * beliebigen Zugangsdaten akzeptiert. Latenz und Fehler (421 bei
+ * Verbindungsaufbau, abgelehnte Empfänger oder Nachrichten) lassen
+ * sich über SmtpSinkOptions einstellen.
+ *
+ * Jede Verbindung läuft auf einem eigenen Daemon-Thread.
+ * </summary>
+ */
+public class SmtpSinkServer implements Closeable {
+
+    private static final AtomicInteger SERVER_IDS = new AtomicInteger();
+
+    private final SmtpSinkOptions options;
+    private final SmtpSinkStats stats = new SmtpSinkStats();
+    private final Deque<SmtpSinkMessage> retained = new ArrayDeque<>();
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger sessionIds = new AtomicInteger();
+    private final int id = SERVER_IDS.incrementAndGet();
+
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+    private SelfSignedCertificate certificate;
+    private SSLContext tlsContext;
+
+    private volatile boolean closed;
+
+    public SmtpSinkServer() {
+        this(new SmtpSinkOptions());
+    }
+
+    public SmtpSinkServer(SmtpSinkOptions options) {
+        this.options = options;
+    }
+
+    /* -----------------------------
+       Lifecycle
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Erzeugt bei Bedarf das Testzertifikat, bindet den Port und
+     * startet den Accept-Thread.
+     * </summary>
+     */
+    public synchronized SmtpSinkServer start() throws IOException {
+        if (serverSocket != null)
+            throw new IllegalStateException("SMTP-Sink läuft bereits");
+
+        if (options.isStartTls()) {
+            certificate = SelfSignedCertificate.create(options.getHostname());
+            tlsContext = certificate.createServerContext();
+        }
+
+        ServerSocket socket = new ServerSocket();
+        socket.setReuseAddress(true);
+        socket.bind(new InetSocketAddress(InetAddress.getByName(options.getBindAddress()), options.getPort()), 1024);
+        serverSocket = socket;
+
+        acceptor = new Thread(this::accept, "rsev-smtp-sink-" + id + "-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return this;
+    }
+
+    /**
+     * <summary>
+     * Beendet den Server und alle offenen Verbindungen.
+     * </summary>
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        try {
+            if (serverSocket != null) serverSocket.close();
+        } catch (IOException ignored) {
+            // Server wird ohnehin beendet
+        }
+
+        for (Socket socket : sockets) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Verbindung wird ohnehin beendet
+            }
+        }
+
+        if (acceptor != null) {
+            try {
+                acceptor.join(1_000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /* -----------------------------
+       Accessor Methods
+       ----------------------------- */
+
+    public int getPort() {
+        if (serverSocket == null)
+            throw new IllegalStateException("SMTP-Sink ist nicht gestartet");
+        return serverSocket.getLocalPort();
+    }
+
+    public String getHost() {
+        return options.getBindAddress();
+    }
+
+    public SmtpSinkOptions getOptions() {
+        return options;
+    }
+
+    public SmtpSinkStats getStats() {
+        return stats;
+    }
+
+    /**
+     * <summary>
+     * Gibt das selbstsignierte Zertifikat zurück, null ohne STARTTLS.
+     * </summary>
+     */
+    public X509Certificate getCertificate() {
+        return certificate != null ? certificate.getCertificate() : null;
+    }
+
+    /**
+     * <summary>
+     * Schreibt einen PKCS12-Truststore mit dem Testzertifikat,
+     * z. B. für SmtpTlsOptions.setTrustStorePath().
+     * </summary>
+     */
+    public void writeTrustStore(Path file, String password) throws IOException {
+        if (certificate == null)
+            throw new IllegalStateException("SMTP-Sink ohne STARTTLS hat kein Zertifikat");
+        certificate.writeTrustStore(file, password);
+    }
+
+    /**
+     * <summary>
+     * Erstellt MailOptions, die auf diesen Server zeigen
+     * (Host, Port und STARTTLS).
+     * </summary>
+     */
+    public MailOptions createMailOptions() {
+        MailOptions opt = new MailOptions();
+        opt.setSmtpHost(getHost());
+        opt.setSmtpPort(getPort());
+        opt.setUseTls(options.isStartTls());
+        opt.setUseSsl(false);
+        return opt;
+    }
+
+    /**
+     * <summary>
+     * Gibt die zuletzt angenommenen Nachrichten zurück (höchstens retainMessages).
+     * </summary>
+     */
+    public List<SmtpSinkMessage> getMessages() {
+        synchronized (retained) {
+            return new ArrayList<>(retained);
+        }
+    }
+
+    public void clearMessages() {
+        synchronized (retained) {
+            retained.clear();
+        }
+    }
+
+    /* -----------------------------
+       Package Methods (SmtpSinkSession)
+       ----------------------------- */
+
+    SSLContext getTlsContext() {
+        return tlsContext;
+    }
+
+    void retain(SmtpSinkMessage message) {
+        int max = options.getRetainMessages();
+        if (max <= 0) return;
+
+        synchronized (retained) {
+            retained.addLast(message);
+            while (retained.size() > max)
+                retained.pollFirst();
+        }
+    }
+
+    void closed(Socket socket) {
+        sockets.remove(socket);
+        stats.connectionClosed();
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private void accept() {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException ex) {
+                if (closed) return;
+                continue;
+            }
+
+            try {
+                socket.setTcpNoDelay(true);
+            } catch (IOException ignored) {
+                // nur Optimierung
+            }
+
+            int max = options.getMaxConnections();
+            boolean overloaded = max > 0 && stats.getActiveConnections() >= max;
+
+            sockets.add(socket);
+            stats.connectionOpened();
+
+            Thread worker = new Thread(new SmtpSinkSession(this, socket, overloaded),
+                    "rsev-smtp-sink-" + id + "-" + sessionIds.incrementAndGet());
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+}
@@ -0,0 +1,487 @@
+package de.rsev.utilities.communication.sink;
+
+import javax.net.ssl.SSLSocket;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <summary>
+ * Serverseite einer SMTP-Verbindung des SmtpSinkServer.
+ *
+ * Antworten werden gepuffert und erst geschrieben, wenn keine weiteren
+ * Kommandos anliegen; ein Client mit PIPELINING erhält so alle
+ * Antworten einer Gruppe in einem Segment.
+ * </summary>
+ */
+final class SmtpSinkSession implements Runnable {
+
+    private static final int MAX_LINE = 64 * 1024;
+
+    private final SmtpSinkServer server;
+    private final SmtpSinkOptions options;
+    private final SmtpSinkStats stats;
+    private final boolean overloaded;
+
+    private Socket socket;
+    private InputStream in;
+    private OutputStream out;
+    private boolean tls;
+
+    private final byte[] buffer = new byte[16 * 1024];
+    private int position;
+    private int limit;
+    private byte[] line = new byte[1024];
+
+    private String from;
+    private final List<String> recipients = new ArrayList<>();
+    private ByteArrayOutputStream content;
+    private long contentBytes;
+    private boolean tooLarge;
+
+    SmtpSinkSession(SmtpSinkServer server, Socket socket, boolean overloaded) {
+        this.server = server;
+        this.options = server.getOptions();
+        this.stats = server.getStats();
+        this.socket = socket;
+        this.overloaded = overloaded;
+    }
+
+    /* -----------------------------
+       Session
+       ----------------------------- */
+
+    @Override
+    public void run() {
+        Socket original = socket;
+
+        try {
+            openStreams();
+
+            if (overloaded || chance(options.getConnectionFailureRate())) {
+                stats.rejectedConnections.increment();
+                reply("421 " + options.getHostname() + " Service not available, closing channel");
+                out.flush();
+                return;
+            }
+
+            reply("220 " + options.getHostname() + " ESMTP rsev-smtp-sink");
+            out.flush();
+
+            while (handle(readCommand())) {
+                if (!hasBuffered()) out.flush();
+            }
+
+            out.flush();
+
+        } catch (IOException ex) {
+            // Verbindung vom Client beendet oder abgebrochen
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Verbindung wird ohnehin beendet
+            }
+            server.closed(original);
+        }
+    }
+
+    /**
+     * <summary>
+     * Verarbeitet ein Kommando.
+     * </summary>
+     * @return false, wenn die Verbindung beendet werden soll.
+     */
+    private boolean handle(String command) throws IOException {
+        if (command == null) return false;
+
+        stats.commands.increment();
+
+        int space = command.indexOf(' ');
+        String verb = (space < 0 ? command : command.substring(0, space)).toUpperCase(Locale.ROOT);
+        String argument = space < 0 ? "" : command.substring(space + 1).trim();
+
+        switch (verb) {
+            case "EHLO" -> ehlo();
+            case "HELO" -> reply("250 " + options.getHostname());
+            case "STARTTLS" -> startTls();
+            case "AUTH" -> auth(argument);
+            case "MAIL" -> mail(argument);
+            case "RCPT" -> rcpt(argument);
+            case "DATA" -> data();
+            case "BDAT" -> bdat(argument);
+            case "RSET" -> {
+                reset();
+                reply("250 OK");
+            }
+            case "NOOP" -> reply("250 OK");
+            case "QUIT" -> {
+                reply("221 Bye");
+                return false;
+            }
+            default -> reply("500 Unknown command");
+        }
+
+        return true;
+    }
+
+    /* -----------------------------
+       Commands
+       ----------------------------- */
+
+    private void ehlo() throws IOException {
+        reset();
+
+        List<String> lines = new ArrayList<>();
+        lines.add(options.getHostname());
+        if (options.isPipelining()) lines.add("PIPELINING");
+        if (options.isChunking()) lines.add("CHUNKING");
+        if (options.isEightBitMime()) {
+            lines.add("8BITMIME");
+            lines.add("SMTPUTF8");
+        }
+        if (options.getMaxMessageSize() > 0) lines.add("SIZE " + options.getMaxMessageSize());
+        if (options.isStartTls() && !tls) lines.add("STARTTLS");
+        lines.add("AUTH PLAIN LOGIN");
+
+        for (int i = 0; i < lines.size(); i++)
+            reply("250" + (i < lines.size() - 1 ? "-" : " ") + lines.get(i));
+    }
+
+    private void startTls() throws IOException {
+        if (!options.isStartTls() || tls) {
+            reply("502 STARTTLS not available");
+            return;
+        }
+
+        reply("220 Ready to start TLS");
+        out.flush();
+
+        SSLSocket secure = (SSLSocket) server.getTlsContext().getSocketFactory()
+                .createSocket(socket, socket.getInetAddress().getHostAddress(), socket.getPort(), true);
+        secure.setUseClientMode(false);
+        secure.startHandshake();
+
+        socket = secure;
+        tls = true;
+        position = limit = 0;
+        openStreams();
+        reset();
+
+        stats.tlsHandshakes.increment();
+    }
+
+    /**
+     * <summary>
+     * Akzeptiert AUTH PLAIN und AUTH LOGIN mit beliebigen Zugangsdaten.
+     * </summary>
+     */
+    private void auth(String argument) throws IOException {
+        String[] parts = argument.split(" ", 2);
+        String mechanism = parts[0].toUpperCase(Locale.ROOT);
+        boolean initial = parts.length > 1;
+
+        switch (mechanism) {
+            case "PLAIN" -> {
+                if (!initial) {
+                    reply("334 ");
+                    out.flush();
+                    readCommand();
+                }
+            }
+            case "LOGIN" -> {
+                if (!initial) {
+                    reply("334 VXNlcm5hbWU6");
+                    out.flush();
+                    readCommand();
+                }
+                reply("334 UGFzc3dvcmQ6");
+                out.flush();
+                readCommand();
+            }
+            default -> {
+                reply("504 Unrecognized authentication type");
+                return;
+            }
+        }
+
+        reply("235 Authentication successful");
+    }
+
+    private void mail(String argument) throws IOException {
+        if (!argument.toUpperCase(Locale.ROOT).startsWith("FROM:")) {
+            reply("501 Syntax: MAIL FROM:<address>");
+            return;
+        }
+
+        long max = options.getMaxMessageSize();
+        if (max > 0) {
+            for (String parameter : argument.split(" ")) {
+                if (parameter.toUpperCase(Locale.ROOT).startsWith("SIZE=")
+                        && parseLong(parameter.substring(5)) > max) {
+                    reply("552 Message size exceeds fixed maximum message size");
+                    return;
+                }
+            }
+        }
+
+        reset();
+        from = argument.substring(5).trim();
+        reply("250 OK");
+    }
+
+    private void rcpt(String argument) throws IOException {
+        if (from == null) {
+            reply("503 Need MAIL command");
+            return;
+        }
+
+        if (!argument.toUpperCase(Locale.ROOT).startsWith("TO:")) {
+            reply("501 Syntax: RCPT TO:<address>");
+            return;
+        }
+
+        if (chance(options.getRecipientFailureRate())) {
+            stats.rejectedRecipients.increment();
+            reply(options.getRecipientFailureCode() + " Recipient rejected (injected failure)");
+            return;
+        }
+
+        recipients.add(argument.substring(3).trim());
+        reply("250 OK");
+    }
+
+    private void data() throws IOException {
+        if (from == null || recipients.isEmpty()) {
+            reply(from == null ? "503 Need MAIL command" : "554 No valid recipients");
+            return;
+        }
+
+        reply("354 End data with <CR><LF>.<CR><LF>");
+        out.flush();
+
+        startContent();
+
+        for (;;) {
+            int length = readLine(true);
+            if (length < 0)
+                throw new IOException("Verbindung während DATA beendet");
+
+            if (line[0] == '.') {
+                if (length == 3 && line[1] == '\r' && line[2] == '\n') break;
+                if (length == 2 && line[1] == '\n') break;
+                appendContent(line, 1, length - 1);
+            } else {
+                appendContent(line, 0, length);
+            }
+        }
+
+        finish();
+    }
+
+    /**
+     * <summary>
+     * BDAT: liest genau die angekündigte Anzahl Bytes, auch wenn die
+     * Transaktion ungültig ist, damit der Datenstrom synchron bleibt.
+     * </summary>
+     */
+    private void bdat(String argument) throws IOException {
+        String[] parts = argument.split("\\s+");
+        long size = parseLong(parts[0]);
+        boolean last = parts.length > 1 && parts[1].equalsIgnoreCase("LAST");
+
+        if (size < 0) {
+            reply("501 Syntax: BDAT <size> [LAST]");
+            return;
+        }
+
+        boolean valid = from != null && !recipients.isEmpty();
+        if (valid && content == null && contentBytes == 0)
+            startContent();
+
+        long remaining = size;
+        while (remaining > 0) {
+            if (!fill())
+                throw new IOException("Verbindung während BDAT beendet");
+
+            int n = (int) Math.min(remaining, limit - position);
+            if (valid) appendContent(buffer, position, n);
+            position += n;
+            remaining -= n;
+        }
+
+        stats.chunks.increment();
+
+        if (!valid) {
+            reply(from == null ? "503 Need MAIL command" : "554 No valid recipients");
+            return;
+        }
+
+        if (last) finish();
+        else reply("250 " + size + " octets received");
+    }
+
+    /* -----------------------------
+       Transaction
+       ----------------------------- */
+
+    private void startContent() {
+        content = options.getRetainMessages() > 0 ? new ByteArrayOutputStream() : null;
+        contentBytes = 0;
+        tooLarge = false;
+    }
+
+    private void appendContent(byte[] bytes, int offset, int length) {
+        contentBytes += length;
+
+        long max = options.getMaxMessageSize();
+        if (max > 0 && contentBytes > max) {
+            tooLarge = true;
+            content = null;
+        }
+
+        if (content != null) content.write(bytes, offset, length);
+    }
+
+    /**
+     * <summary>
+     * Beantwortet das Nachrichtenende und setzt die Transaktion zurück.
+     * </summary>
+     */
+    private void finish() throws IOException {
+        sleep(options.getMessageLatencyMillis());
+
+        if (tooLarge) {
+            stats.rejectedMessages.increment();
+            reply("552 Message size exceeds fixed maximum message size");
+        } else if (chance(options.getMessageFailureRate())) {
+            stats.rejectedMessages.increment();
+            reply(options.getMessageFailureCode() + " Message rejected (injected failure)");
+        } else {
+            stats.messages.increment();
+            stats.recipients.add(recipients.size());
+            stats.bytes.add(contentBytes);
+
+            if (content != null)
+                server.retain(new SmtpSinkMessage(from, new ArrayList<>(recipients), content.toByteArray()));
+
+            reply("250 OK queued");
+        }
+
+        reset();
+    }
+
+    private void reset() {
+        from = null;
+        recipients.clear();
+        content = null;
+        contentBytes = 0;
+        tooLarge = false;
+    }
+
+    /* -----------------------------
+       IO Helper
+       ----------------------------- */
+
+    private void openStreams() throws IOException {
+        in = socket.getInputStream();
+        out = new BufferedOutputStream(socket.getOutputStream(), 16 * 1024);
+    }
+
+    private void reply(String text) throws IOException {
+        sleep(options.getCommandLatencyMillis());
+        out.write((text + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String readCommand() throws IOException {
+        int length = readLine(false);
+        if (length < 0) return null;
+
+        while (length > 0 && (line[length - 1] == '\n' || line[length - 1] == '\r'))
+            length--;
+
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * <summary>
+     * Liest eine Zeile inklusive Zeilenende in line.
+     * </summary>
+     * @return Länge der Zeile, -1 am Ende des Datenstroms.
+     */
+    private int readLine(boolean unlimited) throws IOException {
+        int length = 0;
+
+        for (;;) {
+            if (!fill())
+                return length > 0 ? length : -1;
+
+            int start = position;
+            int end = start;
+            while (end < limit && buffer[end] != '\n') end++;
+
+            boolean complete = end < limit;
+            if (complete) end++;
+
+            int n = end - start;
+            if (length + n > line.length) {
+                if (!unlimited && length + n > MAX_LINE)
+                    throw new IOException("SMTP-Kommandozeile zu lang");
+                line = Arrays.copyOf(line, Math.max(line.length * 2, length + n));
+            }
+
+            System.arraycopy(buffer, start, line, length, n);
+            length += n;
+            position = end;
+
+            if (complete) return length;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (position < limit) return true;
+
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) return false;
+
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    private boolean hasBuffered() throws IOException {
+        return position < limit || in.available() > 0;
+    }
+
+    private static boolean chance(double rate) {
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        if (millis <= 0) return;
+
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("SMTP-Sink unterbrochen", ex);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package de.rsev.utilities.communication.sink;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <summary>
+ * Zähler des SMTP-Sink-Servers. Alle Zähler sind threadsicher.
+ * </summary>
+ */
+public final class SmtpSinkStats {
+
+    final LongAdder connections = new LongAdder();
+    final LongAdder rejectedConnections = new LongAdder();
+    final AtomicInteger activeConnections = new AtomicInteger();
+    final AtomicInteger peakConnections = new AtomicInteger();
+    final LongAdder tlsHandshakes = new LongAdder();
+    final LongAdder commands = new LongAdder();
+    final LongAdder messages = new LongAdder();
+    final LongAdder rejectedMessages = new LongAdder();
+    final LongAdder recipients = new LongAdder();
+    final LongAdder rejectedRecipients = new LongAdder();
+    final LongAdder bytes = new LongAdder();
+    final LongAdder chunks = new LongAdder();
+
+    SmtpSinkStats() {}
+
+    /* -----------------------------
+       Recording
+       ----------------------------- */
+
+    void connectionOpened() {
+        connections.increment();
+        peakConnections.accumulateAndGet(activeConnections.incrementAndGet(), Math::max);
+    }
+
+    void connectionClosed() {
+        activeConnections.decrementAndGet();
+    }
+
+    /* -----------------------------
+       Accessor Methods
+       ----------------------------- */
+
+    public long getConnections() { return connections.sum(); }
+
+    public long getRejectedConnections() { return rejectedConnections.sum(); }
+
+    public int getActiveConnections() { return activeConnections.get(); }
+
+    public int getPeakConnections() { return peakConnections.get(); }
+
+    public long getTlsHandshakes() { return tlsHandshakes.sum(); }
+
+    public long getCommands() { return commands.sum(); }
+
+    /** <summary>Angenommene Nachrichten.</summary> */
+    public long getMessages() { return messages.sum(); }
+
+    public long getRejectedMessages() { return rejectedMessages.sum(); }
+
+    /** <summary>Angenommene Empfänger.</summary> */
+    public long getRecipients() { return recipients.sum(); }
+
+    public long getRejectedRecipients() { return rejectedRecipients.sum(); }
+
+    /** <summary>Bytes angenommener Nachrichten (ohne Dot-Stuffing).</summary> */
+    public long getBytes() { return bytes.sum(); }
+
+    /** <summary>Empfangene BDAT-Blöcke.</summary> */
+    public long getChunks() { return chunks.sum(); }
+
+    /**
+     * <summary>
+     * Setzt alle Zähler außer den aktiven Verbindungen zurück,
+     * z. B. nach einer Aufwärmphase.
+     * </summary>
+     */
+    public void reset() {
+        connections.reset();
+        rejectedConnections.reset();
+        peakConnections.set(activeConnections.get());
+        tlsHandshakes.reset();
+        commands.reset();
+        messages.reset();
+        rejectedMessages.reset();
+        recipients.reset();
+        rejectedRecipients.reset();
+        bytes.reset();
+        chunks.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "connections=%d (rejected %d, peak %d), tls=%d, messages=%d (rejected %d), "
+                        + "recipients=%d (rejected %d), bytes=%d, chunks=%d",
+                getConnections(), getRejectedConnections(), getPeakConnections(), getTlsHandshakes(),
+                getMessages(), getRejectedMessages(), getRecipients(), getRejectedRecipients(),
+                getBytes(), getChunks());
+    }
+}
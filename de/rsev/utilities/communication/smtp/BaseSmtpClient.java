@@ -1,7 +1,12 @@
 package de.rsev.utilities.communication.smtp;
 
 import de.rsev.utilities.communication.MailOptions;
+import de.rsev.utilities.communication.mime.MimeMessage;
 import de.rsev.utilities.logging.BaseLogger;
+import de.rsev.utilities.logging.BaseLogger.LogLevel;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * <summary>
@@ -13,7 +18,11 @@ import de.rsev.utilities.logging.BaseLogger;
  * Diese Klasse implementiert keine Protokoll- oder
  * Transportlogik und dient ausschließlich als
  * Erweiterungspunkt für Querschnittsfunktionen
- * wie Debugging oder Monitoring.
+ * wie Debugging oder Monitoring sowie für den
+ * gemeinsamen Aufbau der Nachricht.
+ *
+ * Für Monitoring sind die Zähler und Histogramme aus SmtpMetrics
+ * gedacht; die Trace-Ausgaben dienen nur der Fehlersuche.
  *
  * IMPORTANT:
  * Wenn Debug-Tracing aktiviert wird, muss das
@@ -34,6 +43,14 @@ public abstract class BaseSmtpClient implements ISmtpClient {
      */
     protected boolean debugEnabled = false;
 
+    /**
+     * <summary>
+     * Gemeinsamer Logger für SMTP-Tracing.
+     * Über BaseLogger.getLogger("smtp").setLevel(...) zur Laufzeit umschaltbar.
+     * </summary>
+     */
+    protected static final BaseLogger TRACE_LOGGER = BaseLogger.getLogger("smtp");
+
     /**
      * <summary>
      * Aktiviert oder deaktiviert SMTP-Debug-Tracing.
@@ -52,6 +69,48 @@ public abstract class BaseSmtpClient implements ISmtpClient {
         return debugEnabled;
     }
 
+    /**
+     * <summary>
+     * Gibt an, ob Trace-Ausgaben geschrieben oder im Absturz-Ringpuffer
+     * erfasst würden. Aufrufer können damit den Aufbau von Trace-Strings
+     * vermeiden.
+     * </summary>
+     */
+    protected boolean isTraceEnabled() {
+        return debugEnabled && TRACE_LOGGER.isRecorded(LogLevel.DEBUG);
+    }
+
+    /**
+     * <summary>
+     * Optionale Drosselung je Relay, null = keine Begrenzung.
+     * Mehrere Clients können denselben Scheduler teilen.
+     * </summary>
+     */
+    protected SmtpRelayScheduler scheduler;
+
+    public void setScheduler(SmtpRelayScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public SmtpRelayScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * <summary>
+     * Optionale Messwerte (Phasenlatenzen, Zähler), null = keine Messung.
+     * </summary>
+     */
+    protected SmtpMetrics metrics;
+
+    public void setMetrics(SmtpMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public SmtpMetrics getMetrics() {
+        return metrics;
+    }
+
     /* -----------------------------
        Debug / Trace Methods
        ----------------------------- */
@@ -65,11 +124,10 @@ public abstract class BaseSmtpClient implements ISmtpClient {
      * </summary>
      */
     protected void traceClient(String message) {
-        if (!debugEnabled) return;
+        if (!isTraceEnabled()) return;
 
         try {
-            BaseLogger baseLogger = new BaseLogger();
-            baseLogger.debug("[SMTP →] " + sanitize(message));
+            TRACE_LOGGER.debug("[SMTP →] " + sanitize(message));
 
         } catch (Exception ignored) {
             // Logging ist optional und darf den SMTP-Flow nicht stören
@@ -85,11 +143,10 @@ public abstract class BaseSmtpClient implements ISmtpClient {
      * </summary>
      */
     protected void traceServer(String message) {
-        if (!debugEnabled) return;
+        if (!isTraceEnabled()) return;
 
         try {
-            BaseLogger baseLogger = new BaseLogger();
-            baseLogger.debug("[SMTP ←] " + sanitize(message));
+            TRACE_LOGGER.debug("[SMTP ←] " + sanitize(message));
         } catch (Exception ignored) {
             // Logging ist optional und darf den SMTP-Flow nicht stören
         }
@@ -101,16 +158,50 @@ public abstract class BaseSmtpClient implements ISmtpClient {
      * </summary>
      */
     protected void traceInfo(String message) {
-        if (!debugEnabled) return;
+        if (!isTraceEnabled()) return;
 
         try {
-            BaseLogger baseLogger = new BaseLogger();
-            baseLogger.debug("[SMTP] " + message);
+            TRACE_LOGGER.debug("[SMTP] " + message);
         } catch (Exception ignored) {
             // optional
         }
     }
 
+    /* -----------------------------
+       Message Building
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Zerlegt mailTo in einzelne Empfänger (durch Komma getrennt).
+     * </summary>
+     */
+    protected List<String> recipients(MailOptions opt) {
+        List<String> recipients = new ArrayList<>();
+
+        if (opt.getMailTo() != null) {
+            for (String to : opt.getMailTo().split(",")) {
+                if (!to.isBlank())
+                    recipients.add(to.trim());
+            }
+        }
+
+        if (recipients.isEmpty())
+            throw new IllegalArgumentException("Kein Empfänger angegeben");
+
+        return recipients;
+    }
+
+    /**
+     * <summary>
+     * Baut die MIME-Nachricht inkl. Header und Anhängen.
+     * Anhänge werden erst beim Versand aus den Dateien gelesen.
+     * </summary>
+     */
+    protected ISmtpMessage buildMessage(MailOptions opt, String toHeader) {
+        return MimeMessage.from(opt, toHeader);
+    }
+
     /* -----------------------------
        Helper
        ----------------------------- */
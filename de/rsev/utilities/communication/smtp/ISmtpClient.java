@@ -1,7 +1,13 @@
 package de.rsev.utilities.communication.smtp;
 
 import de.rsev.utilities.communication.MailOptions;
+import de.rsev.utilities.runtime.RuntimeExecutors;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * <summary>
@@ -25,10 +31,56 @@ public interface ISmtpClient {
 
     /**
      * <summary>
-     * Sendet eine E-Mail asynchron über SMTP.
+     * Sendet eine E-Mail asynchron über SMTP (RuntimeExecutors.get()).
      * </summary>
      */
     default CompletableFuture<Void> sendAsync(MailOptions options) {
-        return CompletableFuture.runAsync(() -> send(options));
+        return sendAsync(options, RuntimeExecutors.get());
+    }
+
+    /**
+     * <summary>
+     * Sendet eine E-Mail asynchron über SMTP auf dem angegebenen Executor.
+     * </summary>
+     */
+    default CompletableFuture<Void> sendAsync(MailOptions options, Executor executor) {
+        return CompletableFuture.runAsync(() -> send(options), executor);
+    }
+
+    /**
+     * <summary>
+     * Sendet mehrere E-Mails und liefert das Ergebnis je Empfänger,
+     * sodass bei Teilfehlern nur die betroffenen Empfänger erneut
+     * gesendet werden müssen.
+     *
+     * Die Standardimplementierung sendet jede Mail einzeln und
+     * überträgt deren Ergebnis auf alle ihre Empfänger.
+     * </summary>
+     */
+    default List<SmtpRecipientResult> sendBatch(Collection<MailOptions> batch) {
+        List<SmtpRecipientResult> results = new ArrayList<>();
+
+        for (MailOptions opt : batch) {
+            int code = 250;
+            String message = "OK";
+
+            try {
+                send(opt);
+            } catch (SmtpException ex) {
+                code = ex.getCode();
+                message = ex.getMessage();
+            } catch (RuntimeException ex) {
+                code = 0;
+                message = ex.getMessage();
+            }
+
+            String mailTo = opt.getMailTo() != null ? opt.getMailTo() : "";
+            for (String to : mailTo.split(",")) {
+                if (!to.isBlank())
+                    results.add(new SmtpRecipientResult(opt, to.trim(), code, message));
+            }
+        }
+
+        return results;
     }
 }
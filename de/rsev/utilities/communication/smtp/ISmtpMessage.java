@@ -0,0 +1,91 @@
+package de.rsev.utilities.communication.smtp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <summary>
+ * Inhalt einer Mail (Header und Body), der beim Versand direkt
+ * in die Verbindung geschrieben wird.
+ *
+ * writeTo() schreibt die Nachricht ohne SMTP-Kodierung mit CRLF als
+ * Zeilenende; Dot-Stuffing und der Abschlusspunkt werden bei DATA vom
+ * Transport ergänzt, bei BDAT (RFC 3030) werden die Bytes unverändert
+ * übertragen. Die Methode kann mehrfach aufgerufen werden (z. B. für
+ * einen erneuten Versuch auf einer neuen Verbindung).
+ *
+ * Vor dem Versand wird forServer() mit den Erweiterungen des Servers
+ * aufgerufen; eine Nachricht kann damit z. B. 8bit statt
+ * Quoted-Printable verwenden, wenn der Server 8BITMIME anbietet.
+ * </summary>
+ */
+public interface ISmtpMessage {
+
+    /**
+     * <summary>
+     * Gibt die Größe der Nachricht in Bytes für SIZE (RFC 1870) zurück,
+     * -1 wenn sie nicht bekannt ist.
+     * </summary>
+     */
+    long getSize();
+
+    /**
+     * <summary>
+     * Schreibt die Nachricht in den übergebenen Stream.
+     * Der Stream wird nicht geschlossen.
+     * </summary>
+     */
+    void writeTo(OutputStream out) throws IOException;
+
+    /**
+     * <summary>
+     * Gibt die für den Server passende Variante der Nachricht zurück.
+     * Standard ist die Nachricht selbst.
+     * </summary>
+     */
+    default ISmtpMessage forServer(SmtpCapabilities capabilities) {
+        return this;
+    }
+
+    /**
+     * <summary>
+     * Gibt den BODY-Parameter für MAIL FROM zurück ("8BITMIME"),
+     * null für 7bit-Nachrichten.
+     * </summary>
+     */
+    default String getBodyType() {
+        return null;
+    }
+
+    /**
+     * <summary>
+     * Gibt an, ob die Nachricht UTF-8 in Headern enthält und mit
+     * SMTPUTF8 (RFC 6531) gesendet werden muss.
+     * </summary>
+     */
+    default boolean isSmtpUtf8() {
+        return false;
+    }
+
+    /**
+     * <summary>
+     * Erstellt eine Nachricht aus einem fertigen Text (Header und Body).
+     * </summary>
+     */
+    static ISmtpMessage of(String content) {
+        byte[] bytes = content.replaceAll("\r\n|\r|\n", "\r\n").getBytes(StandardCharsets.UTF_8);
+
+        return new ISmtpMessage() {
+            @Override
+            public long getSize() {
+                return bytes.length;
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                out.write(bytes);
+            }
+        };
+    }
+}
@@ -0,0 +1,161 @@
+package de.rsev.utilities.communication.smtp;
+
+import de.rsev.utilities.communication.MailOptions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <summary>
+ * Nicht blockierende SMTP-Client-Implementierung auf Basis von
+ * NIO SocketChannel und Selector, STARTTLS über SSLEngine.
+ *
+ * Ein oder wenige Event-Loop-Threads treiben beliebig viele
+ * gleichzeitige Sitzungen; sendAsync() belegt keinen Thread pro
+ * Mail, das Future wird vom Event-Loop abgeschlossen. Jede Mail
+ * nutzt eine eigene Verbindung, die nach QUIT geschlossen wird.
+ *
+ * Protokollablauf und Fehlermeldungen entsprechen RawSmtpClient.
+ * Mit einem SmtpRelayScheduler werden überzählige Mails eingereiht
+ * und erst gestartet, wenn das Relay eine Sitzung zulässt.
+ * </summary>
+ */
+public class NioSmtpClient extends BaseSmtpClient implements Closeable {
+
+    private static final AtomicInteger CLIENT_IDS = new AtomicInteger();
+
+    private final NioSmtpEventLoop[] loops;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * <summary>
+     * Zeit ohne Serveraktivität, nach der eine Sitzung abgebrochen wird (0 = nie).
+     * </summary>
+     */
+    protected long timeoutMillis = 60_000;
+
+    public NioSmtpClient() {
+        this(1);
+    }
+
+    /**
+     * <summary>
+     * Erstellt einen Client mit der angegebenen Anzahl Event-Loop-Threads.
+     * </summary>
+     */
+    public NioSmtpClient(int eventLoops) {
+        if (eventLoops < 1)
+            throw new IllegalArgumentException("Mindestens ein Event-Loop erforderlich");
+
+        int id = CLIENT_IDS.incrementAndGet();
+        this.loops = new NioSmtpEventLoop[eventLoops];
+
+        try {
+            for (int i = 0; i < eventLoops; i++)
+                loops[i] = new NioSmtpEventLoop("rsev-smtp-nio-" + id + "-" + i);
+        } catch (IOException ex) {
+            close();
+            throw new UncheckedIOException("SMTP Event-Loop konnte nicht gestartet werden", ex);
+        }
+    }
+
+    /* -----------------------------
+       Configuration
+       ----------------------------- */
+
+    public void setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * <summary>
+     * Gibt die Anzahl der gerade laufenden Sitzungen zurück.
+     * </summary>
+     */
+    public int getActiveSessions() {
+        int count = 0;
+        for (NioSmtpEventLoop loop : loops) {
+            if (loop != null) count += loop.getActiveCount();
+        }
+        return count;
+    }
+
+    /* -----------------------------
+       Send Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Sendet eine E-Mail synchron; wartet auf den Abschluss im Event-Loop.
+     * </summary>
+     */
+    @Override
+    public void send(MailOptions options) {
+        try {
+            sendAsync(options).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw ex;
+        }
+    }
+
+    /**
+     * <summary>
+     * Sendet eine E-Mail asynchron. Das Future wird vom Event-Loop
+     * abgeschlossen, ohne dass ein Thread auf die Antwort wartet.
+     * </summary>
+     */
+    @Override
+    public CompletableFuture<Void> sendAsync(MailOptions options) {
+        if (options == null)
+            throw new IllegalArgumentException("MailOptions dürfen nicht null sein");
+
+        SmtpRelayScheduler throttle = scheduler;
+        if (throttle != null)
+            return throttle.submit(options, () -> start(options));
+
+        return start(options);
+    }
+
+    private CompletableFuture<Void> start(MailOptions options) {
+        NioSmtpSession session = new NioSmtpSession(this, options, recipients(options),
+                buildMessage(options, options.getMailTo()), timeoutMillis);
+
+        loops[Math.floorMod(next.getAndIncrement(), loops.length)].submit(session);
+        return session.future();
+    }
+
+    /**
+     * <summary>
+     * Der NIO-Client blockiert keinen Thread; der Executor wird nicht
+     * benötigt und ignoriert. Abhängige Stufen können mit den *Async-
+     * Methoden des Futures auf einen eigenen Executor gelegt werden.
+     * </summary>
+     */
+    @Override
+    public CompletableFuture<Void> sendAsync(MailOptions options, Executor executor) {
+        return sendAsync(options);
+    }
+
+    /**
+     * <summary>
+     * Beendet alle Event-Loops; laufende Sitzungen schlagen fehl.
+     * </summary>
+     */
+    @Override
+    public void close() {
+        for (NioSmtpEventLoop loop : loops) {
+            if (loop != null) loop.close();
+        }
+    }
+}
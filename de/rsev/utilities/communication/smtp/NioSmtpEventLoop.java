@@ -0,0 +1,141 @@
+package de.rsev.utilities.communication.smtp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * <summary>
+ * Ein Selector-Thread, der beliebig viele NioSmtpSessions treibt.
+ * Neue Sitzungen und Aufgaben anderer Threads werden über
+ * Warteschlangen übergeben und im Loop-Thread ausgeführt;
+ * Zeitüberschreitungen werden einmal pro Durchlauf geprüft.
+ * </summary>
+ */
+final class NioSmtpEventLoop implements Runnable, Closeable {
+
+    private static final long SELECT_TIMEOUT_MILLIS = 500;
+
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<NioSmtpSession> incoming = new ConcurrentLinkedQueue<>();
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /** <summary>Laufende Sitzungen, nur im Loop-Thread verwendet.</summary> */
+    private final List<NioSmtpSession> sessions = new ArrayList<>();
+
+    private volatile boolean closed;
+
+    NioSmtpEventLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * <summary>
+     * Übergibt eine Sitzung an den Loop-Thread.
+     * </summary>
+     */
+    void submit(NioSmtpSession session) {
+        if (closed) {
+            session.fail(new IOException("SMTP-Client ist geschlossen"));
+            return;
+        }
+
+        incoming.add(session);
+        selector.wakeup();
+    }
+
+    /**
+     * <summary>
+     * Führt eine Aufgabe im Loop-Thread aus; nach close() wird sie verworfen.
+     * </summary>
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!closed) {
+                selector.select(SELECT_TIMEOUT_MILLIS);
+
+                NioSmtpSession session;
+                while ((session = incoming.poll()) != null) {
+                    session.start(this, selector);
+                    sessions.add(session);
+                }
+
+                Runnable task;
+                while ((task = tasks.poll()) != null)
+                    task.run();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if (key.isValid())
+                        ((NioSmtpSession) key.attachment()).handle(key.readyOps());
+                }
+
+                long now = System.currentTimeMillis();
+                Iterator<NioSmtpSession> it = sessions.iterator();
+                while (it.hasNext()) {
+                    NioSmtpSession s = it.next();
+                    s.checkTimeout(now);
+                    if (s.isDone()) it.remove();
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            failAll(ex);
+        } finally {
+            failAll(new IOException("SMTP-Client ist geschlossen"));
+
+            try {
+                selector.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /**
+     * <summary>
+     * Gibt die Anzahl der laufenden Sitzungen zurück (Momentaufnahme).
+     * </summary>
+     */
+    int getActiveCount() {
+        return sessions.size() + incoming.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+
+        try {
+            thread.join(5_000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void failAll(Exception cause) {
+        for (NioSmtpSession session : sessions)
+            session.fail(cause);
+        sessions.clear();
+
+        NioSmtpSession session;
+        while ((session = incoming.poll()) != null)
+            session.fail(cause);
+    }
+}
@@ -0,0 +1,994 @@
+package de.rsev.utilities.communication.smtp;
+
+import de.rsev.utilities.communication.MailOptions;
+import de.rsev.utilities.runtime.RuntimeExecutors;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <summary>
+ * Zustandsautomat für eine einzelne Mail auf einer nicht blockierenden
+ * Verbindung: Verbindungsaufbau, EHLO, optional STARTTLS über eine
+ * SSLEngine, AUTH, Mail-Transaktion und QUIT.
+ *
+ * Jedes gesendete Kommando hinterlegt einen Handler für seine Antwort;
+ * die Handler werden in Sendereihenfolge mit den eingehenden Antworten
+ * aufgerufen. Kündigt der Server PIPELINING an, werden MAIL FROM,
+ * alle RCPT TO und DATA gemeinsam gesendet.
+ *
+ * Alle Methoden laufen ausschließlich im Thread der NioSmtpEventLoop.
+ * Größere Nachrichten (z. B. mit Anhängen) werden in einem Thread von
+ * RuntimeExecutors kodiert und über einen begrenzten Puffer übergeben,
+ * der Loop sendet sie, sobald der Kanal schreibbar ist.
+ * Mit SmtpMetrics werden die Phasen bei den Zustandsübergängen gemessen.
+ * </summary>
+ */
+final class NioSmtpSession {
+
+    private static final int MAX_LINE = 64 * 1024;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    /** <summary>Nachrichten bis zu dieser Größe kodiert der Loop-Thread selbst; auch Größe der BodyPipe.</summary> */
+    private static final int INLINE_BODY_BYTES = 64 * 1024;
+
+    private final NioSmtpClient client;
+    private final MailOptions opt;
+    private final List<String> recipients;
+    private ISmtpMessage message;
+    private final long timeoutMillis;
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private final SmtpMetrics metrics;
+
+    private final SmtpReplyParser parser = new SmtpReplyParser();
+    private final Deque<ReplyHandler> expected = new ArrayDeque<>();
+    private final List<SmtpResponse> rcptResponses = new ArrayList<>();
+
+    private NioSmtpEventLoop loop;
+    private SocketChannel channel;
+    private SelectionKey key;
+    private long deadline;
+    private long phaseStart;
+
+    private SmtpCapabilities capabilities = SmtpCapabilities.NONE;
+    private SmtpResponse mailResponse;
+
+    /* TLS-Zustand: null = Klartext */
+    private SSLEngine engine;
+    private boolean handshaking;
+    private boolean startTlsPending;
+    private boolean peerClosed;
+    private long handshakeStart;
+    private long handshakeStartMillis;
+
+    /* Puffer sind außerhalb der Methoden immer im Schreibmodus */
+    private ByteBuffer netIn = ByteBuffer.allocate(16 * 1024);
+    private ByteBuffer netOut;
+    private ByteBuffer appIn;
+    private ByteBuffer appOut = ByteBuffer.allocate(8 * 1024);
+
+    private byte[] line = new byte[256];
+    private int lineLength;
+
+    /** <summary>Nachricht, die gerade außerhalb des Loop-Threads kodiert wird, sonst null.</summary> */
+    private BodyPipe body;
+
+    NioSmtpSession(NioSmtpClient client, MailOptions opt, List<String> recipients,
+                   ISmtpMessage message, long timeoutMillis) {
+        this.client = client;
+        this.opt = opt;
+        this.recipients = recipients;
+        this.message = message;
+        this.timeoutMillis = timeoutMillis;
+        this.metrics = client.getMetrics();
+    }
+
+    CompletableFuture<Void> future() {
+        return future;
+    }
+
+    boolean isDone() {
+        return future.isDone();
+    }
+
+    /* -----------------------------
+       Event Loop Callbacks
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Öffnet die Verbindung und registriert den Kanal am Selector.
+     * </summary>
+     */
+    void start(NioSmtpEventLoop loop, Selector selector) {
+        this.loop = loop;
+
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+            expect(this::onGreeting);
+            touch();
+
+            if (metrics != null) phaseStart = System.nanoTime();
+
+            if (channel.connect(new InetSocketAddress(opt.getSmtpHost(), opt.getSmtpPort()))) {
+                key = channel.register(selector, SelectionKey.OP_READ, this);
+                onConnected();
+            } else {
+                key = channel.register(selector, SelectionKey.OP_CONNECT, this);
+            }
+        } catch (IOException | RuntimeException ex) {
+            fail(ex);
+        }
+    }
+
+    /**
+     * <summary>
+     * Verarbeitet die vom Selector gemeldete Bereitschaft.
+     * </summary>
+     */
+    void handle(int readyOps) {
+        try {
+            if ((readyOps & SelectionKey.OP_CONNECT) != 0) {
+                channel.finishConnect();
+                key.interestOps(SelectionKey.OP_READ);
+                touch();
+                onConnected();
+            }
+
+            if ((readyOps & SelectionKey.OP_READ) != 0)
+                onReadable();
+
+            if ((readyOps & SelectionKey.OP_WRITE) != 0 && !isDone())
+                flush();
+
+        } catch (IOException | RuntimeException ex) {
+            fail(ex);
+        }
+    }
+
+    /**
+     * <summary>
+     * Bricht die Sitzung ab, wenn seit der letzten Aktivität
+     * mehr als timeoutMillis vergangen sind.
+     * </summary>
+     */
+    void checkTimeout(long now) {
+        if (timeoutMillis > 0 && now > deadline)
+            fail(new IOException("SMTP-Zeitüberschreitung nach " + timeoutMillis + " ms"));
+    }
+
+    /**
+     * <summary>
+     * Beendet die Sitzung mit einem Fehler und schließt die Verbindung.
+     * </summary>
+     */
+    void fail(Throwable ex) {
+        if (isDone()) return;
+
+        if (handshaking)
+            SmtpTlsContexts.handshakeFailed(opt.getSmtpHost(), opt.getSmtpPort());
+
+        close();
+
+        if (metrics != null) metrics.messageFailed(ex);
+
+        client.traceInfo("NIO-Sitzung abgebrochen: " + ex.getMessage());
+        future.completeExceptionally(ex instanceof IOException
+                ? new RuntimeException("SMTP IO-Fehler", ex)
+                : ex);
+    }
+
+    /* -----------------------------
+       SMTP Flow
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Mit implizitem TLS (useSsl) beginnt der Handshake direkt nach dem
+     * Verbindungsaufbau; die Begrüßung kommt dann verschlüsselt.
+     * </summary>
+     */
+    private void onConnected() throws IOException {
+        if (!opt.isUseSsl()) {
+            phase(SmtpMetrics.Phase.CONNECT);
+            return;
+        }
+
+        startTls();
+        pumpTls();
+    }
+
+    private void onGreeting(SmtpResponse response) throws IOException {
+        expectPositive(response);
+        phase(SmtpMetrics.Phase.GREETING);
+        ehlo();
+    }
+
+    private void ehlo() throws IOException {
+        command("EHLO localhost", this::onEhlo);
+    }
+
+    private void onEhlo(SmtpResponse response) throws IOException {
+        expectPositive(response);
+        capabilities = SmtpCapabilities.parse(response);
+        phase(SmtpMetrics.Phase.EHLO);
+
+        if (opt.isUseTls() && engine == null) {
+            if (!capabilities.isStartTls())
+                throw new RuntimeException("SMTP-Server unterstützt kein STARTTLS");
+
+            command("STARTTLS", this::onStartTls);
+            return;
+        }
+
+        authenticate();
+    }
+
+    private void onStartTls(SmtpResponse response) {
+        if (response.getCode() != 220) {
+            throw new RuntimeException(
+                    "STARTTLS nicht unterstützt oder fehlgeschlagen: " + response
+            );
+        }
+
+        // Handshake beginnt, sobald die Klartext-Antworten verarbeitet sind
+        startTlsPending = true;
+    }
+
+    private void authenticate() throws IOException {
+        String user = opt.getSmtpUser();
+
+        if (user == null || user.isEmpty()) {
+            transaction();
+            return;
+        }
+
+        String authType = opt.getAuthType() != null
+                ? opt.getAuthType().toUpperCase()
+                : "LOGIN";
+
+        switch (authType) {
+            case "PLAIN" -> command(
+                    "AUTH PLAIN " + base64("\0" + user + "\0" + opt.getSmtpPassword()),
+                    r -> {
+                        expectAuth(r, 235);
+                        transaction();
+                    });
+
+            case "LOGIN" -> command("AUTH LOGIN", r1 -> {
+                expectAuth(r1, 334);
+                credential(base64(user), r2 -> {
+                    expectAuth(r2, 334);
+                    credential(base64(opt.getSmtpPassword()), r3 -> {
+                        expectAuth(r3, 235);
+                        transaction();
+                    });
+                });
+            });
+
+            default -> throw new RuntimeException(
+                    "Nicht unterstützter SMTP Auth-Typ: " + authType
+            );
+        }
+    }
+
+    private void transaction() throws IOException {
+        if (opt.getSmtpUser() != null && !opt.getSmtpUser().isEmpty())
+            phase(SmtpMetrics.Phase.AUTH);
+
+        message = message.forServer(capabilities);
+        String mailFrom = SmtpProtocol.mailFromCommand(opt.getMailFrom(), recipients, message, capabilities);
+
+        if (capabilities.isPipelining()) {
+            // MAIL FROM, RCPT TO*, DATA in einem Schreibvorgang
+            write(mailFrom, r -> mailResponse = r);
+            for (String to : recipients)
+                write("RCPT TO:<" + to + ">", rcptResponses::add);
+            write("DATA", this::onPipelinedData);
+            flush();
+            return;
+        }
+
+        command(mailFrom, r -> {
+            expectPositive(r);
+            mailResponse = r;
+            nextRecipient();
+        });
+    }
+
+    private void nextRecipient() throws IOException {
+        if (rcptResponses.size() < recipients.size()) {
+            command("RCPT TO:<" + recipients.get(rcptResponses.size()) + ">", r -> {
+                rcptResponses.add(r);
+                nextRecipient();
+            });
+            return;
+        }
+
+        phase(SmtpMetrics.Phase.ENVELOPE);
+
+        if (!anyAccepted()) {
+            command("RSET", r -> quit());
+            return;
+        }
+
+        command("DATA", r -> {
+            expectPositive(r);
+            sendBody();
+        });
+    }
+
+    private void onPipelinedData(SmtpResponse dataResponse) throws IOException {
+        boolean accepted = mailResponse.isPositive() && anyAccepted();
+        phase(SmtpMetrics.Phase.ENVELOPE);
+
+        if (dataResponse.getCode() != 354) {
+            if (!mailResponse.isPositive())
+                throw new SmtpException(mailResponse);
+            if (!accepted) {
+                quit();
+                return;
+            }
+            throw new SmtpException(dataResponse);
+        }
+
+        if (!accepted) {
+            // Server hat DATA trotz Fehlern angenommen: leere Nachricht beenden
+            command(".", r -> {
+                if (!mailResponse.isPositive())
+                    throw new SmtpException(mailResponse);
+                quit();
+            });
+            return;
+        }
+
+        sendBody();
+    }
+
+    /**
+     * <summary>
+     * Kodiert die Nachricht mit Dot-Stuffing und Abschlusspunkt in den
+     * Sendepuffer; er wird vom Event-Loop abgearbeitet, sobald der
+     * Kanal schreibbar ist. Größere Nachrichten kodiert ein Thread
+     * von RuntimeExecutors stückweise in eine BodyPipe.
+     * </summary>
+     */
+    private void sendBody() throws IOException {
+        expect(r -> {
+            expectPositive(r);
+            phase(SmtpMetrics.Phase.DATA);
+            quit();
+        });
+
+        long size = message.getSize();
+
+        if (size < 0 || size > INLINE_BODY_BYTES) {
+            BodyPipe pipe = new BodyPipe();
+            ISmtpMessage source = message;
+
+            body = pipe;
+            RuntimeExecutors.get().execute(() -> pipe.produce(source));
+            return;
+        }
+
+        OutputStream data = new SmtpDataOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                writeRaw(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writeRaw(b, off, len);
+            }
+        });
+
+        message.writeTo(data);
+        data.close();
+
+        flush();
+    }
+
+    /**
+     * <summary>
+     * Vom Kodier-Thread über den Loop angestoßen, sobald die BodyPipe
+     * wieder Daten enthält oder die Kodierung beendet ist.
+     * </summary>
+     */
+    private void resumeBody() {
+        if (isDone() || body == null) return;
+
+        try {
+            flush();
+        } catch (IOException | RuntimeException ex) {
+            fail(ex);
+        }
+    }
+
+    private void quit() throws IOException {
+        command("QUIT", r -> complete());
+    }
+
+    private void complete() {
+        close();
+        phase(SmtpMetrics.Phase.QUIT);
+
+        try {
+            SmtpProtocol.checkAccepted(recipients, rcptResponses);
+            if (metrics != null) metrics.messageSent();
+            future.complete(null);
+        } catch (RuntimeException ex) {
+            if (metrics != null) metrics.messageFailed(ex);
+            future.completeExceptionally(ex);
+        }
+    }
+
+    /* -----------------------------
+       Command Output
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Sendet ein Kommando und hinterlegt den Handler für die Antwort.
+     * </summary>
+     */
+    private void command(String line, ReplyHandler handler) throws IOException {
+        write(line, handler);
+        flush();
+    }
+
+    /**
+     * <summary>
+     * Sendet Zugangsdaten (AUTH LOGIN), ohne sie zu protokollieren.
+     * </summary>
+     */
+    private void credential(String line, ReplyHandler handler) throws IOException {
+        client.traceClient("*****");
+        append(line, handler);
+        flush();
+    }
+
+    /**
+     * <summary>
+     * Puffert ein Kommando, ohne es zu senden (PIPELINING).
+     * </summary>
+     */
+    private void write(String line, ReplyHandler handler) {
+        client.traceClient(line);
+        append(line, handler);
+    }
+
+    private void append(String line, ReplyHandler handler) {
+        writeRaw(line);
+        writeRaw("\r\n");
+        expected.addLast(handler);
+    }
+
+    private void writeRaw(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeRaw(bytes, 0, bytes.length);
+    }
+
+    private void writeRaw(byte[] bytes, int off, int len) {
+        if (appOut.remaining() < len) {
+            ByteBuffer grown = ByteBuffer.allocate(
+                    Math.max(appOut.capacity() * 2, appOut.position() + len));
+            appOut.flip();
+            grown.put(appOut);
+            appOut = grown;
+        }
+
+        appOut.put(bytes, off, len);
+    }
+
+    private void expect(ReplyHandler handler) {
+        expected.addLast(handler);
+    }
+
+    /**
+     * <summary>
+     * Schreibt gepufferte Daten, soweit der Kanal sie annimmt.
+     * Im TLS-Modus werden sie vorher verschlüsselt.
+     * </summary>
+     */
+    private void flush() throws IOException {
+        if (engine == null) {
+            fillFromBody();
+
+            appOut.flip();
+            int written = channel.write(appOut);
+            appOut.compact();
+
+            if (written > 0) {
+                touch();
+                if (metrics != null) metrics.bytesSent(written);
+            }
+
+            updateInterest(pendingWrite());
+            return;
+        }
+
+        if (!handshaking) {
+            fillFromBody();
+
+            appOut.flip();
+            try {
+                while (appOut.hasRemaining() && wrap(appOut)) {
+                    // weiter verschlüsseln, bis alles im netOut liegt
+                }
+            } finally {
+                appOut.compact();
+            }
+        }
+
+        writeNet();
+    }
+
+    /**
+     * <summary>
+     * Übernimmt kodierte Nachrichtendaten aus der BodyPipe, soweit
+     * appOut Platz hat; der Puffer wächst dabei nicht.
+     * </summary>
+     */
+    private void fillFromBody() throws IOException {
+        if (body == null || !appOut.hasRemaining()) return;
+
+        if (!body.drainTo(appOut)) return;
+
+        Exception error = body.error;
+        body = null;
+
+        if (error instanceof IOException io) throw io;
+        if (error != null) throw (RuntimeException) error;
+    }
+
+    private boolean pendingWrite() {
+        return appOut.position() > 0 || body != null && body.hasData();
+    }
+
+    private void updateInterest(boolean pendingWrite) {
+        key.interestOps(SelectionKey.OP_READ | (pendingWrite ? SelectionKey.OP_WRITE : 0));
+    }
+
+    /* -----------------------------
+       Input Processing
+       ----------------------------- */
+
+    private void onReadable() throws IOException {
+        int read = channel.read(netIn);
+
+        if (read < 0)
+            throw new IOException("Verbindung vom SMTP-Server geschlossen");
+        if (read == 0)
+            return;
+
+        touch();
+
+        if (engine == null) {
+            netIn.flip();
+            parse(netIn);
+            netIn.compact();
+
+            if (!startTlsPending)
+                return;
+
+            // RFC 3207: nach der 220-Antwort empfangener Klartext wird verworfen
+            netIn.clear();
+            startTls();
+        }
+
+        pumpTls();
+    }
+
+    /**
+     * <summary>
+     * Zerlegt empfangene Bytes in Zeilen und übergibt vollständige
+     * Antworten an den jeweils ältesten Handler.
+     * </summary>
+     */
+    private void parse(ByteBuffer src) throws IOException {
+        while (src.hasRemaining() && !startTlsPending && !isDone()) {
+            byte b = src.get();
+
+            if (b != '\n') {
+                if (lineLength == MAX_LINE)
+                    throw new IOException("SMTP-Antwortzeile zu lang");
+                if (lineLength == line.length)
+                    line = Arrays.copyOf(line, Math.min(MAX_LINE, line.length * 2));
+                line[lineLength++] = b;
+                continue;
+            }
+
+            int length = lineLength > 0 && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+            String text = new String(line, 0, length, StandardCharsets.UTF_8);
+            lineLength = 0;
+
+            client.traceServer(text);
+
+            SmtpResponse response = parser.accept(text);
+            if (response == null) continue;
+
+            ReplyHandler handler = expected.pollFirst();
+            if (handler == null)
+                throw new IOException("Unerwartete SMTP-Antwort: " + response);
+
+            handler.onReply(response);
+        }
+    }
+
+    /* -----------------------------
+       TLS
+       ----------------------------- */
+
+    private void startTls() throws IOException {
+        startTlsPending = false;
+
+        // SSLContext des Relays: ermöglicht die Wiederaufnahme der TLS-Sitzung
+        engine = SmtpTlsContexts.createEngine(opt.getSmtpHost(), opt.getSmtpPort());
+
+        int packetSize = engine.getSession().getPacketBufferSize();
+        netIn = ByteBuffer.allocate(Math.max(netIn.capacity(), packetSize));
+        netOut = ByteBuffer.allocate(packetSize);
+        appIn = ByteBuffer.allocate(engine.getSession().getApplicationBufferSize());
+
+        // RFC 3207: Wissen aus der Klartext-Sitzung verwerfen
+        capabilities = SmtpCapabilities.NONE;
+
+        handshakeStartMillis = System.currentTimeMillis();
+        handshakeStart = System.nanoTime();
+
+        engine.beginHandshake();
+        handshaking = true;
+    }
+
+    /**
+     * <summary>
+     * Treibt Handshake und Entschlüsselung voran, bis ohne neue
+     * Netzwerkdaten kein Fortschritt mehr möglich ist.
+     * </summary>
+     */
+    private void pumpTls() throws IOException {
+        while (!peerClosed) {
+            HandshakeStatus status = engine.getHandshakeStatus();
+
+            if (status == HandshakeStatus.NEED_TASK) {
+                Runnable task;
+                while ((task = engine.getDelegatedTask()) != null)
+                    task.run();
+                continue;
+            }
+
+            if (status == HandshakeStatus.NEED_WRAP) {
+                if (!wrap(EMPTY)) break;
+                continue;
+            }
+
+            if (status == HandshakeStatus.NEED_UNWRAP
+                    || status == HandshakeStatus.NEED_UNWRAP_AGAIN) {
+                if (!unwrap()) break;
+                continue;
+            }
+
+            if (handshaking) {
+                handshaking = false;
+                client.traceInfo("TLS-Handshake abgeschlossen: " + engine.getSession().getProtocol());
+
+                SmtpTlsContexts.handshakeCompleted(opt.getSmtpHost(), opt.getSmtpPort(),
+                        engine.getSession(), handshakeStartMillis, System.nanoTime() - handshakeStart);
+
+                phase(opt.isUseSsl() ? SmtpMetrics.Phase.CONNECT : SmtpMetrics.Phase.STARTTLS);
+
+                // RFC-konform: nach STARTTLS erneut EHLO; bei implizitem TLS folgt die Begrüßung
+                if (!opt.isUseSsl())
+                    ehlo();
+            }
+
+            if (!unwrap()) break;
+        }
+
+        if (appIn.position() > 0) {
+            appIn.flip();
+            parse(appIn);
+            appIn.compact();
+        }
+
+        // close_notify nach der Antwort auf QUIT ist kein Fehler
+        if (peerClosed && !isDone())
+            throw new SSLException("TLS-Verbindung vom SMTP-Server geschlossen");
+
+        if (!isDone())
+            flush();
+    }
+
+    /**
+     * <summary>
+     * Entschlüsselt verfügbare Netzwerkdaten nach appIn.
+     * </summary>
+     * @return true, wenn Fortschritt erzielt wurde.
+     */
+    private boolean unwrap() throws IOException {
+        netIn.flip();
+        SSLEngineResult result;
+        try {
+            result = engine.unwrap(netIn, appIn);
+        } finally {
+            netIn.compact();
+        }
+
+        switch (result.getStatus()) {
+            case OK:
+                return result.bytesConsumed() > 0 || result.bytesProduced() > 0
+                        || result.getHandshakeStatus() == HandshakeStatus.FINISHED;
+
+            case BUFFER_OVERFLOW:
+                appIn = grow(appIn, engine.getSession().getApplicationBufferSize());
+                return true;
+
+            case BUFFER_UNDERFLOW:
+                if (netIn.remaining() == 0)
+                    netIn = grow(netIn, engine.getSession().getPacketBufferSize());
+                return false;
+
+            default:
+                // bereits entschlüsselte Antworten werden noch ausgewertet
+                peerClosed = true;
+                return false;
+        }
+    }
+
+    /**
+     * <summary>
+     * Verschlüsselt Daten (oder Handshake-Nachrichten) nach netOut
+     * und schreibt sie auf den Kanal.
+     * </summary>
+     * @return false, wenn netOut voll ist und der Kanal keine Daten annimmt.
+     */
+    private boolean wrap(ByteBuffer src) throws IOException {
+        SSLEngineResult result = engine.wrap(src, netOut);
+
+        switch (result.getStatus()) {
+            case OK:
+                if (metrics != null && src != EMPTY)
+                    metrics.bytesSent(result.bytesConsumed());
+                writeNet();
+                return true;
+
+            case BUFFER_OVERFLOW:
+                if (netOut.position() == 0) {
+                    netOut = grow(netOut, engine.getSession().getPacketBufferSize());
+                    return true;
+                }
+                return writeNet();
+
+            default:
+                throw new SSLException("TLS-Verbindung geschlossen");
+        }
+    }
+
+    /**
+     * <summary>
+     * Schreibt verschlüsselte Daten.
+     * </summary>
+     * @return true, wenn netOut vollständig geschrieben wurde.
+     */
+    private boolean writeNet() throws IOException {
+        netOut.flip();
+        int written = channel.write(netOut);
+        netOut.compact();
+
+        if (written > 0) touch();
+
+        boolean drained = netOut.position() == 0;
+        updateInterest(!drained || pendingWrite());
+        return drained;
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private boolean anyAccepted() {
+        for (SmtpResponse response : rcptResponses) {
+            if (response.isPositive()) return true;
+        }
+        return false;
+    }
+
+    private void touch() {
+        deadline = System.currentTimeMillis() + timeoutMillis;
+    }
+
+    /**
+     * <summary>
+     * Schließt die laufende Phase ab und beginnt die nächste.
+     * </summary>
+     */
+    private void phase(SmtpMetrics.Phase phase) {
+        if (metrics != null)
+            phaseStart = metrics.record(phase, phaseStart);
+    }
+
+    private void close() {
+        if (body != null)
+            body.cancel();
+
+        if (key != null)
+            key.cancel();
+
+        try {
+            if (channel != null)
+                channel.close();
+        } catch (IOException ignored) {}
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int minExtra) {
+        ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() + minExtra);
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+
+    private static String base64(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void expectPositive(SmtpResponse response) {
+        if (!response.isPositive())
+            throw new SmtpException(response);
+    }
+
+    private static void expectAuth(SmtpResponse response, int expectedCode) {
+        if (response.getCode() != expectedCode) {
+            throw new RuntimeException(
+                    "SMTP AUTH Fehler: Erwartet " + expectedCode +
+                    ", erhalten " + response
+            );
+        }
+    }
+
+    /**
+     * <summary>
+     * Begrenzter Ringpuffer zwischen Kodier-Thread und Loop-Thread.
+     * Der Kodier-Thread blockiert, solange der Puffer voll ist, sodass
+     * höchstens INLINE_BODY_BYTES kodierte Bytes pro Sitzung im Speicher
+     * liegen. Sobald der Puffer nicht mehr leer ist oder die Kodierung
+     * endet, wird der Loop einmalig über resumeBody() geweckt.
+     * </summary>
+     */
+    private final class BodyPipe extends OutputStream {
+
+        private final byte[] data = new byte[INLINE_BODY_BYTES];
+        private int head;
+        private int count;
+
+        private boolean finished;
+        private boolean cancelled;
+        private boolean signalled;
+        private Exception error;
+
+        /* -----------------------------
+           Kodier-Thread
+           ----------------------------- */
+
+        void produce(ISmtpMessage source) {
+            try {
+                OutputStream out = new SmtpDataOutputStream(this);
+                source.writeTo(out);
+                out.close();
+                finish(null);
+            } catch (IOException | RuntimeException ex) {
+                finish(ex);
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                try {
+                    while (count == data.length && !cancelled)
+                        wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Kodierung der Nachricht unterbrochen");
+                }
+
+                if (cancelled)
+                    throw new IOException("SMTP-Sitzung abgebrochen");
+
+                int tail = (head + count) % data.length;
+                int n = Math.min(len, Math.min(data.length - count, data.length - tail));
+
+                System.arraycopy(b, off, data, tail, n);
+                count += n;
+                off += n;
+                len -= n;
+
+                signal();
+            }
+        }
+
+        private synchronized void finish(Exception ex) {
+            if (finished) return;
+
+            finished = true;
+            error = ex;
+            signal();
+        }
+
+        private void signal() {
+            if (signalled || cancelled) return;
+
+            signalled = true;
+            loop.execute(NioSmtpSession.this::resumeBody);
+        }
+
+        /* -----------------------------
+           Loop-Thread
+           ----------------------------- */
+
+        /**
+         * <summary>
+         * Kopiert verfügbare Bytes nach dst.
+         * </summary>
+         * @return true, wenn die Kodierung beendet und der Puffer leer ist.
+         */
+        synchronized boolean drainTo(ByteBuffer dst) {
+            signalled = false;
+
+            boolean wasFull = count == data.length;
+
+            while (count > 0 && dst.hasRemaining()) {
+                int n = Math.min(dst.remaining(), Math.min(count, data.length - head));
+                dst.put(data, head, n);
+                head = (head + n) % data.length;
+                count -= n;
+            }
+
+            if (wasFull && count < data.length)
+                notifyAll();
+
+            return finished && count == 0;
+        }
+
+        synchronized boolean hasData() {
+            return count > 0 || finished;
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            notifyAll();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ReplyHandler {
+        void onReply(SmtpResponse response) throws IOException;
+    }
+}
@@ -1,8 +1,20 @@
 package de.rsev.utilities.communication.smtp;
 
+import de.rsev.utilities.communication.MailAttachment;
 import de.rsev.utilities.communication.MailOptions;
+import de.rsev.utilities.communication.MailTemplate;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * <summary>
@@ -11,14 +23,51 @@ import java.io.IOException;
  * - EHLO / HELO
  * - optional STARTTLS
  * - optionale Authentifizierung (LOGIN / PLAIN)
- * - Mailversand (MAIL FROM / RCPT TO / DATA)
+ * - Mailversand (MAIL FROM / RCPT TO / DATA bzw. BDAT)
  *
  * Diese Klasse stellt den einzigen öffentlichen Einstiegspunkt
  * für SMTP-Kommunikation im Framework dar.
+ *
+ * Mit einem SmtpConnectionPool werden aufgebaute Sitzungen
+ * zwischen Mails wiederverwendet; ohne Pool wird für jede Mail
+ * eine eigene Sitzung aufgebaut und mit QUIT beendet.
+ *
+ * sendBatch() gruppiert Mails nach Relay und fasst Mails mit
+ * identischem Absender, Betreff und Inhalt zu einer Transaktion
+ * mit mehreren RCPT TO zusammen.
+ *
+ * Mit einem SmtpRelayScheduler wartet jeder Versand auf eine freie
+ * Sitzung des Relays; sendAsync() belegt dabei erst einen Thread,
+ * wenn der Versand beginnt.
  * </summary>
  */
 public class RawSmtpClient extends BaseSmtpClient implements ISmtpClient {
 
+    /**
+     * <summary>
+     * Optionaler Pool für Sitzungen, null = eine Sitzung pro Mail.
+     * </summary>
+     */
+    protected SmtpConnectionPool connectionPool;
+
+    public RawSmtpClient() {}
+
+    public RawSmtpClient(SmtpConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    /* -----------------------------
+       Configuration
+       ----------------------------- */
+
+    public void setConnectionPool(SmtpConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    public SmtpConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
     /* -----------------------------
        Send Methods
        ----------------------------- */
@@ -34,73 +83,293 @@ public class RawSmtpClient extends BaseSmtpClient implements ISmtpClient {
         if (opt == null)
             throw new IllegalArgumentException("MailOptions dürfen nicht null sein");
 
-        try (SmtpConnection connection =
-                     new SmtpConnection(opt.getSmtpHost(), opt.getSmtpPort())) {
+        SmtpRelayScheduler throttle = scheduler;
+        if (throttle == null) {
+            sendNow(opt);
+            return;
+        }
+
+        throttle.run(opt, () -> sendNow(opt));
+    }
+
+    /**
+     * <summary>
+     * Sendet eine E-Mail asynchron. Mit Scheduler wird der Versand erst
+     * auf dem Executor gestartet, wenn das Relay eine Sitzung zulässt.
+     * </summary>
+     */
+    @Override
+    public CompletableFuture<Void> sendAsync(MailOptions opt, Executor executor) {
+        SmtpRelayScheduler throttle = scheduler;
+        if (throttle == null || opt == null)
+            return CompletableFuture.runAsync(() -> send(opt), executor);
+
+        return throttle.submit(opt, () -> CompletableFuture.runAsync(() -> sendNow(opt), executor));
+    }
 
-            // Protokoll & Helper
-            SmtpProtocol protocol = new SmtpProtocol(connection);
-            SmtpAuthHandler authHandler = new SmtpAuthHandler(connection);
+    /**
+     * <summary>
+     * Sendet ohne Rücksicht auf den Scheduler.
+     * </summary>
+     */
+    private void sendNow(MailOptions opt) {
+        ISmtpMessage message = buildMessage(opt, opt.getMailTo());
+        List<String> recipients = recipients(opt);
+        SmtpMetrics m = metrics;
 
-            /* -----------------------------
-               Initial Handshake
-               ----------------------------- */
+        try {
+            SmtpConnectionPool pool = connectionPool;
+
+            if (pool == null) {
+                try (SmtpSession session = SmtpSession.open(opt, m)) {
+                    session.transfer(opt.getMailFrom(), recipients, message);
+                }
+            } else {
+                sendPooled(pool, opt, recipients, message, m);
+            }
+
+            if (m != null) m.messageSent();
+
+        } catch (IOException ex) {
+            if (m != null) m.messageFailed(ex);
+            throw new RuntimeException("SMTP IO-Fehler", ex);
+        } catch (RuntimeException ex) {
+            if (m != null) m.messageFailed(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * <summary>
+     * Sendet über eine Sitzung aus dem Pool. Schlägt eine wiederverwendete
+     * Sitzung vor dem Senden des Inhalts mit einem IO-Fehler fehl
+     * (z. B. vom Server geschlossen), wird die Mail einmalig über eine
+     * neue Sitzung gesendet. Danach nicht, da der Server sie ggf.
+     * bereits angenommen hat.
+     * </summary>
+     */
+    private void sendPooled(SmtpConnectionPool pool, MailOptions opt, List<String> recipients,
+                            ISmtpMessage message, SmtpMetrics m) throws IOException {
+        SmtpSession session = pool.acquire(opt, m);
+        boolean reused = session.isReused();
+
+        try {
+            session.transfer(opt.getMailFrom(), recipients, message);
+            return;
+        } catch (IOException ex) {
+            if (!reused || session.isContentStarted()) throw ex;
+        } finally {
+            pool.release(session);
+        }
+
+        SmtpSession fresh = SmtpSession.open(opt, m);
+        try {
+            fresh.transfer(opt.getMailFrom(), recipients, message);
+        } finally {
+            pool.release(fresh);
+        }
+    }
+
+    /**
+     * <summary>
+     * Sendet mehrere E-Mails mit einer Sitzung je Relay
+     * (Host, Port, Benutzer, TLS).
+     *
+     * Mails mit identischem Absender, Betreff und Inhalt werden in
+     * einer Transaktion an alle ihre Empfänger gesendet. Stammen die
+     * Empfänger aus mehreren MailOptions, lautet der To-Header
+     * "undisclosed-recipients:;", damit sie sich nicht gegenseitig sehen.
+     *
+     * Abgesehen von ungültigen MailOptions wird keine Exception geworfen;
+     * das Ergebnis enthält je Empfänger Annahme oder Ablehnung mit SMTP-Code.
+     * </summary>
+     */
+    @Override
+    public List<SmtpRecipientResult> sendBatch(Collection<MailOptions> batch) {
+
+        if (batch == null)
+            throw new IllegalArgumentException("MailOptions dürfen nicht null sein");
+
+        // Relay -> Inhalt -> Mails
+        Map<String, Map<ContentKey, List<MailOptions>>> relays = new LinkedHashMap<>();
+
+        for (MailOptions opt : batch) {
+            if (opt == null)
+                throw new IllegalArgumentException("MailOptions dürfen nicht null sein");
+
+            relays.computeIfAbsent(SmtpSession.keyOf(opt), k -> new LinkedHashMap<>())
+                    .computeIfAbsent(contentKey(opt), k -> new ArrayList<>())
+                    .add(opt);
+        }
 
-            protocol.handshake("localhost");
+        List<SmtpRecipientResult> results = new ArrayList<>();
+        SmtpRelayScheduler throttle = scheduler;
 
-            /* -----------------------------
-               STARTTLS (optional)
-               ----------------------------- */
+        for (Map<ContentKey, List<MailOptions>> groups : relays.values()) {
+            if (throttle == null) {
+                sendRelay(groups.values(), results);
+                continue;
+            }
 
-            if (opt.isUseTls()) {
-                StartTlsHandler tlsHandler = new StartTlsHandler(connection);
-                tlsHandler.startTls(opt.getSmtpHost());
+            MailOptions first = groups.values().iterator().next().get(0);
+            SmtpRelayScheduler.Permit permit = throttle.acquire(first, groups.size());
+            int start = results.size();
 
-                // RFC-konform: nach STARTTLS erneut EHLO
-                protocol.handshake("localhost");
+            try {
+                sendRelay(groups.values(), results);
+            } finally {
+                permit.release(results.subList(start, results.size()));
             }
+        }
+
+        return results;
+    }
+
+    /**
+     * <summary>
+     * Sendet alle Inhaltsgruppen eines Relays über eine Sitzung.
+     * Nach einem IO-Fehler wird die Gruppe einmalig über eine neue
+     * Sitzung wiederholt, sofern die alte bereits benutzt war und noch
+     * kein Inhalt gesendet wurde.
+     * </summary>
+     */
+    private void sendRelay(Collection<List<MailOptions>> groups, List<SmtpRecipientResult> results) {
+        SmtpConnectionPool pool = connectionPool;
+        SmtpMetrics m = metrics;
+        SmtpSession session = null;
 
-            /* -----------------------------
-               AUTH (optional)
-               ----------------------------- */
-
-            if (opt.getSmtpUser() != null && !opt.getSmtpUser().isEmpty()) {
-
-                String authType = opt.getAuthType() != null
-                        ? opt.getAuthType().toUpperCase()
-                        : "LOGIN";
-
-                switch (authType) {
-                    case "PLAIN" ->
-                            authHandler.authPlain(
-                                    opt.getSmtpUser(),
-                                    opt.getSmtpPassword()
-                            );
-
-                    case "LOGIN" ->
-                            authHandler.authLogin(
-                                    opt.getSmtpUser(),
-                                    opt.getSmtpPassword()
-                            );
-
-                    default ->
-                            throw new RuntimeException(
-                                    "Nicht unterstützter SMTP Auth-Typ: " + authType
-                            );
+        try {
+            for (List<MailOptions> group : groups) {
+                MailOptions first = group.get(0);
+
+                List<MailOptions> origins = new ArrayList<>();
+                List<String> targets = new ArrayList<>();
+                Set<String> envelope = new LinkedHashSet<>();
+
+                for (MailOptions opt : group) {
+                    for (String to : recipients(opt)) {
+                        origins.add(opt);
+                        targets.add(to);
+                        envelope.add(to);
+                    }
                 }
+
+                List<String> rcpt = new ArrayList<>(envelope);
+                ISmtpMessage message = buildMessage(first,
+                        group.size() == 1 ? first.getMailTo() : "undisclosed-recipients:;");
+
+                Map<String, SmtpResponse> byRecipient = new LinkedHashMap<>();
+                RuntimeException failure = null;
+
+                for (int attempt = 0; attempt < 2; attempt++) {
+                    try {
+                        if (session == null)
+                            session = pool != null ? pool.acquire(first, m) : SmtpSession.open(first, m);
+
+                        boolean reused = session.isReused();
+
+                        try {
+                            List<SmtpResponse> responses =
+                                    session.deliver(first.getMailFrom(), rcpt, message);
+
+                            for (int i = 0; i < rcpt.size(); i++)
+                                byRecipient.put(rcpt.get(i), responses.get(i));
+
+                        } catch (IOException ex) {
+                            boolean retry = reused && !session.isContentStarted();
+                            session = discard(pool, session);
+                            if (retry) continue;
+                            throw ex;
+                        }
+
+                    } catch (IOException ex) {
+                        failure = new RuntimeException("SMTP IO-Fehler", ex);
+                    } catch (RuntimeException ex) {
+                        failure = ex;
+                        session = resetOrDiscard(pool, session);
+                    }
+                    break;
+                }
+
+                for (int i = 0; i < targets.size(); i++) {
+                    String to = targets.get(i);
+                    SmtpResponse response = byRecipient.get(to);
+
+                    if (response != null) {
+                        results.add(new SmtpRecipientResult(origins.get(i), to,
+                                response.getCode(), response.getMessage()));
+                    } else {
+                        results.add(failed(origins.get(i), to, failure));
+                    }
+                }
+
+                if (m != null) count(m, byRecipient.values(), failure);
+            }
+        } finally {
+            if (session != null) {
+                if (pool != null) pool.release(session);
+                else session.close();
             }
+        }
+    }
 
-            /* -----------------------------
-               Mail Transfer
-               ----------------------------- */
+    /**
+     * <summary>
+     * Zählt eine Transaktion als gesendet, sobald ein Empfänger
+     * angenommen wurde, sonst unter dem Code der ersten Ablehnung.
+     * </summary>
+     */
+    private static void count(SmtpMetrics m, Collection<SmtpResponse> responses, RuntimeException failure) {
+        SmtpResponse rejected = null;
 
-            protocol.mailFrom(opt.getMailFrom());
-            protocol.rcptTo(opt.getMailTo());
-            protocol.data(buildMessage(opt));
+        for (SmtpResponse response : responses) {
+            if (response.isPositive()) {
+                m.messageSent();
+                return;
+            }
+            if (rejected == null) rejected = response;
+        }
 
-            protocol.quit();
+        if (rejected != null) m.messageFailed(rejected.getCode());
+        else m.messageFailed(failure);
+    }
 
-        } catch (IOException ex) {
-            throw new RuntimeException("SMTP IO-Fehler", ex);
+    private static SmtpRecipientResult failed(MailOptions opt, String to, RuntimeException ex) {
+        if (ex instanceof SmtpException smtp)
+            return new SmtpRecipientResult(opt, to, smtp.getCode(), smtp.getResponse().getMessage());
+
+        String message = ex != null ? ex.getMessage() : "Keine Antwort";
+        if (ex != null && ex.getCause() != null)
+            message += ": " + ex.getCause().getMessage();
+
+        return new SmtpRecipientResult(opt, to, 0, message);
+    }
+
+    /**
+     * <summary>
+     * Gibt eine defekte Sitzung frei bzw. schließt sie.
+     * </summary>
+     */
+    private SmtpSession discard(SmtpConnectionPool pool, SmtpSession session) {
+        if (pool != null) pool.release(session);
+        else session.close();
+        return null;
+    }
+
+    /**
+     * <summary>
+     * Setzt die Sitzung nach einem SMTP-Fehler per RSET zurück;
+     * schlägt das fehl, wird sie verworfen.
+     * </summary>
+     */
+    private SmtpSession resetOrDiscard(SmtpConnectionPool pool, SmtpSession session) {
+        if (session == null) return null;
+
+        try {
+            session.reset();
+            return session;
+        } catch (IOException | RuntimeException ex) {
+            return discard(pool, session);
         }
     }
 
@@ -110,21 +379,59 @@ public class RawSmtpClient extends BaseSmtpClient implements ISmtpClient {
 
     /**
      * <summary>
-     * Baut den vollständigen Mail-Body inkl. Header.
-     * Aktuell Plain-Text, erweiterbar für MIME / HTML.
+     * Schlüssel für Mails, deren Nachricht bis auf den To-Header
+     * identisch ist und die daher zusammengefasst werden können.
+     * Template-Teile werden über Template-Instanz und Werte verglichen,
+     * ohne sie zu rendern; das übernimmt einmal je Gruppe die MimeMessage.
+     * </summary>
+     */
+    private ContentKey contentKey(MailOptions opt) {
+        MailTemplate template = opt.getTemplate();
+
+        StringBuilder key = new StringBuilder()
+                .append(opt.getMailFrom()).append('\0')
+                .append(opt.getFromName()).append('\0')
+                .append(template != null && template.hasSubject() ? "" : opt.getSubject()).append('\0')
+                .append(template != null && template.hasBody() ? "" : opt.getMailBody());
+
+        if (opt.getAttachments() != null) {
+            for (MailAttachment attachment : opt.getAttachments())
+                key.append('\0').append(attachment.getPath())
+                        .append('\0').append(attachment.getEffectiveFileName())
+                        .append('\0').append(attachment.getContentType());
+        }
+
+        return new ContentKey(key.toString(), template, template != null ? opt.getTemplateValues() : null);
+    }
+
+    /**
+     * <summary>
+     * MailTemplate vergleicht per Identität, die Werte per equals().
      * </summary>
      */
-    private String buildMessage(MailOptions opt) {
+    private static final class ContentKey {
 
-        StringBuilder sb = new StringBuilder();
+        private final String text;
+        private final MailTemplate template;
+        private final Map<String, ?> values;
 
-        sb.append("From: ").append(opt.getMailFrom()).append("\r\n");
-        sb.append("To: ").append(opt.getMailTo()).append("\r\n");
-        sb.append("Subject: ").append(opt.getSubject()).append("\r\n");
-        sb.append("Content-Type: text/plain; charset=UTF-8\r\n");
-        sb.append("\r\n");
-        sb.append(opt.getMailBody());
+        ContentKey(String text, MailTemplate template, Map<String, ?> values) {
+            this.text = text;
+            this.template = template;
+            this.values = values;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ContentKey other
+                    && text.equals(other.text)
+                    && template == other.template
+                    && Objects.equals(values, other.values);
+        }
 
-        return sb.toString();
+        @Override
+        public int hashCode() {
+            return 31 * (31 * text.hashCode() + System.identityHashCode(template)) + Objects.hashCode(values);
+        }
     }
 }
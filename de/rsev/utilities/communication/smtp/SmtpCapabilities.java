@@ -0,0 +1,184 @@
+package de.rsev.utilities.communication.smtp;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <summary>
+ * Vom Server in der EHLO-Antwort angekündigte Erweiterungen.
+ * Wird pro Verbindung zwischengespeichert (SmtpConnection) und
+ * nach STARTTLS durch die erneute EHLO-Antwort ersetzt.
+ * </summary>
+ */
+public class SmtpCapabilities {
+
+    /** <summary>Kapabilitäten eines Servers, der nur HELO versteht.</summary> */
+    public static final SmtpCapabilities NONE = new SmtpCapabilities(Collections.emptyMap());
+
+    private final Map<String, String> extensions;
+    private final Set<String> authMechanisms;
+    private final long maxSize;
+
+    private SmtpCapabilities(Map<String, String> extensions) {
+        this.extensions = Collections.unmodifiableMap(extensions);
+
+        Set<String> mechanisms = new LinkedHashSet<>();
+        addMechanisms(mechanisms, extensions.get("AUTH"));
+        addMechanisms(mechanisms, extensions.get("AUTH="));
+        this.authMechanisms = Collections.unmodifiableSet(mechanisms);
+
+        this.maxSize = parseSize(extensions.get("SIZE"));
+    }
+
+    /* -----------------------------
+       Parsing
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Erstellt das Modell aus einer EHLO-Antwort. Die erste Zeile
+     * (Domain und Begrüßung) wird übersprungen; jede weitere Zeile
+     * besteht aus einem Schlüsselwort und optionalen Parametern.
+     * </summary>
+     */
+    public static SmtpCapabilities parse(SmtpResponse ehlo) {
+        List<String> lines = ehlo.getLines();
+        Map<String, String> extensions = new LinkedHashMap<>();
+
+        for (int i = 1; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty()) continue;
+
+            // Veraltete Schreibweise "AUTH=LOGIN PLAIN"
+            if (line.regionMatches(true, 0, "AUTH=", 0, 5)) {
+                extensions.put("AUTH=", line.substring(5).trim());
+                continue;
+            }
+
+            int space = line.indexOf(' ');
+            String keyword = (space < 0 ? line : line.substring(0, space)).toUpperCase(Locale.ROOT);
+            String params = space < 0 ? "" : line.substring(space + 1).trim();
+
+            extensions.put(keyword, params);
+        }
+
+        return new SmtpCapabilities(extensions);
+    }
+
+    /* -----------------------------
+       Query Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Gibt an, ob ein Schlüsselwort angekündigt wurde (ohne Groß-/Kleinschreibung).
+     * </summary>
+     */
+    public boolean supports(String keyword) {
+        return extensions.containsKey(keyword.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * <summary>
+     * Gibt die Parameter eines Schlüsselworts zurück, null wenn nicht angekündigt.
+     * </summary>
+     */
+    public String getParameters(String keyword) {
+        return extensions.get(keyword.toUpperCase(Locale.ROOT));
+    }
+
+    public boolean isPipelining() {
+        return supports("PIPELINING");
+    }
+
+    public boolean isChunking() {
+        return supports("CHUNKING");
+    }
+
+    public boolean isEightBitMime() {
+        return supports("8BITMIME");
+    }
+
+    public boolean isSmtpUtf8() {
+        return supports("SMTPUTF8");
+    }
+
+    public boolean isStartTls() {
+        return supports("STARTTLS");
+    }
+
+    public boolean isEnhancedStatusCodes() {
+        return supports("ENHANCEDSTATUSCODES");
+    }
+
+    /**
+     * <summary>
+     * Gibt an, ob SIZE (RFC 1870) angekündigt wurde.
+     * </summary>
+     */
+    public boolean isSize() {
+        return supports("SIZE");
+    }
+
+    /**
+     * <summary>
+     * Maximale Nachrichtengröße in Bytes laut SIZE, 0 = unbegrenzt oder unbekannt.
+     * </summary>
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * <summary>
+     * Angekündigte AUTH-Mechanismen in Großbuchstaben.
+     * </summary>
+     */
+    public Set<String> getAuthMechanisms() {
+        return authMechanisms;
+    }
+
+    public boolean supportsAuth(String mechanism) {
+        return authMechanisms.contains(mechanism.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * <summary>
+     * Alle angekündigten Erweiterungen (Schlüsselwort → Parameter).
+     * </summary>
+     */
+    public Map<String, String> getExtensions() {
+        return extensions;
+    }
+
+    @Override
+    public String toString() {
+        return extensions.toString();
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private static void addMechanisms(Set<String> target, String params) {
+        if (params == null || params.isEmpty()) return;
+
+        for (String mechanism : params.split("\\s+"))
+            target.add(mechanism.toUpperCase(Locale.ROOT));
+    }
+
+    private static long parseSize(String params) {
+        if (params == null || params.isEmpty()) return 0;
+
+        try {
+            return Math.max(0, Long.parseLong(params.trim()));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package de.rsev.utilities.communication.smtp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <summary>
+ * Überträgt eine Nachricht mit BDAT (RFC 3030) in Blöcken fester
+ * Größe. Die Bytes werden unverändert gesendet, ohne Dot-Stuffing
+ * und ohne Suche nach Zeilenenden.
+ *
+ * Mit PIPELINING werden bis zu MAX_OUTSTANDING Blöcke gesendet,
+ * bevor auf Antworten gewartet wird, sonst wird jeder Block einzeln
+ * bestätigt. Nach einer negativen Antwort werden keine weiteren
+ * Blöcke gesendet; finish() liefert dann diese Antwort.
+ * </summary>
+ */
+final class SmtpChunkOutputStream extends OutputStream {
+
+    /** <summary>Maximal unbestätigte Blöcke bei PIPELINING.</summary> */
+    private static final int MAX_OUTSTANDING = 32;
+
+    private final SmtpConnection connection;
+    private final byte[] chunk;
+    private final boolean pipelining;
+
+    private int count;
+    private int outstanding;
+    private SmtpResponse failure;
+    private boolean finished;
+
+    SmtpChunkOutputStream(SmtpConnection connection, int chunkSize, boolean pipelining) {
+        this.connection = connection;
+        this.chunk = new byte[chunkSize];
+        this.pipelining = pipelining;
+    }
+
+    /* -----------------------------
+       IO Methods
+       ----------------------------- */
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == chunk.length)
+            send(false);
+
+        chunk[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == chunk.length)
+                send(false);
+
+            int n = Math.min(len, chunk.length - count);
+            System.arraycopy(b, off, chunk, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * <summary>
+     * Sendet den letzten Block mit LAST und wertet alle offenen
+     * Antworten aus.
+     * </summary>
+     * @return Antwort auf den letzten Block oder die erste negative Antwort.
+     */
+    SmtpResponse finish() throws IOException {
+        if (finished)
+            throw new IOException("BDAT-Übertragung ist bereits abgeschlossen");
+
+        finished = true;
+        send(true);
+
+        SmtpResponse last = null;
+        while (outstanding > 0)
+            last = receive();
+
+        return failure != null ? failure : last;
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private void send(boolean last) throws IOException {
+        if (failure != null) {
+            // RFC 3030: nach einem Fehler keine weiteren BDAT-Blöcke
+            count = 0;
+            return;
+        }
+
+        if (pipelining && outstanding >= MAX_OUTSTANDING)
+            receive();
+
+        connection.writeChunk(chunk, count, last);
+        count = 0;
+        outstanding++;
+
+        if (!pipelining || last) {
+            connection.flush();
+            if (!last) receive();
+        }
+    }
+
+    private SmtpResponse receive() throws IOException {
+        SmtpResponse response = connection.readResponse();
+        outstanding--;
+
+        if (!response.isPositive() && failure == null)
+            failure = response;
+
+        return response;
+    }
+}
@@ -1,6 +1,7 @@
 package de.rsev.utilities.communication.smtp;
 
 import java.io.*;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
 
@@ -16,14 +17,55 @@ public class SmtpConnection implements Closeable {
     protected BufferedReader reader;
     protected BufferedWriter writer;
 
+    /** <summary>Gepufferter Byte-Stream unter dem writer, für Nachrichteninhalte.</summary> */
+    protected OutputStream output;
+
+    /** <summary>Zuletzt per EHLO ermittelte Erweiterungen, null = noch kein EHLO.</summary> */
+    protected SmtpCapabilities capabilities;
+
+    /** <summary>Messwerte für Phasen und gesendete Bytes, null = keine Messung.</summary> */
+    protected volatile SmtpMetrics metrics;
+
     public SmtpConnection(String host, int port) throws IOException {
-        this.socket = new Socket(host, port);
-        this.reader = new BufferedReader(
-                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)
-        );
-        this.writer = new BufferedWriter(
-                new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)
-        );
+        this(host, port, 0, 0);
+    }
+
+    /**
+     * <summary>
+     * Baut die Verbindung mit Timeouts auf (0 = unbegrenzt). Der
+     * Lese-Timeout gilt für jede Antwort, auch nach STARTTLS, damit
+     * halboffene Verbindungen (z. B. ruhende Sitzungen im Pool) den
+     * Thread nicht dauerhaft blockieren.
+     * </summary>
+     */
+    public SmtpConnection(String host, int port, int connectTimeoutMillis, int readTimeoutMillis) throws IOException {
+        Socket s = new Socket();
+
+        try {
+            s.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+            s.setSoTimeout(readTimeoutMillis);
+        } catch (IOException ex) {
+            s.close();
+            throw ex;
+        }
+
+        this.socket = s;
+
+        // Kommandos werden gebündelt geschrieben; Nagle würde nur verzögern
+        this.socket.setTcpNoDelay(true);
+        openStreams(socket);
+    }
+
+    /**
+     * <summary>
+     * Übernimmt eine bereits aufgebaute Verbindung,
+     * z. B. mit implizitem TLS (SMTPS, Port 465).
+     * </summary>
+     */
+    public SmtpConnection(Socket socket) throws IOException {
+        this.socket = socket;
+        this.socket.setTcpNoDelay(true);
+        openStreams(socket);
     }
 
     /* -----------------------------
@@ -31,22 +73,113 @@ public class SmtpConnection implements Closeable {
        ----------------------------- */
 
     public void sendLine(String line) throws IOException {
+        writeLine(line);
+        flush();
+    }
+
+    /**
+     * <summary>
+     * Puffert eine Zeile, ohne sie zu senden. Mehrere Kommandos
+     * können so mit einem einzigen flush() übertragen werden (PIPELINING).
+     * </summary>
+     */
+    public void writeLine(String line) throws IOException {
         writer.write(line);
         writer.write("\r\n");
+    }
+
+    public void flush() throws IOException {
         writer.flush();
     }
 
+    /**
+     * <summary>
+     * Öffnet einen Stream für den Inhalt eines DATA-Kommandos.
+     * Zeilenenden und Dot-Stuffing werden beim Schreiben kodiert;
+     * close() schreibt den Abschlusspunkt und sendet die Daten,
+     * die Verbindung bleibt offen.
+     * </summary>
+     */
+    public OutputStream openData() throws IOException {
+        writer.flush();
+        return new SmtpDataOutputStream(output);
+    }
+
+    /**
+     * <summary>
+     * Puffert ein BDAT-Kommando mit seinem Datenblock (RFC 3030).
+     * Alle vorherigen Kommandos müssen bereits gesendet sein.
+     * </summary>
+     */
+    void writeChunk(byte[] data, int length, boolean last) throws IOException {
+        String command = "BDAT " + length + (last ? " LAST" : "") + "\r\n";
+
+        output.write(command.getBytes(StandardCharsets.US_ASCII));
+        output.write(data, 0, length);
+    }
+
+    /**
+     * <summary>
+     * Liest eine vollständige, ggf. mehrzeilige Serverantwort (RFC 5321 4.2).
+     * Jede Zeile besteht aus dreistelligem Code, Trennzeichen
+     * ('-' für Fortsetzung, ' ' oder Zeilenende für die letzte Zeile)
+     * und Text. Alle Zeilen müssen denselben Code tragen.
+     * </summary>
+     */
     public SmtpResponse readResponse() throws IOException {
-        String line = reader.readLine();
-        if (line == null || line.length() < 3)
-            throw new IOException("Ungültige SMTP-Antwort");
+        SmtpReplyParser parser = new SmtpReplyParser();
 
-        int code = Integer.parseInt(line.substring(0, 3));
-        String msg = line.length() > 4 ? line.substring(4) : "";
+        for (;;) {
+            String line = reader.readLine();
+            if (line == null)
+                throw new IOException("Verbindung vom SMTP-Server geschlossen");
 
-        return new SmtpResponse(code, msg);
+            SmtpResponse response = parser.accept(line);
+            if (response != null)
+                return response;
+        }
     }
 
+    /* -----------------------------
+       Capabilities
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Gibt die per EHLO ermittelten Erweiterungen zurück,
+     * SmtpCapabilities.NONE vor dem ersten EHLO.
+     * </summary>
+     */
+    public SmtpCapabilities getCapabilities() {
+        return capabilities != null ? capabilities : SmtpCapabilities.NONE;
+    }
+
+    public void setCapabilities(SmtpCapabilities capabilities) {
+        this.capabilities = capabilities;
+    }
+
+    /* -----------------------------
+       Metrics
+       ----------------------------- */
+
+    SmtpMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * <summary>
+     * Setzt die Messwerte, z. B. wenn eine Sitzung aus dem Pool
+     * von einem anderen Client übernommen wird.
+     * </summary>
+     */
+    void setMetrics(SmtpMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
     @Override
     public void close() throws IOException {
         socket.close();
@@ -55,13 +188,49 @@ public class SmtpConnection implements Closeable {
     protected void replaceSocket(Socket newSocket) throws IOException {
         this.socket = newSocket;
 
+        // RFC 3207: Wissen aus der Klartext-Sitzung verwerfen
+        this.capabilities = null;
+
+        openStreams(newSocket);
+    }
+
+    private void openStreams(Socket s) throws IOException {
         this.reader = new BufferedReader(
-                new InputStreamReader(newSocket.getInputStream())
+                new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8)
         );
+        this.output = new BufferedOutputStream(new CountingOutputStream(s.getOutputStream()), 16 * 1024);
         this.writer = new BufferedWriter(
-                new OutputStreamWriter(newSocket.getOutputStream())
+                new OutputStreamWriter(output, StandardCharsets.UTF_8)
         );
     }
 
+    /**
+     * <summary>
+     * Zählt die an den Socket übergebenen Bytes. Liegt unter dem
+     * Puffer und wird daher nur je flush() aufgerufen.
+     * </summary>
+     */
+    private final class CountingOutputStream extends FilterOutputStream {
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
 
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count(len);
+        }
+
+        private void count(int bytes) {
+            SmtpMetrics m = metrics;
+            if (m != null) m.bytesSent(bytes);
+        }
+    }
 }
@@ -0,0 +1,236 @@
+package de.rsev.utilities.communication.smtp;
+
+import de.rsev.utilities.communication.MailOptions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <summary>
+ * Pool authentifizierter SMTP-Sitzungen, getrennt nach
+ * Host, Port, Benutzer und TLS-Einstellung.
+ *
+ * Eine Sitzung wird nach einer Mail zurückgegeben und für die nächste
+ * Mail an denselben Relay wiederverwendet, sodass TCP-Aufbau, EHLO,
+ * STARTTLS und AUTH nur einmal pro Sitzung anfallen. Ruhende Sitzungen
+ * werden LIFO vergeben, damit selten genutzte Sitzungen altern und
+ * vom Hintergrund-Thread geschlossen werden.
+ * </summary>
+ */
+public class SmtpConnectionPool implements Closeable {
+
+    private final SmtpPoolOptions options;
+    private final Map<String, Deque<SmtpSession>> idle = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictor;
+
+    private volatile boolean closed;
+
+    public SmtpConnectionPool() {
+        this(new SmtpPoolOptions());
+    }
+
+    public SmtpConnectionPool(SmtpPoolOptions options) {
+        this.options = options;
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rsev-smtp-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+
+        long period = options.getMaxIdleMillis() > 0
+                ? Math.max(1_000, options.getMaxIdleMillis() / 2)
+                : 30_000;
+
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /* -----------------------------
+       Acquire / Release
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Gibt eine ruhende Sitzung für die Optionen zurück oder baut eine neue auf.
+     * Sitzungen, die länger als validateAfterIdleMillis geruht haben,
+     * werden vorher per NOOP geprüft.
+     * </summary>
+     */
+    public SmtpSession acquire(MailOptions opt) throws IOException {
+        return acquire(opt, null);
+    }
+
+    /**
+     * <summary>
+     * Wie acquire(), zählt aber wiederverwendete und neu aufgebaute
+     * Sitzungen in metrics und misst die Sitzung dort.
+     * </summary>
+     */
+    public SmtpSession acquire(MailOptions opt, SmtpMetrics metrics) throws IOException {
+        if (closed)
+            throw new IllegalStateException("SMTP-Pool ist geschlossen");
+
+        Deque<SmtpSession> sessions = idle.get(SmtpSession.keyOf(opt));
+
+        if (sessions != null) {
+            for (;;) {
+                SmtpSession session;
+                synchronized (sessions) {
+                    session = sessions.pollFirst();
+                }
+                if (session == null) break;
+
+                long now = System.currentTimeMillis();
+
+                if (isExpired(session, now)) {
+                    session.close();
+                    continue;
+                }
+
+                long validateAfter = options.getValidateAfterIdleMillis();
+                if (validateAfter > 0 && now - session.getLastUsed() >= validateAfter
+                        && !session.validate()) {
+                    session.close();
+                    continue;
+                }
+
+                session.setMetrics(metrics);
+                if (metrics != null) metrics.poolHit();
+                return session;
+            }
+        }
+
+        if (metrics != null) metrics.poolMiss();
+        return SmtpSession.open(opt, metrics);
+    }
+
+    /**
+     * <summary>
+     * Gibt eine Sitzung zurück. Defekte oder verbrauchte Sitzungen
+     * werden geschlossen; nach einer abgebrochenen Transaktion wird
+     * die Sitzung per RSET zurückgesetzt.
+     * </summary>
+     */
+    public void release(SmtpSession session) {
+        if (session == null) return;
+
+        if (closed || session.isBroken() || isExpired(session, System.currentTimeMillis())) {
+            session.close();
+            return;
+        }
+
+        try {
+            session.reset();
+        } catch (IOException | RuntimeException ex) {
+            session.close();
+            return;
+        }
+
+        session.touch();
+
+        Deque<SmtpSession> sessions = idle.computeIfAbsent(session.getKey(), k -> new ArrayDeque<>());
+        boolean pooled;
+
+        synchronized (sessions) {
+            pooled = options.getMaxIdlePerKey() <= 0 || sessions.size() < options.getMaxIdlePerKey();
+            if (pooled)
+                sessions.offerFirst(session);
+        }
+
+        if (!pooled)
+            session.close();
+    }
+
+    /* -----------------------------
+       Eviction
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Schließt alle ruhenden Sitzungen, deren Leerlaufzeit oder
+     * Nachrichtenanzahl überschritten ist.
+     * </summary>
+     */
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        List<SmtpSession> expired = new ArrayList<>();
+
+        for (Deque<SmtpSession> sessions : idle.values()) {
+            synchronized (sessions) {
+                Iterator<SmtpSession> it = sessions.iterator();
+                while (it.hasNext()) {
+                    SmtpSession session = it.next();
+                    if (isExpired(session, now)) {
+                        it.remove();
+                        expired.add(session);
+                    }
+                }
+            }
+        }
+
+        // QUIT außerhalb der Sperre
+        for (SmtpSession session : expired)
+            session.close();
+    }
+
+    /**
+     * <summary>
+     * Gibt die Anzahl ruhender Sitzungen zurück.
+     * </summary>
+     */
+    public int getIdleCount() {
+        int count = 0;
+        for (Deque<SmtpSession> sessions : idle.values()) {
+            synchronized (sessions) {
+                count += sessions.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * <summary>
+     * Beendet alle ruhenden Sitzungen mit QUIT. Ausgeliehene Sitzungen
+     * werden bei der Rückgabe geschlossen.
+     * </summary>
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+
+        List<SmtpSession> all = new ArrayList<>();
+        for (Deque<SmtpSession> sessions : idle.values()) {
+            synchronized (sessions) {
+                all.addAll(sessions);
+                sessions.clear();
+            }
+        }
+
+        for (SmtpSession session : all)
+            session.close();
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private boolean isExpired(SmtpSession session, long now) {
+        boolean byIdle = options.getMaxIdleMillis() > 0
+                && now - session.getLastUsed() >= options.getMaxIdleMillis();
+        boolean byCount = options.getMaxMessagesPerConnection() > 0
+                && session.getMessageCount() >= options.getMaxMessagesPerConnection();
+
+        return byIdle || byCount;
+    }
+}
@@ -0,0 +1,126 @@
+package de.rsev.utilities.communication.smtp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <summary>
+ * Kodiert den Inhalt eines DATA-Kommandos beim Schreiben
+ * (RFC 5321 4.5.2):
+ *
+ * - einzelne CR oder LF werden zu CRLF normalisiert,
+ * - ein Punkt am Zeilenanfang wird verdoppelt,
+ * - close() beendet die Nachricht mit CRLF "." CRLF.
+ *
+ * Die Kodierung erfolgt Byte für Byte mit einem festen Puffer,
+ * unabhängig von der Größe der Nachricht. Der darunterliegende
+ * Stream wird bei close() nur geleert, nicht geschlossen.
+ * </summary>
+ */
+final class SmtpDataOutputStream extends OutputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int count;
+    private boolean lineStart = true;
+    private boolean pendingCr;
+    private boolean closed;
+
+    SmtpDataOutputStream(OutputStream out) {
+        this.out = out;
+    }
+
+    /* -----------------------------
+       IO Methods
+       ----------------------------- */
+
+    @Override
+    public void write(int b) throws IOException {
+        if (closed)
+            throw new IOException("DATA-Stream ist bereits abgeschlossen");
+
+        encode((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed)
+            throw new IOException("DATA-Stream ist bereits abgeschlossen");
+
+        for (int i = off, end = off + len; i < end; i++)
+            encode(b[i]);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    /**
+     * <summary>
+     * Schließt die letzte Zeile ab, schreibt den Abschlusspunkt
+     * und sendet alle gepufferten Daten.
+     * </summary>
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+
+        if (pendingCr || !lineStart)
+            crlf();
+
+        put((byte) '.');
+        crlf();
+
+        closed = true;
+        flush();
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private void encode(byte b) throws IOException {
+        if (pendingCr) {
+            pendingCr = false;
+            crlf();
+            if (b == '\n') return;
+        }
+
+        switch (b) {
+            case '\r' -> pendingCr = true;
+            case '\n' -> crlf();
+            default -> {
+                if (b == '.' && lineStart)
+                    put((byte) '.');
+
+                put(b);
+                lineStart = false;
+            }
+        }
+    }
+
+    private void crlf() throws IOException {
+        put((byte) '\r');
+        put((byte) '\n');
+        lineStart = true;
+    }
+
+    private void put(byte b) throws IOException {
+        if (count == buffer.length)
+            drain();
+
+        buffer[count++] = b;
+    }
+
+    private void drain() throws IOException {
+        if (count == 0) return;
+
+        out.write(buffer, 0, count);
+        count = 0;
+    }
+}
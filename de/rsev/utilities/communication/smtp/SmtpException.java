@@ -0,0 +1,54 @@
+package de.rsev.utilities.communication.smtp;
+
+/**
+ * <summary>
+ * Negative SMTP-Antwort auf ein Kommando der Mail-Transaktion.
+ * Enthält die Serverantwort, damit Aufrufer den Statuscode
+ * (z. B. 4xx temporär, 5xx permanent) auswerten können.
+ * </summary>
+ */
+public class SmtpException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SmtpResponse response;
+    private final boolean partial;
+
+    public SmtpException(SmtpResponse response) {
+        this("SMTP Fehler: " + response, response);
+    }
+
+    public SmtpException(String message, SmtpResponse response) {
+        this(message, response, false);
+    }
+
+    /**
+     * <summary>
+     * partial = true: die Mail wurde an einen Teil der Empfänger
+     * zugestellt und darf nicht vollständig wiederholt werden.
+     * </summary>
+     */
+    public SmtpException(String message, SmtpResponse response, boolean partial) {
+        super(message);
+        this.response = response;
+        this.partial = partial;
+    }
+
+    public SmtpResponse getResponse() {
+        return response;
+    }
+
+    public int getCode() {
+        return response.getCode();
+    }
+
+    /**
+     * <summary>
+     * Gibt an, ob die Mail trotz des Fehlers an einzelne Empfänger
+     * zugestellt wurde.
+     * </summary>
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+}
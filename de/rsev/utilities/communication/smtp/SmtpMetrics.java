@@ -0,0 +1,211 @@
+package de.rsev.utilities.communication.smtp;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <summary>
+ * Messwerte eines SMTP-Clients: Latenz-Histogramme je Protokollphase,
+ * gesendete und fehlgeschlagene Mails nach Antwortcode, gesendete Bytes
+ * und Treffer des Sitzungs-Pools. Alle Zähler sind threadsicher.
+ *
+ * Aktiviert über BaseSmtpClient.setMetrics() bzw. SystemMail.setMetrics();
+ * ohne Metrics-Objekt wird weder die Uhr gelesen noch gezählt.
+ * Mehrere Clients können dasselbe Objekt teilen.
+ * </summary>
+ */
+public final class SmtpMetrics {
+
+    /**
+     * <summary>
+     * Gemessene Abschnitte einer SMTP-Sitzung.
+     * </summary>
+     */
+    public enum Phase {
+        /** <summary>TCP-Verbindungsaufbau, bei implizitem TLS inkl. Handshake.</summary> */
+        CONNECT,
+        /** <summary>Warten auf die Begrüßung (220).</summary> */
+        GREETING,
+        /** <summary>EHLO, auch das erneute EHLO nach STARTTLS.</summary> */
+        EHLO,
+        /** <summary>STARTTLS-Kommando und TLS-Handshake.</summary> */
+        STARTTLS,
+        AUTH,
+        /** <summary>MAIL FROM und alle RCPT TO (mit PIPELINING inkl. DATA).</summary> */
+        ENVELOPE,
+        /** <summary>Nachrichteninhalt (DATA bzw. BDAT) bis zur abschließenden Antwort.</summary> */
+        DATA,
+        QUIT
+    }
+
+    /** <summary>Antwortcodes 0..599; 0 = Fehler ohne SMTP-Antwort (z. B. IO-Fehler).</summary> */
+    private static final int CODES = 600;
+
+    private final Map<Phase, SmtpLatencyHistogram> phases = new EnumMap<>(Phase.class);
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder messagesFailed = new LongAdder();
+    private final AtomicLongArray failuresByCode = new AtomicLongArray(CODES);
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder poolHits = new LongAdder();
+    private final LongAdder poolMisses = new LongAdder();
+
+    public SmtpMetrics() {
+        for (Phase phase : Phase.values())
+            phases.put(phase, new SmtpLatencyHistogram());
+    }
+
+    /* -----------------------------
+       Recording
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Erfasst die Dauer einer Phase seit startNanos.
+     * </summary>
+     * @return Aktueller System.nanoTime()-Wert als Start der nächsten Phase.
+     */
+    long record(Phase phase, long startNanos) {
+        long now = System.nanoTime();
+        phases.get(phase).record(now - startNanos);
+        return now;
+    }
+
+    void messageSent() {
+        messagesSent.increment();
+    }
+
+    /**
+     * <summary>
+     * Zählt eine fehlgeschlagene Mail unter dem Code der ersten
+     * SmtpException in der Ursachenkette, sonst unter 0.
+     * </summary>
+     */
+    void messageFailed(Throwable ex) {
+        messageFailed(codeOf(ex));
+    }
+
+    void messageFailed(int code) {
+        messagesFailed.increment();
+        failuresByCode.incrementAndGet(code > 0 && code < CODES ? code : 0);
+    }
+
+    void bytesSent(long bytes) {
+        bytesSent.add(bytes);
+    }
+
+    void poolHit() {
+        poolHits.increment();
+    }
+
+    void poolMiss() {
+        poolMisses.increment();
+    }
+
+    /* -----------------------------
+       Accessor Methods
+       ----------------------------- */
+
+    public SmtpLatencyHistogram getHistogram(Phase phase) {
+        return phases.get(phase);
+    }
+
+    /** <summary>Angenommene Mails (mindestens ein Empfänger).</summary> */
+    public long getMessagesSent() {
+        return messagesSent.sum();
+    }
+
+    /**
+     * <summary>
+     * Fehlgeschlagene Versuche; Wiederholungen durch Pool oder
+     * SmtpRelayScheduler werden einzeln gezählt.
+     * </summary>
+     */
+    public long getMessagesFailed() {
+        return messagesFailed.sum();
+    }
+
+    /** <summary>Fehlschläge mit dem Antwortcode, 0 = ohne SMTP-Antwort.</summary> */
+    public long getFailures(int code) {
+        return code >= 0 && code < CODES ? failuresByCode.get(code) : 0;
+    }
+
+    /** <summary>Fehlschläge je Antwortcode, aufsteigend sortiert, ohne Nullwerte.</summary> */
+    public Map<Integer, Long> getFailuresByCode() {
+        Map<Integer, Long> result = new TreeMap<>();
+
+        for (int code = 0; code < CODES; code++) {
+            long value = failuresByCode.get(code);
+            if (value > 0) result.put(code, value);
+        }
+
+        return result;
+    }
+
+    /** <summary>An den Server geschriebene Bytes (Kommandos und Inhalt, vor TLS).</summary> */
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long getPoolHits() {
+        return poolHits.sum();
+    }
+
+    public long getPoolMisses() {
+        return poolMisses.sum();
+    }
+
+    /**
+     * <summary>
+     * Anteil wiederverwendeter Sitzungen an allen Pool-Anfragen (0..1).
+     * </summary>
+     */
+    public double getPoolHitRate() {
+        long hits = getPoolHits();
+        long total = hits + getPoolMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public void reset() {
+        for (SmtpLatencyHistogram histogram : phases.values())
+            histogram.reset();
+
+        messagesSent.reset();
+        messagesFailed.reset();
+        for (int code = 0; code < CODES; code++)
+            failuresByCode.set(code, 0);
+        bytesSent.reset();
+        poolHits.reset();
+        poolMisses.reset();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(String.format(Locale.ROOT,
+                "sent=%d, failed=%d %s, bytes=%d, pool=%d/%d",
+                getMessagesSent(), getMessagesFailed(), getFailuresByCode(),
+                getBytesSent(), getPoolHits(), getPoolHits() + getPoolMisses()));
+
+        for (Map.Entry<Phase, SmtpLatencyHistogram> entry : phases.entrySet()) {
+            if (entry.getValue().getCount() > 0)
+                text.append("\n  ").append(entry.getKey()).append(": ").append(entry.getValue());
+        }
+
+        return text.toString();
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    static int codeOf(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SmtpException smtp)
+                return smtp.getCode();
+        }
+        return 0;
+    }
+}
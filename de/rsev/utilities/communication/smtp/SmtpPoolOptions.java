@@ -0,0 +1,38 @@
+package de.rsev.utilities.communication.smtp;
+
+/**
+ * <summary>
+ * Enthält alle Parameter für den SMTP-Connection-Pool.
+ * Ein Wert von 0 deaktiviert das jeweilige Kriterium.
+ * </summary>
+ */
+public class SmtpPoolOptions {
+
+    /** <summary>Leerlaufzeit, nach der eine Sitzung geschlossen wird.</summary> */
+    private long maxIdleMillis = 60_000;
+
+    /** <summary>Maximale Anzahl Mails pro Sitzung, danach wird sie geschlossen.</summary> */
+    private int maxMessagesPerConnection = 100;
+
+    /** <summary>Maximale Anzahl ruhender Sitzungen pro Host/Port/Benutzer.</summary> */
+    private int maxIdlePerKey = 4;
+
+    /** <summary>Ruhende Sitzungen werden nach dieser Zeit vor der Wiederverwendung per NOOP geprüft.</summary> */
+    private long validateAfterIdleMillis = 2_000;
+
+    /* -----------------------------
+       Getter / Setter
+       ----------------------------- */
+
+    public long getMaxIdleMillis() { return maxIdleMillis; }
+    public void setMaxIdleMillis(long maxIdleMillis) { this.maxIdleMillis = maxIdleMillis; }
+
+    public int getMaxMessagesPerConnection() { return maxMessagesPerConnection; }
+    public void setMaxMessagesPerConnection(int maxMessagesPerConnection) { this.maxMessagesPerConnection = maxMessagesPerConnection; }
+
+    public int getMaxIdlePerKey() { return maxIdlePerKey; }
+    public void setMaxIdlePerKey(int maxIdlePerKey) { this.maxIdlePerKey = maxIdlePerKey; }
+
+    public long getValidateAfterIdleMillis() { return validateAfterIdleMillis; }
+    public void setValidateAfterIdleMillis(long validateAfterIdleMillis) { this.validateAfterIdleMillis = validateAfterIdleMillis; }
+}
@@ -1,17 +1,38 @@
 package de.rsev.utilities.communication.smtp;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * <summary>
  * Implementiert den SMTP-Protokollablauf
- * (EHLO, MAIL FROM, RCPT TO, DATA, QUIT).
+ * (EHLO, MAIL FROM, RCPT TO, DATA, RSET, NOOP, QUIT).
+ *
+ * Kündigt der Server PIPELINING an (RFC 2920), werden MAIL FROM,
+ * alle RCPT TO und DATA in einem Schreibvorgang gesendet und die
+ * Antworten anschließend in derselben Reihenfolge ausgewertet.
+ * Kündigt er SIZE an (RFC 1870), wird die Nachrichtengröße vorab
+ * geprüft und bei MAIL FROM mitgeteilt.
+ *
+ * Mit CHUNKING (RFC 3030) wird die Nachricht statt mit DATA per BDAT
+ * in Blöcken zu CHUNK_SIZE Bytes unverändert übertragen. Mit 8BITMIME
+ * (RFC 6152) und SMTPUTF8 (RFC 6531) wählt die Nachricht über
+ * ISmtpMessage.forServer() eine Darstellung ohne Transferkodierung;
+ * MAIL FROM erhält dann BODY=8BITMIME bzw. SMTPUTF8.
  * </summary>
  */
 public class SmtpProtocol {
 
+    /** <summary>Blockgröße für BDAT.</summary> */
+    static final int CHUNK_SIZE = 128 * 1024;
+
     private final SmtpConnection connection;
 
+    /** <summary>Ob in der laufenden bzw. letzten Transaktion Nachrichteninhalt gesendet wurde.</summary> */
+    private boolean contentStarted;
+
     public SmtpProtocol(SmtpConnection connection) {
         this.connection = connection;
     }
@@ -21,9 +42,182 @@ public class SmtpProtocol {
        ----------------------------- */
 
     public void handshake(String clientName) throws IOException {
+        long started = start();
         expect(connection.readResponse());
+        record(SmtpMetrics.Phase.GREETING, started);
+
+        ehlo(clientName);
+    }
+
+    /**
+     * <summary>
+     * Sendet EHLO ohne vorherige Begrüßung (z. B. nach STARTTLS).
+     * </summary>
+     */
+    public void ehlo(String clientName) throws IOException {
+        long started = start();
         connection.sendLine("EHLO " + clientName);
-        expect(connection.readResponse());
+        SmtpResponse response = connection.readResponse();
+        expect(response);
+
+        connection.setCapabilities(SmtpCapabilities.parse(response));
+        record(SmtpMetrics.Phase.EHLO, started);
+    }
+
+    /**
+     * <summary>
+     * Gibt die Erweiterungen der Verbindung zurück.
+     * </summary>
+     */
+    public SmtpCapabilities getCapabilities() {
+        return connection.getCapabilities();
+    }
+
+    /**
+     * <summary>
+     * Gibt an, ob der Server PIPELINING unterstützt.
+     * </summary>
+     */
+    public boolean isPipelining() {
+        return connection.getCapabilities().isPipelining();
+    }
+
+    /**
+     * <summary>
+     * Führt eine vollständige Mail-Transaktion aus, mit PIPELINING
+     * in zwei statt 3 + n Round-Trips.
+     *
+     * Die Mail wird an alle angenommenen Empfänger zugestellt; wurden
+     * einzelne Empfänger abgelehnt, wird anschließend eine Exception
+     * mit den abgelehnten Adressen geworfen.
+     * </summary>
+     */
+    public void transaction(String from, List<String> recipients, String body) throws IOException {
+        transaction(from, recipients, ISmtpMessage.of(body));
+    }
+
+    public void transaction(String from, List<String> recipients, ISmtpMessage message) throws IOException {
+        checkAccepted(recipients, deliver(from, recipients, message));
+    }
+
+    /**
+     * <summary>
+     * Führt eine Mail-Transaktion aus und liefert je Empfänger die
+     * Serverantwort: für angenommene Empfänger die Antwort auf das
+     * Nachrichtenende, für abgelehnte die Antwort auf RCPT TO.
+     *
+     * Lehnt der Server alle Empfänger ab, wird die Transaktion
+     * zurückgesetzt und nichts gesendet. Scheitern MAIL FROM, DATA
+     * oder das Nachrichtenende, wird eine SmtpException geworfen.
+     *
+     * Mit SmtpMetrics wird die Zeit bis zur letzten RCPT-Antwort als
+     * ENVELOPE und der Rest bis zur abschließenden Antwort als DATA erfasst.
+     * Nach einem IO-Fehler gibt isContentStarted() an, ob der Inhalt
+     * bereits (teilweise) gesendet war.
+     * </summary>
+     */
+    public List<SmtpResponse> deliver(String from, List<String> recipients, ISmtpMessage message) throws IOException {
+        contentStarted = false;
+        long started = start();
+        SmtpCapabilities capabilities = connection.getCapabilities();
+        message = message.forServer(capabilities);
+
+        String mailFrom = mailFromCommand(from, recipients, message, capabilities);
+        boolean chunking = capabilities.isChunking();
+
+        List<SmtpResponse> responses = new ArrayList<>(recipients.size());
+
+        if (!capabilities.isPipelining()) {
+            connection.sendLine(mailFrom);
+            expect(connection.readResponse());
+
+            for (String to : recipients) {
+                connection.sendLine("RCPT TO:<" + to + ">");
+                responses.add(connection.readResponse());
+            }
+
+            started = record(SmtpMetrics.Phase.ENVELOPE, started);
+
+            if (!anyPositive(responses)) {
+                rset();
+                return responses;
+            }
+
+            if (chunking)
+                return completed(responses, writeChunks(message, false), started);
+
+            connection.sendLine("DATA");
+            expect(connection.readResponse()); // 354
+
+            writeBody(message);
+            return completed(responses, connection.readResponse(), started);
+        }
+
+        if (chunking) {
+            // Gruppe 1: MAIL FROM, RCPT TO* in einem Schreibvorgang
+            connection.writeLine(mailFrom);
+            for (String to : recipients)
+                connection.writeLine("RCPT TO:<" + to + ">");
+            connection.flush();
+
+            SmtpResponse mailResponse = connection.readResponse();
+
+            for (int i = 0; i < recipients.size(); i++)
+                responses.add(connection.readResponse());
+
+            expect(mailResponse);
+            started = record(SmtpMetrics.Phase.ENVELOPE, started);
+
+            if (!anyPositive(responses)) {
+                rset();
+                return responses;
+            }
+
+            // Gruppe 2: BDAT-Blöcke, ohne auf einzelne Antworten zu warten
+            return completed(responses, writeChunks(message, true), started);
+        }
+
+        // Gruppe 1: MAIL FROM, RCPT TO*, DATA in einem Schreibvorgang
+        connection.writeLine(mailFrom);
+        for (String to : recipients)
+            connection.writeLine("RCPT TO:<" + to + ">");
+        connection.writeLine("DATA");
+        connection.flush();
+
+        SmtpResponse mailResponse = connection.readResponse();
+
+        for (int i = 0; i < recipients.size(); i++)
+            responses.add(connection.readResponse());
+
+        SmtpResponse dataResponse = connection.readResponse();
+        boolean accepted = mailResponse.isPositive() && anyPositive(responses);
+        started = record(SmtpMetrics.Phase.ENVELOPE, started);
+
+        if (dataResponse.getCode() != 354) {
+            if (!mailResponse.isPositive())
+                throw new SmtpException(mailResponse);
+            if (!accepted) {
+                // MAIL FROM ist noch offen: Transaktion vor der nächsten Mail zurücksetzen
+                rset();
+                return responses;
+            }
+            throw new SmtpException(dataResponse);
+        }
+
+        if (!accepted) {
+            // Server hat DATA trotz Fehlern angenommen: leere Nachricht beenden
+            contentStarted = true;
+            connection.sendLine(".");
+            connection.readResponse();
+
+            if (!mailResponse.isPositive())
+                throw new SmtpException(mailResponse);
+            return responses;
+        }
+
+        // Gruppe 2: Nachricht und Abschluss
+        writeBody(message);
+        return completed(responses, connection.readResponse(), started);
     }
 
     public void mailFrom(String from) throws IOException {
@@ -40,23 +234,214 @@ public class SmtpProtocol {
         connection.sendLine("DATA");
         expect(connection.readResponse()); // 354
 
-        connection.sendLine(body);
-        connection.sendLine(".");
+        writeBody(ISmtpMessage.of(body));
+        expect(connection.readResponse());
+    }
+
+    /**
+     * <summary>
+     * Bricht die laufende Mail-Transaktion ab, die Sitzung bleibt bestehen.
+     * </summary>
+     */
+    public void rset() throws IOException {
+        connection.sendLine("RSET");
         expect(connection.readResponse());
     }
 
+    /**
+     * <summary>
+     * Prüft, ob der Server die Sitzung noch bedient.
+     * </summary>
+     */
+    public void noop() throws IOException {
+        connection.sendLine("NOOP");
+        expect(connection.readResponse());
+    }
+
+    /**
+     * <summary>
+     * Gibt an, ob die letzte Transaktion die DATA/BDAT-Phase erreicht
+     * hat. Scheitert sie danach mit einem IO-Fehler (z. B. Timeout beim
+     * Warten auf 250), hat der Server die Mail ggf. bereits angenommen;
+     * sie darf dann nicht auf einer anderen Sitzung wiederholt werden.
+     * </summary>
+     */
+    public boolean isContentStarted() {
+        return contentStarted;
+    }
+
     public void quit() throws IOException {
+        long started = start();
         connection.sendLine("QUIT");
         connection.readResponse();
+        record(SmtpMetrics.Phase.QUIT, started);
     }
 
     /* -----------------------------
        Helper
        ----------------------------- */
 
+    /**
+     * <summary>
+     * Streamt die Nachricht mit Dot-Stuffing in die Verbindung und
+     * beendet sie mit dem Abschlusspunkt. Der Speicherbedarf ist
+     * unabhängig von der Größe der Nachricht.
+     *
+     * Scheitert writeTo(), wird kein Abschlusspunkt gesendet, damit der
+     * Server keine abgeschnittene Nachricht annimmt; die Verbindung ist
+     * danach nicht mehr verwendbar.
+     * </summary>
+     */
+    private void writeBody(ISmtpMessage message) throws IOException {
+        contentStarted = true;
+        OutputStream data = connection.openData();
+        message.writeTo(data);
+        data.close();
+    }
+
+    /**
+     * <summary>
+     * Überträgt die Nachricht per BDAT. Schlägt ein Block fehl, wird
+     * die Transaktion per RSET verworfen (RFC 3030 Abschnitt 4).
+     * </summary>
+     * @return Antwort auf den letzten Block oder die erste negative Antwort.
+     */
+    private SmtpResponse writeChunks(ISmtpMessage message, boolean pipelining) throws IOException {
+        contentStarted = true;
+        SmtpChunkOutputStream chunks = new SmtpChunkOutputStream(connection, CHUNK_SIZE, pipelining);
+        message.writeTo(chunks);
+
+        SmtpResponse response = chunks.finish();
+
+        if (!response.isPositive()) {
+            connection.sendLine("RSET");
+            connection.readResponse();
+        }
+
+        return response;
+    }
+
+    /**
+     * <summary>
+     * Baut MAIL FROM mit den Parametern SIZE, BODY und SMTPUTF8.
+     * Internationalisierte Adressen ohne SMTPUTF8-Unterstützung des
+     * Servers sowie zu große Nachrichten werden vorab mit einer
+     * synthetischen permanenten Antwort (553 bzw. 552) abgewiesen,
+     * damit sie nicht als temporärer Fehler wiederholt werden.
+     * </summary>
+     */
+    static String mailFromCommand(String from, List<String> recipients,
+                                  ISmtpMessage message, SmtpCapabilities capabilities) {
+
+        StringBuilder command = new StringBuilder("MAIL FROM:<").append(from).append('>');
+        long size = message.getSize();
+
+        if (capabilities.isSize() && size >= 0) {
+            long max = capabilities.getMaxSize();
+
+            if (max > 0 && size > max)
+                throw new SmtpException(new SmtpResponse(552,
+                        "5.3.4 Nachricht zu groß (" + size + " > " + max + " Bytes)"));
+
+            command.append(" SIZE=").append(size);
+        }
+
+        if (message.getBodyType() != null && capabilities.isEightBitMime())
+            command.append(" BODY=").append(message.getBodyType());
+
+        boolean utf8 = message.isSmtpUtf8() || !isAscii(from);
+        for (String to : recipients)
+            utf8 |= !isAscii(to);
+
+        if (utf8) {
+            if (!capabilities.isSmtpUtf8())
+                throw new SmtpException(new SmtpResponse(553,
+                        "5.6.7 Server unterstützt kein SMTPUTF8 für internationalisierte Adressen"));
+
+            command.append(" SMTPUTF8");
+        }
+
+        return command.toString();
+    }
+
+    private static boolean isAscii(String value) {
+        if (value == null) return true;
+
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+
+    /**
+     * <summary>
+     * Wirft eine Exception mit allen abgelehnten Empfängern,
+     * sofern nicht alle Empfänger angenommen wurden.
+     * </summary>
+     */
+    static void checkAccepted(List<String> recipients, List<SmtpResponse> responses) {
+        List<String> rejected = new ArrayList<>();
+        SmtpResponse first = null;
+
+        for (int i = 0; i < recipients.size(); i++) {
+            SmtpResponse response = responses.get(i);
+            if (!response.isPositive()) {
+                rejected.add(recipients.get(i) + " (" + response + ")");
+                if (first == null) first = response;
+            }
+        }
+
+        if (rejected.isEmpty()) return;
+
+        if (rejected.size() == recipients.size())
+            throw new SmtpException("SMTP Fehler: Alle Empfänger abgelehnt: " + rejected, first);
+
+        throw new SmtpException(
+                "SMTP Fehler: Empfänger abgelehnt (an übrige zugestellt): " + rejected, first, true);
+    }
+
+    /**
+     * <summary>
+     * Wertet die Antwort auf das Nachrichtenende aus und überträgt
+     * sie auf alle angenommenen Empfänger.
+     * </summary>
+     */
+    private List<SmtpResponse> completed(List<SmtpResponse> responses, SmtpResponse done, long started) {
+        expect(done);
+        record(SmtpMetrics.Phase.DATA, started);
+
+        for (int i = 0; i < responses.size(); i++) {
+            if (responses.get(i).isPositive())
+                responses.set(i, done);
+        }
+
+        return responses;
+    }
+
+    /**
+     * <summary>
+     * Startzeit einer Phase; ohne SmtpMetrics wird die Uhr nicht gelesen.
+     * </summary>
+     */
+    private long start() {
+        return connection.getMetrics() != null ? System.nanoTime() : 0;
+    }
+
+    private long record(SmtpMetrics.Phase phase, long started) {
+        SmtpMetrics metrics = connection.getMetrics();
+        return metrics != null ? metrics.record(phase, started) : 0;
+    }
+
+    private static boolean anyPositive(List<SmtpResponse> responses) {
+        for (SmtpResponse response : responses) {
+            if (response.isPositive()) return true;
+        }
+        return false;
+    }
+
     private void expect(SmtpResponse response) {
         if (!response.isPositive()) {
-            throw new RuntimeException("SMTP Fehler: " + response);
+            throw new SmtpException(response);
         }
     }
 }
@@ -0,0 +1,72 @@
+package de.rsev.utilities.communication.smtp;
+
+import de.rsev.utilities.communication.MailOptions;
+
+/**
+ * <summary>
+ * Ergebnis der Zustellung einer Mail an einen einzelnen Empfänger.
+ *
+ * Angenommene Empfänger tragen die Antwort auf das Nachrichtenende
+ * (z. B. 250), abgelehnte die Antwort auf RCPT TO bzw. das
+ * fehlgeschlagene Kommando. Code 0 bedeutet, dass keine SMTP-Antwort
+ * vorliegt (z. B. Verbindungsfehler).
+ * </summary>
+ */
+public final class SmtpRecipientResult {
+
+    private final MailOptions options;
+    private final String recipient;
+    private final int code;
+    private final String message;
+
+    public SmtpRecipientResult(MailOptions options, String recipient, int code, String message) {
+        this.options = options;
+        this.recipient = recipient;
+        this.code = code;
+        this.message = message;
+    }
+
+    /* -----------------------------
+       Getter
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Die MailOptions, aus denen dieser Empfänger stammt.
+     * </summary>
+     */
+    public MailOptions getOptions() {
+        return options;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isAccepted() {
+        return code >= 200 && code < 300;
+    }
+
+    /**
+     * <summary>
+     * Gibt an, ob ein erneuter Versand sinnvoll ist
+     * (4xx-Antwort oder keine Antwort).
+     * </summary>
+     */
+    public boolean isTransient() {
+        return code == 0 || (code >= 400 && code < 500);
+    }
+
+    @Override
+    public String toString() {
+        return recipient + " (" + code + " " + message + ")";
+    }
+}
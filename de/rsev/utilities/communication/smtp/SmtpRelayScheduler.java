@@ -0,0 +1,553 @@
+package de.rsev.utilities.communication.smtp;
+
+import de.rsev.utilities.communication.MailOptions;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * <summary>
+ * Begrenzt gleichzeitige Sitzungen und Mails pro Sekunde je Relay
+ * (Host und Port) und reiht überzählige Sendungen in eine Warteschlange
+ * ein, statt weitere Verbindungen zum Server aufzubauen.
+ *
+ * Das Limit gleichzeitiger Sitzungen passt sich nach AIMD an die
+ * Belastbarkeit des Relays an: Erfolge erhöhen es langsam, temporäre
+ * Ablehnungen (4xx) und Verbindungsfehler halbieren es. Nach 421 oder
+ * einer abgewiesenen Verbindung pausiert das Relay zusätzlich für
+ * pauseMillis. Permanente Fehler (5xx) beeinflussen das Limit nicht.
+ *
+ * Nach 421 oder abgewiesener Verbindung reihen run() und submit()
+ * die Mail bis zu maxRetries-mal erneut vorne ein, sofern sie an
+ * keinen Empfänger zugestellt wurde (SmtpException.isPartial()).
+ * Andere Fehler werden an den Aufrufer gemeldet (bzw. vom MailSpool
+ * wiederholt).
+ * </summary>
+ */
+public class SmtpRelayScheduler implements Closeable {
+
+    /**
+     * <summary>
+     * Auswirkung eines Ergebnisses auf das Limit, nach Schwere geordnet.
+     * </summary>
+     */
+    private enum Outcome { NEUTRAL, SUCCESS, CONGESTED, UNAVAILABLE }
+
+    private final SmtpThrottleOptions options;
+    private final Map<String, Relay> relays = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+
+    private volatile boolean closed;
+
+    public SmtpRelayScheduler() {
+        this(new SmtpThrottleOptions());
+    }
+
+    public SmtpRelayScheduler(SmtpThrottleOptions options) {
+        this.options = options;
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rsev-smtp-throttle");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /* -----------------------------
+       Acquire / Release
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Wartet, bis für das Relay eine Sitzung erlaubt ist.
+     * Die Erlaubnis muss mit einer der release-Methoden zurückgegeben werden.
+     * </summary>
+     */
+    public Permit acquire(MailOptions opt) {
+        return acquire(opt, 1);
+    }
+
+    /**
+     * <summary>
+     * Wartet auf eine Sitzung, über die messages Mails gesendet werden;
+     * alle Mails zählen für die Begrenzung pro Sekunde.
+     * </summary>
+     */
+    public Permit acquire(MailOptions opt, int messages) {
+        return await(enqueue(opt, messages, false));
+    }
+
+    /**
+     * <summary>
+     * Liefert ein Future, das mit der Erlaubnis abgeschlossen wird,
+     * sobald das Relay eine weitere Sitzung zulässt. Abhängige Stufen
+     * laufen auf dem Thread, der die Erlaubnis freigibt.
+     * </summary>
+     */
+    public CompletableFuture<Permit> acquireAsync(MailOptions opt, int messages) {
+        return enqueue(opt, messages, false);
+    }
+
+    /**
+     * <summary>
+     * Führt einen synchronen Versand aus, sobald das Relay es zulässt,
+     * und passt das Limit anhand seines Ergebnisses an.
+     * </summary>
+     */
+    public void run(MailOptions opt, Runnable task) {
+        for (int retries = 0; ; retries++) {
+            Permit permit = retries == 0 ? acquire(opt) : await(enqueue(opt, 1, true));
+
+            try {
+                task.run();
+            } catch (RuntimeException ex) {
+                permit.release(ex);
+                if (retries < options.getMaxRetries() && isRetryable(ex)) continue;
+                throw ex;
+            }
+
+            permit.release();
+            return;
+        }
+    }
+
+    /**
+     * <summary>
+     * Führt einen asynchronen Versand aus, sobald das Relay es zulässt,
+     * und passt das Limit anhand seines Ergebnisses an.
+     * </summary>
+     */
+    public <T> CompletableFuture<T> submit(MailOptions opt, Supplier<? extends CompletionStage<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(opt, task, 0, result);
+        return result;
+    }
+
+    /* -----------------------------
+       Accessor Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Aktuelles Limit gleichzeitiger Sitzungen des Relays,
+     * initialConcurrency wenn es noch nicht verwendet wurde.
+     * </summary>
+     */
+    public double getLimit(String host, int port) {
+        Relay relay = relays.get(keyOf(host, port));
+        if (relay == null) return options.getInitialConcurrency();
+
+        synchronized (relay) {
+            return relay.limit;
+        }
+    }
+
+    public int getActive(String host, int port) {
+        Relay relay = relays.get(keyOf(host, port));
+        if (relay == null) return 0;
+
+        synchronized (relay) {
+            return relay.active;
+        }
+    }
+
+    public int getQueued(String host, int port) {
+        Relay relay = relays.get(keyOf(host, port));
+        if (relay == null) return 0;
+
+        synchronized (relay) {
+            return relay.queue.size();
+        }
+    }
+
+    /**
+     * <summary>
+     * Lehnt neue Anfragen ab und lässt wartende Sendungen fehlschlagen.
+     * Laufende Sendungen werden nicht abgebrochen.
+     * </summary>
+     */
+    @Override
+    public void close() {
+        closed = true;
+        timer.shutdownNow();
+
+        IllegalStateException ex = new IllegalStateException("SMTP-Scheduler ist geschlossen");
+
+        for (Relay relay : relays.values()) {
+            List<Waiter> waiting;
+            synchronized (relay) {
+                waiting = new ArrayList<>(relay.queue);
+                relay.queue.clear();
+            }
+            for (Waiter waiter : waiting)
+                waiter.future.completeExceptionally(ex);
+        }
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private CompletableFuture<Permit> enqueue(MailOptions opt, int messages, boolean retry) {
+        if (opt == null)
+            throw new IllegalArgumentException("MailOptions dürfen nicht null sein");
+
+        if (closed)
+            return CompletableFuture.failedFuture(new IllegalStateException("SMTP-Scheduler ist geschlossen"));
+
+        Relay relay = relays.computeIfAbsent(keyOf(opt.getSmtpHost(), opt.getSmtpPort()), Relay::new);
+        Waiter waiter = new Waiter(Math.max(1, messages));
+
+        synchronized (relay) {
+            int maxQueued = options.getMaxQueued();
+            if (retry) {
+                relay.queue.addFirst(waiter);
+            } else if (maxQueued > 0 && relay.queue.size() >= maxQueued) {
+                return CompletableFuture.failedFuture(new RuntimeException(
+                        "SMTP-Warteschlange für " + relay.key + " ist voll (" + maxQueued + ")"));
+            } else {
+                relay.queue.addLast(waiter);
+            }
+        }
+
+        dispatch(relay);
+        return waiter.future;
+    }
+
+    private static Permit await(CompletableFuture<Permit> waiter) {
+        try {
+            return waiter.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            if (!waiter.cancel(false) && !waiter.isCompletedExceptionally())
+                waiter.join().abandon();
+            throw new RuntimeException("Warten auf SMTP-Relay unterbrochen", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    private <T> void attempt(MailOptions opt, Supplier<? extends CompletionStage<T>> task,
+                             int retries, CompletableFuture<T> result) {
+        enqueue(opt, 1, retries > 0).whenComplete((permit, error) -> {
+            if (error != null) {
+                result.completeExceptionally(unwrap(error));
+                return;
+            }
+
+            CompletionStage<T> stage;
+            try {
+                stage = task.get();
+            } catch (RuntimeException ex) {
+                permit.release(ex);
+                result.completeExceptionally(ex);
+                return;
+            }
+
+            stage.whenComplete((value, failure) -> {
+                permit.release(failure);
+
+                if (failure == null)
+                    result.complete(value);
+                else if (retries < options.getMaxRetries() && isRetryable(failure))
+                    attempt(opt, task, retries + 1, result);
+                else
+                    result.completeExceptionally(unwrap(failure));
+            });
+        });
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    /**
+     * <summary>
+     * 421 und abgewiesene Verbindungen beenden die Sitzung, bevor der
+     * Server die Nachricht angenommen hat; ein erneuter Versuch stellt
+     * daher nicht doppelt zu. Ausgenommen sind Teilzustellungen, bei
+     * denen ein weiterer RCPT mit 421 abgelehnt wurde.
+     * </summary>
+     */
+    private static boolean isRetryable(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof SmtpException smtp && smtp.isPartial()) return false;
+        }
+
+        return classify(unwrap(ex)) == Outcome.UNAVAILABLE;
+    }
+
+    /**
+     * <summary>
+     * Vergibt Erlaubnisse, solange Limit, Pause und Rate es zulassen.
+     * Die Futures werden außerhalb der Sperre abgeschlossen, da ihre
+     * abhängigen Stufen direkt weiterlaufen.
+     * </summary>
+     */
+    private void dispatch(Relay relay) {
+        List<Waiter> ready = new ArrayList<>();
+        double rate = options.getMaxMessagesPerSecond();
+
+        synchronized (relay) {
+            long now = System.nanoTime();
+
+            while (!relay.queue.isEmpty() && relay.active < (int) relay.limit) {
+                if (now - relay.pausedUntil < 0) {
+                    schedule(relay, relay.pausedUntil - now);
+                    break;
+                }
+
+                if (rate > 0) {
+                    relay.refill(now, rate);
+                    if (relay.tokens < 1) {
+                        schedule(relay, (long) ((1 - relay.tokens) / rate * 1e9));
+                        break;
+                    }
+                }
+
+                Waiter waiter = relay.queue.pollFirst();
+                if (waiter.future.isDone()) continue;
+
+                relay.active++;
+                if (rate > 0) relay.tokens -= waiter.messages;
+                ready.add(waiter);
+            }
+        }
+
+        for (Waiter waiter : ready) {
+            Permit permit = new Permit(relay);
+            if (!waiter.future.complete(permit))
+                permit.abandon();
+        }
+    }
+
+    private void schedule(Relay relay, long delayNanos) {
+        if (relay.timerPending || closed) return;
+        relay.timerPending = true;
+
+        try {
+            timer.schedule(() -> {
+                synchronized (relay) {
+                    relay.timerPending = false;
+                }
+                dispatch(relay);
+            }, Math.max(1, delayNanos), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException ex) {
+            relay.timerPending = false;
+        }
+    }
+
+    private void release(Relay relay, Outcome outcome) {
+        synchronized (relay) {
+            relay.active--;
+
+            long now = System.nanoTime();
+            switch (outcome) {
+                case SUCCESS -> relay.increase(now);
+                case CONGESTED -> relay.decrease(now);
+                case UNAVAILABLE -> {
+                    relay.decrease(now);
+                    relay.pausedUntil = now + TimeUnit.MILLISECONDS.toNanos(options.getPauseMillis());
+                }
+                case NEUTRAL -> { }
+            }
+        }
+
+        dispatch(relay);
+    }
+
+    /**
+     * <summary>
+     * 421 bedeutet, dass der Server keine weiteren Sitzungen annimmt;
+     * andere 4xx-Codes (z. B. 451 Rate-Limit) gelten als Überlast.
+     * </summary>
+     */
+    private static Outcome classify(int code) {
+        if (code >= 200 && code < 400) return Outcome.SUCCESS;
+        if (code == 421) return Outcome.UNAVAILABLE;
+        if (code >= 400 && code < 500) return Outcome.CONGESTED;
+        return Outcome.NEUTRAL;
+    }
+
+    private static Outcome classify(Throwable ex) {
+        if (ex == null) return Outcome.SUCCESS;
+
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof SmtpException smtp) return classify(smtp.getCode());
+            if (t instanceof SSLHandshakeException) return Outcome.NEUTRAL;
+            if (t instanceof ConnectException) return Outcome.UNAVAILABLE;
+            if (t instanceof IOException) return Outcome.CONGESTED;
+        }
+
+        return Outcome.NEUTRAL;
+    }
+
+    private static String keyOf(String host, int port) {
+        return host + ":" + port;
+    }
+
+    /**
+     * <summary>
+     * Erlaubnis für eine Sitzung zu einem Relay.
+     * Nur die erste Freigabe zählt, weitere Aufrufe werden ignoriert.
+     * </summary>
+     */
+    public final class Permit {
+
+        private final Relay relay;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Relay relay) {
+            this.relay = relay;
+        }
+
+        /**
+         * <summary>
+         * Gibt die Erlaubnis nach erfolgreichem Versand zurück.
+         * </summary>
+         */
+        public void release() {
+            release(Outcome.SUCCESS);
+        }
+
+        /**
+         * <summary>
+         * Gibt die Erlaubnis zurück und wertet den Fehler aus,
+         * null bedeutet Erfolg.
+         * </summary>
+         */
+        public void release(Throwable failure) {
+            release(classify(unwrap(failure)));
+        }
+
+        /**
+         * <summary>
+         * Gibt die Erlaubnis zurück und wertet die Antworten je Empfänger
+         * aus; das schwerwiegendste Ergebnis bestimmt die Anpassung.
+         * </summary>
+         */
+        public void release(Collection<SmtpRecipientResult> results) {
+            Outcome outcome = Outcome.NEUTRAL;
+
+            for (SmtpRecipientResult result : results) {
+                Outcome current = classify(result.getCode());
+                if (current.compareTo(outcome) > 0) outcome = current;
+            }
+
+            release(outcome);
+        }
+
+        void abandon() {
+            release(Outcome.NEUTRAL);
+        }
+
+        private void release(Outcome outcome) {
+            if (released.compareAndSet(false, true))
+                SmtpRelayScheduler.this.release(relay, outcome);
+        }
+    }
+
+    /**
+     * <summary>
+     * Wartende Anfrage mit der Anzahl Mails, die sie senden wird.
+     * </summary>
+     */
+    private static final class Waiter {
+
+        final CompletableFuture<Permit> future = new CompletableFuture<>();
+        final int messages;
+
+        Waiter(int messages) {
+            this.messages = messages;
+        }
+    }
+
+    /**
+     * <summary>
+     * Zustand eines Relays, geschützt durch seinen Monitor.
+     * </summary>
+     */
+    private final class Relay {
+
+        final String key;
+        final Deque<Waiter> queue = new ArrayDeque<>();
+
+        double limit;
+        int active;
+        double tokens;
+        long lastRefill = System.nanoTime();
+        long pausedUntil = lastRefill;
+        long lastDecrease;
+        boolean decreased;
+        boolean timerPending;
+
+        Relay(String key) {
+            this.key = key;
+            this.limit = Math.max(minLimit(), Math.min(options.getInitialConcurrency(), maxLimit()));
+            this.tokens = Math.max(1, options.getMaxMessagesPerSecond());
+        }
+
+        /**
+         * <summary>
+         * Während der Abklingzeit nach einer Verkleinerung wächst das
+         * Limit nicht, da noch Sitzungen mit dem alten Limit laufen.
+         * </summary>
+         */
+        void increase(long now) {
+            if (decreased && now - lastDecrease < TimeUnit.MILLISECONDS.toNanos(options.getDecreaseCooldownMillis()))
+                return;
+
+            limit = Math.min(maxLimit(), limit + options.getAdditiveIncrease() / Math.max(1, (int) limit));
+        }
+
+        void decrease(long now) {
+            long cooldown = TimeUnit.MILLISECONDS.toNanos(options.getDecreaseCooldownMillis());
+            if (decreased && now - lastDecrease < cooldown) return;
+
+            limit = Math.max(minLimit(), Math.floor(limit * options.getDecreaseFactor()));
+            lastDecrease = now;
+            decreased = true;
+        }
+
+        /**
+         * <summary>
+         * Token-Bucket: füllt bis zu einer Sekunde Kontingent auf.
+         * Ein Stapel darf das Kontingent überziehen und blockiert dann
+         * entsprechend länger.
+         * </summary>
+         */
+        void refill(long now, double rate) {
+            tokens = Math.min(Math.max(1, rate), tokens + (now - lastRefill) * rate / 1e9);
+            lastRefill = now;
+        }
+
+        private int minLimit() {
+            return Math.max(1, options.getMinConcurrency());
+        }
+
+        private int maxLimit() {
+            return Math.max(minLimit(), options.getMaxConcurrency());
+        }
+    }
+}
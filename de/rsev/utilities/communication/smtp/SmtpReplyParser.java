@@ -0,0 +1,58 @@
+package de.rsev.utilities.communication.smtp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <summary>
+ * Setzt eine ggf. mehrzeilige SMTP-Antwort (RFC 5321 4.2) Zeile
+ * für Zeile zusammen. Jede Zeile besteht aus dreistelligem Code,
+ * Trennzeichen ('-' für Fortsetzung, ' ' oder Zeilenende für die
+ * letzte Zeile) und Text. Alle Zeilen müssen denselben Code tragen.
+ *
+ * Wird vom blockierenden SmtpConnection und vom NIO-Client
+ * gemeinsam genutzt.
+ * </summary>
+ */
+final class SmtpReplyParser {
+
+    private List<String> lines = new ArrayList<>(1);
+    private int code = -1;
+
+    /**
+     * <summary>
+     * Verarbeitet eine Zeile ohne Zeilenumbruch.
+     * </summary>
+     * @return Die vollständige Antwort nach der letzten Zeile, sonst null.
+     */
+    SmtpResponse accept(String line) throws IOException {
+        int lineCode = parseCode(line);
+        if (code >= 0 && lineCode != code)
+            throw new IOException("Uneinheitliche SMTP-Antwort: " + line);
+        code = lineCode;
+
+        boolean last = line.length() == 3 || line.charAt(3) == ' ';
+        if (!last && line.charAt(3) != '-')
+            throw new IOException("Ungültige SMTP-Antwort: " + line);
+
+        lines.add(line.length() > 4 ? line.substring(4) : "");
+
+        if (!last) return null;
+
+        SmtpResponse response = new SmtpResponse(code, lines.get(lines.size() - 1), lines);
+        lines = new ArrayList<>(1);
+        code = -1;
+        return response;
+    }
+
+    private static int parseCode(String line) throws IOException {
+        if (line.length() < 3
+                || !Character.isDigit(line.charAt(0))
+                || !Character.isDigit(line.charAt(1))
+                || !Character.isDigit(line.charAt(2)))
+            throw new IOException("Ungültige SMTP-Antwort: " + line);
+
+        return (line.charAt(0) - '0') * 100 + (line.charAt(1) - '0') * 10 + (line.charAt(2) - '0');
+    }
+}
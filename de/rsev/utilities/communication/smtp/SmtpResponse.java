@@ -1,19 +1,29 @@
 package de.rsev.utilities.communication.smtp;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * <summary>
  * Repräsentiert eine SMTP-Serverantwort.
- * Besteht aus Statuscode und Nachricht.
+ * Besteht aus Statuscode und Nachricht; bei mehrzeiligen
+ * Antworten (z. B. EHLO) zusätzlich aus allen Zeilentexten.
  * </summary>
  */
 public class SmtpResponse {
 
     private final int code;
     private final String message;
+    private final List<String> lines;
 
     public SmtpResponse(int code, String message) {
+        this(code, message, Collections.singletonList(message));
+    }
+
+    public SmtpResponse(int code, String message, List<String> lines) {
         this.code = code;
         this.message = message;
+        this.lines = Collections.unmodifiableList(lines);
     }
 
     public int getCode() {
@@ -24,6 +34,15 @@ public class SmtpResponse {
         return message;
     }
 
+    /**
+     * <summary>
+     * Gibt die Texte aller Zeilen ohne Statuscode zurück.
+     * </summary>
+     */
+    public List<String> getLines() {
+        return lines;
+    }
+
     public boolean isPositive() {
         return code >= 200 && code < 400;
     }
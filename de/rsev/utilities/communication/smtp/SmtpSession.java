@@ -0,0 +1,352 @@
+package de.rsev.utilities.communication.smtp;
+
+import de.rsev.utilities.communication.MailOptions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * <summary>
+ * Eine aufgebaute SMTP-Sitzung (Verbindung nach EHLO, optional
+ * STARTTLS und AUTH), die für mehrere Mail-Transaktionen
+ * wiederverwendet werden kann.
+ *
+ * Die Sitzung merkt sich, ob die letzte Transaktion vollständig
+ * abgeschlossen wurde; nur dann ist sie ohne RSET wieder verwendbar.
+ * </summary>
+ */
+public class SmtpSession implements Closeable {
+
+    private final String key;
+    private final SmtpConnection connection;
+    private final SmtpProtocol protocol;
+    private final long createdAt = System.currentTimeMillis();
+
+    private long lastUsed = createdAt;
+    private int messageCount;
+    private int transactionCount;
+    private boolean clean = true;
+    private boolean broken;
+
+    private SmtpSession(String key, SmtpConnection connection) {
+        this.key = key;
+        this.connection = connection;
+        this.protocol = new SmtpProtocol(connection);
+    }
+
+    /* -----------------------------
+       Factory
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Baut eine neue Sitzung inklusive Handshake, STARTTLS und AUTH auf.
+     * Mit useSsl wird die Verbindung von Beginn an verschlüsselt
+     * (implizites TLS, Port 465) und STARTTLS entfällt.
+     * </summary>
+     */
+    public static SmtpSession open(MailOptions opt) throws IOException {
+        return open(opt, null);
+    }
+
+    /**
+     * <summary>
+     * Wie open(), erfasst aber Phasenlatenzen und gesendete Bytes
+     * der Sitzung in metrics (null = keine Messung).
+     * </summary>
+     */
+    public static SmtpSession open(MailOptions opt, SmtpMetrics metrics) throws IOException {
+        long started = metrics != null ? System.nanoTime() : 0;
+
+        SmtpConnection connection = opt.isUseSsl()
+                ? new SmtpConnection(SmtpTlsContexts.connect(opt.getSmtpHost(), opt.getSmtpPort(),
+                        opt.getConnectTimeoutMillis(), opt.getReadTimeoutMillis()))
+                : new SmtpConnection(opt.getSmtpHost(), opt.getSmtpPort(),
+                        opt.getConnectTimeoutMillis(), opt.getReadTimeoutMillis());
+
+        if (metrics != null) {
+            metrics.record(SmtpMetrics.Phase.CONNECT, started);
+            connection.setMetrics(metrics);
+        }
+
+        SmtpSession session = new SmtpSession(keyOf(opt), connection);
+
+        try {
+            session.handshake(opt);
+            return session;
+        } catch (IOException | RuntimeException ex) {
+            connection.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * <summary>
+     * Schlüssel, unter dem Sitzungen wiederverwendet werden dürfen.
+     * Enthält Auth-Typ und einen SHA-256-Hash der Zugangsdaten, damit
+     * eine mit anderem Passwort angemeldete Sitzung nicht wiederverwendet
+     * wird; das Passwort selbst steht nicht im Schlüssel.
+     * </summary>
+     */
+    static String keyOf(MailOptions opt) {
+        String user = opt.getSmtpUser() != null ? opt.getSmtpUser() : "";
+        String authType = opt.getAuthType() != null ? opt.getAuthType().toUpperCase(Locale.ROOT) : "";
+
+        return opt.getSmtpHost() + ":" + opt.getSmtpPort() + ":" + user
+                + ":" + authType + ":" + credentialsHash(user, opt.getSmtpPassword())
+                + ":" + opt.isUseTls() + ":" + opt.isUseSsl();
+    }
+
+    private static String credentialsHash(String user, String password) {
+        if (user.isEmpty()) return "";
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(user.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            if (password != null)
+                digest.update(password.getBytes(StandardCharsets.UTF_8));
+
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            // SHA-256 ist in jeder JVM vorhanden
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /* -----------------------------
+       SMTP Flow
+       ----------------------------- */
+
+    private void handshake(MailOptions opt) throws IOException {
+
+        protocol.handshake("localhost");
+
+        /* -----------------------------
+           STARTTLS (optional)
+           ----------------------------- */
+
+        if (opt.isUseTls() && !opt.isUseSsl()) {
+            if (!protocol.getCapabilities().isStartTls())
+                throw new RuntimeException("SMTP-Server unterstützt kein STARTTLS");
+
+            SmtpMetrics metrics = connection.getMetrics();
+            long started = metrics != null ? System.nanoTime() : 0;
+
+            StartTlsHandler tlsHandler = new StartTlsHandler(connection);
+            tlsHandler.startTls(opt.getSmtpHost());
+
+            if (metrics != null)
+                metrics.record(SmtpMetrics.Phase.STARTTLS, started);
+
+            // RFC-konform: nach STARTTLS erneut EHLO
+            protocol.ehlo("localhost");
+        }
+
+        /* -----------------------------
+           AUTH (optional)
+           ----------------------------- */
+
+        if (opt.getSmtpUser() != null && !opt.getSmtpUser().isEmpty()) {
+
+            SmtpMetrics metrics = connection.getMetrics();
+            long started = metrics != null ? System.nanoTime() : 0;
+
+            SmtpAuthHandler authHandler = new SmtpAuthHandler(connection);
+
+            String authType = opt.getAuthType() != null
+                    ? opt.getAuthType().toUpperCase()
+                    : "LOGIN";
+
+            switch (authType) {
+                case "PLAIN" ->
+                        authHandler.authPlain(
+                                opt.getSmtpUser(),
+                                opt.getSmtpPassword()
+                        );
+
+                case "LOGIN" ->
+                        authHandler.authLogin(
+                                opt.getSmtpUser(),
+                                opt.getSmtpPassword()
+                        );
+
+                default ->
+                        throw new RuntimeException(
+                                "Nicht unterstützter SMTP Auth-Typ: " + authType
+                        );
+            }
+
+            if (metrics != null)
+                metrics.record(SmtpMetrics.Phase.AUTH, started);
+        }
+    }
+
+    /**
+     * <summary>
+     * Führt eine vollständige Mail-Transaktion (MAIL FROM / RCPT TO / DATA) aus.
+     * Bei IO-Fehlern gilt die Sitzung als defekt, bei SMTP-Fehlern
+     * muss sie vor der nächsten Transaktion per RSET zurückgesetzt werden.
+     * </summary>
+     */
+    public void transfer(String from, List<String> recipients, String message) throws IOException {
+        transfer(from, recipients, ISmtpMessage.of(message));
+    }
+
+    public void transfer(String from, List<String> recipients, ISmtpMessage message) throws IOException {
+        SmtpProtocol.checkAccepted(recipients, deliver(from, recipients, message));
+    }
+
+    /**
+     * <summary>
+     * Wie transfer(), liefert aber je Empfänger die Serverantwort,
+     * statt bei abgelehnten Empfängern eine Exception zu werfen.
+     * </summary>
+     */
+    public List<SmtpResponse> deliver(String from, List<String> recipients, ISmtpMessage message) throws IOException {
+        clean = false;
+        transactionCount++;
+        lastUsed = System.currentTimeMillis();
+
+        List<SmtpResponse> responses;
+        try {
+            responses = protocol.deliver(from, recipients, message);
+        } catch (IOException ex) {
+            broken = true;
+            throw ex;
+        }
+
+        for (SmtpResponse response : responses) {
+            if (response.isPositive()) {
+                messageCount++;
+                break;
+            }
+        }
+
+        clean = true;
+        return responses;
+    }
+
+    /**
+     * <summary>
+     * Setzt eine abgebrochene Transaktion per RSET zurück.
+     * </summary>
+     */
+    void reset() throws IOException {
+        if (clean) return;
+
+        try {
+            protocol.rset();
+            clean = true;
+        } catch (IOException | RuntimeException ex) {
+            broken = true;
+            throw ex;
+        }
+    }
+
+    /**
+     * <summary>
+     * Prüft per NOOP, ob der Server die Sitzung noch offen hält.
+     * </summary>
+     */
+    boolean validate() {
+        try {
+            protocol.noop();
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            broken = true;
+            return false;
+        }
+    }
+
+    /**
+     * <summary>
+     * Beendet die Sitzung mit QUIT und schließt die Verbindung.
+     * Fehler beim QUIT werden ignoriert.
+     * </summary>
+     */
+    @Override
+    public void close() {
+        try {
+            if (!broken)
+                protocol.quit();
+        } catch (IOException | RuntimeException ignored) {
+            // Server hat die Verbindung ggf. bereits geschlossen
+        } finally {
+            try {
+                connection.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /* -----------------------------
+       Getter
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Gibt die Erweiterungen des Servers für diese Sitzung zurück.
+     * </summary>
+     */
+    public SmtpCapabilities getCapabilities() {
+        return protocol.getCapabilities();
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    public boolean isBroken() {
+        return broken;
+    }
+
+    /**
+     * <summary>
+     * Gibt an, ob bei der letzten Transaktion bereits Nachrichteninhalt
+     * gesendet wurde (siehe SmtpProtocol.isContentStarted()).
+     * </summary>
+     */
+    public boolean isContentStarted() {
+        return protocol.isContentStarted();
+    }
+
+    /**
+     * <summary>
+     * Gibt an, ob auf dieser Sitzung bereits eine Transaktion lief.
+     * </summary>
+     */
+    public boolean isReused() {
+        return transactionCount > 0;
+    }
+
+    void touch() {
+        lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * <summary>
+     * Ordnet die Sitzung den Messwerten des aktuellen Clients zu.
+     * </summary>
+     */
+    void setMetrics(SmtpMetrics metrics) {
+        connection.setMetrics(metrics);
+    }
+}
@@ -0,0 +1,80 @@
+package de.rsev.utilities.communication.smtp;
+
+/**
+ * <summary>
+ * Enthält alle Parameter für die Drosselung je Relay (SmtpRelayScheduler).
+ *
+ * Die Zahl gleichzeitiger Sitzungen wird nach AIMD angepasst: jede
+ * erfolgreiche Mail erhöht das Limit um additiveIncrease / Limit
+ * (also etwa um additiveIncrease je voll ausgeschöpftem Limit), eine
+ * temporäre Ablehnung (4xx) oder ein Verbindungsfehler multipliziert
+ * es mit decreaseFactor. Ein Wert von 0 deaktiviert das jeweilige
+ * Kriterium, sofern nicht anders angegeben.
+ * </summary>
+ */
+public class SmtpThrottleOptions {
+
+    /** <summary>Limit gleichzeitiger Sitzungen je Relay beim Start.</summary> */
+    private int initialConcurrency = 2;
+
+    /** <summary>Untergrenze des Limits (mindestens 1).</summary> */
+    private int minConcurrency = 1;
+
+    /** <summary>Obergrenze des Limits.</summary> */
+    private int maxConcurrency = 8;
+
+    /** <summary>Maximale Anzahl Mails pro Sekunde und Relay.</summary> */
+    private double maxMessagesPerSecond = 0;
+
+    /** <summary>Erhöhung des Limits je voll ausgeschöpftem Limit ohne Fehler.</summary> */
+    private double additiveIncrease = 1.0;
+
+    /** <summary>Faktor, mit dem das Limit bei Überlast verkleinert wird (0..1).</summary> */
+    private double decreaseFactor = 0.5;
+
+    /** <summary>Mindestabstand zwischen zwei Verkleinerungen, damit gleichzeitige Fehler nur einmal zählen.</summary> */
+    private long decreaseCooldownMillis = 1_000;
+
+    /** <summary>Pause für das Relay nach 421 oder abgewiesener Verbindung.</summary> */
+    private long pauseMillis = 500;
+
+    /** <summary>Erneute Versuche nach 421 oder abgewiesener Verbindung, bei denen nichts zugestellt wurde.</summary> */
+    private int maxRetries = 3;
+
+    /** <summary>Maximale Anzahl wartender Mails je Relay, danach wird abgelehnt.</summary> */
+    private int maxQueued = 10_000;
+
+    /* -----------------------------
+       Getter / Setter
+       ----------------------------- */
+
+    public int getInitialConcurrency() { return initialConcurrency; }
+    public void setInitialConcurrency(int initialConcurrency) { this.initialConcurrency = initialConcurrency; }
+
+    public int getMinConcurrency() { return minConcurrency; }
+    public void setMinConcurrency(int minConcurrency) { this.minConcurrency = minConcurrency; }
+
+    public int getMaxConcurrency() { return maxConcurrency; }
+    public void setMaxConcurrency(int maxConcurrency) { this.maxConcurrency = maxConcurrency; }
+
+    public double getMaxMessagesPerSecond() { return maxMessagesPerSecond; }
+    public void setMaxMessagesPerSecond(double maxMessagesPerSecond) { this.maxMessagesPerSecond = maxMessagesPerSecond; }
+
+    public double getAdditiveIncrease() { return additiveIncrease; }
+    public void setAdditiveIncrease(double additiveIncrease) { this.additiveIncrease = additiveIncrease; }
+
+    public double getDecreaseFactor() { return decreaseFactor; }
+    public void setDecreaseFactor(double decreaseFactor) { this.decreaseFactor = decreaseFactor; }
+
+    public long getDecreaseCooldownMillis() { return decreaseCooldownMillis; }
+    public void setDecreaseCooldownMillis(long decreaseCooldownMillis) { this.decreaseCooldownMillis = decreaseCooldownMillis; }
+
+    public long getPauseMillis() { return pauseMillis; }
+    public void setPauseMillis(long pauseMillis) { this.pauseMillis = pauseMillis; }
+
+    public int getMaxRetries() { return maxRetries; }
+    public void setMaxRetries(int maxRetries) { this.maxRetries = maxRetries; }
+
+    public int getMaxQueued() { return maxQueued; }
+    public void setMaxQueued(int maxQueued) { this.maxQueued = maxQueued; }
+}
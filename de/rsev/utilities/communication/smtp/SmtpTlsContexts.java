@@ -0,0 +1,310 @@
+package de.rsev.utilities.communication.smtp;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <summary>
+ * Zwischenspeicher für SSLContexts je Relay (Host und Port).
+ *
+ * Jedes Relay erhält einen eigenen, einmalig erzeugten SSLContext mit
+ * Sitzungs-Cache. Da alle Verbindungen zum Relay denselben Context
+ * verwenden, nimmt JSSE frühere TLS-Sitzungen wieder auf (Session-IDs
+ * bei TLS 1.2, Session-Tickets bei TLS 1.3) und spart den
+ * vollständigen Handshake mit Zertifikatsprüfung und Schlüsseltausch.
+ *
+ * Die Konfiguration erfolgt über SmtpTlsOptions, anwendungsweit mit
+ * setDefaultOptions() oder je Relay mit setOptions(). Dauer und Art
+ * der Handshakes werden in SmtpTlsMetrics erfasst.
+ * </summary>
+ */
+public final class SmtpTlsContexts {
+
+    private static final Map<String, Relay> RELAYS = new ConcurrentHashMap<>();
+    private static final Map<String, SmtpTlsOptions> RELAY_OPTIONS = new ConcurrentHashMap<>();
+    private static final SmtpTlsMetrics METRICS = new SmtpTlsMetrics();
+
+    private static volatile SmtpTlsOptions defaultOptions = new SmtpTlsOptions();
+
+    private SmtpTlsContexts() {}
+
+    /* -----------------------------
+       Configuration
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Setzt die Optionen für alle Relays ohne eigene Optionen.
+     * Bereits erzeugte Contexts werden verworfen.
+     * </summary>
+     */
+    public static void setDefaultOptions(SmtpTlsOptions options) {
+        defaultOptions = options != null ? options : new SmtpTlsOptions();
+        RELAYS.clear();
+    }
+
+    /**
+     * <summary>
+     * Setzt die Optionen für ein Relay; null entfernt sie wieder.
+     * </summary>
+     */
+    public static void setOptions(String host, int port, SmtpTlsOptions options) {
+        String key = keyOf(host, port);
+
+        if (options != null)
+            RELAY_OPTIONS.put(key, options);
+        else
+            RELAY_OPTIONS.remove(key);
+
+        RELAYS.remove(key);
+    }
+
+    public static SmtpTlsOptions getOptions(String host, int port) {
+        return RELAY_OPTIONS.getOrDefault(keyOf(host, port), defaultOptions);
+    }
+
+    /**
+     * <summary>
+     * Verwirft alle Contexts und damit alle zwischengespeicherten Sitzungen.
+     * </summary>
+     */
+    public static void clear() {
+        RELAYS.clear();
+    }
+
+    /* -----------------------------
+       Accessor Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Gibt den SSLContext für das Relay zurück und erzeugt ihn beim
+     * ersten Aufruf.
+     * </summary>
+     */
+    public static SSLContext get(String host, int port) throws IOException {
+        return relay(host, port).context;
+    }
+
+    /**
+     * <summary>
+     * Handshake-Statistik über alle Relays.
+     * </summary>
+     */
+    public static SmtpTlsMetrics getMetrics() {
+        return METRICS;
+    }
+
+    /**
+     * <summary>
+     * Handshake-Statistik eines Relays, null wenn noch keine
+     * TLS-Verbindung zu ihm aufgebaut wurde.
+     * </summary>
+     */
+    public static SmtpTlsMetrics getMetrics(String host, int port) {
+        Relay relay = RELAYS.get(keyOf(host, port));
+        return relay != null ? relay.metrics : null;
+    }
+
+    /* -----------------------------
+       Socket / Engine
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Baut eine Verbindung mit implizitem TLS auf (z. B. Port 465)
+     * und führt den Handshake durch (Timeouts in ms, 0 = unbegrenzt).
+     * </summary>
+     */
+    static SSLSocket connect(String host, int port, int connectTimeoutMillis, int readTimeoutMillis) throws IOException {
+        Socket plain = new Socket();
+
+        try {
+            plain.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+
+            // gilt auch für Handshake und Antworten über den TLS-Socket
+            plain.setSoTimeout(readTimeoutMillis);
+            return upgrade(plain, host, port);
+        } catch (IOException | RuntimeException ex) {
+            plain.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * <summary>
+     * Legt TLS über eine bestehende Verbindung (STARTTLS) und führt
+     * den Handshake durch.
+     * </summary>
+     */
+    static SSLSocket upgrade(Socket plain, String host, int port) throws IOException {
+        Relay relay = relay(host, port);
+
+        SSLSocket socket = (SSLSocket) relay.context.getSocketFactory()
+                .createSocket(plain, host, port, true);
+        socket.setUseClientMode(true);
+        socket.setSSLParameters(parameters(socket.getSSLParameters(), relay.options));
+
+        long startMillis = System.currentTimeMillis();
+        long start = System.nanoTime();
+
+        try {
+            socket.startHandshake();
+        } catch (IOException ex) {
+            handshakeFailed(relay);
+            throw ex;
+        }
+
+        handshakeCompleted(relay, socket.getSession(), startMillis, System.nanoTime() - start);
+        return socket;
+    }
+
+    /**
+     * <summary>
+     * Erzeugt eine SSLEngine im Client-Modus für den NIO-Client.
+     * Die Dauer des Handshakes meldet der Aufrufer mit
+     * handshakeCompleted() bzw. handshakeFailed().
+     * </summary>
+     */
+    static SSLEngine createEngine(String host, int port) throws IOException {
+        Relay relay = relay(host, port);
+
+        SSLEngine engine = relay.context.createSSLEngine(host, port);
+        engine.setUseClientMode(true);
+        engine.setSSLParameters(parameters(engine.getSSLParameters(), relay.options));
+        return engine;
+    }
+
+    static void handshakeCompleted(String host, int port, SSLSession session,
+                                   long startMillis, long nanos) {
+        Relay relay = RELAYS.get(keyOf(host, port));
+        if (relay != null)
+            handshakeCompleted(relay, session, startMillis, nanos);
+    }
+
+    static void handshakeFailed(String host, int port) {
+        Relay relay = RELAYS.get(keyOf(host, port));
+        if (relay != null)
+            handshakeFailed(relay);
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Eine wiederaufgenommene Sitzung behält den Erstellungszeitpunkt
+     * der ursprünglichen Sitzung; er liegt dann vor dem Handshake.
+     * </summary>
+     */
+    private static void handshakeCompleted(Relay relay, SSLSession session,
+                                           long startMillis, long nanos) {
+        boolean resumed = session.getCreationTime() < startMillis;
+
+        relay.metrics.recordHandshake(nanos, resumed);
+        METRICS.recordHandshake(nanos, resumed);
+    }
+
+    private static void handshakeFailed(Relay relay) {
+        relay.metrics.recordFailure();
+        METRICS.recordFailure();
+    }
+
+    private static Relay relay(String host, int port) throws IOException {
+        String key = keyOf(host, port);
+
+        Relay relay = RELAYS.get(key);
+        if (relay != null) return relay;
+
+        SmtpTlsOptions options = getOptions(host, port);
+        Relay created = new Relay(options, createContext(options));
+
+        relay = RELAYS.putIfAbsent(key, created);
+        return relay != null ? relay : created;
+    }
+
+    private static SSLContext createContext(SmtpTlsOptions options) throws IOException {
+        try {
+            TrustManager[] trustManagers = null;
+
+            if (options.getTrustStorePath() != null) {
+                String type = options.getTrustStoreType() != null
+                        ? options.getTrustStoreType()
+                        : KeyStore.getDefaultType();
+                char[] password = options.getTrustStorePassword() != null
+                        ? options.getTrustStorePassword().toCharArray()
+                        : null;
+
+                KeyStore trustStore = KeyStore.getInstance(type);
+                try (InputStream in = Files.newInputStream(Path.of(options.getTrustStorePath()))) {
+                    trustStore.load(in, password);
+                }
+
+                TrustManagerFactory factory =
+                        TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+                factory.init(trustStore);
+                trustManagers = factory.getTrustManagers();
+            }
+
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, trustManagers, null);
+
+            SSLSessionContext sessions = context.getClientSessionContext();
+            sessions.setSessionCacheSize(Math.max(0, options.getSessionCacheSize()));
+            sessions.setSessionTimeout(Math.max(0, options.getSessionTimeoutSeconds()));
+
+            return context;
+
+        } catch (GeneralSecurityException ex) {
+            throw new IOException("TLS nicht verfügbar: " + ex.getMessage(), ex);
+        }
+    }
+
+    private static SSLParameters parameters(SSLParameters parameters, SmtpTlsOptions options) {
+        if (options.getProtocols() != null)
+            parameters.setProtocols(options.getProtocols());
+
+        if (options.isVerifyHostname())
+            parameters.setEndpointIdentificationAlgorithm("HTTPS");
+
+        return parameters;
+    }
+
+    private static String keyOf(String host, int port) {
+        return host + ":" + port;
+    }
+
+    /**
+     * <summary>
+     * Context, Optionen und Statistik eines Relays.
+     * </summary>
+     */
+    private static final class Relay {
+
+        final SmtpTlsOptions options;
+        final SSLContext context;
+        final SmtpTlsMetrics metrics = new SmtpTlsMetrics();
+
+        Relay(SmtpTlsOptions options, SSLContext context) {
+            this.options = options;
+            this.context = context;
+        }
+    }
+}
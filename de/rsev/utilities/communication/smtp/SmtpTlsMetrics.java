@@ -0,0 +1,93 @@
+package de.rsev.utilities.communication.smtp;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <summary>
+ * Zählt TLS-Handshakes und ihre Dauer, getrennt nach vollständigen
+ * und wiederaufgenommenen Sitzungen. Alle Zähler sind threadsicher.
+ * </summary>
+ */
+public final class SmtpTlsMetrics {
+
+    private final LongAdder fullHandshakes = new LongAdder();
+    private final LongAdder resumedHandshakes = new LongAdder();
+    private final LongAdder failedHandshakes = new LongAdder();
+    private final LongAdder fullNanos = new LongAdder();
+    private final LongAdder resumedNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    SmtpTlsMetrics() {}
+
+    /* -----------------------------
+       Recording
+       ----------------------------- */
+
+    void recordHandshake(long nanos, boolean resumed) {
+        if (resumed) {
+            resumedHandshakes.increment();
+            resumedNanos.add(nanos);
+        } else {
+            fullHandshakes.increment();
+            fullNanos.add(nanos);
+        }
+
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    void recordFailure() {
+        failedHandshakes.increment();
+    }
+
+    /* -----------------------------
+       Accessor Methods
+       ----------------------------- */
+
+    public long getFullHandshakes() {
+        return fullHandshakes.sum();
+    }
+
+    public long getResumedHandshakes() {
+        return resumedHandshakes.sum();
+    }
+
+    public long getFailedHandshakes() {
+        return failedHandshakes.sum();
+    }
+
+    /**
+     * <summary>
+     * Anteil wiederaufgenommener Sitzungen an allen erfolgreichen Handshakes (0..1).
+     * </summary>
+     */
+    public double getResumptionRate() {
+        long resumed = getResumedHandshakes();
+        long total = resumed + getFullHandshakes();
+        return total == 0 ? 0 : (double) resumed / total;
+    }
+
+    public double getAverageFullMillis() {
+        long count = getFullHandshakes();
+        return count == 0 ? 0 : fullNanos.sum() / 1e6 / count;
+    }
+
+    public double getAverageResumedMillis() {
+        long count = getResumedHandshakes();
+        return count == 0 ? 0 : resumedNanos.sum() / 1e6 / count;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "full=%d (avg %.2f ms), resumed=%d (avg %.2f ms), failed=%d, max=%.2f ms",
+                getFullHandshakes(), getAverageFullMillis(),
+                getResumedHandshakes(), getAverageResumedMillis(),
+                getFailedHandshakes(), getMaxMillis());
+    }
+}
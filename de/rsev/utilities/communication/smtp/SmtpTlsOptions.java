@@ -0,0 +1,67 @@
+package de.rsev.utilities.communication.smtp;
+
+/**
+ * <summary>
+ * Konfiguration der TLS-Verbindungen zu einem Relay
+ * (STARTTLS und implizites TLS).
+ *
+ * Ohne Truststore werden die Standard-Zertifikate der JVM verwendet.
+ * Der Sitzungs-Cache ermöglicht die Wiederaufnahme von TLS-Sitzungen
+ * (Session-IDs bzw. Session-Tickets), sodass Folgeverbindungen
+ * zum selben Relay keinen vollständigen Handshake benötigen.
+ * </summary>
+ */
+public class SmtpTlsOptions {
+
+    /** <summary>Erlaubte Protokolle (z. B. "TLSv1.3", "TLSv1.2"), null = JVM-Standard.</summary> */
+    private String[] protocols;
+
+    /** <summary>Pfad eines eigenen Truststores, null = Standard der JVM.</summary> */
+    private String trustStorePath;
+
+    /** <summary>Passwort des Truststores.</summary> */
+    private String trustStorePassword;
+
+    /** <summary>Typ des Truststores, null = KeyStore.getDefaultType().</summary> */
+    private String trustStoreType;
+
+    /** <summary>Maximale Anzahl zwischengespeicherter TLS-Sitzungen je Relay.</summary> */
+    private int sessionCacheSize = 64;
+
+    /** <summary>Gültigkeit zwischengespeicherter TLS-Sitzungen in Sekunden.</summary> */
+    private int sessionTimeoutSeconds = 24 * 60 * 60;
+
+    /**
+     * <summary>
+     * Prüft, ob das Serverzertifikat zum Hostnamen passt (Standard).
+     * false nur für Relays, deren Zertifikat bewusst nicht auf den
+     * verwendeten Namen ausgestellt ist.
+     * </summary>
+     */
+    private boolean verifyHostname = true;
+
+    /* -----------------------------
+       Getter / Setter
+       ----------------------------- */
+
+    public String[] getProtocols() { return protocols; }
+    public void setProtocols(String... protocols) { this.protocols = protocols; }
+
+    public String getTrustStorePath() { return trustStorePath; }
+    public void setTrustStorePath(String trustStorePath) { this.trustStorePath = trustStorePath; }
+
+    public String getTrustStorePassword() { return trustStorePassword; }
+    public void setTrustStorePassword(String trustStorePassword) { this.trustStorePassword = trustStorePassword; }
+
+    public String getTrustStoreType() { return trustStoreType; }
+    public void setTrustStoreType(String trustStoreType) { this.trustStoreType = trustStoreType; }
+
+    public int getSessionCacheSize() { return sessionCacheSize; }
+    public void setSessionCacheSize(int sessionCacheSize) { this.sessionCacheSize = sessionCacheSize; }
+
+    public int getSessionTimeoutSeconds() { return sessionTimeoutSeconds; }
+    public void setSessionTimeoutSeconds(int sessionTimeoutSeconds) { this.sessionTimeoutSeconds = sessionTimeoutSeconds; }
+
+    public boolean isVerifyHostname() { return verifyHostname; }
+    public void setVerifyHostname(boolean verifyHostname) { this.verifyHostname = verifyHostname; }
+}
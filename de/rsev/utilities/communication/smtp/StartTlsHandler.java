@@ -1,7 +1,6 @@
 package de.rsev.utilities.communication.smtp;
 
 import javax.net.ssl.SSLSocket;
-import javax.net.ssl.SSLSocketFactory;
 import java.io.IOException;
 import java.net.Socket;
 
@@ -57,24 +56,20 @@ public class StartTlsHandler {
      * <summary>
      * Ersetzt den bestehenden Socket durch einen SSLSocket
      * und initialisiert neue Reader/Writer auf der TLS-Verbindung.
+     * Der SSLContext des Relays wird wiederverwendet, sodass
+     * Folgeverbindungen die TLS-Sitzung wieder aufnehmen können.
      * </summary>
      */
     private void upgradeSocket(String host) throws IOException {
 
         Socket plainSocket = connection.socket;
 
-        SSLSocketFactory factory =
-                (SSLSocketFactory) SSLSocketFactory.getDefault();
-
-        SSLSocket sslSocket = (SSLSocket) factory.createSocket(
+        SSLSocket sslSocket = SmtpTlsContexts.upgrade(
                 plainSocket,
                 host,
-                plainSocket.getPort(),
-                true
+                plainSocket.getPort()
         );
 
-        sslSocket.startHandshake();
-
         connection.replaceSocket(sslSocket);
     }
 }
@@ -0,0 +1,415 @@
+package de.rsev.utilities.communication.spool;
+
+import de.rsev.utilities.communication.MailOptions;
+import de.rsev.utilities.communication.smtp.ISmtpClient;
+import de.rsev.utilities.communication.smtp.SmtpRecipientResult;
+import de.rsev.utilities.logging.BaseLogger;
+import de.rsev.utilities.runtime.IRuntimeContext;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <summary>
+ * Persistenter Spool für ausgehende Mails.
+ *
+ * enqueue() schreibt die Mail als Record in ein speicherabgebildetes
+ * Journal und kehrt sofort zurück; Zustell-Threads senden sie im
+ * Hintergrund über den ISmtpClient. Vorübergehende Fehler (4xx,
+ * Verbindungsfehler, volle Warteschlange) werden mit exponentiellem
+ * Backoff wiederholt, dauerhafte Fehler (5xx), ungültige MailOptions
+ * und Mails nach maxAttempts Versuchen landen im Dead-Letter-Journal.
+ * Bei Teilerfolgen werden nur die noch offenen Empfänger erneut versucht.
+ *
+ * Beim Start werden alle offenen Mails aus dem Journal wiederhergestellt.
+ * Die Zustellung erfolgt mindestens einmal: eine Mail, deren Versand
+ * beim Absturz lief, wird nach dem Neustart erneut gesendet.
+ * </summary>
+ */
+public class MailSpool implements Closeable {
+
+    private static final BaseLogger LOGGER = BaseLogger.getLogger("mail-spool");
+
+    private final MailSpoolOptions options;
+    private final ISmtpClient client;
+    private final MailSpoolJournal journal;
+
+    private final Map<Long, SpooledMail> pending = new ConcurrentHashMap<>();
+    private final DelayQueue<Due> queue = new DelayQueue<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean closed;
+
+    /**
+     * <summary>
+     * Öffnet den Spool im Verzeichnis "spool/mail" unterhalb
+     * des Basisverzeichnisses der Runtime.
+     * </summary>
+     */
+    public MailSpool(IRuntimeContext context, ISmtpClient client) throws IOException {
+        this(Paths.get(context.getBaseDirectory(), "spool", "mail"), new MailSpoolOptions(), client);
+    }
+
+    /**
+     * <summary>
+     * Öffnet den Spool, stellt offene Mails wieder her und startet
+     * die Zustell-Threads.
+     * </summary>
+     */
+    public MailSpool(Path directory, MailSpoolOptions options, ISmtpClient client) throws IOException {
+        this.options = options;
+        this.client = client;
+        this.journal = new MailSpoolJournal(directory, options.getSegmentBytes(),
+                options.isSyncOnEnqueue(), this::replay);
+
+        for (SpooledMail mail : pending.values()) {
+            journal.retain(mail.segment);
+            queue.add(new Due(mail, mail.nextAttemptAt));
+        }
+        journal.compact();
+
+        if (!pending.isEmpty())
+            LOGGER.info("Mail-Spool: " + pending.size() + " offene Mails wiederhergestellt");
+
+        for (int i = 0; i < Math.max(1, options.getWorkers()); i++) {
+            Thread worker = new Thread(this::work, "rsev-mail-spool-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /* -----------------------------
+       Enqueue
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Reiht eine Mail zur Zustellung ein. Es findet kein Netzwerkzugriff
+     * statt; die Optionen werden kopiert, spätere Änderungen des
+     * Aufrufers wirken sich nicht aus.
+     * </summary>
+     * @return ID der eingereihten Mail.
+     */
+    public long enqueue(MailOptions opt) {
+        if (opt == null)
+            throw new IllegalArgumentException("MailOptions dürfen nicht null sein");
+
+        if (closed)
+            throw new IllegalStateException("Mail-Spool ist geschlossen");
+
+        SpooledMail mail = new SpooledMail(nextId.incrementAndGet(),
+                System.currentTimeMillis(), MailSpoolCodec.copyOf(opt));
+
+        try {
+            mail.segment = journal.append(MailSpoolCodec.enqueue(mail), true);
+        } catch (IOException ex) {
+            throw new RuntimeException("Mail-Spool IO-Fehler", ex);
+        }
+
+        pending.put(mail.getId(), mail);
+        queue.add(new Due(mail, mail.nextAttemptAt));
+        return mail.getId();
+    }
+
+    /* -----------------------------
+       Delivery
+       ----------------------------- */
+
+    private void work() {
+        while (!closed) {
+            Due due;
+            try {
+                due = queue.take();
+            } catch (InterruptedException ex) {
+                return;
+            }
+
+            if (closed) return;
+
+            try {
+                deliver(due.mail);
+            } catch (IOException ex) {
+                // Journal nicht beschreibbar: Mail bleibt offen und wird beim Neustart wiederholt
+                LOGGER.error("Mail-Spool: Journal IO-Fehler für #" + due.mail.getId(), ex);
+            }
+        }
+    }
+
+    /**
+     * <summary>
+     * Unternimmt einen Zustellversuch und wertet das Ergebnis
+     * je Empfänger aus.
+     * </summary>
+     */
+    private void deliver(SpooledMail mail) throws IOException {
+        MailOptions opt = mail.getOptions();
+
+        List<SmtpRecipientResult> results;
+        try {
+            results = client.sendBatch(List.of(opt));
+        } catch (IllegalArgumentException ex) {
+            // Ungültige MailOptions oder fehlender Anhang: erneuter Versuch ist sinnlos
+            mail.lastError = ex.getMessage();
+            deadLetter(mail, opt.getMailTo());
+            complete(mail);
+            return;
+        } catch (RuntimeException ex) {
+            // z. B. volle Warteschlange des SmtpRelayScheduler: später erneut versuchen
+            mail.attempts++;
+            mail.lastError = ex.getMessage();
+            retryOrGiveUp(mail, opt.getMailTo());
+            return;
+        }
+
+        List<String> retry = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        String retryError = null;
+        String failedError = null;
+
+        for (SmtpRecipientResult result : results) {
+            if (result.isAccepted()) continue;
+
+            if (result.isTransient()) {
+                retry.add(result.getRecipient());
+                if (retryError == null) retryError = result.getCode() + " " + result.getMessage();
+            } else {
+                failed.add(result.getRecipient());
+                if (failedError == null) failedError = result.getCode() + " " + result.getMessage();
+            }
+        }
+
+        mail.attempts++;
+
+        if (!failed.isEmpty()) {
+            mail.lastError = failedError;
+            deadLetter(mail, String.join(",", failed));
+        }
+
+        if (retry.isEmpty()) {
+            if (failed.isEmpty())
+                delivered.incrementAndGet();
+
+            complete(mail);
+            return;
+        }
+
+        mail.lastError = retryError;
+        retryOrGiveUp(mail, String.join(",", retry));
+    }
+
+    /**
+     * <summary>
+     * Plant einen weiteren Versuch an die Empfänger mit Backoff ein
+     * oder gibt sie nach maxAttempts Versuchen auf.
+     * </summary>
+     */
+    private void retryOrGiveUp(SpooledMail mail, String recipients) throws IOException {
+        if (mail.attempts >= options.getMaxAttempts()) {
+            deadLetter(mail, recipients);
+            complete(mail);
+            return;
+        }
+
+        mail.getOptions().setMailTo(recipients);
+        mail.nextAttemptAt = System.currentTimeMillis() + backoff(mail.attempts);
+
+        journal.append(MailSpoolCodec.retry(mail), false);
+        queue.add(new Due(mail, mail.nextAttemptAt));
+    }
+
+    /**
+     * <summary>
+     * Wartezeit vor dem nächsten Versuch: exponentiell wachsend bis
+     * maxBackoffMillis, zufällig auf 50–100 % gestreut, damit nach
+     * einem Ausfall des Relays nicht alle Mails gleichzeitig starten.
+     * </summary>
+     */
+    private long backoff(int attempts) {
+        double delay = options.getInitialBackoffMillis()
+                * Math.pow(options.getBackoffMultiplier(), attempts - 1);
+        long capped = (long) Math.min(delay, options.getMaxBackoffMillis());
+
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    private void deadLetter(SpooledMail mail, String recipients) throws IOException {
+        MailOptions copy = MailSpoolCodec.copyOf(mail.getOptions());
+        copy.setMailTo(recipients);
+
+        SpooledMail dead = new SpooledMail(mail.getId(), mail.getCreatedAt(), copy);
+        dead.attempts = mail.attempts;
+        dead.lastError = mail.lastError;
+
+        journal.appendDeadLetter(MailSpoolCodec.dead(dead));
+        deadLettered.incrementAndGet();
+
+        LOGGER.warn("Mail-Spool: Zustellung an " + recipients + " aufgegeben nach "
+                + mail.attempts + " Versuchen: " + mail.lastError);
+    }
+
+    private void complete(SpooledMail mail) throws IOException {
+        journal.append(MailSpoolCodec.done(mail.getId()), false);
+        pending.remove(mail.getId());
+        journal.release(mail.segment);
+    }
+
+    /* -----------------------------
+       Recovery
+       ----------------------------- */
+
+    private void replay(Long segment, ByteBuffer record) {
+        byte type = record.get();
+
+        switch (type) {
+            case MailSpoolCodec.ENQUEUE -> {
+                SpooledMail mail = MailSpoolCodec.readEnqueue(record);
+                mail.segment = segment;
+                pending.put(mail.getId(), mail);
+                nextId.accumulateAndGet(mail.getId(), Math::max);
+            }
+            case MailSpoolCodec.RETRY -> {
+                SpooledMail mail = pending.get(record.getLong());
+                if (mail == null) return;
+
+                mail.attempts = record.getInt();
+                mail.nextAttemptAt = record.getLong();
+                mail.getOptions().setMailTo(MailSpoolCodec.readString(record));
+                mail.lastError = MailSpoolCodec.readString(record);
+            }
+            case MailSpoolCodec.DONE -> pending.remove(record.getLong());
+            default -> {
+                // Unbekannter Record-Typ einer neueren Version
+            }
+        }
+    }
+
+    /* -----------------------------
+       Inspection
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Gibt die Anzahl der noch nicht abgeschlossenen Mails zurück.
+     * </summary>
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * <summary>
+     * Gibt eine Momentaufnahme der noch offenen Mails zurück.
+     * </summary>
+     */
+    public List<SpooledMail> getPending() {
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * <summary>
+     * Anzahl der seit dem Start vollständig zugestellten Mails.
+     * </summary>
+     */
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    /**
+     * <summary>
+     * Anzahl der seit dem Start aufgegebenen Zustellungen.
+     * </summary>
+     */
+    public long getDeadLetterCount() {
+        return deadLettered.get();
+    }
+
+    /**
+     * <summary>
+     * Liest alle aufgegebenen Mails aus dem Dead-Letter-Journal;
+     * mailTo enthält jeweils die nicht erreichten Empfänger.
+     * </summary>
+     */
+    public List<SpooledMail> readDeadLetters() throws IOException {
+        List<SpooledMail> result = new ArrayList<>();
+
+        journal.readDeadLetters(record -> {
+            if (record.get() == MailSpoolCodec.DEAD)
+                result.add(MailSpoolCodec.readDead(record));
+        });
+
+        return result;
+    }
+
+    /**
+     * <summary>
+     * Beendet die Zustell-Threads und schließt das Journal.
+     * Offene Mails bleiben im Journal und werden beim nächsten
+     * Öffnen wieder aufgenommen.
+     * </summary>
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+
+        for (Thread worker : workers)
+            worker.interrupt();
+
+        for (Thread worker : workers) {
+            try {
+                worker.join(10_000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        journal.close();
+    }
+
+    /* -----------------------------
+       Scheduling
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Eintrag der Warteschlange, fällig zum Zeitpunkt at (Epoch-Millisekunden).
+     * </summary>
+     */
+    private static final class Due implements Delayed {
+
+        final SpooledMail mail;
+        final long at;
+
+        Due(SpooledMail mail, long at) {
+            this.mail = mail;
+            this.at = at;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(at - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(at, ((Due) other).at);
+        }
+    }
+}
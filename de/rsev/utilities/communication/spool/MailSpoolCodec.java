@@ -0,0 +1,321 @@
+package de.rsev.utilities.communication.spool;
+
+import de.rsev.utilities.communication.MailAttachment;
+import de.rsev.utilities.communication.MailOptions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * <summary>
+ * Kodiert die Records des Mail-Spool-Journals.
+ *
+ * Frame:    int    Länge von Typ + Nutzdaten
+ *           int    CRC32 über Typ + Nutzdaten
+ *           byte   Typ
+ *           ...    Nutzdaten
+ *
+ * ENQUEUE:  long id, long createdAt, MailOptions
+ * RETRY:    long id, int attempts, long nextAttemptAt, String mailTo, String lastError
+ * DONE:     long id
+ * DEAD:     long id, long createdAt, int attempts, String lastError, MailOptions
+ *
+ * Strings werden als int Länge + UTF-8 gespeichert (-1 = null),
+ * MailOptions als Anzahl Felder + Felder in fester Reihenfolge
+ * (Port als int, SSL/TLS als byte, sonst String); neue Felder
+ * werden als String angehängt und von älteren Versionen übersprungen.
+ * Anhänge (Feld 13) werden nur als Verweis gespeichert: je Anhang eine
+ * Zeile "Pfad TAB Dateiname TAB MIME-Typ"; die Dateien müssen bis
+ * zur Zustellung erhalten bleiben.
+ * Eine Länge von 0 markiert das Ende der Daten im vorab allokierten
+ * Segment; ein CRC-Fehler einen beim Absturz abgerissenen Record.
+ * Alle Werte sind Big-Endian.
+ * </summary>
+ */
+final class MailSpoolCodec {
+
+    static final byte ENQUEUE = 1;
+    static final byte RETRY = 2;
+    static final byte DONE = 3;
+    static final byte DEAD = 4;
+
+    /** <summary>Länge + CRC vor jedem Record.</summary> */
+    static final int FRAME_HEADER = 8;
+
+    private static final int OPTION_FIELDS = 16;
+
+    private MailSpoolCodec() {}
+
+    /* -----------------------------
+       Encoding Methods
+       ----------------------------- */
+
+    static byte[] enqueue(SpooledMail mail) {
+        Frame frame = new Frame(ENQUEUE);
+        frame.putLong(mail.getId());
+        frame.putLong(mail.getCreatedAt());
+        frame.putOptions(mail.getOptions());
+        return frame.toBytes();
+    }
+
+    static byte[] retry(SpooledMail mail) {
+        Frame frame = new Frame(RETRY);
+        frame.putLong(mail.getId());
+        frame.putInt(mail.attempts);
+        frame.putLong(mail.nextAttemptAt);
+        frame.putString(mail.getOptions().getMailTo());
+        frame.putString(mail.lastError);
+        return frame.toBytes();
+    }
+
+    static byte[] done(long id) {
+        Frame frame = new Frame(DONE);
+        frame.putLong(id);
+        return frame.toBytes();
+    }
+
+    static byte[] dead(SpooledMail mail) {
+        Frame frame = new Frame(DEAD);
+        frame.putLong(mail.getId());
+        frame.putLong(mail.getCreatedAt());
+        frame.putInt(mail.attempts);
+        frame.putString(mail.lastError);
+        frame.putOptions(mail.getOptions());
+        return frame.toBytes();
+    }
+
+    /* -----------------------------
+       Decoding Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Ruft den Consumer für jeden gültigen Record auf; der übergebene
+     * Puffer steht auf dem Typ-Byte und endet mit dem Record.
+     * Liest bis zum Datenende oder zum ersten beschädigten Record.
+     * </summary>
+     */
+    static void readFrames(ByteBuffer buffer, Consumer<ByteBuffer> consumer) {
+        CRC32 crc = new CRC32();
+
+        while (buffer.remaining() >= FRAME_HEADER) {
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+
+            if (length <= 0 || length > buffer.remaining() - FRAME_HEADER)
+                return;
+
+            int checksum = buffer.getInt(start + 4);
+
+            ByteBuffer record = buffer.duplicate();
+            record.position(start + FRAME_HEADER).limit(start + FRAME_HEADER + length);
+
+            crc.reset();
+            crc.update(record.duplicate());
+            if ((int) crc.getValue() != checksum)
+                return;
+
+            consumer.accept(record);
+            buffer.position(start + FRAME_HEADER + length);
+        }
+    }
+
+    static SpooledMail readEnqueue(ByteBuffer record) {
+        long id = record.getLong();
+        long createdAt = record.getLong();
+        return new SpooledMail(id, createdAt, readOptions(record));
+    }
+
+    static SpooledMail readDead(ByteBuffer record) {
+        long id = record.getLong();
+        long createdAt = record.getLong();
+        int attempts = record.getInt();
+        String lastError = readString(record);
+
+        SpooledMail mail = new SpooledMail(id, createdAt, readOptions(record));
+        mail.attempts = attempts;
+        mail.lastError = lastError;
+        return mail;
+    }
+
+    static MailOptions readOptions(ByteBuffer record) {
+        MailOptions opt = new MailOptions();
+        int count = record.getInt();
+
+        for (int i = 0; i < count; i++) {
+            switch (i) {
+                case 0 -> opt.setMailFrom(readString(record));
+                case 1 -> opt.setFromName(readString(record));
+                case 2 -> opt.setMailTo(readString(record));
+                case 3 -> opt.setSubject(readString(record));
+                case 4 -> opt.setMailBody(readString(record));
+                case 5 -> opt.setSmtpHost(readString(record));
+                case 6 -> opt.setSmtpPort(record.getInt());
+                case 7 -> opt.setSmtpUser(readString(record));
+                case 8 -> opt.setSmtpPassword(readString(record));
+                case 9 -> opt.setAuthType(readString(record));
+                case 10 -> opt.setUseSsl(record.get() != 0);
+                case 11 -> opt.setUseTls(record.get() != 0);
+                case 12 -> opt.setMailingMethod(readString(record));
+                case 13 -> opt.setAttachments(readAttachments(readString(record)));
+                case 14 -> opt.setConnectTimeoutMillis(Integer.parseInt(readString(record)));
+                case 15 -> opt.setReadTimeoutMillis(Integer.parseInt(readString(record)));
+                default -> readString(record); // neuere Felder werden als String angehängt
+            }
+        }
+
+        return opt;
+    }
+
+    private static List<MailAttachment> readAttachments(String value) {
+        List<MailAttachment> attachments = new ArrayList<>();
+        if (value == null || value.isEmpty()) return attachments;
+
+        for (String line : value.split("\n")) {
+            String[] fields = line.split("\t", -1);
+
+            MailAttachment attachment = new MailAttachment(fields[0]);
+            if (fields.length > 1 && !fields[1].isEmpty()) attachment.setFileName(fields[1]);
+            if (fields.length > 2 && !fields[2].isEmpty()) attachment.setContentType(fields[2]);
+            attachments.add(attachment);
+        }
+
+        return attachments;
+    }
+
+    static String readString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) return null;
+
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * <summary>
+     * Erstellt eine unabhängige Kopie der MailOptions, damit spätere
+     * Änderungen des Aufrufers die eingereihte Mail nicht verändern.
+     * </summary>
+     */
+    static MailOptions copyOf(MailOptions opt) {
+        Frame frame = new Frame(ENQUEUE);
+        frame.putOptions(opt);
+
+        byte[] bytes = frame.toBytes();
+        return readOptions(ByteBuffer.wrap(bytes, FRAME_HEADER + 1, bytes.length - FRAME_HEADER - 1));
+    }
+
+    /* -----------------------------
+       Frame Builder
+       ----------------------------- */
+
+    private static final class Frame {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        Frame(byte type) {
+            write(() -> {
+                out.writeLong(0); // Platzhalter für Länge + CRC
+                out.writeByte(type);
+            });
+        }
+
+        void putLong(long value) {
+            write(() -> out.writeLong(value));
+        }
+
+        void putInt(int value) {
+            write(() -> out.writeInt(value));
+        }
+
+        void putBoolean(boolean value) {
+            write(() -> out.writeBoolean(value));
+        }
+
+        void putString(String value) {
+            write(() -> {
+                if (value == null) {
+                    out.writeInt(-1);
+                    return;
+                }
+
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            });
+        }
+
+        void putOptions(MailOptions opt) {
+            putInt(OPTION_FIELDS);
+            putString(opt.getMailFrom());
+            putString(opt.getFromName());
+            putString(opt.getMailTo());
+            putString(opt.getSubject());
+            putString(opt.getMailBody());
+            putString(opt.getSmtpHost());
+            putInt(opt.getSmtpPort());
+            putString(opt.getSmtpUser());
+            putString(opt.getSmtpPassword());
+            putString(opt.getAuthType());
+            putBoolean(opt.isUseSsl());
+            putBoolean(opt.isUseTls());
+            putString(opt.getMailingMethod());
+            putString(attachments(opt.getAttachments()));
+            putString(Integer.toString(opt.getConnectTimeoutMillis()));
+            putString(Integer.toString(opt.getReadTimeoutMillis()));
+        }
+
+        private static String attachments(List<MailAttachment> attachments) {
+            if (attachments == null || attachments.isEmpty()) return null;
+
+            StringBuilder sb = new StringBuilder();
+            for (MailAttachment attachment : attachments) {
+                if (sb.length() > 0) sb.append('\n');
+                sb.append(field(attachment.getPath())).append('\t')
+                        .append(field(attachment.getFileName())).append('\t')
+                        .append(field(attachment.getContentType()));
+            }
+            return sb.toString();
+        }
+
+        private static String field(String value) {
+            return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ');
+        }
+
+        byte[] toBytes() {
+            byte[] frame = bytes.toByteArray();
+            int length = frame.length - FRAME_HEADER;
+
+            CRC32 crc = new CRC32();
+            crc.update(frame, FRAME_HEADER, length);
+
+            ByteBuffer.wrap(frame)
+                    .putInt(length)
+                    .putInt((int) crc.getValue());
+            return frame;
+        }
+
+        private void write(IoAction action) {
+            try {
+                action.run();
+            } catch (IOException ex) {
+                // ByteArrayOutputStream wirft keine IOException
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+}
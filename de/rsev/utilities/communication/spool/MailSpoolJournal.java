@@ -0,0 +1,285 @@
+package de.rsev.utilities.communication.spool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * <summary>
+ * Append-only Journal des Mail-Spools aus vorab allokierten,
+ * speicherabgebildeten Segmenten ("mail-NNNNNNNNNNNNNNNN.spool").
+ *
+ * Ein append() ist ein Speicher-Kopiervorgang ohne Systemaufruf; die
+ * Daten liegen sofort im Page-Cache und überleben einen Absturz der
+ * JVM. Nach dem Neustart werden alle Segmente gelesen und ein neues
+ * Segment begonnen, sodass ein abgerissener Record am Ende eines
+ * alten Segments nie überschrieben wird.
+ *
+ * Jedes Segment zählt die in ihm eingereihten, noch offenen Mails.
+ * Segmente werden vom ältesten her gelöscht, sobald dieser Zähler
+ * 0 ist; so bleiben RETRY- und DONE-Records immer mindestens so
+ * lange erhalten wie der zugehörige ENQUEUE-Record.
+ *
+ * Die Dateien enthalten SMTP-Zugangsdaten und werden, sofern das
+ * Dateisystem es unterstützt, nur für den Eigentümer lesbar angelegt.
+ * </summary>
+ */
+final class MailSpoolJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "mail-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String DEAD_LETTER_FILE = "dead-letter.spool";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean syncOnAppend;
+
+    /** <summary>Sequenznummer -> Anzahl offener Mails, älteste zuerst.</summary> */
+    private final TreeMap<Long, int[]> segments = new TreeMap<>();
+
+    private long activeSeq;
+    private FileChannel activeChannel;
+    private MappedByteBuffer buffer;
+    private FileChannel deadLetters;
+
+    /**
+     * <summary>
+     * Öffnet das Journal und übergibt alle gültigen Records der
+     * vorhandenen Segmente (Sequenznummer, Record ab Typ-Byte)
+     * an den Replay-Consumer.
+     * </summary>
+     */
+    MailSpoolJournal(Path directory, long segmentBytes, boolean syncOnAppend,
+                     BiConsumer<Long, ByteBuffer> replay) throws IOException {
+
+        if (segmentBytes <= MailSpoolCodec.FRAME_HEADER || segmentBytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Ungültige Segmentgröße: " + segmentBytes);
+
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.syncOnAppend = syncOnAppend;
+
+        Files.createDirectories(directory);
+        restrict(directory, "rwx------");
+
+        long lastSeq = 0;
+        for (Path segment : listSegments()) {
+            long seq = seqOf(segment);
+            segments.put(seq, new int[1]);
+            lastSeq = seq;
+
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                MailSpoolCodec.readFrames(data, record -> replay.accept(seq, record));
+            }
+        }
+
+        openSegment(lastSeq + 1, segmentBytes);
+    }
+
+    /* -----------------------------
+       Append Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Hängt einen Record an. Mit retain wird die Mail dem Segment
+     * zugerechnet, bis release() aufgerufen wird.
+     * </summary>
+     * @return Sequenznummer des Segments, das den Record enthält.
+     */
+    synchronized long append(byte[] frame, boolean retain) throws IOException {
+        if (buffer == null)
+            throw new IOException("Mail-Spool-Journal ist geschlossen");
+
+        if (frame.length > buffer.remaining()) {
+            buffer.force();
+            openSegment(activeSeq + 1, Math.max(frame.length, segmentBytes));
+        }
+
+        buffer.put(frame);
+
+        if (syncOnAppend)
+            buffer.force();
+
+        if (retain)
+            segments.get(activeSeq)[0]++;
+
+        return activeSeq;
+    }
+
+    /**
+     * <summary>
+     * Rechnet eine beim Replay gefundene offene Mail ihrem Segment zu.
+     * </summary>
+     */
+    synchronized void retain(long seq) {
+        int[] live = segments.get(seq);
+        if (live != null) live[0]++;
+    }
+
+    /**
+     * <summary>
+     * Gibt eine abgeschlossene Mail frei und löscht danach alle
+     * vollständig abgearbeiteten Segmente vom ältesten her.
+     * </summary>
+     */
+    synchronized void release(long seq) {
+        int[] live = segments.get(seq);
+        if (live != null && live[0] > 0) live[0]--;
+
+        compact();
+    }
+
+    /**
+     * <summary>
+     * Löscht abgearbeitete Segmente, beginnend beim ältesten.
+     * Das aktive Segment bleibt immer erhalten.
+     * </summary>
+     */
+    synchronized void compact() {
+        while (!segments.isEmpty()) {
+            Map.Entry<Long, int[]> oldest = segments.firstEntry();
+
+            if (oldest.getKey() == activeSeq || oldest.getValue()[0] > 0)
+                return;
+
+            try {
+                Files.deleteIfExists(segmentPath(oldest.getKey()));
+            } catch (IOException ex) {
+                return;
+            }
+
+            segments.pollFirstEntry();
+        }
+    }
+
+    /**
+     * <summary>
+     * Schreibt einen Record in das Dead-Letter-Journal und
+     * erzwingt ihn sofort auf den Datenträger.
+     * </summary>
+     */
+    synchronized void appendDeadLetter(byte[] frame) throws IOException {
+        if (deadLetters == null) {
+            Path path = directory.resolve(DEAD_LETTER_FILE);
+            deadLetters = FileChannel.open(path,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            restrict(path, "rw-------");
+        }
+
+        ByteBuffer src = ByteBuffer.wrap(frame);
+        while (src.hasRemaining())
+            deadLetters.write(src);
+
+        deadLetters.force(false);
+    }
+
+    /**
+     * <summary>
+     * Liest alle Records des Dead-Letter-Journals.
+     * </summary>
+     */
+    void readDeadLetters(Consumer<ByteBuffer> consumer) throws IOException {
+        Path path = directory.resolve(DEAD_LETTER_FILE);
+        if (!Files.exists(path)) return;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            MailSpoolCodec.readFrames(data, consumer);
+        }
+    }
+
+    /**
+     * <summary>
+     * Gibt die Anzahl der vorhandenen Journal-Segmente zurück.
+     * </summary>
+     */
+    synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+
+        if (activeChannel != null) {
+            activeChannel.close();
+            activeChannel = null;
+        }
+
+        if (deadLetters != null) {
+            deadLetters.close();
+            deadLetters = null;
+        }
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private void openSegment(long seq, long size) throws IOException {
+        if (activeChannel != null)
+            activeChannel.close();
+
+        Path path = segmentPath(seq);
+
+        activeChannel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        restrict(path, "rw-------");
+
+        buffer = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        activeSeq = seq;
+        segments.put(seq, new int[1]);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> result = new ArrayList<>();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> p.getFileName().toString().matches("mail-\\d+\\.spool"))
+                    .forEach(result::add);
+        }
+
+        result.sort((a, b) -> Long.compare(seqOf(a), seqOf(b)));
+        return result;
+    }
+
+    private Path segmentPath(long seq) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, seq, SEGMENT_SUFFIX));
+    }
+
+    private static long seqOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static void restrict(Path path, String permissions) {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString(permissions));
+        } catch (UnsupportedOperationException | IOException ignored) {
+            // Dateisystem ohne POSIX-Rechte
+        }
+    }
+}
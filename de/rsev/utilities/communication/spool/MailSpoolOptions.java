@@ -0,0 +1,55 @@
+package de.rsev.utilities.communication.spool;
+
+/**
+ * <summary>
+ * Enthält alle Parameter für den persistenten Mail-Spool.
+ * </summary>
+ */
+public class MailSpoolOptions {
+
+    /** <summary>Größe eines Journal-Segments in Bytes.</summary> */
+    private long segmentBytes = 4L * 1024 * 1024;
+
+    /** <summary>Anzahl der Zustell-Threads.</summary> */
+    private int workers = 2;
+
+    /** <summary>Maximale Anzahl Zustellversuche, danach landet die Mail im Dead-Letter-Journal.</summary> */
+    private int maxAttempts = 10;
+
+    /** <summary>Wartezeit vor dem ersten Wiederholungsversuch.</summary> */
+    private long initialBackoffMillis = 30_000;
+
+    /** <summary>Obergrenze der Wartezeit zwischen zwei Versuchen.</summary> */
+    private long maxBackoffMillis = 3_600_000;
+
+    /** <summary>Faktor, um den die Wartezeit pro Versuch wächst.</summary> */
+    private double backoffMultiplier = 2.0;
+
+    /** <summary>Schreibt jede eingereihte Mail sofort per force() auf den Datenträger.</summary> */
+    private boolean syncOnEnqueue = false;
+
+    /* -----------------------------
+       Getter / Setter
+       ----------------------------- */
+
+    public long getSegmentBytes() { return segmentBytes; }
+    public void setSegmentBytes(long segmentBytes) { this.segmentBytes = segmentBytes; }
+
+    public int getWorkers() { return workers; }
+    public void setWorkers(int workers) { this.workers = workers; }
+
+    public int getMaxAttempts() { return maxAttempts; }
+    public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+
+    public long getInitialBackoffMillis() { return initialBackoffMillis; }
+    public void setInitialBackoffMillis(long initialBackoffMillis) { this.initialBackoffMillis = initialBackoffMillis; }
+
+    public long getMaxBackoffMillis() { return maxBackoffMillis; }
+    public void setMaxBackoffMillis(long maxBackoffMillis) { this.maxBackoffMillis = maxBackoffMillis; }
+
+    public double getBackoffMultiplier() { return backoffMultiplier; }
+    public void setBackoffMultiplier(double backoffMultiplier) { this.backoffMultiplier = backoffMultiplier; }
+
+    public boolean isSyncOnEnqueue() { return syncOnEnqueue; }
+    public void setSyncOnEnqueue(boolean syncOnEnqueue) { this.syncOnEnqueue = syncOnEnqueue; }
+}
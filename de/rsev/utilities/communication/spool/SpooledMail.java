@@ -0,0 +1,66 @@
+package de.rsev.utilities.communication.spool;
+
+import de.rsev.utilities.communication.MailOptions;
+
+/**
+ * <summary>
+ * Eine im Spool liegende Mail mit ihrem Zustellstatus.
+ *
+ * mailTo der Optionen enthält nur die noch offenen Empfänger;
+ * bereits angenommene Empfänger werden bei Teilerfolgen entfernt.
+ * </summary>
+ */
+public final class SpooledMail {
+
+    private final long id;
+    private final long createdAt;
+    private final MailOptions options;
+
+    int attempts;
+    long nextAttemptAt;
+    String lastError;
+
+    /** <summary>Journal-Segment, in dem die Mail eingereiht wurde.</summary> */
+    long segment;
+
+    SpooledMail(long id, long createdAt, MailOptions options) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.options = options;
+        this.nextAttemptAt = createdAt;
+    }
+
+    /* -----------------------------
+       Getter
+       ----------------------------- */
+
+    public long getId() {
+        return id;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public MailOptions getOptions() {
+        return options;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public long getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + id + " " + options.getMailTo() + " (Versuche: " + attempts
+                + (lastError != null ? ", " + lastError : "") + ")";
+    }
+}
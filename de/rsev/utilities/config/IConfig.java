@@ -1,6 +1,9 @@
 package de.rsev.utilities.config;
 
+import de.rsev.utilities.runtime.RuntimeExecutors;
+
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * <summary>
@@ -36,20 +39,38 @@ public interface IConfig {
 
     /**
      * <summary>
-     * Lädt die Konfiguration asynchron.
+     * Lädt die Konfiguration asynchron (RuntimeExecutors.get()).
      * </summary>
      */
     default CompletableFuture<Void> loadAsync() {
-        return CompletableFuture.runAsync(this::load);
+        return loadAsync(RuntimeExecutors.get());
+    }
+
+    /**
+     * <summary>
+     * Lädt die Konfiguration asynchron auf dem angegebenen Executor.
+     * </summary>
+     */
+    default CompletableFuture<Void> loadAsync(Executor executor) {
+        return CompletableFuture.runAsync(this::load, executor);
     }
 
     /**
      * <summary>
-     * Speichert die Konfiguration asynchron.
+     * Speichert die Konfiguration asynchron (RuntimeExecutors.get()).
      * </summary>
      */
     default CompletableFuture<Void> saveAsync(String path) {
-        return CompletableFuture.runAsync(() -> save(path));
+        return saveAsync(path, RuntimeExecutors.get());
+    }
+
+    /**
+     * <summary>
+     * Speichert die Konfiguration asynchron auf dem angegebenen Executor.
+     * </summary>
+     */
+    default CompletableFuture<Void> saveAsync(String path, Executor executor) {
+        return CompletableFuture.runAsync(() -> save(path), executor);
     }
 
     /* =========================
@@ -65,11 +86,20 @@ public interface IConfig {
 
     /**
      * <summary>
-     * Liest einen Wert asynchron aus der Konfiguration.
+     * Liest einen Wert asynchron aus der Konfiguration (RuntimeExecutors.get()).
      * </summary>
      */
     default <T> CompletableFuture<T> getAsync(String key, Class<T> type) {
-        return CompletableFuture.supplyAsync(() -> get(key, type));
+        return getAsync(key, type, RuntimeExecutors.get());
+    }
+
+    /**
+     * <summary>
+     * Liest einen Wert asynchron auf dem angegebenen Executor.
+     * </summary>
+     */
+    default <T> CompletableFuture<T> getAsync(String key, Class<T> type, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> get(key, type), executor);
     }
     
 }
@@ -0,0 +1,239 @@
+package de.rsev.utilities.logging;
+
+import de.rsev.utilities.logging.BaseLogger.LogColor;
+import de.rsev.utilities.logging.BaseLogger.LogLevel;
+import de.rsev.utilities.logging.BaseLogger.OverflowPolicy;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <summary>
+ * Hintergrund-Writer für den asynchronen Logging-Modus.
+ * Aufrufer veröffentlichen Ereignisse in einen LogRingBuffer,
+ * ein einzelner Writer-Thread leert den Puffer und schreibt
+ * die Ereignisse gebündelt (ein Commit pro Batch).
+ *
+ * Für zusätzliche Sinks (ILogSink) wird je eine eigene Instanz
+ * verwendet; diese schreibt ohne WRITE_LOCK direkt in den Sink
+ * und ruft nach jedem Batch dessen flush() auf.
+ * </summary>
+ */
+final class AsyncLogWriter implements Runnable {
+
+    private static final int MAX_BATCH = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final int FULL_SPINS = 64;
+
+    private final LogRingBuffer buffer;
+    private final OverflowPolicy policy;
+    private final Thread thread;
+    private final ILogSink sink;
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    AsyncLogWriter(int capacity, OverflowPolicy policy) {
+        this(null, capacity, policy);
+    }
+
+    /**
+     * <summary>
+     * Erstellt einen Writer für einen einzelnen Sink.
+     * </summary>
+     */
+    AsyncLogWriter(ILogSink sink, int capacity, OverflowPolicy policy) {
+        this.sink = sink;
+        this.buffer = new LogRingBuffer(capacity);
+        this.policy = policy != null ? policy : OverflowPolicy.BLOCK;
+        this.thread = new Thread(this,
+                sink != null ? "rsev-log-sink-" + sink.getName() : "rsev-log-writer");
+        this.thread.setDaemon(true);
+    }
+
+    /* -----------------------------
+       Lifecycle Methods
+       ----------------------------- */
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * <summary>
+     * Beendet den Writer geordnet. Alle bereits veröffentlichten
+     * Ereignisse werden vor dem Beenden noch geschrieben.
+     * </summary>
+     */
+    void shutdown(long timeoutMillis) {
+        running = false;
+        LockSupport.unpark(thread);
+
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /* -----------------------------
+       Producer Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Veröffentlicht ein Ereignis im Ringpuffer.
+     * Verhalten bei vollem Puffer richtet sich nach der OverflowPolicy.
+     * Vom Sink gefilterte Level werden nicht eingereiht.
+     * </summary>
+     */
+    void publish(long timestamp, LogLevel level, LogColor color,
+                 String loggerName, long threadId, String[] fields, String message) {
+        if (sink != null && !sink.isEnabled(level)) return;
+
+        long pos = claim();
+        if (pos < 0) return;
+
+        buffer.get(pos).set(timestamp, level, color, loggerName, threadId, fields, message);
+        buffer.publish(pos);
+
+        if (idle)
+            LockSupport.unpark(thread);
+    }
+
+    private long claim() {
+        for (int attempt = 0; ; attempt++) {
+            long pos = buffer.tryClaim();
+            if (pos >= 0) return pos;
+
+            switch (policy) {
+                case DROP_NEWEST -> {
+                    dropped.incrementAndGet();
+                    return -1;
+                }
+                case DROP_OLDEST -> {
+                    long oldest = buffer.tryConsume();
+                    if (oldest >= 0) {
+                        buffer.release(oldest);
+                        dropped.incrementAndGet();
+                    }
+                }
+                default -> {
+                    if (!running) {
+                        dropped.incrementAndGet();
+                        return -1;
+                    }
+                    LockSupport.unpark(thread);
+                    if (attempt < FULL_SPINS)
+                        Thread.onSpinWait();
+                    else
+                        LockSupport.parkNanos(FULL_PARK_NANOS);
+                }
+            }
+        }
+    }
+
+    /* -----------------------------
+       Consumer Loop
+       ----------------------------- */
+
+    @Override
+    public void run() {
+        for (;;) {
+            if (drainBatch() > 0)
+                continue;
+
+            if (!running)
+                break;
+
+            idle = true;
+            if (buffer.isEmpty())
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            idle = false;
+        }
+    }
+
+    private int drainBatch() {
+        if (sink != null)
+            return drainToSink();
+
+        int count = 0;
+        long seq = 0;
+        boolean urgent = false;
+
+        synchronized (BaseLogger.WRITE_LOCK) {
+            while (count < MAX_BATCH) {
+                long pos = buffer.tryConsume();
+                if (pos < 0) break;
+
+                try {
+                    LogEvent event = buffer.get(pos);
+                    urgent |= event.level.severity() >= LogLevel.ERROR.severity();
+                    seq = BaseLogger.write(event);
+                } finally {
+                    buffer.release(pos);
+                }
+                count++;
+            }
+
+            if (count == 0)
+                seq = BaseLogger.appendedSeq();
+        }
+
+        // Ein Commit pro Batch; im Leerlauf nur fällige Intervall-fsyncs
+        BaseLogger.commit(seq, urgent);
+        return count;
+    }
+
+    private int drainToSink() {
+        int count = 0;
+
+        while (count < MAX_BATCH) {
+            long pos = buffer.tryConsume();
+            if (pos < 0) break;
+
+            try {
+                sink.write(buffer.get(pos));
+            } catch (IOException | RuntimeException ignored) {
+                // Ein fehlerhafter Sink darf den Writer-Thread nicht beenden
+            } finally {
+                buffer.release(pos);
+            }
+            count++;
+        }
+
+        if (count > 0) {
+            try {
+                sink.flush();
+            } catch (IOException | RuntimeException ignored) {}
+        }
+
+        return count;
+    }
+
+    /* -----------------------------
+       Accessor Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Gibt die Anzahl verworfener Ereignisse zurück.
+     * </summary>
+     */
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * <summary>
+     * Gibt den Sink dieses Writers zurück, null für latest.log.
+     * </summary>
+     */
+    ILogSink getSink() {
+        return sink;
+    }
+}
@@ -0,0 +1,93 @@
+package de.rsev.utilities.logging;
+
+import de.rsev.utilities.logging.BaseLogger.LogLevel;
+
+import java.io.IOException;
+
+/**
+ * <summary>
+ * Basisklasse für Log-Sinks mit eigenem Level-Filter und optionalem
+ * Formatter. Ohne Formatter schreiben die Sinks das Zeilenformat
+ * der Log-Datei.
+ * </summary>
+ */
+public abstract class BaseLogSink implements ILogSink {
+
+    private final String name;
+
+    /** <summary>Mindest-Schweregrad, als int für einen einzelnen Vergleich.</summary> */
+    private volatile int threshold = LogLevel.DEBUG.severity();
+
+    private volatile ILogEventFormatter formatter;
+
+    /* Puffer für formatLine(), nur vom Writer-Thread verwendet */
+    private final StringBuilder text = new StringBuilder(256);
+    private byte[] bytes = new byte[1024];
+
+    protected BaseLogSink(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * <summary>
+     * Setzt den Mindest-Level dieses Sinks.
+     * </summary>
+     */
+    public void setMinLevel(LogLevel level) {
+        this.threshold = (level != null ? level : LogLevel.DEBUG).severity();
+    }
+
+    @Override
+    public boolean isEnabled(LogLevel level) {
+        return level.severity() >= threshold;
+    }
+
+    /**
+     * <summary>
+     * Setzt den Formatter dieses Sinks; null stellt das eingebaute Format her.
+     * </summary>
+     */
+    public void setFormatter(ILogEventFormatter formatter) {
+        this.formatter = formatter;
+    }
+
+    @Override
+    public ILogEventFormatter getFormatter() {
+        return formatter;
+    }
+
+    /**
+     * <summary>
+     * Formatiert das Ereignis mit dem Formatter als UTF-8-Zeile mit
+     * abschließendem '\n' in einen wiederverwendeten Puffer (lineBytes()).
+     * Nur vom Writer-Thread aufzurufen.
+     * </summary>
+     * @return Länge der Zeile in Bytes.
+     */
+    protected final int formatLine(ILogEventFormatter formatter, LogEvent event) {
+        text.setLength(0);
+        formatter.format(event, text);
+        text.append('\n');
+
+        String line = text.toString();
+        if (bytes.length < line.length() * 3)
+            bytes = new byte[line.length() * 3];
+
+        return LogFormatter.encodeUtf8(line, bytes, 0);
+    }
+
+    protected final byte[] lineBytes() {
+        return bytes;
+    }
+
+    @Override
+    public void flush() throws IOException {}
+
+    @Override
+    public void close() throws IOException {}
+}
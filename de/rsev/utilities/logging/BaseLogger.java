@@ -1,21 +1,34 @@
 package de.rsev.utilities.logging;
 
-import java.io.BufferedWriter;
+import de.rsev.utilities.runtime.UnexpectedExitHandler;
+
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <summary>
  * Zentrales, systemnahes Logging-System.
  * Unterstützt farbige Konsolenausgabe, Log-Level,
  * Log-Rotation und OS-abhängige Log-Verzeichnisse.
+ * Weitere Ausgabeziele werden über addSink() angebunden.
  * </summary>
  */
 public class BaseLogger implements ILogger {
 
-    private static BufferedWriter logWriter;
+    private static ILogFileWriter logWriter;
     private static Path logDirectory;
     private static Path logFilePath;
 
@@ -23,8 +36,79 @@ public class BaseLogger implements ILogger {
     private static final String[] LOG_LEVEL_NAMES =
             { "INFO", "WARNING", "ERROR", "CRITICAL", "DEBUG" };
 
+    private static final DateTimeFormatter ARCHIVE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd-HH-mm-ss");
+
     private static boolean closed = false;
 
+    /** <summary>Sperre für alle Schreibzugriffe auf Konsole und Log-Datei.</summary> */
+    static final Object WRITE_LOCK = new Object();
+
+    /** <summary>Hintergrund-Writer im asynchronen Modus, sonst null.</summary> */
+    private static volatile AsyncLogWriter asyncWriter;
+
+    /** <summary>Globaler Mindest-Schweregrad, als int für einen einzelnen Vergleich.</summary> */
+    private static volatile int globalThreshold = LogLevel.DEBUG.severity();
+
+    /** <summary>Registry benannter Logger-Instanzen.</summary> */
+    private static final Map<String, BaseLogger> LOGGERS = new ConcurrentHashMap<>();
+
+    /** <summary>Aktive Rotations-Policy, null = Rotation nur bei init()/close().</summary> */
+    private static volatile LogRotationPolicy rotationPolicy;
+
+    /** <summary>Hintergrund-Komprimierung und Bereinigung archivierter Segmente.</summary> */
+    private static LogArchiver archiver;
+
+    /** <summary>Segmentgröße im Memory-Mapped-Modus, 0 = FileChannel-Writer.</summary> */
+    private static long mappedSegmentBytes;
+    private static long mappedForceIntervalMillis;
+    private static long mappedForceBytes;
+
+    /** <summary>Format der Log-Datei; die Konsole bleibt immer Text.</summary> */
+    private static volatile LogFormat fileFormat = LogFormat.TEXT;
+
+    /** <summary>Gewählter Kompromiss zwischen Latenz und Dauerhaftigkeit.</summary> */
+    private static volatile LogDurability durability = LogDurability.FLUSH_BATCH;
+    private static volatile long fsyncIntervalMillis = 1000;
+
+    /** <summary>Serialisiert Group-Commits; wird nie innerhalb von WRITE_LOCK angefordert.</summary> */
+    private static final Object COMMIT_LOCK = new Object();
+
+    /** <summary>Sequenz der zuletzt angehängten Zeile (unter WRITE_LOCK).</summary> */
+    private static long appendedSeq;
+
+    /** <summary>Höchste geflushte bzw. per fsync gesicherte Sequenz (unter COMMIT_LOCK).</summary> */
+    private static long flushedSeq;
+    private static long syncedSeq;
+    private static long lastSyncMillis = System.currentTimeMillis();
+
+    /** <summary>Writer der registrierten Sinks (Copy-on-Write).</summary> */
+    private static volatile AsyncLogWriter[] sinkWriters = new AsyncLogWriter[0];
+
+    /** <summary>Eingebaute Konsolenausgabe unter WRITE_LOCK.</summary> */
+    private static volatile boolean consoleEnabled = true;
+
+    /** <summary>ANSI-Farben nur, wenn stdout ein Terminal ist.</summary> */
+    private static final boolean CONSOLE_IS_TERMINAL = System.console() != null;
+
+    /** <summary>Kodierung von stdout; die Zeilen liegen intern als UTF-8 vor.</summary> */
+    private static final Charset CONSOLE_CHARSET = detectConsoleCharset();
+
+    /** <summary>Ringpuffer der letzten Ereignisse für Absturz-Diagnosen, null = deaktiviert.</summary> */
+    private static volatile LogCrashRing crashRing;
+    private static final AtomicLong lastCrashDump = new AtomicLong();
+
+    /** <summary>Flut-Unterdrückung, null = deaktiviert.</summary> */
+    private static volatile LogFloodGuard floodGuard;
+
+    private static String lastArchiveStamp;
+    private static int archiveCounter;
+
+    private static final int DEFAULT_ASYNC_CAPACITY = 8192;
+    private static final long ASYNC_SHUTDOWN_TIMEOUT_MS = 5000;
+    private static final int DEFAULT_SINK_CAPACITY = 4096;
+    private static final long CRASH_DUMP_MIN_INTERVAL_MS = 10_000;
+
     /* =====================================================
        Enums
        ===================================================== */
@@ -36,21 +120,149 @@ public class BaseLogger implements ILogger {
     }
 
     public enum LogLevel {
-        INFO(0),
-        WARNING(1),
-        ERROR(2),
-        CRITICAL(3),
-        DEBUG(4);
+        INFO(0, 1),
+        WARNING(1, 2),
+        ERROR(2, 3),
+        CRITICAL(3, 4),
+        DEBUG(4, 0);
 
         private final int level;
+        private final int severity;
 
-        LogLevel(int level) {
+        LogLevel(int level, int severity) {
             this.level = level;
+            this.severity = severity;
         }
 
         public int value() {
             return level;
         }
+
+        /**
+         * <summary>
+         * Schweregrad für Schwellwert-Vergleiche (DEBUG &lt; INFO &lt; ... &lt; CRITICAL).
+         * </summary>
+         */
+        public int severity() {
+            return severity;
+        }
+    }
+
+    /**
+     * <summary>
+     * Verhalten des asynchronen Modus, wenn der Ringpuffer voll ist.
+     * BLOCK wartet auf freien Platz, DROP_OLDEST verwirft das älteste
+     * und DROP_NEWEST das aktuelle Ereignis.
+     * </summary>
+     */
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP_OLDEST,
+        DROP_NEWEST
+    }
+
+    /**
+     * <summary>
+     * Dauerhaftigkeits-Modi für die Log-Datei.
+     * NONE schreibt nur bei vollem Puffer, FLUSH_BATCH übergibt jede
+     * Gruppe an das Betriebssystem, FSYNC_INTERVAL erzwingt zusätzlich
+     * periodisch fsync, FSYNC_ON_ERROR bei ERROR/CRITICAL.
+     * Gleichzeitige Schreiber werden zu einem Group-Commit gebündelt.
+     * </summary>
+     */
+    public enum LogDurability {
+        NONE,
+        FLUSH_BATCH,
+        FSYNC_INTERVAL,
+        FSYNC_ON_ERROR
+    }
+
+    /**
+     * <summary>
+     * Format der Log-Datei. TEXT entspricht der Konsolenzeile,
+     * BINARY schreibt kompakte Records für den LogReader.
+     * </summary>
+     */
+    public enum LogFormat {
+        TEXT,
+        BINARY
+    }
+
+    /* =====================================================
+       Instance / Level Configuration
+       ===================================================== */
+
+    private final String name;
+
+    /** <summary>Mindest-Schweregrad dieses Loggers, -1 = globaler Schwellwert.</summary> */
+    private volatile int threshold = -1;
+
+    public BaseLogger() {
+        this(null);
+    }
+
+    public BaseLogger(String name) {
+        this.name = name;
+    }
+
+    /**
+     * <summary>
+     * Gibt den benannten Logger zurück und legt ihn bei Bedarf an.
+     * Der Schwellwert eines benannten Loggers kann so zur Laufzeit
+     * zentral umgeschaltet werden.
+     * </summary>
+     */
+    public static BaseLogger getLogger(String name) {
+        return LOGGERS.computeIfAbsent(name, BaseLogger::new);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * <summary>
+     * Setzt den Mindest-Level dieses Loggers.
+     * null setzt den Logger auf den globalen Schwellwert zurück.
+     * </summary>
+     */
+    public void setLevel(LogLevel level) {
+        this.threshold = level != null ? level.severity() : -1;
+    }
+
+    /**
+     * <summary>
+     * Setzt den globalen Mindest-Level für alle Logger ohne eigenen Schwellwert.
+     * </summary>
+     */
+    public static void setGlobalLevel(LogLevel level) {
+        globalThreshold = (level != null ? level : LogLevel.DEBUG).severity();
+    }
+
+    /**
+     * <summary>
+     * Gibt an, ob ein Level den globalen Schwellwert erreicht.
+     * </summary>
+     */
+    public static boolean isLoggable(LogLevel level) {
+        return level.severity() >= globalThreshold;
+    }
+
+    @Override
+    public boolean isEnabled(LogLevel level) {
+        int t = threshold;
+        return level.severity() >= (t >= 0 ? t : globalThreshold);
+    }
+
+    /**
+     * <summary>
+     * Bei aktivem Absturz-Ringpuffer werden auch gefilterte Level erfasst;
+     * logAt legt sie dann nur im Ringpuffer ab.
+     * </summary>
+     */
+    @Override
+    public boolean isRecorded(LogLevel level) {
+        return crashRing != null || isEnabled(level);
     }
 
     /* =====================================================
@@ -67,42 +279,498 @@ public class BaseLogger implements ILogger {
             Files.createDirectories(logDirectory);
             logFilePath = logDirectory.resolve(LOG_FILE_NAME);
 
-            rotateIfExists();
+            archiver = new LogArchiver(logDirectory);
+
+            trimPreallocated(logFilePath);
 
-            logWriter = Files.newBufferedWriter(
-                    logFilePath,
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.WRITE
-            );
+            Path archived = rotateIfExists();
+            archiver.submit(archived, rotationPolicy);
+
+            logWriter = openLogFile();
 
         } catch (IOException ex) {
             System.err.println("[CRITICAL] Logger init failed: " + ex.getMessage());
         }
     }
 
+    /**
+     * <summary>
+     * Initialisiert das Logging-System im asynchronen Modus.
+     * Aufrufer veröffentlichen Ereignisse nur noch in einen
+     * vorab allokierten Ringpuffer; ein Hintergrund-Thread
+     * schreibt sie gebündelt auf Konsole und in die Log-Datei.
+     * </summary>
+     * <param name="capacity">Anzahl Slots im Ringpuffer (wird auf Zweierpotenz gerundet)</param>
+     * <param name="policy">Verhalten bei vollem Puffer</param>
+     */
+    public static synchronized void initAsync(int capacity, OverflowPolicy policy) {
+        init();
+
+        AsyncLogWriter writer = new AsyncLogWriter(capacity, policy);
+        writer.start();
+        asyncWriter = writer;
+    }
+
+    /**
+     * <summary>
+     * Initialisiert das Logging-System im asynchronen Modus
+     * mit Standardkapazität und blockierender Overflow-Policy.
+     * </summary>
+     */
+    public static void initAsync() {
+        initAsync(DEFAULT_ASYNC_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * <summary>
+     * Aktiviert den Memory-Mapped-Writer für latest.log.
+     * Muss vor init() aufgerufen werden. Jedes Segment wird in voller
+     * Größe vorab allokiert und bei Erreichen der Größe wie gewohnt
+     * in ein zeitgestempeltes Archiv rotiert.
+     * </summary>
+     * <param name="segmentBytes">Größe eines Segments in Bytes</param>
+     * <param name="forceIntervalMillis">force() spätestens nach dieser Zeit, 0 = nie</param>
+     * <param name="forceBytes">force() spätestens nach dieser Datenmenge, 0 = nie</param>
+     */
+    public static synchronized void useMappedFile(long segmentBytes, long forceIntervalMillis, long forceBytes) {
+        mappedSegmentBytes = segmentBytes;
+        mappedForceIntervalMillis = forceIntervalMillis;
+        mappedForceBytes = forceBytes;
+    }
+
+    /**
+     * <summary>
+     * Setzt das Format der Log-Datei. Muss vor init() aufgerufen werden,
+     * da eine Datei nicht beide Formate enthalten darf.
+     * </summary>
+     */
+    public static synchronized void setFormat(LogFormat format) {
+        fileFormat = format != null ? format : LogFormat.TEXT;
+    }
+
+    /**
+     * <summary>
+     * Setzt den Dauerhaftigkeits-Modus der Log-Datei.
+     * </summary>
+     */
+    public static void setDurability(LogDurability mode) {
+        durability = mode != null ? mode : LogDurability.FLUSH_BATCH;
+    }
+
+    public static LogDurability getDurability() {
+        return durability;
+    }
+
+    /**
+     * <summary>
+     * Setzt das Intervall für LogDurability.FSYNC_INTERVAL.
+     * </summary>
+     */
+    public static void setFsyncInterval(long millis) {
+        fsyncIntervalMillis = millis;
+    }
+
+    /**
+     * <summary>
+     * Setzt die Rotations-Policy für latest.log.
+     * Die Policy wird nach jedem Flush vom schreibenden Thread geprüft.
+     * </summary>
+     */
+    public static void setRotationPolicy(LogRotationPolicy policy) {
+        rotationPolicy = policy;
+    }
+
+    /**
+     * <summary>
+     * Aktiviert den Absturz-Ringpuffer. Die letzten Ereignisse werden
+     * unabhängig von den Level-Schwellwerten (also auch DEBUG) im Speicher
+     * gehalten und in eine crash-*.log-Datei geschrieben, wenn ein
+     * CRITICAL-Ereignis geloggt wird, eine Exception einen Thread beendet
+     * oder die JVM ohne vorheriges close() herunterfährt.
+     * </summary>
+     * <param name="capacity">Anzahl gehaltener Ereignisse (wird auf Zweierpotenz gerundet)</param>
+     */
+    public static synchronized void enableCrashRing(int capacity) {
+        boolean first = crashRing == null;
+        crashRing = new LogCrashRing(capacity);
+
+        if (first) {
+            UnexpectedExitHandler.registerUncaught(() -> dumpCrashRing(false));
+            UnexpectedExitHandler.register(() -> {
+                if (!closed) dumpCrashRing(true);
+            });
+        }
+    }
+
+    /**
+     * <summary>
+     * Schreibt den Absturz-Ringpuffer sofort in eine Datei.
+     * </summary>
+     * @return Pfad der Datei oder null, wenn kein Ringpuffer aktiv ist.
+     */
+    public static Path dumpCrashRing() {
+        return dumpCrashRing(true);
+    }
+
+    /**
+     * <summary>
+     * Schreibt den Ringpuffer in logDirectory (bzw. das temporäre
+     * Verzeichnis vor init()). Ohne force höchstens einmal pro
+     * CRASH_DUMP_MIN_INTERVAL_MS, damit CRITICAL-Fluten nicht
+     * für jedes Ereignis eine Datei erzeugen.
+     * </summary>
+     */
+    private static Path dumpCrashRing(boolean force) {
+        LogCrashRing ring = crashRing;
+        if (ring == null) return null;
+
+        long now = System.currentTimeMillis();
+        long last = lastCrashDump.get();
+
+        if (!force && (now - last < CRASH_DUMP_MIN_INTERVAL_MS
+                || !lastCrashDump.compareAndSet(last, now)))
+            return null;
+
+        lastCrashDump.set(now);
+
+        Path directory = logDirectory != null
+                ? logDirectory
+                : Paths.get(System.getProperty("java.io.tmpdir"));
+
+        String ts = LocalDateTime.now().format(ARCHIVE_FORMAT);
+        Path file = directory.resolve("crash-" + ts + "-" + ProcessHandle.current().pid() + ".log");
+
+        try {
+            ring.dump(file);
+            return file;
+        } catch (IOException ex) {
+            System.err.println("[WARNING] Could not write crash log: " + ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * <summary>
+     * Setzt die Policy zur Unterdrückung von Log-Fluten; null deaktiviert sie.
+     * Die Zähler der Unterdrückung beginnen dabei neu.
+     * </summary>
+     */
+    public static void setFloodPolicy(LogFloodPolicy policy) {
+        LogFloodGuard previous = floodGuard;
+        floodGuard = policy != null ? new LogFloodGuard(policy) : null;
+
+        if (previous != null)
+            previous.close();
+    }
+
+    /**
+     * <summary>
+     * Gibt die Anzahl der per Rate-Limit unterdrückten Ereignisse zurück.
+     * </summary>
+     */
+    public static long getRateLimitedCount() {
+        LogFloodGuard guard = floodGuard;
+        return guard != null ? guard.getRateLimitedCount() : 0;
+    }
+
+    /**
+     * <summary>
+     * Gibt die Anzahl der zusammengefassten Wiederholungen zurück.
+     * </summary>
+     */
+    public static long getCollapsedCount() {
+        LogFloodGuard guard = floodGuard;
+        return guard != null ? guard.getCollapsedCount() : 0;
+    }
+
+    /**
+     * <summary>
+     * Schaltet die eingebaute Konsolenausgabe ein oder aus,
+     * z. B. wenn stattdessen ein ConsoleLogSink verwendet wird.
+     * </summary>
+     */
+    public static void setConsoleEnabled(boolean enabled) {
+        consoleEnabled = enabled;
+    }
+
+    /**
+     * <summary>
+     * Registriert einen zusätzlichen Sink mit eigener Queue und
+     * eigenem Writer-Thread. Ein langsamer Sink bremst weder die
+     * Aufrufer noch die übrigen Ausgaben, solange die Policy nicht
+     * BLOCK ist.
+     * </summary>
+     * <param name="capacity">Anzahl Slots der Sink-Queue (wird auf Zweierpotenz gerundet)</param>
+     * <param name="policy">Verhalten bei voller Queue</param>
+     */
+    public static synchronized void addSink(ILogSink sink, int capacity, OverflowPolicy policy) {
+        AsyncLogWriter writer = new AsyncLogWriter(sink, capacity, policy);
+        writer.start();
+
+        AsyncLogWriter[] current = sinkWriters;
+        AsyncLogWriter[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = writer;
+        sinkWriters = updated;
+    }
+
+    /**
+     * <summary>
+     * Registriert einen Sink mit Standardkapazität. Bei voller Queue
+     * werden neue Ereignisse für diesen Sink verworfen.
+     * </summary>
+     */
+    public static void addSink(ILogSink sink) {
+        addSink(sink, DEFAULT_SINK_CAPACITY, OverflowPolicy.DROP_NEWEST);
+    }
+
+    /**
+     * <summary>
+     * Entfernt einen Sink, schreibt seine Queue leer und schließt ihn.
+     * </summary>
+     * @return true, wenn der Sink registriert war.
+     */
+    public static synchronized boolean removeSink(ILogSink sink) {
+        AsyncLogWriter[] current = sinkWriters;
+
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].getSink() != sink) continue;
+
+            AsyncLogWriter[] updated = new AsyncLogWriter[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, i);
+            System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+            sinkWriters = updated;
+
+            shutdownSink(current[i]);
+            return true;
+        }
+
+        return false;
+    }
+
     public static synchronized void close() {
         if (closed) return;
+
+        LogFloodGuard guard = floodGuard;
+        if (guard != null)
+            guard.close();
+
         closed = true;
 
+        AsyncLogWriter writer = asyncWriter;
+        if (writer != null)
+            writer.shutdown(ASYNC_SHUTDOWN_TIMEOUT_MS);
+
+        for (AsyncLogWriter sinkWriter : sinkWriters)
+            shutdownSink(sinkWriter);
+
         try {
-            if (logWriter != null)
-                logWriter.close();
+            synchronized (WRITE_LOCK) {
+                if (logWriter != null) {
+                    logWriter.flush();
+                    if (isFsyncMode())
+                        logWriter.sync();
+                    logWriter.close();
+                }
+                logWriter = null;
+            }
 
-            rotateIfExists();
+            Path archived = rotateIfExists();
+
+            if (archiver != null) {
+                archiver.submit(archived, rotationPolicy);
+                archiver.shutdown(ASYNC_SHUTDOWN_TIMEOUT_MS);
+            }
         } catch (IOException ex) {
             System.err.println("[WARNING] Could not archive log file: " + ex.getMessage());
         }
     }
 
-    private static void rotateIfExists() throws IOException {
-        if (Files.exists(logFilePath)) {
-            String ts = LocalDateTime.now()
-                    .format(DateTimeFormatter.ofPattern("yyyy-MM-dd-HH-mm-ss"));
-            Files.move(
-                    logFilePath,
-                    logDirectory.resolve(ts + ".log"),
-                    StandardCopyOption.REPLACE_EXISTING
-            );
+    private static void shutdownSink(AsyncLogWriter writer) {
+        writer.shutdown(ASYNC_SHUTDOWN_TIMEOUT_MS);
+
+        try {
+            writer.getSink().close();
+        } catch (IOException ex) {
+            System.err.println("[WARNING] Could not close log sink: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * <summary>
+     * Benennt latest.log in ein zeitgestempeltes Segment um.
+     * Bei mehreren Rotationen pro Sekunde wird ein Zähler angehängt.
+     * </summary>
+     * @return Pfad des archivierten Segments oder null.
+     */
+    private static Path rotateIfExists() throws IOException {
+        if (logFilePath == null || !Files.exists(logFilePath))
+            return null;
+
+        String ts = LocalDateTime.now().format(ARCHIVE_FORMAT);
+
+        // Zähler läuft innerhalb derselben Sekunde monoton weiter,
+        // damit bereits bereinigte Namen nicht wiederverwendet werden
+        archiveCounter = ts.equals(lastArchiveStamp) ? archiveCounter + 1 : 0;
+        lastArchiveStamp = ts;
+
+        Path target = archivePath(ts, archiveCounter);
+        while (Files.exists(target)
+                || Files.exists(target.resolveSibling(target.getFileName() + ".gz"))) {
+            target = archivePath(ts, ++archiveCounter);
+        }
+
+        Files.move(logFilePath, target, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    private static ILogFileWriter openLogFile() throws IOException {
+        ILogFileWriter writer = mappedSegmentBytes > 0
+                ? new MappedLogFileWriter(logFilePath, mappedSegmentBytes,
+                        mappedForceIntervalMillis, mappedForceBytes)
+                : new ChannelLogFileWriter(logFilePath);
+
+        if (fileFormat == LogFormat.BINARY && writer.size() == 0)
+            writer.write(BinaryLogEncoder.MAGIC, 0, BinaryLogEncoder.MAGIC.length);
+
+        return writer;
+    }
+
+    /**
+     * <summary>
+     * Entfernt vorab allokierte Null-Bytes am Ende einer Log-Datei,
+     * die nach einem Absturz im Memory-Mapped-Modus zurückbleiben.
+     * Textdateien enden nie auf Null-Bytes; in Binärdateien kann ein
+     * Record darauf enden (z. B. leere Nachricht), dort wird das Ende
+     * daher über die Record-Längen bestimmt.
+     * </summary>
+     */
+    static void trimPreallocated(Path file) throws IOException {
+        if (!Files.exists(file)) return;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long end = lastNonZeroEnd(channel, size);
+
+            if (end == size) return;
+
+            if (isBinaryLog(channel, size))
+                end = binaryRecordsEnd(channel, size);
+
+            if (end < size)
+                channel.truncate(end);
+        }
+    }
+
+    /**
+     * <summary>
+     * Position nach dem letzten Byte ungleich 0.
+     * </summary>
+     */
+    private static long lastNonZeroEnd(FileChannel channel, long size) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(8192);
+        long end = size;
+
+        while (end > 0) {
+            int len = (int) Math.min(chunk.capacity(), end);
+            chunk.clear().limit(len);
+            channel.read(chunk, end - len);
+
+            int i = len - 1;
+            while (i >= 0 && chunk.get(i) == 0) i--;
+
+            if (i >= 0) return end - len + i + 1;
+            end -= len;
+        }
+
+        return 0;
+    }
+
+    private static boolean isBinaryLog(FileChannel channel, long size) throws IOException {
+        byte[] magic = BinaryLogEncoder.MAGIC;
+        if (size < magic.length) return false;
+
+        ByteBuffer header = ByteBuffer.allocate(magic.length);
+        channel.read(header, 0);
+        return Arrays.equals(header.array(), magic);
+    }
+
+    /**
+     * <summary>
+     * Position nach dem letzten vollständigen Record; ein Längenfeld
+     * von 0 markiert den Beginn des vorab allokierten Bereichs.
+     * </summary>
+     */
+    private static long binaryRecordsEnd(FileChannel channel, long size) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+        long chunkStart = 0;
+        long pos = BinaryLogEncoder.MAGIC.length;
+
+        chunk.limit(0);
+
+        while (pos + 4 <= size) {
+            int offset = (int) (pos - chunkStart);
+
+            if (offset < 0 || offset + 4 > chunk.limit()) {
+                chunk.clear();
+                chunkStart = pos;
+                channel.read(chunk, pos);
+                chunk.flip();
+                offset = 0;
+                if (chunk.limit() < 4) break;
+            }
+
+            int length = chunk.getInt(offset);
+            if (length <= 0 || pos + 4 + length > size) break;
+
+            pos += 4 + length;
+        }
+
+        return pos;
+    }
+
+    private static Path archivePath(String ts, int counter) {
+        return logDirectory.resolve(counter == 0 ? ts + ".log" : ts + "-" + counter + ".log");
+    }
+
+    /**
+     * <summary>
+     * Rotiert latest.log, wenn Größe oder Alter die Policy überschreiten
+     * oder das Memory-Mapped-Segment voll ist.
+     * Nur das Umbenennen erfolgt synchron; Komprimierung und
+     * Bereinigung übernimmt der LogArchiver. Aufrufer muss WRITE_LOCK halten.
+     * </summary>
+     */
+    private static void rotateIfDue() {
+        if (logWriter == null) return;
+
+        LogRotationPolicy policy = rotationPolicy;
+
+        boolean bySize = policy != null && policy.getMaxFileBytes() > 0
+                && logWriter.size() >= policy.getMaxFileBytes();
+        boolean byAge = policy != null && policy.getMaxFileAgeMillis() > 0
+                && System.currentTimeMillis() - logWriter.openedAt() >= policy.getMaxFileAgeMillis();
+
+        if (!bySize && !byAge && !logWriter.isSegmentFull()) return;
+
+        try {
+            logWriter.flush();
+            if (isFsyncMode())
+                logWriter.sync();
+            logWriter.close();
+            logWriter = null;
+
+            Path archived = rotateIfExists();
+            if (archiver != null)
+                archiver.submit(archived, policy);
+        } catch (IOException ex) {
+            System.err.println("[WARNING] Log rotation failed: " + ex.getMessage());
+        } finally {
+            try {
+                if (logWriter == null)
+                    logWriter = openLogFile();
+            } catch (IOException ex) {
+                System.err.println("[CRITICAL] Could not reopen log file: " + ex.getMessage());
+            }
         }
     }
 
@@ -111,30 +779,322 @@ public class BaseLogger implements ILogger {
        ===================================================== */
 
     public static void log(LogLevel level, LogColor color, String message) {
+        LogCrashRing ring = crashRing;
+        if (ring != null)
+            record(ring, level, null, null, message);
+
+        if (level.severity() >= globalThreshold)
+            dispatch(level, color, null, null, message);
+
+        if (level == LogLevel.CRITICAL)
+            dumpCrashRing(false);
+    }
+
+    /**
+     * <summary>
+     * Erfasst ein Ereignis dieses Loggers im Absturz-Ringpuffer und
+     * schreibt es, sofern der Schwellwert es zulässt.
+     * </summary>
+     */
+    private void logAt(LogLevel level, String[] fields, String message) {
+        LogCrashRing ring = crashRing;
+        if (ring != null)
+            record(ring, level, name, fields, message);
+
+        if (isEnabled(level))
+            dispatch(level, null, name, fields, message);
+
+        if (level == LogLevel.CRITICAL)
+            dumpCrashRing(false);
+    }
+
+    private static void record(LogCrashRing ring, LogLevel level,
+                               String loggerName, String[] fields, String message) {
+        ring.record(epochNanos(), level, loggerName,
+                Thread.currentThread().getId(), fields, message);
+    }
+
+    /**
+     * <summary>
+     * Schreibt ein Ereignis mit strukturierten Feldern.
+     * Im Binärformat werden die Felder als eigene Schlüssel/Wert-Paare
+     * gespeichert, im Textformat als " key=value" angehängt.
+     * </summary>
+     * <param name="keyValues">Abwechselnd Schlüssel und Wert</param>
+     */
+    public void logFields(LogLevel level, String message, String... keyValues) {
+        logAt(level, keyValues, message);
+    }
+
+    /**
+     * <summary>
+     * Schreibt ein Ereignis, dessen Level bereits geprüft wurde.
+     * Bei aktiver Flut-Unterdrückung erhält das erste wieder
+     * ausgegebene Ereignis eines Templates das Feld "suppressed".
+     * </summary>
+     */
+    private static void dispatch(LogLevel level, LogColor color,
+                                 String loggerName, String[] fields, String message) {
+        if (closed) return;
+
+        LogFloodGuard guard = floodGuard;
+        if (guard != null) {
+            long suppressed = guard.admit(level, loggerName, message);
+            if (suppressed < 0) return;
+
+            if (suppressed > 0)
+                fields = withField(fields, "suppressed", Long.toString(suppressed));
+        }
+
+        emit(level, color, loggerName, fields, message);
+    }
+
+    /**
+     * <summary>
+     * Gibt die Zusammenfassung einer zusammengefassten Wiederholung aus.
+     * </summary>
+     */
+    static void logRepeated(LogLevel level, String loggerName, String message, long repeats) {
         if (closed) return;
 
-        String ts = LocalDateTime.now()
-                .format(DateTimeFormatter.ofPattern("dd-MM HH:mm:ss"));
+        emit(level, null, loggerName,
+                new String[] { "repeated", Long.toString(repeats) },
+                "last message repeated " + repeats + " times: " + message);
+    }
 
-        String formatted =
-                "[" + ts + "] - [" + LOG_LEVEL_NAMES[level.value()] + "] -> " + message;
+    private static String[] withField(String[] fields, String key, String value) {
+        int length = fields != null ? fields.length & ~1 : 0;
 
-        String ansi = color != null
-                ? toAnsiColor(color)
-                : defaultColor(level);
+        String[] result = new String[length + 2];
+        if (length > 0)
+            System.arraycopy(fields, 0, result, 0, length);
 
-        if (ansi != null)
-            System.out.println(ansi + formatted + ANSI_RESET);
-        else
-            System.out.println(formatted);
+        result[length] = key;
+        result[length + 1] = value;
+        return result;
+    }
+
+    /**
+     * <summary>
+     * Schreibt ein Ereignis ohne weitere Prüfung auf Sinks, Konsole und Datei.
+     * </summary>
+     */
+    private static void emit(LogLevel level, LogColor color,
+                             String loggerName, String[] fields, String message) {
+        long timestamp = epochNanos();
+        long threadId = Thread.currentThread().getId();
+
+        for (AsyncLogWriter sinkWriter : sinkWriters)
+            sinkWriter.publish(timestamp, level, color, loggerName, threadId, fields, message);
+
+        AsyncLogWriter writer = asyncWriter;
+        if (writer != null) {
+            writer.publish(timestamp, level, color, loggerName, threadId, fields, message);
+            return;
+        }
+
+        // Formatierung außerhalb der Sperre in thread-lokalen Puffern
+        LogFormatter formatter = LogFormatter.get();
+        formatter.format(timestamp, level, message, fields);
+
+        BinaryLogEncoder encoder = null;
+        if (fileFormat == LogFormat.BINARY) {
+            encoder = BinaryLogEncoder.get();
+            encoder.encode(timestamp, level, loggerName, threadId, fields, message);
+        }
+
+        long seq;
+        synchronized (WRITE_LOCK) {
+            seq = write(formatter, encoder, level, color);
+        }
+
+        commit(seq, level.severity() >= LogLevel.ERROR.severity());
+    }
+
+    /**
+     * <summary>
+     * Gibt die Anzahl der im asynchronen Modus verworfenen Ereignisse zurück.
+     * </summary>
+     */
+    public static long getDroppedCount() {
+        AsyncLogWriter writer = asyncWriter;
+        return writer != null ? writer.getDroppedCount() : 0;
+    }
+
+    /**
+     * <summary>
+     * Gibt die Anzahl der für einen Sink verworfenen Ereignisse zurück.
+     * </summary>
+     */
+    public static long getDroppedCount(ILogSink sink) {
+        for (AsyncLogWriter writer : sinkWriters) {
+            if (writer.getSink() == sink)
+                return writer.getDroppedCount();
+        }
+        return 0;
+    }
+
+    /**
+     * <summary>
+     * Schreibt ein Ereignis aus dem Ringpuffer.
+     * Aufrufer muss WRITE_LOCK halten.
+     * </summary>
+     */
+    static long write(LogEvent event) {
+        LogFormatter formatter = LogFormatter.get();
+        formatter.format(event.timestamp, event.level, event.message, event.fields);
+
+        BinaryLogEncoder encoder = null;
+        if (fileFormat == LogFormat.BINARY) {
+            encoder = BinaryLogEncoder.get();
+            encoder.encode(event.timestamp, event.level, event.loggerName,
+                    event.threadId, event.fields, event.message);
+        }
+
+        return write(formatter, encoder, event.level, event.color);
+    }
+
+    /**
+     * <summary>
+     * Schreibt eine bereits formatierte Zeile auf Konsole und in
+     * die Log-Datei, ohne zu flushen. Ist ein Binär-Record vorhanden,
+     * wird dieser statt der Textzeile in die Datei geschrieben.
+     * Aufrufer muss WRITE_LOCK halten.
+     * </summary>
+     * @return Sequenznummer der Zeile für den anschließenden commit().
+     */
+    private static long write(LogFormatter formatter, BinaryLogEncoder encoder,
+                              LogLevel level, LogColor color) {
+        if (consoleEnabled) {
+            if (CONSOLE_IS_TERMINAL) {
+                formatter.formatConsole(ansiBytes(level, color));
+                writeConsole(formatter.consoleBuffer(), formatter.consoleLength());
+            } else {
+                // Ohne Terminal entspricht die Konsolenzeile der Dateizeile
+                writeConsole(formatter.lineBuffer(), formatter.lineLength());
+            }
+        }
 
         try {
             if (logWriter != null) {
-                logWriter.write(formatted);
-                logWriter.newLine();
-                logWriter.flush();
+                if (encoder != null)
+                    logWriter.write(encoder.buffer(), 0, encoder.length());
+                else
+                    logWriter.write(formatter.lineBuffer(), 0, formatter.lineLength());
             }
         } catch (IOException ignored) {}
+
+        return ++appendedSeq;
+    }
+
+    /**
+     * <summary>
+     * Schreibt eine UTF-8-kodierte Zeile auf stdout. Bei abweichender
+     * Konsolen-Kodierung (z.B. cp1252/cp850 unter Windows) übernimmt
+     * System.out die Umkodierung, damit Umlaute lesbar bleiben.
+     * </summary>
+     */
+    private static void writeConsole(byte[] utf8, int length) {
+        if (CONSOLE_CHARSET == StandardCharsets.UTF_8)
+            System.out.write(utf8, 0, length);
+        else
+            System.out.print(new String(utf8, 0, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * <summary>
+     * Aktueller Zeitstempel in Nanosekunden seit Epoch.
+     * </summary>
+     */
+    static long epochNanos() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+
+    /**
+     * <summary>
+     * Gibt den Anzeigenamen eines Log-Levels zurück.
+     * </summary>
+     */
+    static String levelName(LogLevel level) {
+        return LOG_LEVEL_NAMES[level.value()];
+    }
+
+    /**
+     * <summary>
+     * Group-Commit bis einschließlich der angegebenen Sequenz.
+     * Der erste Thread unter COMMIT_LOCK flusht alle bis dahin
+     * angehängten Zeilen (auch die anderer Threads) und führt bei
+     * Bedarf fsync außerhalb von WRITE_LOCK aus; nachfolgende Threads,
+     * deren Zeilen dabei mitgesichert wurden, kehren sofort zurück.
+     * Darf nicht unter WRITE_LOCK aufgerufen werden.
+     * </summary>
+     * <param name="seq">Sequenz der eigenen (letzten) Zeile</param>
+     * <param name="urgent">true, wenn die Gruppe ERROR/CRITICAL enthält</param>
+     */
+    static void commit(long seq, boolean urgent) {
+        LogDurability mode = durability;
+
+        if (mode == LogDurability.NONE) {
+            synchronized (WRITE_LOCK) {
+                rotateIfDue();
+            }
+            return;
+        }
+
+        synchronized (COMMIT_LOCK) {
+            long now = System.currentTimeMillis();
+
+            boolean syncDue = switch (mode) {
+                case FSYNC_INTERVAL -> now - lastSyncMillis >= fsyncIntervalMillis;
+                case FSYNC_ON_ERROR -> urgent;
+                default -> false;
+            };
+
+            if (flushedSeq >= seq && (!syncDue || syncedSeq >= seq))
+                return;
+
+            ILogFileWriter target;
+            long upTo;
+
+            synchronized (WRITE_LOCK) {
+                upTo = appendedSeq;
+                target = logWriter;
+
+                try {
+                    if (target != null)
+                        target.flush();
+                } catch (IOException ignored) {}
+
+                rotateIfDue();
+            }
+
+            flushedSeq = upTo;
+
+            if (syncDue && target != null) {
+                try {
+                    target.sync();
+                } catch (IOException ignored) {
+                    // Writer wurde rotiert und dabei bereits gesichert
+                }
+                syncedSeq = upTo;
+                lastSyncMillis = now;
+            }
+        }
+    }
+
+    /**
+     * <summary>
+     * Gibt die zuletzt angehängte Sequenz zurück. Aufrufer muss WRITE_LOCK halten.
+     * </summary>
+     */
+    static long appendedSeq() {
+        return appendedSeq;
+    }
+
+    private static boolean isFsyncMode() {
+        LogDurability mode = durability;
+        return mode == LogDurability.FSYNC_INTERVAL || mode == LogDurability.FSYNC_ON_ERROR;
     }
 
     /* =========================
@@ -142,37 +1102,131 @@ public class BaseLogger implements ILogger {
        ========================= */
 
     public void debug(String message) {
-        log(LogLevel.DEBUG, null, message);
+        logAt(LogLevel.DEBUG, null, message);
     }
 
     public void info(String message) {
-        log(LogLevel.INFO, null, message);
+        logAt(LogLevel.INFO, null, message);
     }
 
     public void warn(String message) {
-        log(LogLevel.WARNING, null, message);
+        logAt(LogLevel.WARNING, null, message);
     }
 
     public void error(String message) {
-        log(LogLevel.ERROR, null, message);
+        logAt(LogLevel.ERROR, null, message);
     }
 
+    /**
+     * <summary>
+     * Schreibt ein ERROR-Ereignis mit der Exception samt Stacktrace
+     * und Ursachen im Anschluss an die Nachricht.
+     * </summary>
+     */
     @Override
     public void error(String message, Throwable throwable) {
-        log(LogLevel.ERROR, null, message);
+        if (throwable == null || crashRing == null && !isEnabled(LogLevel.ERROR)) {
+            logAt(LogLevel.ERROR, null, message);
+            return;
+        }
+
+        logAt(LogLevel.ERROR, null, message + ": " + stackTrace(throwable));
     }
 
+    private static String stackTrace(Throwable throwable) {
+        StringWriter text = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(text));
+        return text.toString().stripTrailing();
+    }
+
+    /**
+     * <summary>
+     * Schreibt ein CRITICAL-Ereignis. Bei aktivem Absturz-Ringpuffer
+     * wird dieser zusätzlich in eine Datei geschrieben.
+     * </summary>
+     */
     @Override
     public void critical(String message) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'critical'");
+        logAt(LogLevel.CRITICAL, null, message);
     }
 
     /* =====================================================
        ANSI helpers
        ===================================================== */
 
-    private static final String ANSI_RESET = "\u001B[0m";
+    /**
+     * <summary>
+     * Gibt an, ob stdout mit einem Terminal verbunden ist.
+     * </summary>
+     */
+    static boolean isConsoleTerminal() {
+        return CONSOLE_IS_TERMINAL;
+    }
+
+    /**
+     * <summary>
+     * Gibt die Kodierung von stdout zurück (UTF-8 als Instanz von
+     * StandardCharsets.UTF_8, damit ein Referenzvergleich genügt).
+     * </summary>
+     */
+    static Charset consoleCharset() {
+        return CONSOLE_CHARSET;
+    }
+
+    /**
+     * <summary>
+     * Ermittelt die Kodierung, mit der System.out schreibt:
+     * stdout.encoding (ab Java 19), sun.stdout.encoding (Windows-Konsole),
+     * sonst die Standardkodierung der JVM.
+     * </summary>
+     */
+    private static Charset detectConsoleCharset() {
+        Charset charset = Charset.defaultCharset();
+
+        for (String key : new String[] { "stdout.encoding", "sun.stdout.encoding" }) {
+            String name = System.getProperty(key);
+            if (name == null || name.isBlank()) continue;
+
+            try {
+                charset = Charset.forName(name);
+                break;
+            } catch (IllegalArgumentException ignored) {
+                // unbekannte Kodierung: nächste Quelle versuchen
+            }
+        }
+
+        return charset.equals(StandardCharsets.UTF_8) ? StandardCharsets.UTF_8 : charset;
+    }
+
+    /**
+     * <summary>
+     * Gibt die vorab kodierte ANSI-Sequenz für ein Ereignis zurück,
+     * null für Level ohne Standardfarbe.
+     * </summary>
+     */
+    static byte[] ansiBytes(LogLevel level, LogColor color) {
+        return color != null
+                ? COLOR_BYTES[color.ordinal()]
+                : LEVEL_COLOR_BYTES[level.value()];
+    }
+
+    /** <summary>Vorab kodierte ANSI-Sequenzen, indiziert über LogColor.ordinal().</summary> */
+    private static final byte[][] COLOR_BYTES = new byte[LogColor.values().length][];
+
+    /** <summary>Vorab kodierte Standardfarben, indiziert über LogLevel.value().</summary> */
+    private static final byte[][] LEVEL_COLOR_BYTES = new byte[LogLevel.values().length][];
+
+    static {
+        for (LogColor color : LogColor.values())
+            COLOR_BYTES[color.ordinal()] = toAnsiColor(color).getBytes(StandardCharsets.US_ASCII);
+
+        for (LogLevel level : LogLevel.values()) {
+            String ansi = defaultColor(level);
+            LEVEL_COLOR_BYTES[level.value()] = ansi != null
+                    ? ansi.getBytes(StandardCharsets.US_ASCII)
+                    : null;
+        }
+    }
 
     private static String defaultColor(LogLevel level) {
         return switch (level) {
@@ -0,0 +1,153 @@
+package de.rsev.utilities.logging;
+
+import de.rsev.utilities.logging.BaseLogger.LogLevel;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <summary>
+ * Kodiert Log-Ereignisse in das kompakte Binärformat.
+ *
+ * Datei:    MAGIC (8 Bytes "RSEVLOG1"), danach Records.
+ * Record:   int    Länge der folgenden Bytes
+ *           long   Zeitstempel (Epoch-Nanosekunden)
+ *           byte   Level (LogLevel.value())
+ *           long   Thread-ID
+ *           short  Länge + UTF-8 Logger-Name
+ *           short  Anzahl Felder, je short Länge + Schlüssel, int Länge + Wert
+ *           int    Länge + UTF-8 Nachricht
+ *
+ * Zeitstempel und Level stehen an fester Position, sodass der
+ * LogReader Records filtern kann, ohne sie vollständig zu dekodieren.
+ * Alle Werte sind Big-Endian. Wie der LogFormatter arbeitet der
+ * Encoder thread-lokal auf einem wiederverwendeten Puffer.
+ * </summary>
+ */
+final class BinaryLogEncoder {
+
+    static final byte[] MAGIC = "RSEVLOG1".getBytes(StandardCharsets.US_ASCII);
+
+    /** <summary>Größe des festen Record-Kopfes nach dem Längenfeld (Zeitstempel + Level).</summary> */
+    static final int FIXED_HEADER = 8 + 1;
+
+    private static final ThreadLocal<BinaryLogEncoder> LOCAL =
+            ThreadLocal.withInitial(BinaryLogEncoder::new);
+
+    private byte[] buf = new byte[256];
+    private int length;
+
+    private BinaryLogEncoder() {}
+
+    static BinaryLogEncoder get() {
+        return LOCAL.get();
+    }
+
+    /* -----------------------------
+       Encoding Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Kodiert einen vollständigen Record in den internen Puffer.
+     * </summary>
+     */
+    void encode(long timestamp, LogLevel level, String loggerName,
+                long threadId, String[] fields, String message) {
+
+        int pos = 4;
+        ensureCapacity(pos + FIXED_HEADER + 8);
+
+        pos = putLong(timestamp, pos);
+        buf[pos++] = (byte) level.value();
+        pos = putLong(threadId, pos);
+
+        pos = putString(loggerName, pos, true);
+
+        int fieldCount = fields != null ? fields.length / 2 : 0;
+        ensureCapacity(pos + 2);
+        pos = putShort(fieldCount, pos);
+
+        for (int i = 0; i < fieldCount; i++) {
+            pos = putString(fields[2 * i], pos, true);
+            pos = putString(fields[2 * i + 1], pos, false);
+        }
+
+        pos = putString(message, pos, false);
+
+        putInt(pos - 4, 0);
+        length = pos;
+    }
+
+    byte[] buffer() {
+        return buf;
+    }
+
+    int length() {
+        return length;
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Schreibt einen String mit vorangestellter Länge (short oder int).
+     * Die Länge wird nach dem Kodieren an der reservierten Stelle eingetragen.
+     * </summary>
+     */
+    private int putString(String value, int pos, boolean shortLength) {
+        int lenSize = shortLength ? 2 : 4;
+
+        if (value == null) {
+            ensureCapacity(pos + lenSize);
+            return shortLength ? putShort(0, pos) : putInt(0, pos);
+        }
+
+        ensureCapacity(pos + lenSize + value.length() * 3);
+
+        int start = pos + lenSize;
+        int end = LogFormatter.encodeUtf8(value, buf, start);
+        int bytes = end - start;
+
+        if (shortLength) {
+            if (bytes > 0xFFFF) {
+                end = start + 0xFFFF;
+                bytes = 0xFFFF;
+            }
+            putShort(bytes, pos);
+        } else {
+            putInt(bytes, pos);
+        }
+
+        return end;
+    }
+
+    private int putLong(long v, int pos) {
+        for (int shift = 56; shift >= 0; shift -= 8)
+            buf[pos++] = (byte) (v >>> shift);
+        return pos;
+    }
+
+    private int putInt(int v, int pos) {
+        buf[pos++] = (byte) (v >>> 24);
+        buf[pos++] = (byte) (v >>> 16);
+        buf[pos++] = (byte) (v >>> 8);
+        buf[pos++] = (byte) v;
+        return pos;
+    }
+
+    private int putShort(int v, int pos) {
+        buf[pos++] = (byte) (v >>> 8);
+        buf[pos++] = (byte) v;
+        return pos;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (buf.length < needed) {
+            byte[] grown = new byte[Math.max(needed, buf.length << 1)];
+            System.arraycopy(buf, 0, grown, 0, buf.length);
+            buf = grown;
+        }
+    }
+}
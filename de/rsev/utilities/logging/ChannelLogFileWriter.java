@@ -0,0 +1,122 @@
+package de.rsev.utilities.logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <summary>
+ * Byte-orientierter Writer für die Log-Datei.
+ * Puffert bereits kodierte Zeilen in einem Direct-Buffer und
+ * schreibt sie erst beim Flush über einen FileChannel,
+ * ohne zusätzliche Zeichen-Kodierung oder Kopien.
+ * </summary>
+ */
+final class ChannelLogFileWriter implements ILogFileWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final long openedAt = System.currentTimeMillis();
+    private long size;
+
+    ChannelLogFileWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND
+        );
+        this.size = channel.size();
+    }
+
+    /* -----------------------------
+       IO Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Hängt Bytes an den Puffer an. Ist der Puffer voll,
+     * wird er vorher auf den Channel geschrieben.
+     * </summary>
+     */
+    @Override
+    public void write(byte[] src, int offset, int length) throws IOException {
+        size += length;
+
+        if (length > buffer.remaining()) {
+            flush();
+
+            if (length > buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(src, offset, length));
+                return;
+            }
+        }
+
+        buffer.put(src, offset, length);
+    }
+
+    /**
+     * <summary>
+     * Schreibt alle gepufferten Bytes auf den Channel.
+     * </summary>
+     */
+    @Override
+    public void flush() throws IOException {
+        if (buffer.position() == 0) return;
+
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    @Override
+    public void sync() throws IOException {
+        channel.force(false);
+    }
+
+    /* -----------------------------
+       Accessor Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Gibt die logische Dateigröße inklusive gepufferter Bytes zurück.
+     * </summary>
+     */
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /**
+     * <summary>
+     * Gibt den Zeitpunkt zurück, zu dem die Datei geöffnet wurde.
+     * </summary>
+     */
+    @Override
+    public long openedAt() {
+        return openedAt;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private void writeFully(ByteBuffer src) throws IOException {
+        while (src.hasRemaining())
+            channel.write(src);
+    }
+}
@@ -0,0 +1,127 @@
+package de.rsev.utilities.logging;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <summary>
+ * Schreibt Log-Zeilen auf die Konsole.
+ * Im Gegensatz zur eingebauten Konsolenausgabe läuft der Sink auf
+ * einem eigenen Thread und schreibt gepuffert direkt auf stdout
+ * (ein Flush pro Batch). Zusammen mit BaseLogger.setConsoleEnabled(false)
+ * kann eine langsame Konsole (z. B. unter dem systemd-Journal) das
+ * Schreiben der Log-Datei so nicht mehr ausbremsen.
+ *
+ * ANSI-Farben werden nur verwendet, wenn stdout ein Terminal ist;
+ * mit einem Formatter wird die ganze Zeile eingefärbt. Weicht die
+ * Konsolen-Kodierung von UTF-8 ab, werden die Zeilen umkodiert.
+ * </summary>
+ */
+public class ConsoleLogSink extends BaseLogSink {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final Charset charset;
+    private volatile boolean colorize;
+
+    /**
+     * <summary>
+     * Erstellt einen Sink auf stdout.
+     * </summary>
+     */
+    public ConsoleLogSink() {
+        this(new FileOutputStream(FileDescriptor.out), BaseLogger.isConsoleTerminal(),
+                BaseLogger.consoleCharset());
+    }
+
+    /**
+     * <summary>
+     * Erstellt einen Sink auf einen beliebigen Stream (UTF-8).
+     * </summary>
+     */
+    public ConsoleLogSink(OutputStream out, boolean colorize) {
+        this(out, colorize, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * <summary>
+     * Erstellt einen Sink auf einen beliebigen Stream mit eigener Kodierung.
+     * </summary>
+     */
+    public ConsoleLogSink(OutputStream out, boolean colorize, Charset charset) {
+        super("console");
+        this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+        this.charset = charset.equals(StandardCharsets.UTF_8) ? StandardCharsets.UTF_8 : charset;
+        this.colorize = colorize;
+    }
+
+    public void setColorize(boolean colorize) {
+        this.colorize = colorize;
+    }
+
+    @Override
+    public void write(LogEvent event) throws IOException {
+        ILogEventFormatter custom = getFormatter();
+        if (custom != null) {
+            writeFormatted(custom, event);
+            return;
+        }
+
+        LogFormatter formatter = LogFormatter.get();
+        formatter.format(event.timestamp, event.level, event.message, event.fields);
+
+        if (colorize) {
+            formatter.formatConsole(BaseLogger.ansiBytes(event.level, event.color));
+            writeLine(formatter.consoleBuffer(), formatter.consoleLength());
+        } else {
+            writeLine(formatter.lineBuffer(), formatter.lineLength());
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeFormatted(ILogEventFormatter custom, LogEvent event) throws IOException {
+        int length = formatLine(custom, event);
+
+        if (!colorize) {
+            writeLine(lineBytes(), length);
+            return;
+        }
+
+        out.write(BaseLogger.ansiBytes(event.level, event.color));
+        writeLine(lineBytes(), length - 1);
+        out.write(LogFormatter.ANSI_RESET);
+        out.write('\n');
+    }
+
+    /**
+     * <summary>
+     * Schreibt UTF-8-Bytes, bei abweichender Kodierung umkodiert.
+     * </summary>
+     */
+    private void writeLine(byte[] utf8, int length) throws IOException {
+        if (charset == StandardCharsets.UTF_8)
+            out.write(utf8, 0, length);
+        else
+            out.write(new String(utf8, 0, length, StandardCharsets.UTF_8).getBytes(charset));
+    }
+
+    /**
+     * <summary>
+     * Flusht den Puffer; stdout selbst bleibt geöffnet.
+     * </summary>
+     */
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,78 @@
+package de.rsev.utilities.logging;
+
+import de.rsev.utilities.logging.BaseLogger.LogFormat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * <summary>
+ * Schreibt Log-Ereignisse in eine zusätzliche Datei, als Text oder
+ * im Binärformat, wahlweise über einen FileChannel oder ein
+ * speicherabgebildetes Segment. Bestehender Inhalt wird fortgesetzt.
+ * Ein Formatter (setFormatter) gilt nur für das Textformat.
+ * Rotation und Dauerhaftigkeits-Modi gelten nur für latest.log.
+ * </summary>
+ */
+public class FileLogSink extends BaseLogSink {
+
+    private final LogFormat format;
+    private final ILogFileWriter writer;
+
+    public FileLogSink(Path file, LogFormat format) throws IOException {
+        this(file, format, 0);
+    }
+
+    /**
+     * <summary>
+     * Erstellt einen Datei-Sink.
+     * </summary>
+     * <param name="mappedSegmentBytes">Größe der Abbildung in Bytes, 0 = FileChannel-Writer</param>
+     */
+    public FileLogSink(Path file, LogFormat format, long mappedSegmentBytes) throws IOException {
+        super(file.getFileName().toString());
+        this.format = format != null ? format : LogFormat.TEXT;
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+
+        BaseLogger.trimPreallocated(file);
+
+        this.writer = mappedSegmentBytes > 0
+                ? new MappedLogFileWriter(file, mappedSegmentBytes, 0, 0)
+                : new ChannelLogFileWriter(file);
+
+        if (this.format == LogFormat.BINARY && writer.size() == 0)
+            writer.write(BinaryLogEncoder.MAGIC, 0, BinaryLogEncoder.MAGIC.length);
+    }
+
+    @Override
+    public void write(LogEvent event) throws IOException {
+        if (format == LogFormat.BINARY) {
+            BinaryLogEncoder encoder = BinaryLogEncoder.get();
+            encoder.encode(event.timestamp, event.level, event.loggerName,
+                    event.threadId, event.fields, event.message);
+            writer.write(encoder.buffer(), 0, encoder.length());
+        } else if (getFormatter() != null) {
+            int length = formatLine(getFormatter(), event);
+            writer.write(lineBytes(), 0, length);
+        } else {
+            LogFormatter formatter = LogFormatter.get();
+            formatter.format(event.timestamp, event.level, event.message, event.fields);
+            writer.write(formatter.lineBuffer(), 0, formatter.lineLength());
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+        writer.close();
+    }
+}
@@ -0,0 +1,20 @@
+package de.rsev.utilities.logging;
+
+/**
+ * <summary>
+ * Formatiert Log-Ereignisse für einen Sink (siehe BaseLogSink.setFormatter).
+ * Wird ausschließlich vom Writer-Thread des Sinks aufgerufen; der
+ * StringBuilder gehört dem Sink und wird für jedes Ereignis geleert
+ * wiederverwendet.
+ * </summary>
+ */
+@FunctionalInterface
+public interface ILogEventFormatter {
+
+    /**
+     * <summary>
+     * Hängt die formatierte Zeile ohne Zeilenende an out an.
+     * </summary>
+     */
+    void format(LogEvent event, StringBuilder out);
+}
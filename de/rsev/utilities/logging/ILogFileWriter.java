@@ -0,0 +1,59 @@
+package de.rsev.utilities.logging;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * <summary>
+ * Definiert das Ziel für bereits kodierte Log-Zeilen (latest.log).
+ * Implementierungen schreiben über einen gepufferten FileChannel
+ * oder in speicherabgebildete Segmente.
+ * </summary>
+ */
+interface ILogFileWriter extends Closeable {
+
+    /**
+     * <summary>
+     * Hängt Bytes an die Log-Datei an.
+     * </summary>
+     */
+    void write(byte[] src, int offset, int length) throws IOException;
+
+    /**
+     * <summary>
+     * Macht geschriebene Bytes für andere Prozesse sichtbar.
+     * </summary>
+     */
+    void flush() throws IOException;
+
+    /**
+     * <summary>
+     * Schreibt bereits geflushte Daten dauerhaft auf den Datenträger (fsync).
+     * Darf ohne WRITE_LOCK aufgerufen werden.
+     * </summary>
+     */
+    void sync() throws IOException;
+
+    /**
+     * <summary>
+     * Gibt die logische Dateigröße in Bytes zurück.
+     * </summary>
+     */
+    long size();
+
+    /**
+     * <summary>
+     * Gibt den Zeitpunkt zurück, zu dem die Datei geöffnet wurde.
+     * </summary>
+     */
+    long openedAt();
+
+    /**
+     * <summary>
+     * Gibt an, ob das aktuelle Segment voll ist und rotiert werden muss.
+     * </summary>
+     */
+    default boolean isSegmentFull() {
+        return false;
+    }
+}
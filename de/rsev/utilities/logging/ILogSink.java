@@ -0,0 +1,56 @@
+package de.rsev.utilities.logging;
+
+import de.rsev.utilities.logging.BaseLogger.LogLevel;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * <summary>
+ * Definiert ein zusätzliches Ausgabeziel für Log-Ereignisse.
+ * Jeder registrierte Sink erhält eine eigene Queue und einen
+ * eigenen Writer-Thread (siehe BaseLogger.addSink), sodass ein
+ * langsames Ziel die übrigen Ausgaben nicht ausbremst.
+ * </summary>
+ */
+public interface ILogSink extends Closeable {
+
+    /**
+     * <summary>
+     * Gibt den Namen des Sinks zurück (wird für den Thread-Namen verwendet).
+     * </summary>
+     */
+    String getName();
+
+    /**
+     * <summary>
+     * Level-Filter des Sinks. Wird vor dem Einreihen geprüft,
+     * gefilterte Ereignisse belegen keinen Queue-Platz.
+     * </summary>
+     */
+    boolean isEnabled(LogLevel level);
+
+    /**
+     * <summary>
+     * Gibt den Formatter des Sinks zurück, null für das eingebaute Format.
+     * </summary>
+     */
+    default ILogEventFormatter getFormatter() {
+        return null;
+    }
+
+    /**
+     * <summary>
+     * Schreibt ein Ereignis. Wird ausschließlich vom Writer-Thread
+     * des Sinks aufgerufen; das Ereignis ist nur während des Aufrufs gültig.
+     * </summary>
+     */
+    void write(LogEvent event) throws IOException;
+
+    /**
+     * <summary>
+     * Wird nach jedem Batch aufgerufen.
+     * </summary>
+     */
+    void flush() throws IOException;
+}
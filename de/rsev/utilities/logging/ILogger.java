@@ -1,5 +1,9 @@
 package de.rsev.utilities.logging;
 
+import de.rsev.utilities.logging.BaseLogger.LogLevel;
+
+import java.util.function.Supplier;
+
 /**
  * <summary>
  * Zentrales Logger-Interface für das Utilities-Framework.
@@ -43,4 +47,90 @@ public interface ILogger {
      * </summary>
      */
     void critical(String message);
+
+    /* =========================
+       Level / Lazy Messages
+       ========================= */
+
+    /**
+     * <summary>
+     * Gibt an, ob ein Level aktuell ausgegeben wird.
+     * Erlaubt Aufrufern, teure Nachrichten nur bei Bedarf aufzubauen.
+     * </summary>
+     */
+    default boolean isEnabled(LogLevel level) {
+        return true;
+    }
+
+    /**
+     * <summary>
+     * Gibt an, ob ein Ereignis dieses Levels ausgegeben oder anderweitig
+     * erfasst wird (z.B. im Absturz-Ringpuffer). Die Überladungen mit
+     * Supplier bzw. Format-String bauen die Nachricht genau dann auf.
+     * </summary>
+     */
+    default boolean isRecorded(LogLevel level) {
+        return isEnabled(level);
+    }
+
+    /**
+     * <summary>
+     * Debug-Ausgabe, deren Nachricht nur bei Bedarf erzeugt wird (siehe isRecorded).
+     * </summary>
+     */
+    default void debug(Supplier<String> message) {
+        if (isRecorded(LogLevel.DEBUG))
+            debug(message.get());
+    }
+
+    /**
+     * <summary>
+     * Parametrisierte Debug-Ausgabe (String.format-Syntax).
+     * Formatierung erfolgt nur bei Bedarf (siehe isRecorded).
+     * </summary>
+     */
+    default void debug(String format, Object... args) {
+        if (isRecorded(LogLevel.DEBUG))
+            debug(String.format(format, args));
+    }
+
+    /**
+     * <summary>
+     * Informations-Ausgabe, deren Nachricht nur bei aktivem Level erzeugt wird.
+     * </summary>
+     */
+    default void info(Supplier<String> message) {
+        if (isRecorded(LogLevel.INFO))
+            info(message.get());
+    }
+
+    /**
+     * <summary>
+     * Parametrisierte Informations-Ausgabe (String.format-Syntax).
+     * </summary>
+     */
+    default void info(String format, Object... args) {
+        if (isRecorded(LogLevel.INFO))
+            info(String.format(format, args));
+    }
+
+    /**
+     * <summary>
+     * Warnungs-Ausgabe, deren Nachricht nur bei aktivem Level erzeugt wird.
+     * </summary>
+     */
+    default void warn(Supplier<String> message) {
+        if (isRecorded(LogLevel.WARNING))
+            warn(message.get());
+    }
+
+    /**
+     * <summary>
+     * Parametrisierte Warnungs-Ausgabe (String.format-Syntax).
+     * </summary>
+     */
+    default void warn(String format, Object... args) {
+        if (isRecorded(LogLevel.WARNING))
+            warn(String.format(format, args));
+    }
 }
@@ -0,0 +1,152 @@
+package de.rsev.utilities.logging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <summary>
+ * Komprimiert archivierte Log-Segmente und bereinigt alte Segmente
+ * auf einem eigenen Hintergrund-Thread, sodass loggende Threads
+ * niemals auf Datei-IO der Rotation warten.
+ * </summary>
+ */
+final class LogArchiver {
+
+    /** <summary>Namensschema archivierter Segmente (yyyy-MM-dd-HH-mm-ss[-n].log[.gz]).</summary> */
+    private static final Pattern ARCHIVE_NAME =
+            Pattern.compile("\\d{4}-\\d{2}-\\d{2}-\\d{2}-\\d{2}-\\d{2}(-\\d+)?\\.log(\\.gz)?");
+
+    private final Path directory;
+    private final ExecutorService executor;
+
+    LogArchiver(Path directory) {
+        this.directory = directory;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "rsev-log-archiver");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /* -----------------------------
+       Archive Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Plant Komprimierung (optional) und Bereinigung für ein
+     * frisch rotiertes Segment ein.
+     * </summary>
+     */
+    void submit(Path segment, LogRotationPolicy policy) {
+        executor.execute(() -> {
+            try {
+                if (segment != null && policy != null && policy.isCompress())
+                    compress(segment);
+
+                if (policy != null)
+                    prune(policy);
+            } catch (IOException ex) {
+                System.err.println("[WARNING] Log archiving failed: " + ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * <summary>
+     * Beendet den Archiver und wartet begrenzt auf ausstehende Aufgaben.
+     * </summary>
+     */
+    void shutdown(long timeoutMillis) {
+        executor.shutdown();
+
+        try {
+            executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private void compress(Path segment) throws IOException {
+        if (!Files.exists(segment)) return;
+
+        Path target = segment.resolveSibling(segment.getFileName() + ".gz");
+        Path partial = segment.resolveSibling(segment.getFileName() + ".gz.tmp");
+
+        try (InputStream in = Files.newInputStream(segment);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial), 64 * 1024)) {
+            in.transferTo(out);
+        }
+
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+        Files.delete(segment);
+    }
+
+    /**
+     * <summary>
+     * Löscht die ältesten archivierten Segmente, bis Anzahl
+     * und Gesamtgröße innerhalb der Policy liegen.
+     * </summary>
+     */
+    private void prune(LogRotationPolicy policy) throws IOException {
+        int maxFiles = policy.getMaxArchivedFiles();
+        long maxBytes = policy.getMaxArchivedBytes();
+
+        if (maxFiles <= 0 && maxBytes <= 0) return;
+
+        List<Segment> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path p : stream) {
+                if (!ARCHIVE_NAME.matcher(p.getFileName().toString()).matches()) continue;
+
+                BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class);
+                segments.add(new Segment(p, attrs.lastModifiedTime().toMillis(), attrs.size()));
+            }
+        }
+
+        // Neueste zuerst
+        segments.sort(Comparator.comparingLong((Segment s) -> s.modified).reversed());
+
+        long total = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            Segment s = segments.get(i);
+            total += s.size;
+
+            boolean tooMany = maxFiles > 0 && i >= maxFiles;
+            boolean tooLarge = maxBytes > 0 && total > maxBytes;
+
+            if (tooMany || tooLarge)
+                Files.deleteIfExists(s.path);
+        }
+    }
+
+    private static final class Segment {
+        final Path path;
+        final long modified;
+        final long size;
+
+        Segment(Path path, long modified, long size) {
+            this.path = path;
+            this.modified = modified;
+            this.size = size;
+        }
+    }
+}
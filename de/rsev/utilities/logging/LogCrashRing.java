@@ -0,0 +1,137 @@
+package de.rsev.utilities.logging;
+
+import de.rsev.utilities.logging.BaseLogger.LogLevel;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <summary>
+ * Lock-freier Ringpuffer der letzten N Log-Ereignisse für Absturz-Diagnosen.
+ * Ereignisse werden unabhängig von den Level-Schwellwerten erfasst
+ * und nur bei Bedarf (CRITICAL, unerwartetes Beenden) in eine Datei
+ * geschrieben.
+ *
+ * Jeder Slot ist ein vorab allokiertes LogEvent mit einer Sequenz
+ * nach dem Seqlock-Prinzip: der Schreiber sperrt den Slot per CAS,
+ * befüllt ihn und veröffentlicht die Sequenz; der Leser verwirft
+ * Slots, deren Sequenz sich während des Kopierens geändert hat.
+ * Überholen sich zwei Schreiber auf demselben Slot, gewinnt das
+ * neuere Ereignis: ein älteres wird verworfen, ein neueres wartet
+ * kurz aktiv, bis der ältere Schreiber den Slot freigegeben hat.
+ * Nur wenn dieser länger als SPIN_LIMIT Runden hängt (z.B. weil
+ * sein Thread verdrängt wurde), wird auch das neuere verworfen.
+ * </summary>
+ */
+final class LogCrashRing {
+
+    private static final long WRITING = -1;
+    private static final int SPIN_LIMIT = 1 << 10;
+
+    private final LogEvent[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+
+    LogCrashRing(int capacity) {
+        if (capacity < 2)
+            throw new IllegalArgumentException("Kapazität muss mindestens 2 sein");
+
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+
+        this.slots = new LogEvent[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            slots[i] = new LogEvent();
+            sequences.set(i, i - size);
+        }
+    }
+
+    /* -----------------------------
+       Producer Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Erfasst ein Ereignis. Blockiert nie länger als SPIN_LIMIT
+     * Warterunden.
+     * </summary>
+     */
+    void record(long timestamp, LogLevel level, String loggerName,
+                long threadId, String[] fields, String message) {
+        long index = cursor.getAndIncrement();
+        int slot = (int) (index & mask);
+
+        for (int spins = 0;;) {
+            long seq = sequences.get(slot);
+
+            // Slot wird gerade von einem älteren Schreiber befüllt
+            if (seq == WRITING) {
+                if (++spins > SPIN_LIMIT) return;
+                Thread.onSpinWait();
+                continue;
+            }
+
+            // Slot enthält bereits ein neueres Ereignis
+            if (seq >= index) return;
+
+            if (sequences.compareAndSet(slot, seq, WRITING)) break;
+        }
+
+        slots[slot].set(timestamp, level, null, loggerName, threadId, fields, message);
+        sequences.setRelease(slot, index);
+    }
+
+    /* -----------------------------
+       Dump Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Schreibt alle konsistent lesbaren Ereignisse vom ältesten zum
+     * neuesten als Textzeilen in eine Datei. Schreiber laufen währenddessen
+     * weiter; gerade überschriebene Slots werden übersprungen.
+     * </summary>
+     * @return Anzahl geschriebener Ereignisse.
+     */
+    int dump(Path file) throws IOException {
+        long end = cursor.get();
+        long start = Math.max(0, end - slots.length);
+        int written = 0;
+
+        LogEvent copy = new LogEvent();
+        LogFormatter formatter = LogFormatter.get();
+
+        try (ChannelLogFileWriter writer = new ChannelLogFileWriter(file)) {
+            for (long index = start; index < end; index++) {
+                int slot = (int) (index & mask);
+
+                if (sequences.getAcquire(slot) != index) continue;
+
+                LogEvent event = slots[slot];
+                copy.set(event.timestamp, event.level, null, event.loggerName,
+                        event.threadId, event.fields, event.message);
+
+                VarHandle.acquireFence();
+                if (sequences.get(slot) != index) continue;
+
+                formatter.format(copy.timestamp, copy.level, copy.message, copy.fields);
+                writer.write(formatter.lineBuffer(), 0, formatter.lineLength());
+                written++;
+            }
+
+            writer.flush();
+        }
+
+        return written;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,98 @@
+package de.rsev.utilities.logging;
+
+import de.rsev.utilities.logging.BaseLogger.LogColor;
+import de.rsev.utilities.logging.BaseLogger.LogLevel;
+
+/**
+ * <summary>
+ * Veränderbarer Container für ein einzelnes Log-Ereignis.
+ * Instanzen werden im LogRingBuffer vorab allokiert und
+ * für jedes Ereignis wiederverwendet.
+ * </summary>
+ */
+public final class LogEvent {
+
+    long timestamp;
+    LogLevel level;
+    LogColor color;
+    String loggerName;
+    long threadId;
+    String[] fields;
+    String message;
+
+    LogEvent() {}
+
+    /* -----------------------------
+       Mutator Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Befüllt das Ereignis mit neuen Werten.
+     * </summary>
+     */
+    void set(long timestamp, LogLevel level, LogColor color,
+             String loggerName, long threadId, String[] fields, String message) {
+        this.timestamp = timestamp;
+        this.level = level;
+        this.color = color;
+        this.loggerName = loggerName;
+        this.threadId = threadId;
+        this.fields = fields;
+        this.message = message;
+    }
+
+    /**
+     * <summary>
+     * Gibt Referenzen frei, damit der Slot keine Nachrichten festhält.
+     * </summary>
+     */
+    void clear() {
+        this.color = null;
+        this.loggerName = null;
+        this.fields = null;
+        this.message = null;
+    }
+
+    /* -----------------------------
+       Getter
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Zeitstempel in Nanosekunden seit Epoch.
+     * </summary>
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    public LogColor getColor() {
+        return color;
+    }
+
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    public long getThreadId() {
+        return threadId;
+    }
+
+    /**
+     * <summary>
+     * Strukturierte Felder als abwechselnde Schlüssel/Wert-Paare, oder null.
+     * </summary>
+     */
+    public String[] getFields() {
+        return fields;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
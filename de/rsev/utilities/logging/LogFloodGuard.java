@@ -0,0 +1,273 @@
+package de.rsev.utilities.logging;
+
+import de.rsev.utilities.logging.BaseLogger.LogLevel;
+
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <summary>
+ * Lock-freie Flut-Unterdrückung im Log-Pfad (siehe LogFloodPolicy).
+ *
+ * Der Token-Bucket ist als GCRA umgesetzt: pro Template-Slot genügt
+ * ein einzelner per CAS aktualisierter Zeitpunkt. Templates, deren
+ * Hash auf denselben Slot fällt, teilen sich einen Bucket.
+ * Der Zusammenfasser hält pro Template-Slot den letzten Eintrag;
+ * der ersetzende Thread schließt dessen Zähler per getAndSet, sodass
+ * keine Wiederholung verloren geht. Abwechselnde Nachrichten
+ * verschiedener Templates werden so jeweils für sich zusammengefasst.
+ * Ein Timer gibt offene Zusammenfassungen spätestens nach Ablauf
+ * des Zeitfensters aus, auch wenn keine weitere Nachricht folgt.
+ * </summary>
+ */
+final class LogFloodGuard {
+
+    private static final int SLOTS = 4096;
+    private static final int TEMPLATE_CHARS = 256;
+    private static final long MIN_SWEEP_MILLIS = 100;
+
+    private final long origin = System.nanoTime();
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final long windowNanos;
+    private final boolean collapse;
+
+    /** <summary>Theoretischer nächster Ankunftszeitpunkt pro Slot (GCRA).</summary> */
+    private final AtomicLongArray arrivals;
+
+    /** <summary>Seit der letzten Ausgabe unterdrückte Ereignisse pro Slot.</summary> */
+    private final AtomicLongArray pending;
+
+    /** <summary>Zuletzt ausgegebene Nachricht pro Slot, null = keine.</summary> */
+    private final AtomicReferenceArray<Repeat> repeats;
+
+    /** <summary>Gibt abgelaufene Zusammenfassungen aus, null ohne Zeitfenster.</summary> */
+    private final ScheduledExecutorService sweeper;
+
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+
+    LogFloodGuard(LogFloodPolicy policy) {
+        int rate = policy.getMaxPerSecond();
+
+        this.intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        this.toleranceNanos = intervalNanos * Math.max(0, policy.getBurst() - 1);
+        this.windowNanos = policy.getCollapseWindowMillis() > 0
+                ? TimeUnit.MILLISECONDS.toNanos(policy.getCollapseWindowMillis())
+                : Long.MAX_VALUE;
+        this.collapse = policy.isCollapseRepeats();
+
+        this.arrivals = rate > 0 ? new AtomicLongArray(SLOTS) : null;
+        this.pending = rate > 0 ? new AtomicLongArray(SLOTS) : null;
+        this.repeats = collapse ? new AtomicReferenceArray<>(SLOTS) : null;
+
+        if (collapse && policy.getCollapseWindowMillis() > 0) {
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "rsev-log-flood-sweeper");
+                t.setDaemon(true);
+                return t;
+            });
+
+            long period = Math.max(MIN_SWEEP_MILLIS, policy.getCollapseWindowMillis() / 4);
+            sweeper.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.sweeper = null;
+        }
+    }
+
+    /* -----------------------------
+       Hot Path
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Prüft, ob ein Ereignis ausgegeben werden darf.
+     * </summary>
+     * @return -1 zum Unterdrücken, sonst die Anzahl der seit der letzten
+     *         Ausgabe per Rate-Limit unterdrückten Ereignisse dieses Templates.
+     */
+    long admit(LogLevel level, String loggerName, String message) {
+        if (!collapse && arrivals == null)
+            return 0;
+
+        long now = System.nanoTime() - origin;
+        int slot = slot(level, loggerName, message);
+
+        if (collapse && isRepeat(slot, level, loggerName, message, now))
+            return -1;
+
+        if (arrivals == null)
+            return 0;
+
+        for (;;) {
+            long tat = arrivals.get(slot);
+            long base = Math.max(tat, now);
+
+            if (base - now > toleranceNanos) {
+                pending.incrementAndGet(slot);
+                rateLimited.increment();
+                return -1;
+            }
+
+            if (arrivals.compareAndSet(slot, tat, base + intervalNanos))
+                break;
+        }
+
+        // Nur schreiben, wenn tatsächlich etwas unterdrückt wurde
+        return pending.get(slot) > 0 ? pending.getAndSet(slot, 0) : 0;
+    }
+
+    /**
+     * <summary>
+     * Zählt eine Wiederholung des letzten Eintrags im Slot oder ersetzt ihn.
+     * Beim Ersetzen wird die Zusammenfassung des alten Eintrags ausgegeben.
+     * </summary>
+     */
+    private boolean isRepeat(int slot, LogLevel level, String loggerName, String message, long now) {
+        for (;;) {
+            Repeat current = repeats.get(slot);
+
+            if (current != null && current.matches(level, loggerName, message)
+                    && now - current.since < windowNanos) {
+
+                if (current.count.incrementAndGet() > 0) {
+                    collapsed.increment();
+                    return true;
+                }
+                continue; // Eintrag wurde gerade geschlossen
+            }
+
+            Repeat next = new Repeat(level, loggerName, message, now);
+            if (repeats.compareAndSet(slot, current, next)) {
+                if (current != null)
+                    current.close();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * <summary>
+     * Gibt die Zusammenfassungen aller Einträge aus, deren Zeitfenster
+     * abgelaufen ist. Läuft auf dem Timer-Thread.
+     * </summary>
+     */
+    private void sweep() {
+        long now = System.nanoTime() - origin;
+
+        for (int slot = 0; slot < SLOTS; slot++) {
+            Repeat current = repeats.get(slot);
+
+            if (current != null && now - current.since >= windowNanos
+                    && repeats.compareAndSet(slot, current, null))
+                current.close();
+        }
+    }
+
+    /**
+     * <summary>
+     * Beendet den Timer und gibt alle noch offenen
+     * Wiederholungs-Zusammenfassungen aus (z. B. bei close()).
+     * </summary>
+     */
+    void close() {
+        if (sweeper != null)
+            sweeper.shutdownNow();
+
+        if (repeats == null)
+            return;
+
+        for (int slot = 0; slot < SLOTS; slot++) {
+            Repeat current = repeats.getAndSet(slot, null);
+            if (current != null)
+                current.close();
+        }
+    }
+
+    /* -----------------------------
+       Accessor Methods
+       ----------------------------- */
+
+    long getRateLimitedCount() {
+        return rateLimited.sum();
+    }
+
+    long getCollapsedCount() {
+        return collapsed.sum();
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Berechnet den Slot eines Templates. Ziffernfolgen werden
+     * zu einem Platzhalter zusammengefasst, sodass z. B.
+     * "Versuch 17" und "Versuch 18" denselben Bucket verwenden.
+     * </summary>
+     */
+    private static int slot(LogLevel level, String loggerName, String message) {
+        int h = 31 * level.value() + (loggerName != null ? loggerName.hashCode() : 0);
+
+        if (message != null) {
+            int len = Math.min(message.length(), TEMPLATE_CHARS);
+            boolean digits = false;
+
+            for (int i = 0; i < len; i++) {
+                char c = message.charAt(i);
+
+                if (c >= '0' && c <= '9') {
+                    if (!digits) h = 31 * h + '#';
+                    digits = true;
+                } else {
+                    h = 31 * h + c;
+                    digits = false;
+                }
+            }
+        }
+
+        h ^= h >>> 16;
+        return h & (SLOTS - 1);
+    }
+
+    /**
+     * <summary>
+     * Zuletzt ausgegebene Nachricht eines Slots mit Wiederholungszähler.
+     * Long.MIN_VALUE im Zähler markiert einen geschlossenen Eintrag.
+     * </summary>
+     */
+    private static final class Repeat {
+        final LogLevel level;
+        final String loggerName;
+        final String message;
+        final long since;
+        final AtomicLong count = new AtomicLong();
+
+        Repeat(LogLevel level, String loggerName, String message, long since) {
+            this.level = level;
+            this.loggerName = loggerName;
+            this.message = message;
+            this.since = since;
+        }
+
+        boolean matches(LogLevel level, String loggerName, String message) {
+            return this.level == level
+                    && Objects.equals(this.loggerName, loggerName)
+                    && Objects.equals(this.message, message);
+        }
+
+        void close() {
+            long repeats = count.getAndSet(Long.MIN_VALUE);
+            if (repeats > 0)
+                BaseLogger.logRepeated(level, loggerName, message, repeats);
+        }
+    }
+}
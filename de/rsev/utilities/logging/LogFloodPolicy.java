@@ -0,0 +1,49 @@
+package de.rsev.utilities.logging;
+
+/**
+ * <summary>
+ * Enthält alle Parameter für die Unterdrückung von Log-Fluten.
+ * Wiederholte identische Nachrichten werden je Template zu einer
+ * "last message repeated N times"-Zeile zusammengefasst, die spätestens
+ * nach collapseWindowMillis ausgegeben wird;
+ * zusätzlich begrenzt ein Token-Bucket pro Nachrichten-Template
+ * (Nachricht ohne Ziffern, Level, Logger) die Rate.
+ * Ein Wert von 0 deaktiviert das jeweilige Kriterium.
+ * </summary>
+ */
+public class LogFloodPolicy {
+
+    /** <summary>Dauerhaft erlaubte Ereignisse pro Sekunde und Template.</summary> */
+    private int maxPerSecond = 0;
+
+    /** <summary>Anzahl Ereignisse, die ein Template kurzzeitig über der Rate senden darf.</summary> */
+    private int burst = 10;
+
+    /** <summary>Wiederholte identische Nachrichten je Template zusammenfassen.</summary> */
+    private boolean collapseRepeats = true;
+
+    /**
+     * <summary>
+     * Spätestens nach dieser Zeit wird die Zusammenfassung ausgegeben und
+     * eine Wiederholung wieder geschrieben. 0 = ohne Zeitgrenze (Ausgabe
+     * erst bei einer anderen Nachricht desselben Templates oder close()).
+     * </summary>
+     */
+    private long collapseWindowMillis = 30_000;
+
+    /* -----------------------------
+       Getter / Setter
+       ----------------------------- */
+
+    public int getMaxPerSecond() { return maxPerSecond; }
+    public void setMaxPerSecond(int maxPerSecond) { this.maxPerSecond = maxPerSecond; }
+
+    public int getBurst() { return burst; }
+    public void setBurst(int burst) { this.burst = burst; }
+
+    public boolean isCollapseRepeats() { return collapseRepeats; }
+    public void setCollapseRepeats(boolean collapseRepeats) { this.collapseRepeats = collapseRepeats; }
+
+    public long getCollapseWindowMillis() { return collapseWindowMillis; }
+    public void setCollapseWindowMillis(long collapseWindowMillis) { this.collapseWindowMillis = collapseWindowMillis; }
+}
@@ -0,0 +1,264 @@
+package de.rsev.utilities.logging;
+
+import de.rsev.utilities.logging.BaseLogger.LogLevel;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * <summary>
+ * Allokationsfreier Formatter für Log-Zeilen.
+ * Erzeugt das Format "[dd-MM HH:mm:ss] - [LEVEL] -> Nachricht [key=value ...]"
+ * direkt als UTF-8-Bytes in einem wiederverwendeten Puffer.
+ *
+ * Der Zeitstempel-Präfix wird pro Sekunde einmal berechnet und
+ * zwischen allen Threads geteilt; jeder Thread besitzt einen
+ * eigenen Formatter (ThreadLocal), sodass ein Log-Aufruf im
+ * eingeschwungenen Zustand nichts außer der Nachricht allokiert.
+ * </summary>
+ */
+final class LogFormatter {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("dd-MM HH:mm:ss");
+
+    private static final byte[] NEWLINE =
+            System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    static final byte[] ANSI_RESET =
+            "\u001B[0m".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NULL_MESSAGE =
+            "null".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[][] LEVEL_PARTS = new byte[LogLevel.values().length][];
+
+    static {
+        for (LogLevel level : LogLevel.values()) {
+            LEVEL_PARTS[level.value()] = ("[" + BaseLogger.levelName(level) + "] -> ")
+                    .getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private static final ThreadLocal<LogFormatter> LOCAL =
+            ThreadLocal.withInitial(LogFormatter::new);
+
+    /** <summary>Zuletzt berechneter Sekunden-Präfix, geteilt zwischen allen Threads.</summary> */
+    private static volatile Prefix prefix = new Prefix(Long.MIN_VALUE, new byte[0]);
+
+    private byte[] line = new byte[256];
+    private int contentLength;
+    private int lineLength;
+
+    private byte[] console = new byte[256];
+    private int consoleLength;
+
+    private LogFormatter() {}
+
+    /**
+     * <summary>
+     * Gibt den Formatter des aktuellen Threads zurück.
+     * </summary>
+     */
+    static LogFormatter get() {
+        return LOCAL.get();
+    }
+
+    /* -----------------------------
+       Formatting Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Formatiert eine Log-Zeile inklusive Zeilenumbruch in den internen Puffer.
+     * </summary>
+     */
+    void format(long timestamp, LogLevel level, String message, String[] fields) {
+        byte[] ts = timestampPrefix(timestamp);
+        byte[] lv = LEVEL_PARTS[level.value()];
+
+        int pos = 0;
+        pos = append(ts, pos);
+        pos = append(lv, pos);
+
+        pos = encode(message, pos);
+
+        if (fields != null) {
+            for (int i = 0; i + 1 < fields.length; i += 2) {
+                pos = appendByte((byte) ' ', pos);
+                pos = encode(fields[i], pos);
+                pos = appendByte((byte) '=', pos);
+                pos = encode(fields[i + 1], pos);
+            }
+        }
+
+        contentLength = pos;
+        lineLength = append(NEWLINE, pos);
+    }
+
+    /**
+     * <summary>
+     * Baut die Konsolenzeile aus der zuletzt formatierten Zeile,
+     * optional umschlossen von einer ANSI-Farbsequenz.
+     * </summary>
+     */
+    void formatConsole(byte[] ansi) {
+        int needed = contentLength + NEWLINE.length
+                + (ansi != null ? ansi.length + ANSI_RESET.length : 0);
+
+        if (console.length < needed)
+            console = new byte[Math.max(needed, console.length << 1)];
+
+        int pos = 0;
+        if (ansi != null) {
+            System.arraycopy(ansi, 0, console, 0, ansi.length);
+            pos = ansi.length;
+        }
+
+        System.arraycopy(line, 0, console, pos, contentLength);
+        pos += contentLength;
+
+        if (ansi != null) {
+            System.arraycopy(ANSI_RESET, 0, console, pos, ANSI_RESET.length);
+            pos += ANSI_RESET.length;
+        }
+
+        System.arraycopy(NEWLINE, 0, console, pos, NEWLINE.length);
+        consoleLength = pos + NEWLINE.length;
+    }
+
+    /* -----------------------------
+       Accessor Methods
+       ----------------------------- */
+
+    byte[] lineBuffer() {
+        return line;
+    }
+
+    int lineLength() {
+        return lineLength;
+    }
+
+    byte[] consoleBuffer() {
+        return console;
+    }
+
+    int consoleLength() {
+        return consoleLength;
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Liefert den Präfix "[dd-MM HH:mm:ss] - " für die Sekunde des
+     * Zeitstempels (Epoch-Nanosekunden).
+     * Wird nur bei einem Sekundenwechsel neu berechnet.
+     * </summary>
+     */
+    private static byte[] timestampPrefix(long timestamp) {
+        long second = Math.floorDiv(timestamp, 1_000_000_000L);
+
+        Prefix current = prefix;
+        if (current.second == second)
+            return current.bytes;
+
+        String ts = LocalDateTime
+                .ofInstant(Instant.ofEpochSecond(second), ZoneId.systemDefault())
+                .format(TIMESTAMP_FORMAT);
+
+        current = new Prefix(second, ("[" + ts + "] - ").getBytes(StandardCharsets.US_ASCII));
+        prefix = current;
+        return current.bytes;
+    }
+
+    private int append(byte[] src, int pos) {
+        ensureCapacity(pos + src.length);
+        System.arraycopy(src, 0, line, pos, src.length);
+        return pos + src.length;
+    }
+
+    private int appendByte(byte b, int pos) {
+        ensureCapacity(pos + 1);
+        line[pos] = b;
+        return pos + 1;
+    }
+
+    /**
+     * <summary>
+     * Kodiert einen String direkt als UTF-8 in den Zeilenpuffer.
+     * </summary>
+     */
+    private int encode(String value, int pos) {
+        if (value == null)
+            return append(NULL_MESSAGE, pos);
+
+        ensureCapacity(pos + value.length() * 3 + NEWLINE.length);
+        return encodeUtf8(value, line, pos);
+    }
+
+    /**
+     * <summary>
+     * Kodiert einen String als UTF-8 in ein Byte-Array.
+     * Aufrufer muss mindestens value.length() * 3 Bytes Platz sicherstellen.
+     * </summary>
+     * @return Position hinter dem letzten geschriebenen Byte.
+     */
+    static int encodeUtf8(String value, byte[] buf, int pos) {
+        int len = value.length();
+
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buf[pos++] = (byte) '?';
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        return pos;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (line.length < needed) {
+            byte[] grown = new byte[Math.max(needed, line.length << 1)];
+            System.arraycopy(line, 0, grown, 0, line.length);
+            line = grown;
+        }
+    }
+
+    /**
+     * <summary>
+     * Unveränderlicher Cache-Eintrag für den Sekunden-Präfix.
+     * </summary>
+     */
+    private static final class Prefix {
+        final long second;
+        final byte[] bytes;
+
+        Prefix(long second, byte[] bytes) {
+            this.second = second;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package de.rsev.utilities.logging;
+
+import de.rsev.utilities.logging.BaseLogger.LogLevel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * <summary>
+ * Liest Binär-Log-Dateien (BaseLogger.LogFormat.BINARY).
+ * Unkomprimierte Dateien werden per Memory-Mapping gelesen,
+ * archivierte .gz-Segmente gestreamt.
+ *
+ * Zeitbereichs- und Level-Filter werden auf dem festen Record-Kopf
+ * ausgewertet; nicht passende Records werden übersprungen, ohne
+ * Logger-Name, Felder oder Nachricht zu dekodieren.
+ * </summary>
+ */
+public class LogReader implements Closeable {
+
+    private static final int STREAM_BUFFER_SIZE = 256 * 1024;
+    private static final LogLevel[] LEVELS = LogLevel.values();
+
+    private final ReadableByteChannel source;
+    private ByteBuffer buffer;
+    private byte[] scratch = new byte[256];
+
+    private long fromNanos = Long.MIN_VALUE;
+    private long toNanos = Long.MAX_VALUE;
+    private int minSeverity = Integer.MIN_VALUE;
+
+    /**
+     * <summary>
+     * Öffnet eine Binär-Log-Datei (.log oder .log.gz).
+     * </summary>
+     */
+    public LogReader(Path file) throws IOException {
+        String name = file.getFileName().toString();
+
+        if (name.endsWith(".gz")) {
+            this.source = Channels.newChannel(
+                    new GZIPInputStream(Files.newInputStream(file), 64 * 1024));
+            this.buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+            this.buffer.limit(0);
+        } else {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            long size = channel.size();
+
+            if (size <= Integer.MAX_VALUE) {
+                this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                this.source = null;
+                channel.close();
+            } else {
+                this.source = channel;
+                this.buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+                this.buffer.limit(0);
+            }
+        }
+
+        readMagic();
+    }
+
+    /* -----------------------------
+       Filter Configuration
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Beschränkt die Ausgabe auf einen Zeitbereich (Epoch-Nanosekunden, inklusiv).
+     * </summary>
+     */
+    public void setTimeRange(long fromNanos, long toNanos) {
+        this.fromNanos = fromNanos;
+        this.toNanos = toNanos;
+    }
+
+    /**
+     * <summary>
+     * Beschränkt die Ausgabe auf einen Zeitbereich; null = offen.
+     * </summary>
+     */
+    public void setTimeRange(Instant from, Instant to) {
+        setTimeRange(
+                from != null ? toNanos(from) : Long.MIN_VALUE,
+                to != null ? toNanos(to) : Long.MAX_VALUE
+        );
+    }
+
+    /**
+     * <summary>
+     * Liefert nur Records mit mindestens diesem Level.
+     * </summary>
+     */
+    public void setMinLevel(LogLevel level) {
+        this.minSeverity = level != null ? level.severity() : Integer.MIN_VALUE;
+    }
+
+    /* -----------------------------
+       Read Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Gibt den nächsten passenden Record zurück oder null am Dateiende.
+     * </summary>
+     */
+    public LogRecord next() throws IOException {
+        for (;;) {
+            if (!ensure(4)) return null;
+
+            int length = buffer.getInt();
+
+            // Null-Bytes am Ende eines vorab allokierten Segments
+            if (length <= 0) return null;
+
+            if (!ensure(BinaryLogEncoder.FIXED_HEADER)) return null;
+
+            int start = buffer.position();
+            long timestamp = buffer.getLong(start);
+            int levelValue = buffer.get(start + 8);
+
+            if (timestamp < fromNanos || timestamp > toNanos
+                    || levelOf(levelValue).severity() < minSeverity) {
+                skip(length);
+                continue;
+            }
+
+            if (!ensure(length)) return null;
+            return decode();
+        }
+    }
+
+    /**
+     * <summary>
+     * Ruft den Consumer für jeden passenden Record auf.
+     * </summary>
+     */
+    public void forEach(Consumer<LogRecord> consumer) throws IOException {
+        LogRecord record;
+        while ((record = next()) != null)
+            consumer.accept(record);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (source != null)
+            source.close();
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private void readMagic() throws IOException {
+        byte[] magic = BinaryLogEncoder.MAGIC;
+
+        if (!ensure(magic.length))
+            throw new IOException("Keine Binär-Log-Datei");
+
+        for (byte b : magic) {
+            if (buffer.get() != b)
+                throw new IOException("Keine Binär-Log-Datei");
+        }
+    }
+
+    private LogRecord decode() {
+        long timestamp = buffer.getLong();
+        LogLevel level = levelOf(buffer.get());
+        long threadId = buffer.getLong();
+
+        String loggerName = readString(buffer.getShort() & 0xFFFF);
+
+        int fieldCount = buffer.getShort() & 0xFFFF;
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < fieldCount; i++) {
+            String key = readString(buffer.getShort() & 0xFFFF);
+            String value = readString(buffer.getInt());
+            fields.put(key, value);
+        }
+
+        String message = readString(buffer.getInt());
+
+        return new LogRecord(timestamp, level, threadId,
+                loggerName.isEmpty() ? null : loggerName, fields, message);
+    }
+
+    private String readString(int length) {
+        if (length == 0) return "";
+
+        if (scratch.length < length)
+            scratch = new byte[Math.max(length, scratch.length << 1)];
+
+        buffer.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * <summary>
+     * Stellt sicher, dass mindestens n Bytes im Puffer verfügbar sind.
+     * Im Stream-Modus wird nachgeladen und der Puffer bei Bedarf vergrößert.
+     * </summary>
+     */
+    private boolean ensure(int n) throws IOException {
+        if (buffer.remaining() >= n) return true;
+        if (source == null) return false;
+
+        if (buffer.capacity() < n) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(n, buffer.capacity() << 1));
+            grown.put(buffer);
+            buffer = grown;
+        } else {
+            buffer.compact();
+        }
+
+        while (buffer.position() < n) {
+            if (source.read(buffer) < 0) break;
+        }
+
+        buffer.flip();
+        return buffer.remaining() >= n;
+    }
+
+    private void skip(int n) throws IOException {
+        while (n > buffer.remaining()) {
+            n -= buffer.remaining();
+            buffer.position(buffer.limit());
+
+            if (!ensure(1)) return;
+        }
+
+        buffer.position(buffer.position() + n);
+    }
+
+    private static LogLevel levelOf(int value) {
+        return value >= 0 && value < LEVELS.length ? LEVELS[value] : LogLevel.INFO;
+    }
+
+    private static long toNanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+}
@@ -0,0 +1,91 @@
+package de.rsev.utilities.logging;
+
+import de.rsev.utilities.logging.BaseLogger.LogLevel;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <summary>
+ * Unveränderlicher, vom LogReader dekodierter Log-Eintrag
+ * aus einer Binär-Log-Datei.
+ * </summary>
+ */
+public final class LogRecord {
+
+    private final long timestamp;
+    private final LogLevel level;
+    private final long threadId;
+    private final String loggerName;
+    private final Map<String, String> fields;
+    private final String message;
+
+    LogRecord(long timestamp, LogLevel level, long threadId,
+              String loggerName, Map<String, String> fields, String message) {
+        this.timestamp = timestamp;
+        this.level = level;
+        this.threadId = threadId;
+        this.loggerName = loggerName;
+        this.fields = Collections.unmodifiableMap(fields);
+        this.message = message;
+    }
+
+    /**
+     * <summary>
+     * Erstellt eine unveränderliche Kopie eines Ereignisses aus dem Ringpuffer.
+     * </summary>
+     */
+    static LogRecord of(LogEvent event) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        String[] kv = event.fields;
+
+        if (kv != null) {
+            for (int i = 0; i + 1 < kv.length; i += 2)
+                fields.put(kv[i], kv[i + 1]);
+        }
+
+        return new LogRecord(event.timestamp, event.level, event.threadId,
+                event.loggerName, fields, event.message);
+    }
+
+    /* -----------------------------
+       Getter
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Zeitstempel in Nanosekunden seit Epoch.
+     * </summary>
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    public long getThreadId() {
+        return threadId;
+    }
+
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    public Map<String, String> getFields() {
+        return fields;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return timestamp + " [" + BaseLogger.levelName(level) + "] "
+                + (loggerName != null ? loggerName + " " : "")
+                + message + (fields.isEmpty() ? "" : " " + fields);
+    }
+}
@@ -0,0 +1,149 @@
+package de.rsev.utilities.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <summary>
+ * Begrenzter, vorab allokierter Ringpuffer für Log-Ereignisse.
+ * Mehrere Produzenten reservieren Slots lock-frei über eine
+ * Sequenznummer pro Slot; der Konsument gibt gelesene Slots
+ * wieder frei. Es werden keine Ereignis-Objekte pro Nachricht erzeugt.
+ * </summary>
+ */
+final class LogRingBuffer {
+
+    private final LogEvent[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * <summary>
+     * Erstellt einen Ringpuffer. Die Kapazität wird auf die
+     * nächste Zweierpotenz aufgerundet.
+     * </summary>
+     */
+    LogRingBuffer(int capacity) {
+        if (capacity < 2)
+            throw new IllegalArgumentException("Kapazität muss mindestens 2 sein");
+
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+
+        this.slots = new LogEvent[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            slots[i] = new LogEvent();
+            sequences.set(i, i);
+        }
+    }
+
+    /* -----------------------------
+       Producer Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Reserviert einen Slot zum Schreiben.
+     * Liefert die Position oder -1, wenn der Puffer voll ist.
+     * </summary>
+     */
+    long tryClaim() {
+        long pos = tail.get();
+
+        for (;;) {
+            long seq = sequences.get((int) (pos & mask));
+            long diff = seq - pos;
+
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1))
+                    return pos;
+                pos = tail.get();
+            } else if (diff < 0) {
+                return -1;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * <summary>
+     * Gibt einen beschriebenen Slot für den Konsumenten frei.
+     * </summary>
+     */
+    void publish(long pos) {
+        sequences.set((int) (pos & mask), pos + 1);
+    }
+
+    /* -----------------------------
+       Consumer Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Reserviert den ältesten veröffentlichten Slot zum Lesen.
+     * Liefert die Position oder -1, wenn der Puffer leer ist.
+     * Kann auch von Produzenten aufgerufen werden (Drop-Oldest).
+     * </summary>
+     */
+    long tryConsume() {
+        long pos = head.get();
+
+        for (;;) {
+            long seq = sequences.get((int) (pos & mask));
+            long diff = seq - (pos + 1);
+
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1))
+                    return pos;
+                pos = head.get();
+            } else if (diff < 0) {
+                return -1;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /**
+     * <summary>
+     * Gibt einen gelesenen Slot zur erneuten Verwendung frei.
+     * </summary>
+     */
+    void release(long pos) {
+        int idx = (int) (pos & mask);
+        slots[idx].clear();
+        sequences.set(idx, pos + slots.length);
+    }
+
+    /* -----------------------------
+       Accessor Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Gibt das Ereignis an einer reservierten Position zurück.
+     * </summary>
+     */
+    LogEvent get(long pos) {
+        return slots[(int) (pos & mask)];
+    }
+
+    /**
+     * <summary>
+     * Gibt an, ob aktuell keine Ereignisse zur Verarbeitung anstehen.
+     * </summary>
+     */
+    boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,46 @@
+package de.rsev.utilities.logging;
+
+/**
+ * <summary>
+ * Enthält alle Parameter für die Rotation der Log-Datei.
+ * Die Rotation wird vom schreibenden Thread nach jedem Flush geprüft;
+ * Komprimierung und Bereinigung alter Segmente laufen im Hintergrund.
+ * Ein Wert von 0 deaktiviert das jeweilige Kriterium.
+ * </summary>
+ */
+public class LogRotationPolicy {
+
+    /** <summary>Maximale Größe von latest.log in Bytes.</summary> */
+    private long maxFileBytes = 0;
+
+    /** <summary>Maximales Alter von latest.log in Millisekunden.</summary> */
+    private long maxFileAgeMillis = 0;
+
+    /** <summary>Maximale Anzahl archivierter Segmente.</summary> */
+    private int maxArchivedFiles = 0;
+
+    /** <summary>Maximale Gesamtgröße aller archivierten Segmente in Bytes.</summary> */
+    private long maxArchivedBytes = 0;
+
+    /** <summary>Archivierte Segmente mit GZIP komprimieren.</summary> */
+    private boolean compress = true;
+
+    /* -----------------------------
+       Getter / Setter
+       ----------------------------- */
+
+    public long getMaxFileBytes() { return maxFileBytes; }
+    public void setMaxFileBytes(long maxFileBytes) { this.maxFileBytes = maxFileBytes; }
+
+    public long getMaxFileAgeMillis() { return maxFileAgeMillis; }
+    public void setMaxFileAgeMillis(long maxFileAgeMillis) { this.maxFileAgeMillis = maxFileAgeMillis; }
+
+    public int getMaxArchivedFiles() { return maxArchivedFiles; }
+    public void setMaxArchivedFiles(int maxArchivedFiles) { this.maxArchivedFiles = maxArchivedFiles; }
+
+    public long getMaxArchivedBytes() { return maxArchivedBytes; }
+    public void setMaxArchivedBytes(long maxArchivedBytes) { this.maxArchivedBytes = maxArchivedBytes; }
+
+    public boolean isCompress() { return compress; }
+    public void setCompress(boolean compress) { this.compress = compress; }
+}
@@ -1,7 +1,14 @@
 package de.rsev.utilities.logging;
 
+import de.rsev.utilities.logging.BaseLogger.LogLevel;
+
 public class LoggerAdapter implements ILogger {
 
+    @Override
+    public boolean isEnabled(LogLevel level) {
+        return BaseLogger.isLoggable(level);
+    }
+
     @Override
     public void debug(String message) {
         BaseLogger baseLogger = new BaseLogger();
@@ -27,13 +34,13 @@ public class LoggerAdapter implements ILogger {
 
     @Override
     public void error(String message, Throwable throwable) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'error'");
+        BaseLogger baseLogger = new BaseLogger();
+        baseLogger.error(message, throwable);
     }
 
     @Override
     public void critical(String message) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'critical'");
+        BaseLogger baseLogger = new BaseLogger();
+        baseLogger.critical(message);
     }
 }
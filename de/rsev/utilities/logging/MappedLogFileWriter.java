@@ -0,0 +1,167 @@
+package de.rsev.utilities.logging;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <summary>
+ * Schreibt Log-Zeilen in ein vorab allokiertes, speicherabgebildetes
+ * Segment (FileChannel.map). Ein Schreibzugriff ist ein reiner
+ * Speicher-Kopiervorgang ohne Systemaufruf; die Daten liegen sofort
+ * im Page-Cache und überleben damit einen Absturz der JVM.
+ *
+ * Wie oft die Seiten zusätzlich per force() auf den Datenträger
+ * geschrieben werden, steuern forceIntervalMillis und forceBytes
+ * (0 = nie); die Policy wird bei jedem write() ausgewertet, damit
+ * sie auch in LogDurability.NONE greift, wo kein flush() erfolgt.
+ * Ist das Segment voll, meldet isSegmentFull() die
+ * Rotation an; übergroße Zeilen erweitern die Abbildung.
+ * Die Methoden sind synchronisiert, da sync() ohne WRITE_LOCK läuft.
+ * </summary>
+ */
+final class MappedLogFileWriter implements ILogFileWriter {
+
+    private final FileChannel channel;
+    private final long segmentBytes;
+    private final long forceIntervalMillis;
+    private final long forceBytes;
+    private final long openedAt = System.currentTimeMillis();
+
+    private MappedByteBuffer buffer;
+    private long bufferOffset;
+
+    private int forcedPosition;
+    private long lastForce = openedAt;
+
+    MappedLogFileWriter(Path path, long segmentBytes, long forceIntervalMillis, long forceBytes)
+            throws IOException {
+
+        if (segmentBytes <= 0 || segmentBytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Ungültige Segmentgröße: " + segmentBytes);
+
+        this.segmentBytes = segmentBytes;
+        this.forceIntervalMillis = forceIntervalMillis;
+        this.forceBytes = forceBytes;
+
+        this.channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+
+        // Bestehenden Inhalt fortsetzen (latest.log ist nach der Rotation leer)
+        map(channel.size(), segmentBytes);
+    }
+
+    /* -----------------------------
+       IO Methods
+       ----------------------------- */
+
+    @Override
+    public synchronized void write(byte[] src, int offset, int length) throws IOException {
+        if (length > buffer.remaining()) {
+            force();
+            map(size(), Math.max(length, segmentBytes));
+        }
+
+        buffer.put(src, offset, length);
+        forceIfDue();
+    }
+
+    /**
+     * <summary>
+     * Daten sind nach write() bereits im Page-Cache sichtbar;
+     * hier wird nur die konfigurierte force()-Policy ausgewertet.
+     * </summary>
+     */
+    @Override
+    public synchronized void flush() {
+        forceIfDue();
+    }
+
+    /**
+     * <summary>
+     * Erzwingt die Seiten, sobald forceBytes oder forceIntervalMillis
+     * erreicht ist.
+     * </summary>
+     */
+    private void forceIfDue() {
+        int unforced = buffer.position() - forcedPosition;
+        if (unforced == 0) return;
+
+        boolean byBytes = forceBytes > 0 && unforced >= forceBytes;
+        boolean byTime = forceIntervalMillis > 0
+                && System.currentTimeMillis() - lastForce >= forceIntervalMillis;
+
+        if (byBytes || byTime)
+            force();
+    }
+
+    /**
+     * <summary>
+     * Schreibt alle noch nicht erzwungenen Seiten auf den Datenträger.
+     * </summary>
+     */
+    synchronized void force() {
+        int position = buffer.position();
+        if (position > forcedPosition)
+            buffer.force(forcedPosition, position - forcedPosition);
+
+        forcedPosition = position;
+        lastForce = System.currentTimeMillis();
+    }
+
+    @Override
+    public void sync() {
+        force();
+    }
+
+    @Override
+    public synchronized long size() {
+        return bufferOffset + buffer.position();
+    }
+
+    @Override
+    public long openedAt() {
+        return openedAt;
+    }
+
+    @Override
+    public synchronized boolean isSegmentFull() {
+        return size() >= segmentBytes;
+    }
+
+    /**
+     * <summary>
+     * Erzwingt die restlichen Seiten und kürzt die Datei auf die
+     * tatsächlich geschriebene Länge. Schlägt das Kürzen fehl
+     * (z. B. unter Windows bei aktiver Abbildung), bleiben
+     * Null-Bytes am Dateiende, die beim nächsten Start entfernt werden.
+     * </summary>
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            force();
+            channel.truncate(size());
+        } catch (IOException ignored) {
+            // Null-Bytes werden von BaseLogger.trimPreallocated() entfernt
+        } finally {
+            channel.close();
+        }
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private void map(long offset, long length) throws IOException {
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, offset, length);
+        this.bufferOffset = offset;
+        this.forcedPosition = 0;
+    }
+}
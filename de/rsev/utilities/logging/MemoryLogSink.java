@@ -0,0 +1,65 @@
+package de.rsev.utilities.logging;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <summary>
+ * Hält die letzten N Ereignisse im Speicher, z. B. für eine
+ * Diagnose-Ansicht oder Tests. Ältere Einträge werden überschrieben.
+ * </summary>
+ */
+public class MemoryLogSink extends BaseLogSink {
+
+    private final LogRecord[] records;
+    private int next;
+    private long total;
+
+    public MemoryLogSink(int capacity) {
+        super("memory");
+
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Ungültige Kapazität: " + capacity);
+
+        this.records = new LogRecord[capacity];
+    }
+
+    @Override
+    public synchronized void write(LogEvent event) {
+        records[next] = LogRecord.of(event);
+        next = (next + 1) % records.length;
+        total++;
+    }
+
+    /**
+     * <summary>
+     * Gibt die gehaltenen Einträge vom ältesten zum neuesten zurück.
+     * </summary>
+     */
+    public synchronized List<LogRecord> getRecords() {
+        int count = (int) Math.min(total, records.length);
+        List<LogRecord> result = new ArrayList<>(count);
+
+        int start = (next - count + records.length) % records.length;
+        for (int i = 0; i < count; i++)
+            result.add(records[(start + i) % records.length]);
+
+        return result;
+    }
+
+    /**
+     * <summary>
+     * Gibt die Anzahl aller bisher empfangenen Ereignisse zurück.
+     * </summary>
+     */
+    public synchronized long getTotalCount() {
+        return total;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(records, null);
+        next = 0;
+        total = 0;
+    }
+}
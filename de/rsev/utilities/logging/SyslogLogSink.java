@@ -0,0 +1,134 @@
+package de.rsev.utilities.logging;
+
+import de.rsev.utilities.logging.BaseLogger.LogLevel;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * <summary>
+ * Sendet Log-Ereignisse als RFC-5424-Nachrichten per UDP an einen
+ * Syslog-Daemon (standardmäßig localhost:514).
+ * Nachrichten über MAX_DATAGRAM Bytes werden abgeschnitten.
+ * Ein Formatter (setFormatter) bestimmt den MSG-Teil nach dem Header.
+ * </summary>
+ */
+public class SyslogLogSink extends BaseLogSink {
+
+    public static final int DEFAULT_PORT = 514;
+
+    /** <summary>Facility "user" laut RFC 5424.</summary> */
+    public static final int FACILITY_USER = 1;
+
+    private static final int MAX_DATAGRAM = 8192;
+
+    private final DatagramChannel channel;
+    private final InetSocketAddress target;
+    private final ByteBuffer packet = ByteBuffer.allocateDirect(MAX_DATAGRAM);
+    private final StringBuilder line = new StringBuilder(256);
+    private final String header;
+
+    private byte[] bytes = new byte[1024];
+    private volatile int facility = FACILITY_USER;
+
+    public SyslogLogSink() throws IOException {
+        this("localhost", DEFAULT_PORT, "rsev-utilities");
+    }
+
+    public SyslogLogSink(String host, int port, String appName) throws IOException {
+        super("syslog");
+
+        this.target = new InetSocketAddress(host, port);
+        this.channel = DatagramChannel.open();
+
+        // HOSTNAME APP-NAME PROCID MSGID STRUCTURED-DATA
+        this.header = " " + localHostName() + " " + appName + " "
+                + ProcessHandle.current().pid() + " - - ";
+    }
+
+    public void setFacility(int facility) {
+        this.facility = facility;
+    }
+
+    @Override
+    public void write(LogEvent event) throws IOException {
+        long second = Math.floorDiv(event.timestamp, 1_000_000_000L);
+        long nanos = Math.floorMod(event.timestamp, 1_000_000_000L);
+
+        line.setLength(0);
+        line.append('<').append(facility * 8 + severity(event.level)).append(">1 ");
+        line.append(DateTimeFormatter.ISO_INSTANT.format(
+                Instant.ofEpochSecond(second, nanos - nanos % 1000)));
+        line.append(header);
+
+        ILogEventFormatter formatter = getFormatter();
+        if (formatter != null) {
+            formatter.format(event, line);
+        } else {
+            appendMessage(event);
+        }
+
+        String text = line.toString();
+        if (bytes.length < text.length() * 3)
+            bytes = new byte[text.length() * 3];
+
+        int length = LogFormatter.encodeUtf8(text, bytes, 0);
+
+        packet.clear();
+        packet.put(bytes, 0, Math.min(length, MAX_DATAGRAM));
+        packet.flip();
+
+        // Unverbundener Kanal: fehlender Empfänger führt nicht zu Fehlern
+        channel.send(packet, target);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private void appendMessage(LogEvent event) {
+        if (event.loggerName != null)
+            line.append(event.loggerName).append(": ");
+
+        line.append(event.message);
+
+        String[] fields = event.fields;
+        if (fields != null) {
+            for (int i = 0; i + 1 < fields.length; i += 2)
+                line.append(' ').append(fields[i]).append('=').append(fields[i + 1]);
+        }
+    }
+
+    /**
+     * <summary>
+     * Bildet ein Log-Level auf den Syslog-Schweregrad ab.
+     * </summary>
+     */
+    private static int severity(LogLevel level) {
+        return switch (level) {
+            case CRITICAL -> 2;
+            case ERROR -> 3;
+            case WARNING -> 4;
+            case INFO -> 6;
+            case DEBUG -> 7;
+        };
+    }
+
+    private static String localHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException ex) {
+            return "-";
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package de.rsev.utilities.runtime;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <summary>
+ * Zentraler Executor für asynchrone Standard-Methoden
+ * (ISmtpClient.sendAsync, IConfig.loadAsync/saveAsync/getAsync,
+ * BaseProcessManager.executeCommandAsync).
+ *
+ * Diese Methoden blockieren auf Socket- oder Prozess-I/O und laufen
+ * deshalb nicht im ForkJoinPool.commonPool(), den sie sonst für
+ * parallele Streams der Anwendung blockieren würden.
+ *
+ * Standard ist ein Executor mit einem virtuellen Thread pro Aufgabe,
+ * sofern die JVM virtuelle Threads anbietet; andernfalls ein
+ * begrenzter Pool aus Daemon-Plattform-Threads. Mit setDefault()
+ * kann die Anwendung einen eigenen Executor vorgeben.
+ * </summary>
+ */
+public final class RuntimeExecutors {
+
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+
+    private static volatile Executor configured;
+    private static volatile Executor fallback;
+    private static volatile boolean virtual;
+
+    private RuntimeExecutors() {}
+
+    /* -----------------------------
+       Accessor Methods
+       ----------------------------- */
+
+    /**
+     * <summary>
+     * Gibt den Executor für asynchrone Standard-Methoden zurück.
+     * </summary>
+     */
+    public static Executor get() {
+        Executor executor = configured;
+        if (executor != null) return executor;
+
+        executor = fallback;
+        if (executor != null) return executor;
+
+        return createDefault();
+    }
+
+    /**
+     * <summary>
+     * Setzt einen anwendungsweiten Executor; null stellt den Standard wieder her.
+     * Der Aufrufer bleibt für das Beenden des Executors verantwortlich.
+     * </summary>
+     */
+    public static void setDefault(Executor executor) {
+        configured = executor;
+    }
+
+    /**
+     * <summary>
+     * Gibt an, ob der Standard-Executor virtuelle Threads verwendet.
+     * </summary>
+     */
+    public static boolean isVirtual() {
+        get();
+        return configured == null && virtual;
+    }
+
+    /* -----------------------------
+       Helper
+       ----------------------------- */
+
+    private static synchronized Executor createDefault() {
+        if (fallback != null) return fallback;
+
+        ExecutorService executor = newVirtualThreadExecutor();
+        virtual = executor != null;
+
+        if (executor == null)
+            executor = newPlatformPool();
+
+        fallback = executor;
+        return executor;
+    }
+
+    /**
+     * <summary>
+     * Erstellt Executors.newVirtualThreadPerTaskExecutor() per Reflection,
+     * damit die Bibliothek weiterhin auf älteren JDKs kompiliert und läuft.
+     * </summary>
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            // JDK ohne (oder nur mit Preview-) virtuellen Threads
+            return null;
+        }
+    }
+
+    /**
+     * <summary>
+     * Begrenzter Pool für blockierende I/O: 4 Threads pro CPU, mindestens 8.
+     * Ruhende Threads werden nach 60 Sekunden beendet.
+     * </summary>
+     */
+    private static ExecutorService newPlatformPool() {
+        int threads = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                threads, threads,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "rsev-async-" + THREAD_IDS.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
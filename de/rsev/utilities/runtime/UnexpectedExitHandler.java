@@ -23,4 +23,28 @@ public final class UnexpectedExitHandler {
     public static void register(Runnable cleanup) {
         Runtime.getRuntime().addShutdownHook(new Thread(cleanup));
     }
+
+    /**
+     * <summary>
+     * Registriert eine Logik, die bei einer nicht abgefangenen Exception
+     * in einem beliebigen Thread ausgeführt wird. Ein bereits gesetzter
+     * Default-Handler wird anschließend weiterhin aufgerufen.
+     * </summary>
+     */
+    public static synchronized void registerUncaught(Runnable handler) {
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+
+        Thread.setDefaultUncaughtExceptionHandler((thread, throwable) -> {
+            try {
+                handler.run();
+            } finally {
+                if (previous != null) {
+                    previous.uncaughtException(thread, throwable);
+                } else {
+                    System.err.print("Exception in thread \"" + thread.getName() + "\" ");
+                    throwable.printStackTrace();
+                }
+            }
+        });
+    }
 }
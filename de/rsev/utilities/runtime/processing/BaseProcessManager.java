@@ -1,8 +1,11 @@
 package de.rsev.utilities.runtime.processing;
 
+import de.rsev.utilities.runtime.RuntimeExecutors;
+
 import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * <summary>
@@ -81,11 +84,23 @@ public abstract class BaseProcessManager implements IProcessManager {
 
     /**
      * <summary>
-     * Führt einen System-Command asynchron aus.
+     * Führt einen System-Command asynchron aus (RuntimeExecutors.get()).
      * </summary>
      */
     @Override
     public CompletableFuture<Integer> executeCommandAsync(String command, List<String> args) {
+        return executeCommandAsync(command, args, RuntimeExecutors.get());
+    }
+
+    /**
+     * <summary>
+     * Führt einen System-Command auf dem angegebenen Executor aus.
+     * Der Executor-Thread blockiert, bis der Prozess beendet ist.
+     * </summary>
+     */
+    @Override
+    public CompletableFuture<Integer> executeCommandAsync(String command, List<String> args,
+                                                          Executor executor) {
         return CompletableFuture.supplyAsync(() -> {
             try {
                 ProcessBuilder pb = new ProcessBuilder();
@@ -98,7 +113,7 @@ public abstract class BaseProcessManager implements IProcessManager {
             } catch (IOException | InterruptedException e) {
                 throw new RuntimeException(e);
             }
-        });
+        }, executor);
     }
 
     /**
@@ -3,6 +3,7 @@ package de.rsev.utilities.runtime.processing;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import de.rsev.utilities.runtime.ShutdownSummary;
 
 /**
@@ -71,6 +72,18 @@ public interface IProcessManager {
      */
     CompletableFuture<Integer> executeCommandAsync(String command, List<String> args);
 
+    /**
+     * <summary>
+     * Führt einen Systembefehl auf dem angegebenen Executor aus.
+     * Standardmäßig wird executeCommandAsync(command, args) auf dem
+     * Executor gestartet; bestehende Implementierungen bleiben gültig.
+     * </summary>
+     */
+    default CompletableFuture<Integer> executeCommandAsync(String command, List<String> args, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> executeCommandAsync(command, args), executor)
+                .thenCompose(result -> result);
+    }
+
     /**
      * <summary>
      * Wird aufgerufen, wenn der Prozess unerwartet beendet wird.